@@ -0,0 +1,285 @@
+package org.example.calendar.event;
+
+import org.example.calendar.event.slot.EventSlotComparator;
+import org.example.calendar.event.slot.EventSlotMergeIterator;
+import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
+import org.example.calendar.event.slot.day.projection.mapper.DayEventSlotPublicProjectionRowMapper;
+import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
+import org.example.calendar.event.slot.time.projection.mapper.TimeEventSlotPublicProjectionRowMapper;
+import org.example.calendar.utils.DateUtils;
+import org.example.calendar.utils.EventUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/*
+    The CPU stages of GET /api/v1/events, each one measured on its own. Every stage gets the input the previous stage
+    would produce, built once per trial:
+        mapTimeEventSlots/mapDayEventSlots: the row mappers over the rows of findByUserInDateRange()
+        convertGuestEmails: the guest_emails array of every row to the sorted set of the projection
+        convertFromUTC: the start/end time of every TimeEventSlot to its timezone, as TimeEventSlotService does
+        sortTimeEventSlots: the stable sort by the converted start time, the list is almost sorted already
+        mergeEventSlots: the merge of the sorted DayEventSlots and TimeEventSlots with the EventSlotComparator
+        serializeEventSlots: the JSON array written element by element, as EventController writes the response
+
+    The result sets are synthetic. Half of the slots are DayEventSlots and half are TimeEventSlots, spread over a year
+    in 4 timezones, and every slot has the same number of guests. The ResultSet is a proxy over the rows. Like the
+    driver, it creates a Timestamp/Date and a String[] for every call, but it also allocates the arguments of every
+    call, so the mapping stages allocate a little more than they would with a real driver.
+
+    Run with -prof gc for the allocation of every stage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleReadPathBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    private int slots;
+    @Param({"0", "10", "100"})
+    private int guests;
+    private List<Map<String, Object>> timeEventSlotRows;
+    private List<Map<String, Object>> dayEventSlotRows;
+    private List<TimeEventSlotPublicProjection> utcTimeEventSlots;
+    private List<TimeEventSlotPublicProjection> localTimeEventSlots;
+    private List<TimeEventSlotPublicProjection> sortedTimeEventSlots;
+    private List<DayEventSlotPublicProjection> dayEventSlots;
+    private List<AbstractEventSlotPublicProjection> eventSlots;
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+    private static final ZoneId[] ZONE_IDS = {
+            ZoneId.of("Europe/Athens"),
+            ZoneId.of("America/Los_Angeles"),
+            ZoneId.of("Asia/Tokyo"),
+            ZoneId.of("UTC")
+    };
+
+    @Setup
+    public void setup() throws SQLException {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.parse("2025-01-01T00:00");
+        List<String> guestEmails = new ArrayList<>(this.guests);
+        for (int i = 0; i < this.guests; i++) {
+            guestEmails.add("guest" + i + "@example.com");
+        }
+
+        int timeEventSlotCount = this.slots / 2;
+        int dayEventSlotCount = this.slots - timeEventSlotCount;
+        // Sorted by start time/date, as the queries return them
+        List<LocalDateTime> startTimes = new ArrayList<>(timeEventSlotCount);
+        for (int i = 0; i < timeEventSlotCount; i++) {
+            startTimes.add(start.plusMinutes(random.nextInt(365 * 24 * 4) * 15L));
+        }
+        startTimes.sort(Comparator.naturalOrder());
+        List<LocalDate> startDates = new ArrayList<>(dayEventSlotCount);
+        for (int i = 0; i < dayEventSlotCount; i++) {
+            startDates.add(start.toLocalDate().plusDays(random.nextInt(365)));
+        }
+        startDates.sort(Comparator.naturalOrder());
+
+        this.timeEventSlotRows = new ArrayList<>(timeEventSlotCount);
+        for (int i = 0; i < timeEventSlotCount; i++) {
+            Map<String, Object> row = row(random, guestEmails);
+            ZoneId zoneId = ZONE_IDS[i % ZONE_IDS.length];
+            row.put("start_time", startTimes.get(i));
+            row.put("end_time", startTimes.get(i).plusMinutes(30L + random.nextInt(4) * 30L));
+            row.put("start_time_zone_id", zoneId.getId());
+            row.put("end_time_zone_id", zoneId.getId());
+            this.timeEventSlotRows.add(row);
+        }
+        this.dayEventSlotRows = new ArrayList<>(dayEventSlotCount);
+        for (int i = 0; i < dayEventSlotCount; i++) {
+            Map<String, Object> row = row(random, guestEmails);
+            row.put("start_date", startDates.get(i));
+            row.put("end_date", startDates.get(i).plusDays(random.nextInt(3)));
+            this.dayEventSlotRows.add(row);
+        }
+
+        this.utcTimeEventSlots = mapRows(this.timeEventSlotRows, new TimeEventSlotPublicProjectionRowMapper());
+        this.localTimeEventSlots = mapRows(this.timeEventSlotRows, new TimeEventSlotPublicProjectionRowMapper());
+        for (TimeEventSlotPublicProjection eventSlot : this.localTimeEventSlots) {
+            eventSlot.setStartTime(DateUtils.convertFromUTC(eventSlot.getStartTime(), eventSlot.getStartTimeZoneId()));
+            eventSlot.setEndTime(DateUtils.convertFromUTC(eventSlot.getEndTime(), eventSlot.getEndTimeZoneId()));
+        }
+        this.sortedTimeEventSlots = this.localTimeEventSlots.stream()
+                .sorted(Comparator.comparing(TimeEventSlotPublicProjection::getStartTime))
+                .toList();
+        this.dayEventSlots = mapRows(this.dayEventSlotRows, new DayEventSlotPublicProjectionRowMapper());
+        this.eventSlots = new ArrayList<>(this.slots);
+        new EventSlotMergeIterator(List.of(this.dayEventSlots.iterator(), this.sortedTimeEventSlots.iterator()), new EventSlotComparator())
+                .forEachRemaining(this.eventSlots::add);
+
+        // Same defaults as the ObjectMapper of Spring Boot, dates are written as ISO strings
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.writer = this.objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Benchmark
+    public List<TimeEventSlotPublicProjection> mapTimeEventSlots() throws SQLException {
+        return mapRows(this.timeEventSlotRows, new TimeEventSlotPublicProjectionRowMapper());
+    }
+
+    @Benchmark
+    public List<DayEventSlotPublicProjection> mapDayEventSlots() throws SQLException {
+        return mapRows(this.dayEventSlotRows, new DayEventSlotPublicProjectionRowMapper());
+    }
+
+    @Benchmark
+    public void convertGuestEmails(Blackhole blackhole) throws SQLException {
+        ResultSet resultSet = resultSet(this.timeEventSlotRows);
+        while (resultSet.next()) {
+            blackhole.consume(EventUtils.convertFromArray(resultSet.getArray("guest_emails")));
+        }
+    }
+
+    // The projections are not updated, so that every invocation converts the same UTC times
+    @Benchmark
+    public void convertFromUTC(Blackhole blackhole) {
+        for (TimeEventSlotPublicProjection eventSlot : this.utcTimeEventSlots) {
+            blackhole.consume(DateUtils.convertFromUTC(eventSlot.getStartTime(), eventSlot.getStartTimeZoneId()));
+            blackhole.consume(DateUtils.convertFromUTC(eventSlot.getEndTime(), eventSlot.getEndTimeZoneId()));
+        }
+    }
+
+    @Benchmark
+    public List<TimeEventSlotPublicProjection> sortTimeEventSlots() {
+        return this.localTimeEventSlots.stream()
+                .sorted(Comparator.comparing(TimeEventSlotPublicProjection::getStartTime))
+                .toList();
+    }
+
+    @Benchmark
+    public void mergeEventSlots(Blackhole blackhole) {
+        Iterator<AbstractEventSlotPublicProjection> iterator = new EventSlotMergeIterator(List.of(this.dayEventSlots.iterator(), this.sortedTimeEventSlots.iterator()), new EventSlotComparator());
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    public long serializeEventSlots() throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            for (AbstractEventSlotPublicProjection eventSlot : this.eventSlots) {
+                this.writer.writeValue(generator, eventSlot);
+            }
+            generator.writeEndArray();
+        }
+
+        return outputStream.count;
+    }
+
+    private Map<String, Object> row(Random random, List<String> guestEmails) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", UUID.randomUUID().toString());
+        row.put("event_id", UUID.randomUUID().toString());
+        row.put("title", "Event title " + random.nextInt(1000));
+        row.put("description", "Description of the event, with a few more words than the title " + random.nextInt(1000));
+        row.put("location", "Location " + random.nextInt(100));
+        row.put("username", "organizer" + random.nextInt(100));
+        row.put("guest_emails", guestEmails.toArray(new String[0]));
+
+        return row;
+    }
+
+    // Same as the RowMapperResultSetExtractor of JdbcClient.query().list()
+    private static <T> List<T> mapRows(List<Map<String, Object>> rows, RowMapper<T> rowMapper) throws SQLException {
+        ResultSet resultSet = resultSet(rows);
+        List<T> results = new ArrayList<>();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            results.add(rowMapper.mapRow(resultSet, rowNum++));
+        }
+
+        return results;
+    }
+
+    /*
+        A forward only ResultSet over the rows, with the getters the row mappers call. Any other method throws, so a
+        mapper that starts reading a new column fails the benchmark instead of reading null.
+     */
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] rowNum = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++rowNum[0] < rows.size();
+            case "getString" -> (String) column(rows, rowNum[0], args[0]);
+            case "getTimestamp" -> Timestamp.valueOf((LocalDateTime) column(rows, rowNum[0], args[0]));
+            case "getDate" -> Date.valueOf((LocalDate) column(rows, rowNum[0], args[0]));
+            case "getArray" -> array((String[]) column(rows, rowNum[0], args[0]));
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static Object column(List<Map<String, Object>> rows, int rowNum, Object columnLabel) throws SQLException {
+        Map<String, Object> row = rows.get(rowNum);
+        if (!row.containsKey(columnLabel)) {
+            throw new SQLException("The column name " + columnLabel + " was not found in this ResultSet.");
+        }
+
+        return row.get(columnLabel);
+    }
+
+    // The driver decodes a new String[] for every call
+    private static Array array(String[] elements) {
+        return (Array) Proxy.newProxyInstance(Array.class.getClassLoader(), new Class<?>[]{Array.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getArray" -> elements.clone();
+            case "free" -> null;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
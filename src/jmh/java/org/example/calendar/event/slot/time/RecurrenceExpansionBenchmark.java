@@ -0,0 +1,138 @@
+package org.example.calendar.event.slot.time;
+
+import org.example.calendar.entity.TimeEvent;
+import org.example.calendar.event.recurrence.MonthlyRecurrenceType;
+import org.example.calendar.event.recurrence.RecurrenceDuration;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
+import org.example.calendar.event.time.dto.TimeEventRequest;
+import org.example.calendar.user.UserRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/*
+    Cost of TimeEventSlotService.create() for every frequency and duration. The repository is a stub that only counts
+    the slots it receives, so the benchmark measures the expansion of the occurrences and the conversion of every one
+    of them to UTC. The stub is stubOnly(), it does not record its invocations, otherwise every invocation would be kept
+    in memory until the end of the run.
+
+    Events start at 2025-01-06T10:00 Europe/Athens and last 90 minutes. UNTIL_DATE events recur for 5 years,
+    N_OCCURRENCES events for 500 occurrences and FOREVER events are expanded for the materialization window, 1 year.
+    NEVER ignores the duration.
+
+    Besides the operations/s, JMH reports the occurrences counter, the slots created per second. With -prof gc, the
+    bytes allocated per occurrence are gc.alloc.rate.norm(bytes per operation) / (occurrences / operations).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceExpansionBenchmark {
+    @Param({"NEVER", "DAILY", "WEEKLY", "MONTHLY_SAME_DAY", "MONTHLY_SAME_WEEKDAY", "ANNUALLY"})
+    private String frequency;
+    @Param({"UNTIL_DATE", "N_OCCURRENCES", "FOREVER"})
+    private RecurrenceDuration duration;
+    private TimeEventSlotService underTest;
+    private TimeEventRequest request;
+    private TimeEvent event;
+    private int created;
+    private static final LocalDateTime START_TIME = LocalDateTime.parse("2025-01-06T10:00");
+    private static final ZoneId ZONE_ID = ZoneId.of("Europe/Athens");
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long occurrences;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TimeEventSlotRepository eventSlotRepository = mock(TimeEventSlotRepository.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            this.created = invocation.<List<?>>getArgument(0).size();
+            return null;
+        }).when(eventSlotRepository).create(anyList());
+        this.underTest = new TimeEventSlotService(eventSlotRepository, mock(UserRepository.class, withSettings().stubOnly()), mock(ApplicationEventPublisher.class, withSettings().stubOnly()));
+
+        RecurrenceFrequency recurrenceFrequency = RecurrenceFrequency.valueOf(this.frequency.startsWith("MONTHLY") ? "MONTHLY" : this.frequency);
+        MonthlyRecurrenceType monthlyRecurrenceType = switch (this.frequency) {
+            case "MONTHLY_SAME_DAY" -> MonthlyRecurrenceType.SAME_DAY;
+            case "MONTHLY_SAME_WEEKDAY" -> MonthlyRecurrenceType.SAME_WEEKDAY;
+            default -> null;
+        };
+        RecurrenceDuration recurrenceDuration = recurrenceFrequency == RecurrenceFrequency.NEVER ? null : this.duration;
+        EnumSet<DayOfWeek> weeklyRecurrenceDays = recurrenceFrequency == RecurrenceFrequency.WEEKLY ? EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY) : null;
+        LocalDate recurrenceEndDate = recurrenceDuration == RecurrenceDuration.UNTIL_DATE ? START_TIME.toLocalDate().plusYears(5) : null;
+        Integer numberOfOccurrences = recurrenceDuration == RecurrenceDuration.N_OCCURRENCES ? 500 : null;
+
+        this.request = TimeEventRequest.builder()
+                .title("Event title")
+                .location("Location")
+                .description("Description")
+                .startTime(START_TIME)
+                .endTime(START_TIME.plusMinutes(90))
+                .startTimeZoneId(ZONE_ID)
+                .endTimeZoneId(ZONE_ID)
+                .guestEmails(Set.of())
+                .recurrenceFrequency(recurrenceFrequency)
+                .recurrenceStep(1)
+                .weeklyRecurrenceDays(weeklyRecurrenceDays)
+                .monthlyRecurrenceType(monthlyRecurrenceType)
+                .recurrenceDuration(recurrenceDuration)
+                .recurrenceEndDate(recurrenceEndDate)
+                .numberOfOccurrences(numberOfOccurrences)
+                .build();
+        this.event = TimeEvent.builder()
+                .id(UUID.randomUUID())
+                .organizerId(1L)
+                .startTime(START_TIME)
+                .endTime(START_TIME.plusMinutes(90))
+                .startTimeZoneId(ZONE_ID)
+                .endTimeZoneId(ZONE_ID)
+                .recurrenceFrequency(recurrenceFrequency)
+                .recurrenceStep(1)
+                .weeklyRecurrenceDays(weeklyRecurrenceDays)
+                .monthlyRecurrenceType(monthlyRecurrenceType)
+                .recurrenceDuration(recurrenceDuration)
+                .recurrenceEndDate(recurrenceEndDate)
+                .numberOfOccurrences(numberOfOccurrences)
+                .materializedUntil(recurrenceDuration == RecurrenceDuration.FOREVER ? START_TIME.toLocalDate().plusYears(1) : null)
+                .build();
+    }
+
+    @Benchmark
+    public int create(Counters counters) {
+        this.underTest.create(this.request, this.event);
+        counters.occurrences += this.created;
+
+        return this.created;
+    }
+}
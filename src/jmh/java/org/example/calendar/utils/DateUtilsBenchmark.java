@@ -0,0 +1,98 @@
+package org.example.calendar.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/*
+    The DateUtils methods that are called for every occurrence of an event. Every invocation takes the next input of a
+    precomputed array, so that the JIT can't fold the result to a constant. The inputs cover 4 years, including a leap
+    year and the DST transitions of the time zones.
+
+    findDateOfNthDayOfWeekInMonth() is called with the 2nd occurrence, every month has one. The 5th would log the
+    fallback for most months and the benchmark would measure the logger.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateUtilsBenchmark {
+    private YearMonth[] yearMonths;
+    private LocalDate[] dates;
+    private LocalDateTime[] dateTimes;
+    private ZoneId[] zoneIds;
+    private int index;
+    private static final int SIZE = 1024;
+    private static final ZoneId[] ZONE_IDS = {
+            ZoneId.of("Europe/Athens"),
+            ZoneId.of("America/Los_Angeles"),
+            ZoneId.of("Asia/Tokyo"),
+            ZoneId.of("Australia/Sydney")
+    };
+
+    @Setup
+    public void setup() {
+        this.yearMonths = new YearMonth[SIZE];
+        this.dates = new LocalDate[SIZE];
+        this.dateTimes = new LocalDateTime[SIZE];
+        this.zoneIds = new ZoneId[SIZE];
+        LocalDateTime start = LocalDateTime.parse("2024-01-01T00:00");
+        for (int i = 0; i < SIZE; i++) {
+            // 1024 steps of 34 hours, about 4 years, at every hour of the day
+            LocalDateTime dateTime = start.plusHours(i * 34L);
+            this.dateTimes[i] = dateTime;
+            this.dates[i] = dateTime.toLocalDate();
+            this.yearMonths[i] = YearMonth.from(dateTime);
+            this.zoneIds[i] = ZONE_IDS[i % ZONE_IDS.length];
+        }
+    }
+
+    @Benchmark
+    public LocalDate findDateOfNthDayOfWeekInMonth() {
+        int i = next();
+        return DateUtils.findDateOfNthDayOfWeekInMonth(this.yearMonths[i], DayOfWeek.of(i % 7 + 1), 2);
+    }
+
+    // The last day of the month, adjusted for every month
+    @Benchmark
+    public LocalDate adjustDateForMonth() {
+        return DateUtils.adjustDateForMonth(31, this.dates[next()]);
+    }
+
+    @Benchmark
+    public LocalDateTime convertToUTC() {
+        int i = next();
+        return DateUtils.convertToUTC(this.dateTimes[i], this.zoneIds[i]);
+    }
+
+    @Benchmark
+    public long timeZoneAwareDifference() {
+        int i = next();
+        int j = (i + 1) & (SIZE - 1);
+        return DateUtils.timeZoneAwareDifference(this.dateTimes[i], this.zoneIds[i], this.dateTimes[j], this.zoneIds[j], ChronoUnit.MINUTES);
+    }
+
+    private int next() {
+        int i = this.index;
+        this.index = (i + 1) & (SIZE - 1);
+
+        return i;
+    }
+}
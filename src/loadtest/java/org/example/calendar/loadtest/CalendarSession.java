@@ -0,0 +1,85 @@
+package org.example.calendar.loadtest;
+
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+    A logged-in user of the API, as the browser would hold it. The cookies are kept per session, the HttpClient is
+    shared. Like AuthIT, the access token is sent to the API, the refresh token only to /token/refresh, and every POST
+    carries the XSRF-TOKEN cookie in the X-XSRF-TOKEN header, the double submit pattern of SecurityConfig.
+
+    A session is used by 1 thread at a time, the tokens rotate on every refresh.
+ */
+class CalendarSession {
+    private static final String ACCESS_TOKEN = "ACCESS_TOKEN";
+    private static final String REFRESH_TOKEN = "REFRESH_TOKEN";
+    private static final String XSRF_TOKEN = "XSRF-TOKEN";
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final Map<String, String> cookies = new HashMap<>();
+
+    CalendarSession(HttpClient httpClient, URI baseUri) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+    }
+
+    // The CSRF token is requested first, the login is the form login of Spring Security
+    void login(String email, String password) throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder(this.baseUri.resolve("/api/v1/auth/token/csrf")).GET());
+        String form = "username=" + URLEncoder.encode(email, StandardCharsets.UTF_8) + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        send(HttpRequest.newBuilder(this.baseUri.resolve("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("X-XSRF-TOKEN", this.cookies.getOrDefault(XSRF_TOKEN, ""))
+                .header("Cookie", cookieHeader(XSRF_TOKEN))
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+        if (!this.cookies.containsKey(ACCESS_TOKEN)) {
+            throw new IllegalStateException("Failed to log in as " + email);
+        }
+    }
+
+    HttpResponse<byte[]> get(String pathAndQuery) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(this.baseUri.resolve(pathAndQuery))
+                .header("Cookie", cookieHeader(ACCESS_TOKEN, XSRF_TOKEN))
+                .GET());
+    }
+
+    HttpResponse<byte[]> refresh() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(this.baseUri.resolve("/api/v1/auth/token/refresh"))
+                .header("X-XSRF-TOKEN", this.cookies.getOrDefault(XSRF_TOKEN, ""))
+                .header("Cookie", cookieHeader(REFRESH_TOKEN, XSRF_TOKEN))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = this.httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        // A cookie with Max-Age=0 is removed, as the browser would remove it
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(header)) {
+                if (cookie.getMaxAge() == 0) {
+                    this.cookies.remove(cookie.getName());
+                } else {
+                    this.cookies.put(cookie.getName(), cookie.getValue());
+                }
+            }
+        }
+
+        return response;
+    }
+
+    private String cookieHeader(String... names) {
+        return Arrays.stream(names)
+                .filter(this.cookies::containsKey)
+                .map(name -> name + "=" + this.cookies.get(name))
+                .collect(Collectors.joining("; "));
+    }
+}
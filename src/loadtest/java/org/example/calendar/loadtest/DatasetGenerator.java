@@ -0,0 +1,416 @@
+package org.example.calendar.loadtest;
+
+import org.example.calendar.entity.DayEvent;
+import org.example.calendar.entity.TimeEvent;
+import org.example.calendar.event.AbstractEvent;
+import org.example.calendar.event.day.DayEventRepository;
+import org.example.calendar.event.day.dto.DayEventRequest;
+import org.example.calendar.event.dto.AbstractEventRequest;
+import org.example.calendar.event.groups.OnCreate;
+import org.example.calendar.event.recurrence.MonthlyRecurrenceType;
+import org.example.calendar.event.recurrence.RecurrenceDuration;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
+import org.example.calendar.event.slot.day.DayEventSlotService;
+import org.example.calendar.event.slot.time.TimeEventSlotService;
+import org.example.calendar.event.slot.day.DayEventSlotRepository;
+import org.example.calendar.event.slot.time.TimeEventSlotRepository;
+import org.example.calendar.event.time.TimeEventRepository;
+import org.example.calendar.event.time.dto.TimeEventRequest;
+import org.example.calendar.user.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+import net.datafaker.Faker;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Seeds a database with a synthetic dataset at production scale, for LoadTest. The schema must have been created by
+    Flyway, start the application once against the database before seeding it. The database should be empty, LoadTest
+    logs in as any user of the database with the password of the seeded users.
+
+        users:               every user has a datafaker name, and an email made unique by its index. They all have
+                             the same PASSWORD, hashed once, BCrypt takes ~100 ms per hash
+        contacts:            every user has about contactsPerUser contacts. Most of them are in the same community, a
+                             window of COMMUNITY_SIZE users around the user, the rest are anywhere, like a small world
+                             graph. The guests of the events of a user are picked from their contacts, so a user both
+                             organizes events and is invited to the events of the people they know
+        events:              eventsPerUser on average, in the next 90 days, in the timezone of the user. The mix is in
+                             EventKind, one-off meetings, weekly forever meetings, daily series, monthly reviews, all
+                             day events, annual birthdays
+
+    The events are created with the repositories and the slot services of the application, the slots are expanded by
+    the same code that expands them on POST /api/v1/events. Every request is validated with the constraints of the
+    controller first, a request the API would reject is not created. The invitation emails are not sent.
+
+    Properties, -Dloadtest.<name>:
+        jdbc-url, jdbc-username, jdbc-password   the database, defaults to the one of application.yaml
+        users                                    100000
+        contacts-per-user                        20
+        events-per-user                          4
+        threads                                  the number of processors, every thread seeds a range of users
+        seed                                     42, the same seed generates the same dataset
+ */
+public class DatasetGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+    static final String PASSWORD = "Load-test-password-1";
+    private static final int COMMUNITY_SIZE = 500;
+    private static final int BATCH_SIZE = 1000;
+    private static final List<ZoneId> ZONE_IDS = List.of(
+            ZoneId.of("Europe/London"),
+            ZoneId.of("Europe/Athens"),
+            ZoneId.of("America/New_York"),
+            ZoneId.of("America/Los_Angeles"),
+            ZoneId.of("Asia/Tokyo"),
+            ZoneId.of("UTC")
+    );
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DayEventRepository dayEventRepository;
+    private final TimeEventRepository timeEventRepository;
+    private final DayEventSlotService dayEventSlotService;
+    private final TimeEventSlotService timeEventSlotService;
+    private final Validator validator;
+    private final long seed;
+    private final AtomicLong skippedEvents = new AtomicLong();
+
+    DatasetGenerator(HikariDataSource dataSource, Validator validator, long seed) {
+        JdbcClient jdbcClient = JdbcClient.create(dataSource);
+        UserRepository userRepository = new UserRepository(jdbcClient);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.dayEventRepository = new DayEventRepository(jdbcClient);
+        this.timeEventRepository = new TimeEventRepository(jdbcClient);
+        // The ScheduleChangedEvents are ignored, nothing is cached yet
+        this.dayEventSlotService = new DayEventSlotService(new DayEventSlotRepository(jdbcClient), userRepository, event -> {});
+        this.timeEventSlotService = new TimeEventSlotService(new TimeEventSlotRepository(jdbcClient), userRepository, event -> {});
+        this.validator = validator;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 100_000);
+        int contactsPerUser = Integer.getInteger("loadtest.contacts-per-user", 20);
+        int eventsPerUser = Integer.getInteger("loadtest.events-per-user", 4);
+        int threads = Integer.getInteger("loadtest.threads", Runtime.getRuntime().availableProcessors());
+        long seed = Long.getLong("loadtest.seed", 42);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("loadtest.jdbc-url", "jdbc:postgresql://localhost:5432/calendar"));
+        config.setUsername(System.getProperty("loadtest.jdbc-username", "postgres"));
+        config.setPassword(System.getProperty("loadtest.jdbc-password", "postgres"));
+        // The batches of JdbcTemplate are sent as multi-row INSERTs
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        config.setMaximumPoolSize(threads);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config);
+             ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            DatasetGenerator generator = new DatasetGenerator(dataSource, validatorFactory.getValidator(), seed);
+            long start = System.nanoTime();
+            List<SeededUser> seededUsers = generator.createUsers(users);
+            logger.info("Created {} users in {} s", seededUsers.size(), seconds(start));
+
+            int[][] contacts = generator.createContacts(seededUsers, contactsPerUser);
+            logger.info("Created the contacts of {} users in {} s", seededUsers.size(), seconds(start));
+
+            long events = generator.createEvents(seededUsers, contacts, eventsPerUser, threads);
+            logger.info("Created {} events in {} s, {} requests were invalid and skipped", events, seconds(start), generator.skippedEvents.get());
+
+            generator.jdbcTemplate.execute("ANALYZE");
+        }
+    }
+
+    private List<SeededUser> createUsers(int count) {
+        Faker faker = new Faker(Locale.ENGLISH, new Random(this.seed));
+        String password = new BCryptPasswordEncoder().encode(PASSWORD);
+        Long maxId = this.jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM users", Long.class);
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            String firstName = faker.name().firstName();
+            String lastName = faker.name().lastName();
+            String localPart = (firstName + "." + lastName).toLowerCase(Locale.ENGLISH).replaceAll("[^a-z.]", "") + "." + i;
+            batch.add(new Object[]{faker.internet().emailAddress(localPart), firstName + " " + lastName, password});
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                this.jdbcTemplate.batchUpdate("INSERT INTO users(email, username, password) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        Random random = new Random(this.seed);
+        return this.jdbcTemplate.query("SELECT id, email FROM users WHERE id > ? ORDER BY id",
+                (resultSet, rowNum) -> new SeededUser(resultSet.getLong("id"), resultSet.getString("email"), ZONE_IDS.get(random.nextInt(ZONE_IDS.size()))),
+                maxId);
+    }
+
+    /*
+        The contacts are stored once per pair, with the smaller id first. A pair that was already picked by the other
+        user is skipped by the primary key. The graph is kept in memory as an adjacency list of the indexes of the users.
+     */
+    private int[][] createContacts(List<SeededUser> users, int contactsPerUser) {
+        Random random = new Random(this.seed);
+        List<Set<Integer>> graph = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            graph.add(new HashSet<>());
+        }
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < users.size(); i++) {
+            int contacts = contactsPerUser / 2 + random.nextInt(contactsPerUser + 1);
+            for (int j = 0; j < contacts && users.size() > 1; j++) {
+                int contact = random.nextInt(10) < 8
+                        ? Math.floorMod(i + random.nextInt(COMMUNITY_SIZE) - COMMUNITY_SIZE / 2, users.size())
+                        : random.nextInt(users.size());
+                if (contact == i || !graph.get(i).add(contact)) {
+                    continue;
+                }
+                graph.get(contact).add(i);
+                long id = users.get(i).id();
+                long contactId = users.get(contact).id();
+                batch.add(new Object[]{Math.min(id, contactId), Math.max(id, contactId)});
+            }
+            if (batch.size() >= BATCH_SIZE || i == users.size() - 1) {
+                this.jdbcTemplate.batchUpdate("INSERT INTO contacts(user_id_1, user_id_2) VALUES (?, ?) ON CONFLICT DO NOTHING", batch);
+                batch.clear();
+            }
+        }
+
+        int[][] contacts = new int[users.size()][];
+        for (int i = 0; i < users.size(); i++) {
+            contacts[i] = graph.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return contacts;
+    }
+
+    // Every thread seeds its own range of users, with its own Faker and Random, the events of a user are 1 transaction
+    private long createEvents(List<SeededUser> users, int[][] contacts, int eventsPerUser, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger seededUsers = new AtomicInteger();
+        List<Future<Long>> futures = new ArrayList<>(threads);
+        int rangeSize = (users.size() + threads - 1) / threads;
+        for (int t = 0; t < threads; t++) {
+            int from = t * rangeSize;
+            int to = Math.min(from + rangeSize, users.size());
+            long threadSeed = this.seed + t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(threadSeed);
+                Faker faker = new Faker(Locale.ENGLISH, random);
+                long events = 0;
+                for (int i = from; i < to; i++) {
+                    int index = i;
+                    int count = random.nextInt(2 * eventsPerUser + 1);
+                    events += this.transactionTemplate.execute(status -> createEvents(users, contacts[index], users.get(index), count, faker, random));
+                    int seeded = seededUsers.incrementAndGet();
+                    if (seeded % 10_000 == 0) {
+                        logger.info("Created the events of {} users", seeded);
+                    }
+                }
+                return events;
+            }));
+        }
+        executor.shutdown();
+
+        long events = 0;
+        for (Future<Long> future : futures) {
+            events += future.get();
+        }
+        return events;
+    }
+
+    private long createEvents(List<SeededUser> users, int[] contacts, SeededUser organizer, int count, Faker faker, Random random) {
+        long created = 0;
+        for (int i = 0; i < count; i++) {
+            EventKind kind = EventKind.pick(random);
+            Set<String> guestEmails = new HashSet<>();
+            int guests = random.nextInt(10) < 4 ? 0 : 1 + random.nextInt(Math.min(8, contacts.length + 1));
+            for (int j = 0; j < guests && contacts.length > 0; j++) {
+                guestEmails.add(users.get(contacts[random.nextInt(contacts.length)]).email());
+            }
+
+            AbstractEventRequest eventRequest = kind.request(organizer.zoneId(), LocalDate.now(organizer.zoneId()).plusDays(1 + random.nextInt(90)), random);
+            // The title and the location of a slot are VARCHAR(50)
+            eventRequest.setTitle(truncate(kind.dayEvent ? faker.book().title() : faker.company().catchPhrase()));
+            eventRequest.setLocation(random.nextBoolean() ? truncate(faker.address().cityName()) : null);
+            eventRequest.setDescription(random.nextBoolean() ? faker.lorem().sentence() : null);
+            eventRequest.setGuestEmails(guestEmails);
+            if (!this.validator.validate(eventRequest, OnCreate.class).isEmpty()) {
+                this.skippedEvents.incrementAndGet();
+                continue;
+            }
+
+            if (eventRequest instanceof DayEventRequest dayEventRequest) {
+                DayEvent event = DayEvent.builder()
+                        .startDate(dayEventRequest.getStartDate())
+                        .endDate(dayEventRequest.getEndDate())
+                        .organizerId(organizer.id())
+                        .build();
+                setRecurrenceProperties(dayEventRequest, event, dayEventRequest.getStartDate());
+                this.dayEventRepository.create(event);
+                this.dayEventSlotService.create(dayEventRequest, event);
+            } else if (eventRequest instanceof TimeEventRequest timeEventRequest) {
+                TimeEvent event = TimeEvent.builder()
+                        .startTime(timeEventRequest.getStartTime())
+                        .endTime(timeEventRequest.getEndTime())
+                        .startTimeZoneId(timeEventRequest.getStartTimeZoneId())
+                        .endTimeZoneId(timeEventRequest.getEndTimeZoneId())
+                        .organizerId(organizer.id())
+                        .build();
+                setRecurrenceProperties(timeEventRequest, event, LocalDate.from(timeEventRequest.getStartTime()));
+                this.timeEventRepository.create(event);
+                this.timeEventSlotService.create(timeEventRequest, event);
+            }
+            created++;
+        }
+
+        return created;
+    }
+
+    // As DayEventService/TimeEventService.createEvent() set them, FOREVER events are expanded for 1 year
+    private static void setRecurrenceProperties(AbstractEventRequest eventRequest, AbstractEvent event, LocalDate startDate) {
+        event.setRecurrenceFrequency(eventRequest.getRecurrenceFrequency());
+        event.setRecurrenceStep(eventRequest.getRecurrenceStep());
+        event.setWeeklyRecurrenceDays(eventRequest.getWeeklyRecurrenceDays());
+        event.setMonthlyRecurrenceType(eventRequest.getMonthlyRecurrenceType());
+        event.setRecurrenceDuration(eventRequest.getRecurrenceDuration());
+        event.setRecurrenceEndDate(eventRequest.getRecurrenceEndDate());
+        event.setNumberOfOccurrences(eventRequest.getNumberOfOccurrences());
+        if (eventRequest.getRecurrenceFrequency() != RecurrenceFrequency.NEVER && eventRequest.getRecurrenceDuration() == RecurrenceDuration.FOREVER) {
+            event.setMaterializedUntil(startDate.plusYears(1));
+        }
+    }
+
+    private static String truncate(String value) {
+        return value.length() <= 50 ? value : value.substring(0, 50);
+    }
+
+    private static long seconds(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toSeconds();
+    }
+
+    record SeededUser(long id, String email, ZoneId zoneId) {
+    }
+
+    /*
+        The kinds of events and how often they are picked, out of 100. Time events start at a quarter of an hour during
+        working hours, in the timezone of the organizer.
+     */
+    enum EventKind {
+        MEETING(35, false),
+        WEEKLY_MEETING(25, false),
+        DAILY_SERIES(10, false),
+        MONTHLY_REVIEW(10, false),
+        ALL_DAY(10, true),
+        BIRTHDAY(5, true),
+        MONTHLY_ALL_DAY(5, true);
+
+        private final int weight;
+        private final boolean dayEvent;
+
+        EventKind(int weight, boolean dayEvent) {
+            this.weight = weight;
+            this.dayEvent = dayEvent;
+        }
+
+        static EventKind pick(Random random) {
+            int value = random.nextInt(100);
+            for (EventKind kind : values()) {
+                value -= kind.weight;
+                if (value < 0) {
+                    return kind;
+                }
+            }
+            return MEETING;
+        }
+
+        AbstractEventRequest request(ZoneId zoneId, LocalDate startDate, Random random) {
+            AbstractEventRequest eventRequest;
+            if (this.dayEvent) {
+                int days = this == ALL_DAY ? random.nextInt(3) : 0;
+                eventRequest = DayEventRequest.builder()
+                        .startDate(startDate)
+                        .endDate(startDate.plusDays(days))
+                        .build();
+            } else {
+                LocalDateTime startTime = startDate.atTime(LocalTime.of(8 + random.nextInt(9), 15 * random.nextInt(4)));
+                eventRequest = TimeEventRequest.builder()
+                        .startTime(startTime)
+                        .endTime(startTime.plusMinutes(30L * (1 + random.nextInt(3))))
+                        .startTimeZoneId(zoneId)
+                        .endTimeZoneId(zoneId)
+                        .build();
+            }
+
+            eventRequest.setRecurrenceFrequency(RecurrenceFrequency.NEVER);
+            switch (this) {
+                case WEEKLY_MEETING -> {
+                    EnumSet<DayOfWeek> days = EnumSet.of(startDate.getDayOfWeek());
+                    if (random.nextInt(4) == 0) {
+                        days.add(startDate.getDayOfWeek().plus(2));
+                    }
+                    eventRequest.setRecurrenceFrequency(RecurrenceFrequency.WEEKLY);
+                    eventRequest.setRecurrenceStep(1 + random.nextInt(2));
+                    eventRequest.setWeeklyRecurrenceDays(days);
+                    eventRequest.setRecurrenceDuration(RecurrenceDuration.FOREVER);
+                }
+                case DAILY_SERIES -> {
+                    eventRequest.setRecurrenceFrequency(RecurrenceFrequency.DAILY);
+                    eventRequest.setRecurrenceStep(1);
+                    eventRequest.setRecurrenceDuration(RecurrenceDuration.N_OCCURRENCES);
+                    eventRequest.setNumberOfOccurrences(5 + random.nextInt(16));
+                }
+                case MONTHLY_REVIEW -> {
+                    eventRequest.setRecurrenceFrequency(RecurrenceFrequency.MONTHLY);
+                    eventRequest.setRecurrenceStep(1);
+                    eventRequest.setMonthlyRecurrenceType(MonthlyRecurrenceType.SAME_DAY);
+                    eventRequest.setRecurrenceDuration(RecurrenceDuration.UNTIL_DATE);
+                    eventRequest.setRecurrenceEndDate(startDate.plusMonths(6 + random.nextInt(7)));
+                }
+                case BIRTHDAY -> {
+                    eventRequest.setRecurrenceFrequency(RecurrenceFrequency.ANNUALLY);
+                    eventRequest.setRecurrenceStep(1);
+                    eventRequest.setRecurrenceDuration(RecurrenceDuration.FOREVER);
+                }
+                case MONTHLY_ALL_DAY -> {
+                    eventRequest.setRecurrenceFrequency(RecurrenceFrequency.MONTHLY);
+                    eventRequest.setRecurrenceStep(1);
+                    eventRequest.setMonthlyRecurrenceType(MonthlyRecurrenceType.SAME_WEEKDAY);
+                    eventRequest.setRecurrenceDuration(RecurrenceDuration.N_OCCURRENCES);
+                    eventRequest.setNumberOfOccurrences(12);
+                }
+                default -> {
+                }
+            }
+
+            return eventRequest;
+        }
+    }
+}
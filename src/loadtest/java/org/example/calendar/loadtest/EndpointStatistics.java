@@ -0,0 +1,52 @@
+package org.example.calendar.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    The latencies of 1 endpoint in microseconds, up to 1 minute with 3 significant digits. The percentiles are exact
+    up to that precision, they are not averaged over windows like the ones of a Micrometer Timer. A response that is
+    not 2xx is counted as an error, its latency is recorded too, an error that returns fast should not hide in the
+    percentiles.
+ */
+class EndpointStatistics {
+    private final String endpoint;
+    private final Histogram histogram = new ConcurrentHistogram(60_000_000L, 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStatistics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long nanos, boolean error) {
+        this.histogram.recordValue(Math.min(nanos / 1_000, this.histogram.getHighestTrackableValue()));
+        if (error) {
+            this.errors.increment();
+        }
+    }
+
+    static String header() {
+        return String.format(Locale.ENGLISH, "%-45s %9s %7s %9s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    String row(double seconds) {
+        return String.format(Locale.ENGLISH, "%-45s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                this.endpoint,
+                this.histogram.getTotalCount(),
+                this.errors.sum(),
+                this.histogram.getTotalCount() / seconds,
+                millis(this.histogram.getValueAtPercentile(50)),
+                millis(this.histogram.getValueAtPercentile(90)),
+                millis(this.histogram.getValueAtPercentile(99)),
+                millis(this.histogram.getValueAtPercentile(99.9)),
+                millis(this.histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+}
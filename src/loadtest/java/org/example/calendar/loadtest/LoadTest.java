@@ -0,0 +1,241 @@
+package org.example.calendar.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+    Drives the REST API of a running application with a closed workload: every worker thread sends the next request as
+    soon as the previous one returned, as a user of the sessions it owns. The sessions are logged in first, as users
+    of a database seeded by DatasetGenerator, with its password. The requests of the warmup are not recorded.
+
+    The workload is a weighted mix of:
+        schedule   GET /api/v1/events, a week or a month in the next 3 months
+        page       GET /api/v1/events/page, the first page of a month
+        slot       GET /api/v1/event-slots/{day|time}-event-slots/{slotId}, a slot of the last schedule of the session
+        refresh    POST /api/v1/auth/token/refresh, the tokens of the session rotate
+
+    At the end, the latency percentiles and the throughput of every endpoint are printed. The database time of the
+    requests is in the access log of the application, see DatabaseTimeFilter.
+
+    Properties, -Dloadtest.<name>:
+        base-url                                 http://localhost:8080
+        jdbc-url, jdbc-username, jdbc-password   the database to pick the users from, as for DatasetGenerator
+        sessions                                 200, the users that are logged in
+        concurrency                              32, the worker threads
+        warmup                                   PT30S
+        duration                                 PT2M, after the warmup
+        mix                                      schedule:60,page:10,slot:20,refresh:10
+        seed                                     42
+ */
+public class LoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private final Map<String, EndpointStatistics> statistics = new LinkedHashMap<>();
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+    private volatile boolean recording;
+
+    LoadTest(Map<String, Integer> mix) {
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        for (String endpoint : List.of(
+                "GET /api/v1/events",
+                "GET /api/v1/events/page",
+                "GET /api/v1/event-slots/day-event-slots/{id}",
+                "GET /api/v1/event-slots/time-event-slots/{id}",
+                "POST /api/v1/auth/token/refresh")) {
+            this.statistics.put(endpoint, new EndpointStatistics(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI baseUri = URI.create(System.getProperty("loadtest.base-url", "http://localhost:8080"));
+        int sessionCount = Integer.getInteger("loadtest.sessions", 200);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT30S"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT2M"));
+        long seed = Long.getLong("loadtest.seed", 42);
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : System.getProperty("loadtest.mix", "schedule:60,page:10,slot:20,refresh:10").split(",")) {
+            String[] weight = entry.split(":");
+            mix.put(weight[0].strip(), Integer.parseInt(weight[1].strip()));
+        }
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("loadtest.jdbc-url", "jdbc:postgresql://localhost:5432/calendar"),
+                System.getProperty("loadtest.jdbc-username", "postgres"),
+                System.getProperty("loadtest.jdbc-password", "postgres"));
+        List<String> emails = JdbcClient.create(dataSource)
+                .sql("SELECT email FROM users ORDER BY md5(id::text || :seed) LIMIT :limit")
+                .param("seed", String.valueOf(seed))
+                .param("limit", sessionCount)
+                .query(String.class)
+                .list();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<CalendarSession> sessions = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            CalendarSession session = new CalendarSession(httpClient, baseUri);
+            session.login(email, DatasetGenerator.PASSWORD);
+            sessions.add(session);
+        }
+        logger.info("Logged in {} users, running {} workers for {} after a warmup of {}", sessions.size(), concurrency, duration, warmup);
+
+        new LoadTest(mix).run(sessions, concurrency, warmup, duration, seed);
+        System.exit(0);
+    }
+
+    // Every worker owns every concurrency-th session, so a session is never used by 2 threads
+    private void run(List<CalendarSession> sessions, int concurrency, Duration warmup, Duration duration, long seed) throws Exception {
+        long end = System.nanoTime() + warmup.plus(duration).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int w = 0; w < concurrency; w++) {
+            List<SessionState> owned = new ArrayList<>();
+            for (int i = w; i < sessions.size(); i += concurrency) {
+                owned.add(new SessionState(sessions.get(i)));
+            }
+            if (!owned.isEmpty()) {
+                futures.add(executor.submit(new Worker(owned, new Random(seed + w), end)));
+            }
+        }
+        executor.shutdown();
+
+        Thread.sleep(warmup.toMillis());
+        this.recording = true;
+        long start = System.nanoTime();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        StringBuilder report = new StringBuilder(System.lineSeparator()).append(EndpointStatistics.header());
+        for (EndpointStatistics endpointStatistics : this.statistics.values()) {
+            report.append(System.lineSeparator()).append(endpointStatistics.row(seconds));
+        }
+        logger.info("Results of {} s, {} workers:{}", Math.round(seconds), futures.size(), report);
+    }
+
+    private void record(String endpoint, long startNanos, HttpResponse<?> response) {
+        if (this.recording) {
+            this.statistics.get(endpoint).record(System.nanoTime() - startNanos, response.statusCode() / 100 != 2);
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final List<SessionState> states;
+        private final Random random;
+        private final long endNanos;
+
+        private Worker(List<SessionState> states, Random random, long endNanos) {
+            this.states = states;
+            this.random = random;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < this.endNanos) {
+                SessionState state = this.states.get(this.random.nextInt(this.states.size()));
+                try {
+                    switch (pick()) {
+                        case "schedule" -> schedule(state);
+                        case "page" -> page(state);
+                        case "slot" -> slot(state);
+                        case "refresh" -> refresh(state);
+                        default -> throw new IllegalArgumentException("Unknown request of the mix");
+                    }
+                } catch (IOException ioe) {
+                    logger.warn("Request failed: {}", ioe.getMessage());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private String pick() {
+            int value = this.random.nextInt(totalWeight);
+            for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+                value -= entry.getValue();
+                if (value < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("The weights of the mix must be positive");
+        }
+
+        // The slots of the response are kept for the slot requests of the session
+        private void schedule(SessionState state) throws IOException, InterruptedException {
+            LocalDate start = LocalDate.now().plusDays(this.random.nextInt(90));
+            LocalDate end = this.random.nextBoolean() ? start.plusWeeks(1) : start.plusMonths(1);
+            long startNanos = System.nanoTime();
+            HttpResponse<byte[]> response = state.session.get("/api/v1/events?start=" + start + "&end=" + end);
+            record("GET /api/v1/events", startNanos, response);
+            if (response.statusCode() == 200) {
+                state.slots.clear();
+                for (JsonNode slot : OBJECT_MAPPER.readTree(response.body())) {
+                    state.slots.add(slot);
+                }
+            }
+        }
+
+        private void page(SessionState state) throws IOException, InterruptedException {
+            LocalDate start = LocalDate.now().plusDays(this.random.nextInt(90));
+            long startNanos = System.nanoTime();
+            HttpResponse<byte[]> response = state.session.get("/api/v1/events/page?start=" + start + "&end=" + start.plusMonths(1));
+            record("GET /api/v1/events/page", startNanos, response);
+        }
+
+        private void slot(SessionState state) throws IOException, InterruptedException {
+            if (state.slots.isEmpty()) {
+                schedule(state);
+                return;
+            }
+
+            JsonNode slot = state.slots.get(this.random.nextInt(state.slots.size()));
+            String type = slot.has("startTime") ? "time-event-slots" : "day-event-slots";
+            long startNanos = System.nanoTime();
+            HttpResponse<byte[]> response = state.session.get("/api/v1/event-slots/" + type + "/" + slot.get("id").asText());
+            record("GET /api/v1/event-slots/" + type + "/{id}", startNanos, response);
+        }
+
+        private void refresh(SessionState state) throws IOException, InterruptedException {
+            long startNanos = System.nanoTime();
+            HttpResponse<byte[]> response = state.session.refresh();
+            record("POST /api/v1/auth/token/refresh", startNanos, response);
+        }
+    }
+
+    private static final class SessionState {
+        private final CalendarSession session;
+        // The slots of the last schedule of the session
+        private final List<JsonNode> slots = new ArrayList<>();
+
+        private SessionState(CalendarSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -1,31 +1,70 @@
 package org.example.calendar.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import io.micrometer.core.instrument.Metrics;
+
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+    https://docs.spring.io/spring-framework/reference/integration/scheduling.html
+    ThreadPoolTaskExecutor vs ThreadPoolTaskScheduler both extend the TaskExecutor interface
+
+    https://stackoverflow.com/questions/33453722/spring-threadpooltaskscheduler-vs-threadpooltaskexecutor
+
+    The email work runs on separate bounded pools, so a burst of reminders can't delay the invitations and the other
+    way around. The size and the queue capacity of each pool are configured under calendar.async. Actuator reports the
+    threads, queued and completed tasks of every Executor bean, executor.*{name}, the name is the name of the bean. The
+    rejections of each pool are counted with the same name, executor.rejected{name}.
 
+    What happens when a pool is saturated depends on whether the work is durable:
+        invitationExecutor: The invitations are in the outbox. The rejected dispatch is dropped, the scheduled task of
+        InvitationEmailDispatcher sends them on its next run.
+        reminderExecutor: A reminder is claimed before it is sent, a dropped reminder is only sent again once its
+        claim expires. The thread that submitted the reminder, the scheduler, sends it itself. This slows down the
+        scheduling of the next reminders instead of delaying any.
+        emailExecutor: The caller, a thread of the other pools, sends the chunk itself.
+ */
 @Configuration
 @EnableAsync
 class AsyncConfig {
 
-    /*
-        https://docs.spring.io/spring-framework/reference/integration/scheduling.html
-        ThreadPoolTaskExecutor vs ThreadPoolTaskScheduler both extend the TaskExecutor interface
+    @Bean
+    Executor invitationExecutor(@Value("${calendar.async.invitations.pool-size:2}") int poolSize,
+                                @Value("${calendar.async.invitations.queue-capacity:100}") int queueCapacity) {
+        return executor("invitationExecutor", "Invitation-", poolSize, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
 
-        https://stackoverflow.com/questions/33453722/spring-threadpooltaskscheduler-vs-threadpooltaskexecutor
+    @Bean
+    Executor reminderExecutor(@Value("${calendar.async.reminders.pool-size:2}") int poolSize,
+                              @Value("${calendar.async.reminders.queue-capacity:500}") int queueCapacity) {
+        return executor("reminderExecutor", "Reminder-", poolSize, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /*
+        Sends the chunks of an email batch in parallel, PooledMailSender waits for all of them. There is a thread per
+        pooled SMTP connection, PooledMailSender.POOL_SIZE.
      */
     @Bean
-    Executor taskExecutor() {
+    Executor emailExecutor(@Value("${calendar.async.emails.queue-capacity:100}") int queueCapacity) {
+        return executor("emailExecutor", "Email-", 4, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private ThreadPoolTaskExecutor executor(String name, String threadNamePrefix, int poolSize, int queueCapacity, RejectedExecutionHandler policy) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(2);
-        executor.setQueueCapacity(500);
-        executor.setThreadNamePrefix("Async-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ObservableRejectedExecutionHandler(name, policy, Metrics.globalRegistry));
+        executor.setThreadNamePrefix(threadNamePrefix);
         executor.initialize();
 
         return executor;
     }
-}
\ No newline at end of file
+}
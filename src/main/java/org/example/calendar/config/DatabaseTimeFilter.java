@@ -0,0 +1,58 @@
+package org.example.calendar.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/*
+    The access log line of every request, with the number of statements it ran and the time spent in them. The filter
+    runs before the security filters, the statements of the authentication are counted too. A request that runs more
+    than calendar.jdbc.max-queries-per-request statements is logged at WARN, it is most likely a statement per row, an
+    N + 1 pattern. The statements the request hands to an executor, the invitation emails, run on other threads and are
+    not counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class DatabaseTimeFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseTimeFilter.class);
+    private final int maxQueries;
+
+    DatabaseTimeFilter(@Value("${calendar.jdbc.max-queries-per-request:50}") int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryStatistics.reset();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            long count = QueryStatistics.count();
+            long dbMillis = QueryStatistics.nanos() / 1_000_000;
+            QueryStatistics.reset();
+
+            if (count > this.maxQueries) {
+                logger.warn("{} {} {} {} ms, {} queries in {} ms", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), elapsedMillis, count, dbMillis);
+            } else {
+                logger.info("{} {} {} {} ms, {} queries in {} ms", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), elapsedMillis, count, dbMillis);
+            }
+        }
+    }
+}
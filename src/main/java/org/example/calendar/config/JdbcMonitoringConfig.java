@@ -0,0 +1,35 @@
+package org.example.calendar.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+    The DataSource of Spring Boot is wrapped in a QueryLoggingDataSource, every JdbcClient of the repositories, Flyway
+    and the transaction manager get their connections from the wrapper. The method is static, a BeanPostProcessor is
+    created before the other beans of the configuration.
+
+    Statements that take at least calendar.jdbc.slow-query-threshold are logged with their bind values. The number of
+    statements and the time spent in them are added to the access log line of every request by DatabaseTimeFilter.
+ */
+@Configuration
+class JdbcMonitoringConfig {
+
+    @Bean
+    static BeanPostProcessor queryLoggingDataSourcePostProcessor(@Value("${calendar.jdbc.slow-query-threshold:200ms}") Duration threshold) {
+        SlowQueryLogger slowQueryLogger = new SlowQueryLogger(threshold);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryLoggingDataSource)) {
+                    return new QueryLoggingDataSource(dataSource, slowQueryLogger);
+                }
+                return bean;
+            }
+        };
+    }
+}
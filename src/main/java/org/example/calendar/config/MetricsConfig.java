@@ -0,0 +1,26 @@
+package org.example.calendar.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Metrics;
+
+/*
+    https://docs.spring.io/spring-boot/reference/actuator/metrics.html
+
+    The meters of the application are registered on Metrics.globalRegistry. Spring Boot adds its registries, the
+    Prometheus one included, to the global registry (management.metrics.use-global-registry), so every meter is
+    exported on /actuator/prometheus, next to the JVM, Hikari, HTTP and executor metrics.
+
+    TimedAspect times the methods annotated with @Timed, the scheduled tasks. The methods of the repositories are timed
+    by RepositoryMetricsAspect.
+ */
+@Configuration
+class MetricsConfig {
+
+    @Bean
+    TimedAspect timedAspect() {
+        return new TimedAspect(Metrics.globalRegistry);
+    }
+}
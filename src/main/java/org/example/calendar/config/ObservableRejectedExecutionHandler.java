@@ -0,0 +1,38 @@
+package org.example.calendar.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+    A task is rejected when every thread of the executor is busy and its queue is full. The rejection used to surface
+    as a TaskRejectedException nobody caught. Every rejection is now counted, executor.rejected{name}, and logged,
+    before the policy of the executor handles the task.
+ */
+class ObservableRejectedExecutionHandler implements RejectedExecutionHandler {
+    private final String name;
+    private final RejectedExecutionHandler policy;
+    private final Counter rejections;
+    private static final Logger logger = LoggerFactory.getLogger(ObservableRejectedExecutionHandler.class);
+
+    ObservableRejectedExecutionHandler(String name, RejectedExecutionHandler policy, MeterRegistry registry) {
+        this.name = name;
+        this.policy = policy;
+        this.rejections = Counter.builder("executor.rejected")
+                .tag("name", name)
+                .description("Tasks rejected because every thread was busy and the queue was full")
+                .register(registry);
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        this.rejections.increment();
+        logger.warn("Executor {} is saturated, {} tasks are queued. The task is handled by {}", this.name, executor.getQueue().size(), this.policy.getClass().getSimpleName());
+        this.policy.rejectedExecution(task, executor);
+    }
+}
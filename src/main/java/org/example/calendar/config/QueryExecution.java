@@ -0,0 +1,8 @@
+package org.example.calendar.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+// A statement that was executed. The bind values are by their index, rows is -1 when the driver didn't report them
+record QueryExecution(String sql, Map<Integer, Object> binds, long rows, Duration elapsed) {
+}
@@ -0,0 +1,220 @@
+package org.example.calendar.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/*
+    Every statement that runs on a connection of the data source is timed, with its text, its bind values and the
+    number of rows it returned or changed. The passwords, the emails and the tokens are masked when they are bound,
+    see SensitiveBinds, they never reach the listener. The statement is recorded in the QueryStatistics of the current thread and
+    passed to the listener.
+
+    The connections, the statements and the result sets are JDK proxies of the JDBC interfaces. The time is the time of
+    the execute call, the driver fetches the rows of a query before it returns. The rows of a query are counted as the
+    caller reads them, the query is passed to the listener when its result set is closed.
+
+    unwrap() is delegated, so the Hikari metrics and Flyway still find the pool behind the wrapper and the connections
+    of the driver behind the proxies. Spring Boot derives the DataSource of the migrations (spring.flyway.user) from the
+    type of the DataSource it unwraps, it has to be the pool.
+ */
+class QueryLoggingDataSource extends DelegatingDataSource {
+    private final Consumer<QueryExecution> listener;
+
+    QueryLoggingDataSource(DataSource dataSource, Consumer<QueryExecution> listener) {
+        super(dataSource);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return obtainTargetDataSource().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return obtainTargetDataSource().isWrapperFor(iface);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(QueryLoggingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ite) {
+            throw ite.getCause();
+        }
+    }
+
+    /*
+        The connection is only compared by identity. DataSourceUtils compares the connection of a transaction with the
+        one it released, both are the same proxy.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "QueryLoggingConnection[" + this.connection + "]";
+                }
+            }
+
+            Object result = QueryLoggingDataSource.invoke(this.connection, method, args);
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private String sql;
+        // The bind values of the last statement of a batch
+        private final Map<Integer, Object> binds = new TreeMap<>();
+        // The indexes of the sensitive binds, read from the SQL on the first bind
+        private Set<Integer> sensitiveIndexes;
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                if (this.sensitiveIndexes == null) {
+                    this.sensitiveIndexes = SensitiveBinds.indexesOf(this.sql);
+                }
+                // setNull(index, sqlType) binds null, not the type
+                this.binds.put(index, name.equals("setNull") ? null : SensitiveBinds.redact(args[1], this.sensitiveIndexes.contains(index)));
+            } else if (name.equals("clearParameters")) {
+                this.binds.clear();
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+
+            return QueryLoggingDataSource.invoke(this.statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String statementSql) {
+                this.sql = statementSql;
+            }
+            Map<Integer, Object> binds = new TreeMap<>(this.binds);
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryLoggingDataSource.invoke(this.statement, method, args);
+            } catch (Throwable t) {
+                record(binds, -1, System.nanoTime() - start);
+                throw t;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof ResultSet resultSet) {
+                QueryStatistics.record(elapsed);
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, this.sql, binds, elapsed));
+            }
+
+            long rows = -1;
+            if (result instanceof Number count) {
+                rows = count.longValue();
+            } else if (result instanceof int[] counts) {
+                rows = 0;
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                rows = 0;
+                for (long count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            record(binds, rows, elapsed);
+
+            return result;
+        }
+
+        private void record(Map<Integer, Object> binds, long rows, long elapsed) {
+            QueryStatistics.record(elapsed);
+            listener.accept(new QueryExecution(this.sql, binds, rows, Duration.ofNanos(elapsed)));
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final String sql;
+        private final Map<Integer, Object> binds;
+        private final long elapsed;
+        private long rows;
+        private boolean closed;
+
+        private ResultSetHandler(ResultSet resultSet, String sql, Map<Integer, Object> binds, long elapsed) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.binds = binds;
+            this.elapsed = elapsed;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryLoggingDataSource.invoke(this.resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                this.rows++;
+            } else if (method.getName().equals("close") && !this.closed) {
+                this.closed = true;
+                listener.accept(new QueryExecution(this.sql, this.binds, this.rows, Duration.ofNanos(this.elapsed)));
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.calendar.config;
+
+/*
+    The number of statements and the time spent executing them on the current thread, since the last reset(). A
+    request runs its statements on the thread that serves it, DatabaseTimeFilter resets the statistics before the
+    request and reads them after it. The statements of the work the request hands to an executor are not counted.
+ */
+final class QueryStatistics {
+    private static final ThreadLocal<long[]> STATISTICS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private QueryStatistics() {
+        // prevent instantiation
+        throw new UnsupportedOperationException("QueryStatistics is a utility class and cannot be instantiated");
+    }
+
+    static void record(long nanos) {
+        long[] statistics = STATISTICS.get();
+        statistics[0]++;
+        statistics[1] += nanos;
+    }
+
+    static void reset() {
+        STATISTICS.remove();
+    }
+
+    static long count() {
+        return STATISTICS.get()[0];
+    }
+
+    static long nanos() {
+        return STATISTICS.get()[1];
+    }
+}
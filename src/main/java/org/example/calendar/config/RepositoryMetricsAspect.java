@@ -0,0 +1,42 @@
+package org.example.calendar.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/*
+    Times every call to a method of a @Repository, repository.invocations{repository, method, exception}. The timer of
+    TimeEventSlotRepository.findByUserInDateRange() is
+
+        repository.invocations{repository="TimeEventSlotRepository", method="findByUserInDateRange", exception="none"}
+
+    The calls of a repository to its own methods are not proxied, they are part of the timer of the calling method.
+    The histogram buckets are published, so the percentiles can be aggregated across the instances.
+ */
+@Aspect
+@Component
+class RepositoryMetricsAspect {
+
+    @Around("within(@org.springframework.stereotype.Repository *)")
+    Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable throwable) {
+            exception = throwable.getClass().getSimpleName();
+            throw throwable;
+        } finally {
+            sample.stop(Timer.builder("repository.invocations")
+                    .tag("repository", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(Metrics.globalRegistry));
+        }
+    }
+}
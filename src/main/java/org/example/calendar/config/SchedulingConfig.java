@@ -1,5 +1,6 @@
 package org.example.calendar.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,14 +13,20 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
     By default, scheduled tasks run on a single thread. If we have multiple tasks that will run roughly at the same
     time, the current task will block the thread and the other tasks will have to wait until the current one is over
-    We need to increase the threads on the thread pool(default is 1). For integration tests we want to disable the
-    scheduling process. We do that by enabling it only if there is a property present. When we don't have the property
-    in our environment, the scheduling will be enabled thanks to matchIfMissing = true, but we explicitly pass the
-    property to disable it.
+    We need to increase the threads on the thread pool(default is 1). There is a thread per @Scheduled task, configured
+    under calendar.scheduling.pool-size, so a long run of one task, like the midnight day reminders or the partition
+    maintenance, never delays the others. NotificationService.notifyTimeEvents() advances the reminder wheel every
+    second, a tick that waits for a free thread sends its reminders late.
+
+    For integration tests we want to disable the scheduling process. We do that by enabling it only if there is a
+    property present. When we don't have the property in our environment, the scheduling will be enabled thanks to
+    matchIfMissing = true, but we explicitly pass the property to disable it.
     https://www.baeldung.com/spring-test-disable-enablescheduling
 
     For scheduling tasking in a cluster environment where we have multiple instances of the application running at the
     same time, and we want scheduled tasks to happen once https://www.youtube.com/watch?v=92-qLIxv0JA
+    We don't assume a single instance. The reminder tasks run on every instance and coordinate through the database,
+    NotificationService explains how.
 
     Spring also supports Quartz.
     https://docs.spring.io/spring-boot/reference/io/quartz.html
@@ -30,9 +37,9 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 class SchedulingConfig {
 
     @Bean
-    TaskScheduler taskScheduler() {
+    TaskScheduler taskScheduler(@Value("${calendar.scheduling.pool-size:6}") int poolSize) {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
-        scheduler.setPoolSize(2);
+        scheduler.setPoolSize(poolSize);
         scheduler.setThreadNamePrefix("EmailTask-");
 
         return scheduler;
@@ -1,5 +1,6 @@
 package org.example.calendar.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -25,6 +26,8 @@ public class SecurityConfig {
 
         http.authorizeHttpRequests(auth -> {
                     auth.requestMatchers("/api/v1/auth/**").permitAll();
+                    // Served on the management port, management.server.port, which is not exposed outside the network
+                    auth.requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll();
                     auth.anyRequest().authenticated();
                 })
                 .csrf(csrfConfigurer -> {
@@ -0,0 +1,163 @@
+package org.example.calendar.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+    The bind values of the passwords, the emails and the tokens are not logged. The names of the parameters are gone
+    by the time the statement reaches the driver, :password is a ?, so the column of each ? is read from the SQL:
+
+        INSERT INTO users(email, username, password) VALUES (?, ?, ?)     by the position in the VALUES tuple
+        WHERE LOWER(u.email) IN (?, ?) AND password = ?                    the last column before the ?
+
+    Functions and keywords are not columns. A value that looks like an email or a bcrypt hash is masked too, in case
+    the column of a ? can't be told from the SQL, like in unnest(ARRAY[?, ?]).
+ */
+final class SensitiveBinds {
+    static final Object REDACTED = new Object() {
+        @Override
+        public String toString() {
+            return "***";
+        }
+    };
+    private static final List<String> SENSITIVE_COLUMNS = List.of("password", "email", "token");
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "is", "distinct", "from", "in", "as", "like",
+            "ilike", "between", "any", "all", "array", "values", "set", "where", "when", "then", "else", "case", "null",
+            "select", "on");
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+");
+    private static final Pattern BCRYPT = Pattern.compile("\\$2[abxy]?\\$\\d{2}\\$.*");
+
+    private SensitiveBinds() {
+    }
+
+    static Object redact(Object value, boolean sensitiveColumn) {
+        if (value == null) {
+            return null;
+        }
+        if (sensitiveColumn || isSensitiveValue(value)) {
+            return REDACTED;
+        }
+        if (value instanceof Object[] values) {
+            for (Object element : values) {
+                if (element != null && isSensitiveValue(element)) {
+                    return REDACTED;
+                }
+            }
+        }
+
+        return value;
+    }
+
+    // The 1-based indexes of the ? of the statement that bind a sensitive column
+    static Set<Integer> indexesOf(String sql) {
+        Set<Integer> indexes = new HashSet<>();
+        if (sql == null) {
+            return indexes;
+        }
+
+        int index = 0;
+        int depth = 0;
+        String column = null;
+        boolean insert = false;
+        // The columns of INSERT INTO table(columns), collected at columnsDepth
+        List<String> insertColumns = null;
+        int columnsDepth = -1;
+        // The tuples of VALUES are at valuesDepth + 1, position is the value of the tuple
+        int valuesDepth = -1;
+        int position = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = endOfLiteral(sql, i);
+                if (i < 0) {
+                    return indexes;
+                }
+            } else if (c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-') {
+                i = sql.indexOf('\n', i);
+                if (i < 0) {
+                    return indexes;
+                }
+            } else if (c == '(') {
+                if (insert && insertColumns == null && columnsDepth < 0) {
+                    insertColumns = new ArrayList<>();
+                    columnsDepth = depth + 1;
+                }
+                depth++;
+                if (depth == valuesDepth + 1) {
+                    position = 0;
+                }
+            } else if (c == ')') {
+                if (depth == columnsDepth) {
+                    columnsDepth = -2;
+                }
+                depth--;
+            } else if (c == ',') {
+                if (valuesDepth >= 0 && depth == valuesDepth + 1) {
+                    position++;
+                }
+            } else if (c == '?') {
+                index++;
+                String name = column;
+                if (valuesDepth >= 0 && depth > valuesDepth && insertColumns != null && !insertColumns.isEmpty()) {
+                    name = insertColumns.get(position % insertColumns.size());
+                }
+                if (isSensitiveColumn(name)) {
+                    indexes.add(index);
+                }
+            } else if (Character.isLetter(c) || c == '_' || c == '"') {
+                int start = i;
+                while (i + 1 < sql.length() && (Character.isLetterOrDigit(sql.charAt(i + 1)) || "_.\"$".indexOf(sql.charAt(i + 1)) >= 0)) {
+                    i++;
+                }
+                String identifier = sql.substring(start, i + 1).replace("\"", "");
+                identifier = identifier.substring(identifier.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+                int next = i + 1;
+                while (next < sql.length() && Character.isWhitespace(sql.charAt(next))) {
+                    next++;
+                }
+                boolean function = next < sql.length() && sql.charAt(next) == '(';
+
+                if (identifier.equals("insert")) {
+                    insert = true;
+                } else if (insert && (identifier.equals("values") || identifier.equals("select")) && insertColumns == null) {
+                    // INSERT INTO table VALUES, without the columns
+                    columnsDepth = -2;
+                } else if (identifier.equals("values") && insertColumns != null) {
+                    valuesDepth = depth;
+                } else if (valuesDepth >= 0 && depth == valuesDepth) {
+                    // ON CONFLICT, RETURNING, the VALUES list is over
+                    valuesDepth = -1;
+                }
+                if (depth == columnsDepth && insertColumns != null) {
+                    insertColumns.add(identifier);
+                } else if (!function && !KEYWORDS.contains(identifier)) {
+                    column = identifier;
+                }
+            }
+        }
+
+        return indexes;
+    }
+
+    // The index of the quote that closes the literal that starts at the given one, '' is an escaped quote
+    private static int endOfLiteral(String sql, int start) {
+        int end = sql.indexOf('\'', start + 1);
+        while (end >= 0 && end + 1 < sql.length() && sql.charAt(end + 1) == '\'') {
+            end = sql.indexOf('\'', end + 2);
+        }
+
+        return end;
+    }
+
+    private static boolean isSensitiveColumn(String column) {
+        return column != null && SENSITIVE_COLUMNS.stream().anyMatch(column::contains);
+    }
+
+    private static boolean isSensitiveValue(Object value) {
+        return value instanceof CharSequence text && (EMAIL.matcher(text).matches() || BCRYPT.matcher(text).matches());
+    }
+}
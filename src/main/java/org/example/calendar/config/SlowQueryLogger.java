@@ -0,0 +1,70 @@
+package org.example.calendar.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+    Every statement is logged at DEBUG, the ones that took at least the threshold are logged at WARN, with their bind
+    values, so the slow shapes can be run again with EXPLAIN ANALYZE. The sensitive values were already masked by
+    QueryLoggingDataSource. The text blocks of the repositories are logged on
+    one line, long statements and values are truncated.
+ */
+class SlowQueryLogger implements Consumer<QueryExecution> {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLogger.class);
+    private static final int MAX_SQL_LENGTH = 2_000;
+    private static final int MAX_BINDS = 50;
+    private static final int MAX_BIND_LENGTH = 100;
+    private final Duration threshold;
+
+    SlowQueryLogger(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void accept(QueryExecution execution) {
+        boolean slow = execution.elapsed().compareTo(this.threshold) >= 0;
+        if (!slow && !logger.isDebugEnabled()) {
+            return;
+        }
+
+        String message = String.format("%d ms, %d rows: %s %s", execution.elapsed().toMillis(), execution.rows(),
+                truncate(execution.sql().replaceAll("\\s+", " ").strip(), MAX_SQL_LENGTH), format(execution.binds()));
+        if (slow) {
+            logger.warn("Slow query {}", message);
+        } else {
+            logger.debug("Query {}", message);
+        }
+    }
+
+    static String format(Map<Integer, Object> binds) {
+        StringBuilder builder = new StringBuilder("[");
+        Iterator<Map.Entry<Integer, Object>> iterator = binds.entrySet().iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (i == MAX_BINDS) {
+                builder.append(", ... ").append(binds.size() - MAX_BINDS).append(" more");
+                break;
+            }
+            Map.Entry<Integer, Object> bind = iterator.next();
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(bind.getKey()).append('=');
+            if (bind.getValue() instanceof CharSequence value) {
+                builder.append('\'').append(truncate(value.toString(), MAX_BIND_LENGTH)).append('\'');
+            } else {
+                builder.append(truncate(String.valueOf(bind.getValue()), MAX_BIND_LENGTH));
+            }
+        }
+
+        return builder.append(']').toString();
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength) + "...";
+    }
+}
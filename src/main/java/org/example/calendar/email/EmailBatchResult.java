@@ -0,0 +1,12 @@
+package org.example.calendar.email;
+
+import java.time.Duration;
+import java.util.Set;
+
+// The outcome of sending a batch of emails with PooledMailSender. The recipients of the emails that failed can be retried
+public record EmailBatchResult(int sent, Set<String> failedRecipients, int connections, Duration elapsed) {
+
+    double emailsPerSecond() {
+        return this.sent / Math.max(this.elapsed.toNanos() / 1_000_000_000.0, 0.001);
+    }
+}
@@ -2,6 +2,7 @@ package org.example.calendar.email;
 
 import org.example.calendar.event.slot.day.projection.DayEventSlotReminderProjection;
 import org.example.calendar.event.day.dto.DayEventInvitationRequest;
+import org.example.calendar.event.dto.AbstractEventInvitationRequest;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotReminderProjection;
 import org.example.calendar.event.time.dto.TimeEventInvitationRequest;
 import org.example.calendar.exception.ServerErrorException;
@@ -9,6 +10,7 @@ import org.example.calendar.utils.EmailUtils;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
@@ -17,8 +19,15 @@ import org.slf4j.LoggerFactory;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,65 +36,142 @@ import lombok.RequiredArgsConstructor;
 public class EmailService {
     private final JavaMailSender mailSender;
     private final ThymeleafService thymeleafService;
+    private final PooledMailSender pooledMailSender;
+    private final InvitationEmailOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
     @Value("${spring.mail.username}")
     private String sender;
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
     private static final String NOTIFICATION = "Notification";
     private static final String INVITATION = "Invitation";
 
-    @Async
-    public void sendInvitationEmail(DayEventInvitationRequest invitationRequest) {
-        String frequencyText = EmailUtils.buildFrequencyDescription(invitationRequest);
-        String context = this.thymeleafService.setInvitationEmailContext(invitationRequest.getStartDate(), invitationRequest.getEventName(), invitationRequest.getOrganizer(), invitationRequest.getLocation(), invitationRequest.getDescription(), frequencyText);
+    /*
+        The invitation is written to the outbox in the transaction that creates the event, it is sent only if that
+        transaction commits. InvitationEmailDispatcher sends it right after the commit, or on its next run if it could
+        not.
+     */
+    public void enqueueInvitationEmail(DayEventInvitationRequest invitationRequest) {
+        enqueue(invitationRequest);
+    }
 
-        for (String guestEmail : invitationRequest.getGuestEmails()) {
-            sendEmail(guestEmail, INVITATION, context);
-        }
+    public void enqueueInvitationEmail(TimeEventInvitationRequest invitationRequest) {
+        enqueue(invitationRequest);
     }
 
-    @Async
-    public void sendInvitationEmail(TimeEventInvitationRequest invitationRequest) {
-        String frequencyText = EmailUtils.buildFrequencyDescription(invitationRequest);
-        String context = this.thymeleafService.setInvitationEmailContext(
-                invitationRequest.getStartTime().toLocalDate(),
+    // The invitation is the same for every guest of the event, it is rendered once
+    String renderInvitationEmail(AbstractEventInvitationRequest invitationRequest) {
+        if (invitationRequest instanceof DayEventInvitationRequest dayEventInvitationRequest) {
+            String frequencyText = EmailUtils.buildFrequencyDescription(dayEventInvitationRequest);
+            return this.thymeleafService.setInvitationEmailContext(dayEventInvitationRequest.getStartDate(), invitationRequest.getEventName(), invitationRequest.getOrganizer(), invitationRequest.getLocation(), invitationRequest.getDescription(), frequencyText);
+        }
+
+        TimeEventInvitationRequest timeEventInvitationRequest = (TimeEventInvitationRequest) invitationRequest;
+        String frequencyText = EmailUtils.buildFrequencyDescription(timeEventInvitationRequest);
+        return this.thymeleafService.setInvitationEmailContext(
+                timeEventInvitationRequest.getStartTime().toLocalDate(),
                 invitationRequest.getEventName(),
                 invitationRequest.getOrganizer(),
                 invitationRequest.getLocation(),
                 invitationRequest.getDescription(),
                 frequencyText
         );
+    }
+
+    EmailBatchResult sendInvitationEmails(Set<String> guestEmails, String emailContext) {
+        return sendEmails(guestEmails, INVITATION, emailContext);
+    }
+
+    // The result tells the caller which recipients failed, so the reminder can be marked as sent or released
+    @Async("reminderExecutor")
+    public CompletableFuture<EmailBatchResult> sendReminderEmail(DayEventSlotReminderProjection projection) {
+        return CompletableFuture.completedFuture(sendReminderEmail(reminder(projection)));
+    }
+
+    @Async("reminderExecutor")
+    public CompletableFuture<EmailBatchResult> sendReminderEmail(TimeEventSlotReminderProjection projection) {
+        return CompletableFuture.completedFuture(sendReminderEmail(reminder(projection)));
+    }
+
+    /*
+        A guest of 15 slots that start tomorrow would receive 15 reminders at once. The reminders of the run are grouped
+        by recipient instead, every recipient receives 1 email that lists all of their slots, ordered by start. A
+        recipient of a single slot receives the reminder of that slot, which is rendered once for all of its recipients.
+     */
+    @Async("reminderExecutor")
+    public CompletableFuture<EmailBatchResult> sendDayEventReminderDigests(List<DayEventSlotReminderProjection> projections) {
+        return CompletableFuture.completedFuture(sendReminderDigests(projections.stream().map(this::reminder).toList()));
+    }
+
+    @Async("reminderExecutor")
+    public CompletableFuture<EmailBatchResult> sendTimeEventReminderDigests(List<TimeEventSlotReminderProjection> projections) {
+        return CompletableFuture.completedFuture(sendReminderDigests(projections.stream().map(this::reminder).toList()));
+    }
 
-        for (String guestEmail : invitationRequest.getGuestEmails()) {
-            sendEmail(guestEmail, INVITATION, context);
+    EmailBatchResult sendReminderDigests(List<EventSlotReminder> reminders) {
+        Map<String, List<EventSlotReminder>> remindersByRecipient = new LinkedHashMap<>();
+        for (EventSlotReminder reminder : reminders) {
+            for (String recipient : reminder.recipients()) {
+                remindersByRecipient.computeIfAbsent(recipient, key -> new ArrayList<>()).add(reminder);
+            }
         }
+
+        Map<UUID, String> renderedReminders = new HashMap<>();
+        List<MimeMessage> mimeMessages = new ArrayList<>(remindersByRecipient.size());
+        remindersByRecipient.forEach((recipient, recipientReminders) -> {
+            String emailContext = recipientReminders.size() == 1
+                    ? renderedReminders.computeIfAbsent(recipientReminders.get(0).id(), key -> renderReminderEmail(recipientReminders.get(0)))
+                    : this.thymeleafService.setReminderDigestEmailContext(recipientReminders);
+            mimeMessages.add(createEmail(recipient, NOTIFICATION, emailContext));
+        });
+
+        EmailBatchResult result = this.pooledMailSender.send(mimeMessages);
+        logger.info("Sent reminder digests of {} slots to {} recipients", reminders.size(), remindersByRecipient.size());
+        return result;
+    }
+
+    private EmailBatchResult sendReminderEmail(EventSlotReminder reminder) {
+        return sendEmails(reminder.recipients(), NOTIFICATION, renderReminderEmail(reminder));
     }
 
-    @Async
-    public void sendReminderEmail(DayEventSlotReminderProjection projection) {
+    private String renderReminderEmail(EventSlotReminder reminder) {
+        return this.thymeleafService.setReminderEmailContext(reminder.dateDescription(), reminder.title(), reminder.organizer(), reminder.guestEmails(), reminder.eventSlotDetails());
+    }
+
+    private EventSlotReminder reminder(DayEventSlotReminderProjection projection) {
         String dateDescription = EmailUtils.buildDateDescription(projection.getStartDate());
         String eventSlotDetails = String.format("http://localhost:8080/api/v1/events/day-event-slots/%s", projection.getId());
-        String context = this.thymeleafService.setReminderEmailContext(dateDescription, projection.getTitle(), projection.getOrganizerUsername(), projection.getGuestEmails(), eventSlotDetails);
 
-        sendEmail(projection.getOrganizerEmail(), NOTIFICATION, context);
-        for (String guest : projection.getGuestEmails()) {
-            sendEmail(guest, NOTIFICATION, context);
-        }
+        return new EventSlotReminder(projection.getId(), dateDescription, projection.getTitle(), projection.getOrganizerUsername(), projection.getGuestEmails(), eventSlotDetails, projection.recipients());
     }
 
-    @Async
-    public void sendReminderEmail(TimeEventSlotReminderProjection projection) {
+    private EventSlotReminder reminder(TimeEventSlotReminderProjection projection) {
         String dateDescription = EmailUtils.buildDateTimeDescription(projection.getStartTime(), projection.getEndTime());
         String eventSlotDetails = String.format("http://localhost:8080/api/v1/events/time-event-slots/%s", projection.getId());
         Set<String> guestEmails = new TreeSet<>(projection.getGuestEmails());
-        String context = this.thymeleafService.setReminderEmailContext(dateDescription, projection.getTitle(), projection.getOrganizerUsername(), guestEmails, eventSlotDetails);
 
-        sendEmail(projection.getOrganizerEmail(), NOTIFICATION, context);
-        for (String guest : projection.getGuestEmails()) {
-            sendEmail(guest, NOTIFICATION, context);
+        return new EventSlotReminder(projection.getId(), dateDescription, projection.getTitle(), projection.getOrganizerUsername(), guestEmails, eventSlotDetails, projection.recipients());
+    }
+
+    private void enqueue(AbstractEventInvitationRequest invitationRequest) {
+        if (invitationRequest.getGuestEmails() == null || invitationRequest.getGuestEmails().isEmpty()) {
+            return;
         }
+
+        this.outboxRepository.create(invitationRequest);
+        this.eventPublisher.publishEvent(new InvitationEmailEnqueuedEvent());
+    }
+
+    // The emails of the batch share their connections, see PooledMailSender
+    private EmailBatchResult sendEmails(Set<String> recipients, String subject, String emailContext) {
+        List<MimeMessage> mimeMessages = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            mimeMessages.add(createEmail(recipient, subject, emailContext));
+        }
+
+        return this.pooledMailSender.send(mimeMessages);
     }
 
-    private void sendEmail(String recipient, String subject, String emailContext) {
+    private MimeMessage createEmail(String recipient, String subject, String emailContext) {
         MimeMessage mimeMessage = this.mailSender.createMimeMessage();
         MimeMessageHelper helper;
 
@@ -96,7 +182,7 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(emailContext, true);
 
-            this.mailSender.send(mimeMessage);
+            return mimeMessage;
         } catch (MessagingException me) {
             logger.info(me.getMessage());
             throw new ServerErrorException("Internal Server Error");
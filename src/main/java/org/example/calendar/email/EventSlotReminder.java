@@ -0,0 +1,14 @@
+package org.example.calendar.email;
+
+import java.util.Set;
+import java.util.UUID;
+
+// The details of a slot shown in a reminder email, the recipients are the organizer and the guests of the slot
+record EventSlotReminder(UUID id,
+                         String dateDescription,
+                         String title,
+                         String organizer,
+                         Set<String> guestEmails,
+                         String eventSlotDetails,
+                         Set<String> recipients) {
+}
@@ -0,0 +1,9 @@
+package org.example.calendar.email;
+
+import org.example.calendar.event.dto.AbstractEventInvitationRequest;
+
+import java.util.Set;
+
+// A row of the invitation outbox. guestEmails are the guests that have not received the invitation yet
+record InvitationEmail(Long id, AbstractEventInvitationRequest invitationRequest, Set<String> guestEmails) {
+}
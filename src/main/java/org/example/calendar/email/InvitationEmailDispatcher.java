@@ -0,0 +1,80 @@
+package org.example.calendar.email;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/*
+    Drains the invitation outbox. After a transaction that enqueued an invitation commits, the outbox is drained on the
+    invitationExecutor, so the guests receive the invitation right away. Every DISPATCH_INTERVAL the outbox is also
+    drained by the scheduled task, which sends the invitations that could not be sent after their commit: the
+    invitationExecutor was saturated and rejected the dispatch, sending to some of the guests failed or the instance
+    died while sending.
+
+    Every instance of the application drains the outbox, the batches are claimed with FOR UPDATE SKIP LOCKED the same
+    way as the reminders of NotificationService. Unlike the reminders, a claim expires. The invitation of an instance
+    that died while sending is sent again after CLAIM_EXPIRY_IN_MINUTES, some of its guests might receive it twice. We
+    prefer that to losing the invitation. An invitation is attempted up to MAX_ATTEMPTS times, after that the row is
+    kept in the outbox and no longer claimed.
+
+    A row is an event. The invitation is rendered once and sent to its guests as a batch by PooledMailSender, over a
+    bounded number of SMTP connections. The guests that failed are written back to the row.
+ */
+@Service
+class InvitationEmailDispatcher {
+    private final InvitationEmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final Executor invitationExecutor;
+    private static final int BATCH_SIZE = 20;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int CLAIM_EXPIRY_IN_MINUTES = 10;
+    private static final long DISPATCH_INTERVAL = 60_000;
+    private static final Logger logger = LoggerFactory.getLogger(InvitationEmailDispatcher.class);
+
+    InvitationEmailDispatcher(InvitationEmailOutboxRepository outboxRepository,
+                              EmailService emailService,
+                              @Qualifier("invitationExecutor") Executor invitationExecutor) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.invitationExecutor = invitationExecutor;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onInvitationEmailEnqueued(InvitationEmailEnqueuedEvent event) {
+        try {
+            this.invitationExecutor.execute(this::dispatch);
+        } catch (TaskRejectedException tre) {
+            logger.info("Invitation dispatch rejected, the outbox will be drained by the scheduled task");
+        }
+    }
+
+    @Scheduled(fixedDelay = DISPATCH_INTERVAL)
+    void dispatch() {
+        List<InvitationEmail> invitationEmails;
+        do {
+            LocalDateTime now = LocalDateTime.now(ZoneId.of("UTC"));
+            invitationEmails = this.outboxRepository.claim(now, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, BATCH_SIZE);
+            invitationEmails.forEach(this::send);
+        } while (invitationEmails.size() == BATCH_SIZE);
+    }
+
+    private void send(InvitationEmail invitationEmail) {
+        String emailContext = this.emailService.renderInvitationEmail(invitationEmail.invitationRequest());
+        EmailBatchResult result = this.emailService.sendInvitationEmails(invitationEmail.guestEmails(), emailContext);
+
+        if (result.failedRecipients().isEmpty()) {
+            this.outboxRepository.delete(invitationEmail.id());
+        } else {
+            this.outboxRepository.release(invitationEmail.id(), result.failedRecipients());
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.calendar.email;
+
+// Published when an invitation is written to the outbox. InvitationEmailDispatcher drains the outbox after the commit
+record InvitationEmailEnqueuedEvent() {
+}
@@ -0,0 +1,119 @@
+package org.example.calendar.email;
+
+import org.example.calendar.event.day.dto.DayEventInvitationRequest;
+import org.example.calendar.event.dto.AbstractEventInvitationRequest;
+import org.example.calendar.event.time.dto.TimeEventInvitationRequest;
+import org.example.calendar.exception.ServerErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+    The invitation request is stored as JSON, event_type tells us which request to read it back as. The guests are
+    stored in their own column, so the ones that failed can be written back without rewriting the payload.
+ */
+@Repository
+@RequiredArgsConstructor
+class InvitationEmailOutboxRepository {
+    private final JdbcClient jdbcClient;
+    private final ObjectMapper mapper;
+    private static final String DAY = "DAY";
+    private static final String TIME = "TIME";
+    private static final Logger logger = LoggerFactory.getLogger(InvitationEmailOutboxRepository.class);
+
+    // Runs in the transaction of the caller, the transaction that creates the event
+    void create(AbstractEventInvitationRequest invitationRequest) {
+        this.jdbcClient.sql("""
+                        INSERT INTO invitation_email_outbox (event_type, payload, guest_emails)
+                        VALUES (:eventType, CAST(:payload AS JSONB), :guestEmails)
+                        """)
+                .param("eventType", invitationRequest instanceof DayEventInvitationRequest ? DAY : TIME)
+                .param("payload", write(invitationRequest))
+                .param("guestEmails", invitationRequest.getGuestEmails().toArray(new String[0]))
+                .update();
+    }
+
+    /*
+        Claims up to limit rows, skipping the ones locked by the claims of other instances. A row is claimed again if
+        its claim is older than the expiry, the instance that claimed it died before it could delete or release it.
+        Rows that reached maxAttempts stay in the table and are not claimed again.
+
+        The claim is committed before the emails are sent.
+     */
+    @Transactional
+    List<InvitationEmail> claim(LocalDateTime now, LocalDateTime expiry, int maxAttempts, int limit) {
+        return this.jdbcClient.sql("""
+                        UPDATE invitation_email_outbox
+                        SET claimed_at = :now, attempts = attempts + 1
+                        WHERE id IN (
+                            SELECT id
+                            FROM invitation_email_outbox
+                            WHERE (claimed_at IS NULL OR claimed_at < :expiry) AND attempts < :maxAttempts
+                            ORDER BY id
+                            LIMIT :limit
+                            FOR UPDATE SKIP LOCKED)
+                        RETURNING id, event_type, payload, guest_emails
+                        """)
+                .param("now", Timestamp.valueOf(now))
+                .param("expiry", Timestamp.valueOf(expiry))
+                .param("maxAttempts", maxAttempts)
+                .param("limit", limit)
+                .query((rs, rowNum) -> new InvitationEmail(
+                        rs.getLong("id"),
+                        read(rs.getString("event_type"), rs.getString("payload")),
+                        new LinkedHashSet<>(Arrays.asList((String[]) rs.getArray("guest_emails").getArray()))))
+                .list();
+    }
+
+    @Transactional
+    void delete(Long id) {
+        this.jdbcClient.sql("DELETE FROM invitation_email_outbox WHERE id = :id")
+                .param("id", id)
+                .update();
+    }
+
+    // The guests that failed are claimed again by the next dispatch
+    @Transactional
+    void release(Long id, Set<String> guestEmails) {
+        this.jdbcClient.sql("""
+                        UPDATE invitation_email_outbox
+                        SET claimed_at = NULL, guest_emails = :guestEmails
+                        WHERE id = :id
+                        """)
+                .param("id", id)
+                .param("guestEmails", guestEmails.toArray(new String[0]))
+                .update();
+    }
+
+    private String write(AbstractEventInvitationRequest invitationRequest) {
+        try {
+            return this.mapper.writeValueAsString(invitationRequest);
+        } catch (JsonProcessingException jpe) {
+            logger.info(jpe.getMessage());
+            throw new ServerErrorException("Internal Server Error");
+        }
+    }
+
+    private AbstractEventInvitationRequest read(String eventType, String payload) {
+        try {
+            return DAY.equals(eventType) ? this.mapper.readValue(payload, DayEventInvitationRequest.class) : this.mapper.readValue(payload, TimeEventInvitationRequest.class);
+        } catch (JsonProcessingException jpe) {
+            logger.info(jpe.getMessage());
+            throw new ServerErrorException("Internal Server Error");
+        }
+    }
+}
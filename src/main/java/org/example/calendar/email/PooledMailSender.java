@@ -0,0 +1,198 @@
+package org.example.calendar.email;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+    JavaMailSender.send(MimeMessage) opens an SMTP connection, runs STARTTLS and AUTH, sends 1 message and closes the
+    connection. Sending an invitation to 200 guests meant 200 handshakes. We keep up to POOL_SIZE connected transports
+    instead and send many messages on each of them.
+
+    A batch is split in up to POOL_SIZE chunks, at least MIN_EMAILS_PER_CONNECTION emails each, which are sent in
+    parallel on the emailExecutor. Every chunk borrows a transport, sends its emails and returns it. The semaphore
+    bounds the connections of the instance, a chunk that finds none available waits for one.
+
+    A transport is checked with isConnected() when it is borrowed, which sends a NOOP to the server. Servers close
+    connections that are idle for a few minutes, a closed transport is replaced with a new one. If sending a message
+    fails for any reason other than its recipient, the transport is considered broken and the rest of the chunk is
+    sent on a new connection. If the server can't be reached, the rest of the chunk fails.
+
+    Every email is timed, email.send{result}, and every failure is counted by its reason, email.failures{reason}:
+    recipient when the server rejected the recipient, transport when the connection broke while sending and connection
+    when the server could not be reached. The batch is timed too, email.batch.
+ */
+@Component
+class PooledMailSender {
+    private final JavaMailSenderImpl mailSender;
+    private final Executor emailExecutor;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Transport> idleTransports = new ConcurrentLinkedDeque<>();
+    static final int POOL_SIZE = 4;
+    private static final int MIN_EMAILS_PER_CONNECTION = 10;
+    private final Timer sent = emailTimer("sent");
+    private final Timer failed = emailTimer("failed");
+    private final Timer batches = Timer.builder("email.batch")
+            .description("Time to send a batch of emails over the pooled connections")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+    private static final Logger logger = LoggerFactory.getLogger(PooledMailSender.class);
+
+    PooledMailSender(JavaMailSenderImpl mailSender, @Qualifier("emailExecutor") Executor emailExecutor) {
+        this.mailSender = mailSender;
+        this.emailExecutor = emailExecutor;
+        this.permits = new Semaphore(POOL_SIZE);
+    }
+
+    EmailBatchResult send(List<MimeMessage> messages) {
+        long start = System.nanoTime();
+        int connections = Math.max(1, Math.min(POOL_SIZE, messages.size() / MIN_EMAILS_PER_CONNECTION));
+        List<List<MimeMessage>> chunks = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            chunks.add(new ArrayList<>());
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            chunks.get(i % connections).add(messages.get(i));
+        }
+
+        Set<String> failedRecipients = ConcurrentHashMap.newKeySet();
+        CompletableFuture.allOf(chunks.stream()
+                        .map(chunk -> CompletableFuture.runAsync(() -> sendChunk(chunk, failedRecipients), this.emailExecutor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        EmailBatchResult result = new EmailBatchResult(messages.size() - failedRecipients.size(), failedRecipients, connections, Duration.ofNanos(System.nanoTime() - start));
+        this.batches.record(result.elapsed());
+        logger.info("Sent {} of {} emails over {} connections in {} ms, {} emails/s", result.sent(), messages.size(), result.connections(), result.elapsed().toMillis(), String.format("%.1f", result.emailsPerSecond()));
+        return result;
+    }
+
+    private void sendChunk(List<MimeMessage> chunk, Set<String> failedRecipients) {
+        this.permits.acquireUninterruptibly();
+        Transport transport = null;
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                MimeMessage message = chunk.get(i);
+                try {
+                    if (transport == null) {
+                        transport = borrow();
+                    }
+                } catch (MessagingException me) {
+                    // The server can't be reached, the rest of the chunk would fail the same way
+                    logger.info("Failed to connect to the SMTP server: {}", me.getMessage());
+                    chunk.subList(i, chunk.size()).forEach(failed -> failedRecipients.add(recipient(failed)));
+                    failure("connection").increment(chunk.size() - i);
+                    return;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    message.saveChanges();
+                    transport.sendMessage(message, message.getAllRecipients());
+                    this.sent.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } catch (SendFailedException sfe) {
+                    // The recipient was rejected, the connection is still usable
+                    logger.info("Failed to send email to {}: {}", recipient(message), sfe.getMessage());
+                    failedRecipients.add(recipient(message));
+                    this.failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    failure("recipient").increment();
+                } catch (MessagingException me) {
+                    logger.info("Failed to send email to {}: {}", recipient(message), me.getMessage());
+                    failedRecipients.add(recipient(message));
+                    this.failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    failure("transport").increment();
+                    close(transport);
+                    transport = null;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                this.idleTransports.offerFirst(transport);
+            }
+            this.permits.release();
+        }
+    }
+
+    private Transport borrow() throws MessagingException {
+        Transport transport;
+        while ((transport = this.idleTransports.pollFirst()) != null) {
+            if (transport.isConnected()) {
+                return transport;
+            }
+            close(transport);
+        }
+
+        // The same protocol as JavaMailSenderImpl, Spring Boot sets it to smtp
+        transport = this.mailSender.getSession().getTransport(Objects.requireNonNullElse(this.mailSender.getProtocol(), JavaMailSenderImpl.DEFAULT_PROTOCOL));
+        transport.connect(this.mailSender.getHost(), this.mailSender.getPort(), this.mailSender.getUsername(), this.mailSender.getPassword());
+        return transport;
+    }
+
+    private static Timer emailTimer(String result) {
+        return Timer.builder("email.send")
+                .tag("result", result)
+                .description("Time to send an email on a pooled connection")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    private static Counter failure(String reason) {
+        return Counter.builder("email.failures")
+                .tag("reason", reason)
+                .register(Metrics.globalRegistry);
+    }
+
+    private String recipient(MimeMessage message) {
+        try {
+            Address[] addresses = message.getAllRecipients();
+            return addresses == null || addresses.length == 0 ? "" : addresses[0].toString();
+        } catch (MessagingException me) {
+            return "";
+        }
+    }
+
+    private void close(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+
+        try {
+            transport.close();
+        } catch (MessagingException me) {
+            logger.info(me.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        Transport transport;
+        while ((transport = this.idleTransports.pollFirst()) != null) {
+            close(transport);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.example.calendar.email;
 
 import java.time.LocalDate;
 import java.time.format.TextStyle;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
@@ -40,6 +41,13 @@ class ThymeleafService {
 
         return this.templateEngine.process("reminder_email", context);
     }
+
+    String setReminderDigestEmailContext(List<EventSlotReminder> reminders) {
+        Context context = new Context();
+        context.setVariable("reminders", reminders);
+
+        return this.templateEngine.process("reminder_digest_email", context);
+    }
 }
 
 /*
@@ -35,6 +35,10 @@ public class DayEvent extends AbstractEvent {
         this.recurrenceDuration = original.recurrenceDuration;  // Enum, immutable
         this.recurrenceEndDate = original.recurrenceEndDate;  // LocalDate is immutable
         this.numberOfOccurrences = original.numberOfOccurrences;  // Integer is immutable
+        this.materializedUntil = original.materializedUntil;  // LocalDate is immutable
+        this.title = original.title;  // String is immutable
+        this.location = original.location;  // String is immutable
+        this.description = original.description;  // String is immutable
         this.startDate = original.startDate;  // LocalDate is immutable
         this.endDate = original.endDate;  // LocalDate is immutable
     }
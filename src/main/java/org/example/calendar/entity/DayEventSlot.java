@@ -31,6 +31,7 @@ public class DayEventSlot extends AbstractEventSlot {
         this.title = original.title;  // String is immutable
         this.location = original.location;  // String is immutable
         this.description = original.description;  // String is immutable
+        this.occurrenceDate = original.occurrenceDate;  // LocalDate is immutable
         this.startDate = original.startDate;  // LocalDate is immutable
         this.endDate = original.endDate;  // LocalDate is immutable
         // Deep copy of the mutable Set (guestEmails)
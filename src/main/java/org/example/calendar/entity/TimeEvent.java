@@ -9,8 +9,10 @@ import lombok.experimental.SuperBuilder;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 
 import org.example.calendar.event.AbstractEvent;
 
@@ -25,6 +27,8 @@ public class TimeEvent extends AbstractEvent {
     private LocalDateTime endTime;
     private ZoneId startTimeZoneId;
     private ZoneId endTimeZoneId;
+    // Minutes before the start of the slots their reminders are sent. null for the default offsets, V17
+    private List<Integer> reminderOffsets;
 
     // deep copy, copy constructor
     public TimeEvent(TimeEvent original) {
@@ -37,9 +41,14 @@ public class TimeEvent extends AbstractEvent {
         this.recurrenceDuration = original.recurrenceDuration;  // Enum, immutable
         this.recurrenceEndDate = original.recurrenceEndDate;  // LocalDate is immutable
         this.numberOfOccurrences = original.numberOfOccurrences;  // Integer is immutable
+        this.materializedUntil = original.materializedUntil;  // LocalDate is immutable
+        this.title = original.title;  // String is immutable
+        this.location = original.location;  // String is immutable
+        this.description = original.description;  // String is immutable
         this.startTime = original.startTime; // LocalDateTime is immutable
         this.startTimeZoneId = original.getStartTimeZoneId(); // ZoneId is immutable
         this.endTime = original.endTime; // LocalDateTime is immutable
         this.endTimeZoneId = original.getEndTimeZoneId(); // ZoneId is immutable
+        this.reminderOffsets = original.reminderOffsets == null ? null : new ArrayList<>(original.reminderOffsets);
     }
 }
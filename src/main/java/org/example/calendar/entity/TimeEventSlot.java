@@ -34,6 +34,7 @@ public class TimeEventSlot extends AbstractEventSlot {
         this.title = original.title;  // String is immutable
         this.location = original.location;  // String is immutable
         this.description = original.description;  // String is immutable
+        this.occurrenceDate = original.occurrenceDate;  // LocalDate is immutable
         this.startTime = original.startTime;  // LocalDateTime is immutable
         this.endTime = original.endTime;  // LocalDateTime is immutable
         this.startTimeZoneId = original.startTimeZoneId;  // ZoneId is immutable
@@ -41,5 +41,11 @@ public abstract class AbstractEvent {
     protected LocalDate recurrenceEndDate;
     // For events recurring for a certain number of reps: how many reps?
     protected Integer numberOfOccurrences;
+    // For events recurring forever: up to which date are the event slots created? They are extended by a scheduled task
+    protected LocalDate materializedUntil;
+    // The title, location and description of the event. Slots created after materializedUntil are built from them
+    protected String title;
+    protected String location;
+    protected String description;
 }
 
@@ -36,4 +36,6 @@ public abstract class AbstractEventProjection {
     protected LocalDate recurrenceEndDate;
     // For events recurring for a certain number of reps: how many reps?
     protected Integer numberOfOccurrences;
+    // For events recurring forever: up to which date are the event slots created?
+    protected LocalDate materializedUntil;
 }
@@ -3,6 +3,7 @@ package org.example.calendar.event;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -12,21 +13,33 @@ import org.springframework.web.util.UriComponentsBuilder;
 import org.example.calendar.event.day.DayEventService;
 import org.example.calendar.event.day.dto.DayEventRequest;
 import org.example.calendar.event.time.dto.TimeEventRequest;
+import org.example.calendar.event.dto.EventSlotPage;
 import org.example.calendar.event.time.TimeEventService;
 import org.example.calendar.event.slot.EventSlotComparator;
+import org.example.calendar.event.slot.EventSlotMergeIterator;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
 import org.example.calendar.event.groups.OnCreate;
 import org.example.calendar.event.groups.OnUpdate;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.net.URI;
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletResponse;
+
 import lombok.RequiredArgsConstructor;
 
 /*
@@ -146,6 +159,10 @@ import lombok.RequiredArgsConstructor;
 class EventController {
     private final DayEventService dayEventService;
     private final TimeEventService timeEventService;
+    private final EventScheduleService eventScheduleService;
+    private final ScheduleCache scheduleCache;
+    private final ObjectMapper objectMapper;
+    private static final int MAX_PAGE_SIZE = 200;
 
     @PostMapping("/day-events")
     ResponseEntity<Void> createDayEvent(@AuthenticationPrincipal Jwt jwt,
@@ -250,37 +267,88 @@ class EventController {
         organizer of the event or an invited guest.
 
         If startDate > endDate we return an empty list
+
+        Both the DayEventSlots and TimeEventSlots are sorted. Previously, we copied them in 1 list and sorted it again
+        with the EventSlotComparator. Now we merge the 2 sorted lists while writing the response, so for large date
+        ranges the slots are not held in a second list. We need the comparator so that we can compare the starting
+        date of DayEventSlot with the starting dateTime of the TimeEventSlot.
+
+        Jackson will serialize every slot correctly. Even though the merge returns AbstractEventSlotPublicProjection,
+        the objects themselves are instances of DayEventSlotPublicProjection or TimeEventSlotPublicProjection. Jackson
+        inspects each object to determine its actual class and serializes it accordingly, so fields like startDate and
+        startTime that are not part of the AbstractEventSlotPublicProjection are included in the JSON output. Writing
+        the array element by element with the JsonGenerator produces the same JSON as returning the List.
+
+        The services are called before anything is written, so any exception they throw is still handled by the
+        exception handlers and the response is not committed with a 200 status. The same goes for the serialization of
+        the slots, the response is buffered up to the size of a schedule we cache, ScheduleCache.CachingOutputStream.
+        Only a larger schedule is streamed, and a failure while it is written truncates the response.
+
+        The response is cached per user and range, ScheduleCache explains how it is kept up to date.
      */
     @GetMapping
-    ResponseEntity<List<AbstractEventSlotPublicProjection>> findEventsByUserInDateRange(@RequestParam(value = "start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-                                                                                        @RequestParam(value = "end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-                                                                                        @RequestParam(value = "startTimeZoneId", defaultValue = "", required = false) String startTimeZoneId,
-                                                                                        @RequestParam(value = "endTimeZoneId", defaultValue = "", required = false) String endTimezoneId,
-                                                                                        @AuthenticationPrincipal Jwt jwt) {
+    void findEventsByUserInDateRange(@RequestParam(value = "start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                     @RequestParam(value = "end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                     @RequestParam(value = "startTimeZoneId", defaultValue = "", required = false) String startTimeZoneId,
+                                     @RequestParam(value = "endTimeZoneId", defaultValue = "", required = false) String endTimezoneId,
+                                     @AuthenticationPrincipal Jwt jwt,
+                                     HttpServletResponse servletResponse) throws IOException {
         Long userId = Long.valueOf(jwt.getSubject());
         ZoneId eventStartTimeZoneId = startTimeZoneId.isEmpty() ? ZoneId.of("UTC") : ZoneId.of(startTimeZoneId);
         ZoneId eventEndTimeZoneId = endTimezoneId.isEmpty() ? ZoneId.of("UTC") : ZoneId.of(endTimezoneId);
+        String window = ScheduleCache.window(startDate, endDate, eventStartTimeZoneId, eventEndTimeZoneId);
+        Optional<String> cached = this.scheduleCache.find(userId, window);
+        servletResponse.setStatus(HttpStatus.OK.value());
+        servletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (cached.isPresent()) {
+            servletResponse.getOutputStream().write(cached.get().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        String generation = this.scheduleCache.generation(userId);
         List<DayEventSlotPublicProjection> dayEventSlots = this.dayEventService.findEventSlotsByUserInDateRange(userId, startDate, endDate);
-        List<AbstractEventSlotPublicProjection> eventSlots = new ArrayList<>(dayEventSlots);
         // converts a LocalDate into a LocalDateTime adding time of the midnight as 00:00:00
-        eventSlots.addAll(this.timeEventService.findEventSlotsByUserInDateRange(userId, startDate.atStartOfDay(), eventStartTimeZoneId, endDate.atStartOfDay(), eventEndTimeZoneId));
-        /*
-            Both the DayEventSlots and TimeEventSlots are sorted but when we add them in 1 list, we need to make sure
-            that they are also sorted based on their starting date. We need a comparator so that we can compare the
-            starting date of DayEventSlot with the starting dateTime of the TimeEventSlot. If we have 2 DayEventSlots
-            we compare their starting date, if we have 2 TimeEventSlots we compare their starting time.
-         */
-        eventSlots.sort(new EventSlotComparator());
+        List<TimeEventSlotPublicProjection> timeEventSlots = this.timeEventService.findEventSlotsByUserInDateRange(userId, startDate.atStartOfDay(), eventStartTimeZoneId, endDate.atStartOfDay(), eventEndTimeZoneId);
+        Iterator<AbstractEventSlotPublicProjection> eventSlots = new EventSlotMergeIterator(List.of(dayEventSlots.iterator(), timeEventSlots.iterator()), new EventSlotComparator());
+
+        // By default, the ObjectMapper flushes the output stream after every value, we flush once when we are done
+        ObjectWriter writer = this.objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        ScheduleCache.CachingOutputStream outputStream = new ScheduleCache.CachingOutputStream(servletResponse.getOutputStream());
+        // A failure must not close the array of a streamed schedule, a truncated schedule is not valid JSON
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+            generator.writeStartArray();
+            while (eventSlots.hasNext()) {
+                writer.writeValue(generator, eventSlots.next());
+            }
+            generator.writeEndArray();
+        }
+        outputStream.finish();
+        outputStream.getCopy().ifPresent(schedule -> this.scheduleCache.put(userId, window, generation, schedule));
+    }
 
-        /*
-            Jackson will serialize the list correctly. Even though the list is of type AbstractEventSlotDTO,
-            the objects themselves are instances of DayEventSlotDTO or TimeEventSlotDTO. Jackson inspects each object
-            to determine its actual class and serializes it accordingly. It is capable of serializing subclass-specific
-            fields because it operates on the actual objects' runtime types, not just their declared reference types.
-            This allows it to include all relevant fields in the JSON output (fields like startDate and startTime are
-            not part of the AbstractEventSlotDTO. It serializes the object based on its actual type, not the reference
-            type in the list)
-         */
-        return new ResponseEntity<>(eventSlots, HttpStatus.OK);
+    /*
+        The paginated version of findEventsByUserInDateRange(). The response has at most limit slots and the cursor of
+        the next page, so the size of the response does not depend on how wide the range is. The client requests the
+        next page with the same parameters and the cursor of the previous response. A limit out of [1, MAX_PAGE_SIZE]
+        is adjusted to the closest bound.
+
+        The slots are ordered by their start time in UTC, a DayEventSlot starts at the midnight of its start date in
+        the startTimeZoneId. The order is explained in EventScheduleService.
+     */
+    @GetMapping("/page")
+    ResponseEntity<EventSlotPage> findEventPageByUserInDateRange(@RequestParam(value = "start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                                 @RequestParam(value = "end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                                 @RequestParam(value = "startTimeZoneId", defaultValue = "", required = false) String startTimeZoneId,
+                                                                 @RequestParam(value = "endTimeZoneId", defaultValue = "", required = false) String endTimezoneId,
+                                                                 @RequestParam(value = "limit", defaultValue = "50", required = false) int limit,
+                                                                 @RequestParam(value = "cursor", defaultValue = "", required = false) String cursor,
+                                                                 @AuthenticationPrincipal Jwt jwt) {
+        Long userId = Long.valueOf(jwt.getSubject());
+        ZoneId eventStartTimeZoneId = startTimeZoneId.isEmpty() ? ZoneId.of("UTC") : ZoneId.of(startTimeZoneId);
+        ZoneId eventEndTimeZoneId = endTimezoneId.isEmpty() ? ZoneId.of("UTC") : ZoneId.of(endTimezoneId);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        EventSlotPage page = this.eventScheduleService.findEventSlotPageByUserInDateRange(userId, startDate, endDate, eventStartTimeZoneId, eventEndTimeZoneId, cursor, pageSize);
+
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 }
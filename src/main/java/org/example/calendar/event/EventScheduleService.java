@@ -0,0 +1,112 @@
+package org.example.calendar.event;
+
+import org.example.calendar.event.day.DayEventService;
+import org.example.calendar.event.dto.EventSlotPage;
+import org.example.calendar.event.slot.EventSlotMergeIterator;
+import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
+import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
+import org.example.calendar.event.time.TimeEventService;
+import org.example.calendar.utils.DateUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+    Paginated schedule of the user. The DayEventSlots and the TimeEventSlots are in different tables, so a page is the
+    merge of a page from each table. Both tables are paginated by keyset, (start_date, id) and (start_time, id), and
+    we fetch limit + 1 slots from each one. At most limit slots of the page can come from 1 table, the extra slot
+    tells us if there is a next page.
+
+    The order of the pages is by the start time in UTC. A DayEventSlot starts at the midnight of its start date in the
+    timezone of the request. If a DayEventSlot and a TimeEventSlot start at the same time, the DayEventSlot comes first.
+    For a cursor of a DayEventSlot:
+        Day: the DayEventSlots after (start_date, id)
+        Time: the TimeEventSlots that start at or after the midnight of the start_date. NIL_ID is smaller than any id.
+    For a cursor of a TimeEventSlot:
+        Day: the DayEventSlots after the date of the start time in the timezone of the request. MAX_ID is greater
+        than any id, so every DayEventSlot of that date is excluded, they came before the TimeEventSlot.
+        Time: the TimeEventSlots after (start_time, id)
+    The first page has no cursor. The range includes the slots that overlap it and start before it, so the first page
+    starts after the earliest date/time instead of the start of the range.
+ */
+@Service
+@RequiredArgsConstructor
+class EventScheduleService {
+    private final DayEventService dayEventService;
+    private final TimeEventService timeEventService;
+    private static final UUID NIL_ID = new UUID(0L, 0L);
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+    private static final LocalDate MIN_START_DATE = LocalDate.parse("0001-01-01");
+    private static final LocalDateTime MIN_START_TIME = MIN_START_DATE.atStartOfDay();
+
+    EventSlotPage findEventSlotPageByUserInDateRange(Long userId,
+                                                     LocalDate startDate,
+                                                     LocalDate endDate,
+                                                     ZoneId startTimeZoneId,
+                                                     ZoneId endTimeZoneId,
+                                                     String cursor,
+                                                     int limit) {
+        LocalDateTime startTime = DateUtils.convertToUTC(startDate.atStartOfDay(), startTimeZoneId);
+        LocalDateTime endTime = DateUtils.convertToUTC(endDate.atStartOfDay(), endTimeZoneId);
+        LocalDate afterStartDate = MIN_START_DATE;
+        UUID afterDayEventSlotId = NIL_ID;
+        LocalDateTime afterStartTime = MIN_START_TIME;
+        UUID afterTimeEventSlotId = NIL_ID;
+
+        if (cursor != null && !cursor.isEmpty()) {
+            EventSlotCursor eventSlotCursor = EventSlotCursor.decode(cursor);
+            afterStartDate = LocalDate.from(DateUtils.convertFromUTC(eventSlotCursor.startTime(), startTimeZoneId));
+            afterStartTime = eventSlotCursor.startTime();
+            if (eventSlotCursor.type() == EventSlotCursor.Type.DAY) {
+                afterDayEventSlotId = eventSlotCursor.id();
+            } else {
+                afterDayEventSlotId = MAX_ID;
+                afterTimeEventSlotId = eventSlotCursor.id();
+            }
+        }
+
+        List<DayEventSlotPublicProjection> dayEventSlots = this.dayEventService.findEventSlotPageByUserInDateRange(userId, startDate, endDate, afterStartDate, afterDayEventSlotId, limit + 1);
+        List<TimeEventSlotPublicProjection> timeEventSlots = this.timeEventService.findEventSlotPageByUserInDateRange(userId, startTime, endTime, afterStartTime, afterTimeEventSlotId, limit + 1);
+        Comparator<AbstractEventSlotPublicProjection> byStartTime = Comparator.comparing(eventSlot -> startTimeOf(eventSlot, startTimeZoneId));
+        Iterator<AbstractEventSlotPublicProjection> iterator = new EventSlotMergeIterator(List.of(dayEventSlots.iterator(), timeEventSlots.iterator()), byStartTime);
+
+        List<AbstractEventSlotPublicProjection> eventSlots = new ArrayList<>(limit);
+        while (eventSlots.size() < limit && iterator.hasNext()) {
+            eventSlots.add(iterator.next());
+        }
+
+        // The cursor is computed before the start/end times of the TimeEventSlots are converted from UTC
+        String next = null;
+        if (iterator.hasNext()) {
+            AbstractEventSlotPublicProjection last = eventSlots.get(eventSlots.size() - 1);
+            EventSlotCursor.Type type = last instanceof DayEventSlotPublicProjection ? EventSlotCursor.Type.DAY : EventSlotCursor.Type.TIME;
+            next = new EventSlotCursor(type, startTimeOf(last, startTimeZoneId), last.getId()).encode();
+        }
+
+        for (AbstractEventSlotPublicProjection eventSlot : eventSlots) {
+            if (eventSlot instanceof TimeEventSlotPublicProjection timeEventSlot) {
+                timeEventSlot.setStartTime(DateUtils.convertFromUTC(timeEventSlot.getStartTime(), timeEventSlot.getStartTimeZoneId()));
+                timeEventSlot.setEndTime(DateUtils.convertFromUTC(timeEventSlot.getEndTime(), timeEventSlot.getEndTimeZoneId()));
+            }
+        }
+
+        return new EventSlotPage(eventSlots, next);
+    }
+
+    private LocalDateTime startTimeOf(AbstractEventSlotPublicProjection eventSlot, ZoneId timeZoneId) {
+        if (eventSlot instanceof DayEventSlotPublicProjection dayEventSlot) {
+            return DateUtils.convertToUTC(dayEventSlot.getStartDate().atStartOfDay(), timeZoneId);
+        }
+        return ((TimeEventSlotPublicProjection) eventSlot).getStartTime();
+    }
+}
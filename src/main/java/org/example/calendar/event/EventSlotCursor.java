@@ -0,0 +1,45 @@
+package org.example.calendar.event;
+
+import org.example.calendar.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/*
+    The position of the last slot of a page: its type, its start time in UTC and its id. For a DayEventSlot the start
+    time is the midnight of its start date in the timezone of the request, converted to UTC.
+
+    The cursor is opaque to the client. It is encoded as Base64(URL safe) so that it can be passed as a query parameter
+    without being escaped.
+ */
+record EventSlotCursor(Type type, LocalDateTime startTime, UUID id) {
+    private static final String SEPARATOR = "|";
+    private static final String INVALID_CURSOR_MSG = "Invalid cursor: ";
+
+    enum Type {
+        DAY,
+        TIME
+    }
+
+    String encode() {
+        String value = this.type + SEPARATOR + this.startTime + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static EventSlotCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (parts.length != 3) {
+                throw new BadRequestException(INVALID_CURSOR_MSG + cursor);
+            }
+
+            return new EventSlotCursor(Type.valueOf(parts[0]), LocalDateTime.parse(parts[1]), UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(INVALID_CURSOR_MSG + cursor);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.calendar.event;
+
+import org.example.calendar.user.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/*
+    Cache of the schedule of a user, the response of GET /api/v1/events, for the windows the user has requested. Every
+    user has a hash, "schedule:{userId}", with a field per window, "{start}|{end}|{startTimeZoneId}|{endTimeZoneId}".
+    The value is the JSON of the response, so a hit is written as it is, without deserializing the slots.
+
+    When the schedule of a user changes, their hash is deleted. A request that missed the cache could have read the
+    schedule before the change was committed and write it after the hash was deleted. To avoid caching that schedule,
+    every user has a generation, "schedule:{userId}:generation", that is incremented on every change. We read the
+    generation before reading the schedule, and we only write the schedule if the generation is still the same. The
+    check and the write are done in a script, so that they are atomic.
+
+    Creating the slots of an event that recurs forever does not evict anything. A cached window either has them already,
+    or has the occurrences they were created from, computed on read with the same ids and properties.
+
+    The cache is an optimization. If Redis is not available we log it and read the schedule from the database. The
+    hits and misses are counted as cache.gets{cache=schedule, result=hit|miss} and the evicted users as
+    cache.evictions{cache=schedule}.
+ */
+@Component
+class ScheduleCache {
+    private final StringRedisTemplate redisTemplate;
+    private final UserRepository userRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleCache.class);
+    private static final String KEY_PREFIX = "schedule:";
+    private static final String GENERATION_SUFFIX = ":generation";
+    private static final Duration TTL = Duration.ofMinutes(10);
+    // Longer than the TTL, so the generation can't expire while a schedule of the previous generation is being read
+    private static final Duration GENERATION_TTL = Duration.ofDays(1);
+    private static final RedisScript<Long> PUT_IF_SAME_GENERATION = new DefaultRedisScript<>("""
+            local generation = redis.call('GET', KEYS[2])
+            if (generation or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    ScheduleCache(StringRedisTemplate redisTemplate, UserRepository userRepository) {
+        this.redisTemplate = redisTemplate;
+        this.userRepository = userRepository;
+        this.hits = Counter.builder("cache.gets").tag("cache", "schedule").tag("result", "hit").register(Metrics.globalRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "schedule").tag("result", "miss").register(Metrics.globalRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "schedule").register(Metrics.globalRegistry);
+    }
+
+    static String window(LocalDate startDate, LocalDate endDate, ZoneId startTimeZoneId, ZoneId endTimeZoneId) {
+        return startDate + "|" + endDate + "|" + startTimeZoneId + "|" + endTimeZoneId;
+    }
+
+    Optional<String> find(Long userId, String window) {
+        String schedule = null;
+        try {
+            schedule = (String) this.redisTemplate.opsForHash().get(KEY_PREFIX + userId, window);
+        } catch (DataAccessException dae) {
+            logger.warn("Failed to read the schedule of user with id: {} from the cache", userId, dae);
+        }
+
+        if (schedule == null) {
+            this.misses.increment();
+            return Optional.empty();
+        }
+        this.hits.increment();
+
+        return Optional.of(schedule);
+    }
+
+    // Must be called before the schedule is read from the database. Empty if the schedule of the user never changed
+    String generation(Long userId) {
+        try {
+            return Objects.requireNonNullElse(this.redisTemplate.opsForValue().get(KEY_PREFIX + userId + GENERATION_SUFFIX), "");
+        } catch (DataAccessException dae) {
+            logger.warn("Failed to read the schedule generation of user with id: {} from the cache", userId, dae);
+            return null;
+        }
+    }
+
+    void put(Long userId, String window, String generation, String schedule) {
+        // The generation could not be read, we can't tell if the schedule is still valid
+        if (generation == null) {
+            return;
+        }
+
+        try {
+            this.redisTemplate.execute(PUT_IF_SAME_GENERATION,
+                    List.of(KEY_PREFIX + userId, KEY_PREFIX + userId + GENERATION_SUFFIX),
+                    generation, window, schedule, String.valueOf(TTL.toSeconds()));
+        } catch (DataAccessException dae) {
+            logger.warn("Failed to cache the schedule of user with id: {}", userId, dae);
+        }
+    }
+
+    /*
+        Runs after the transaction that changed the schedule commits, otherwise a request could read and cache the
+        schedule before the change is visible. If there is no transaction, it runs immediately.
+
+        The generation is incremented before the hash is deleted. A schedule written in between has the previous
+        generation and would be rejected.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onScheduleChanged(ScheduleChangedEvent event) {
+        Set<Long> userIds = new HashSet<>(this.userRepository.findIdsByEmails(event.guestEmails()));
+        userIds.add(event.organizerId());
+
+        for (Long userId : userIds) {
+            try {
+                String generationKey = KEY_PREFIX + userId + GENERATION_SUFFIX;
+                this.redisTemplate.opsForValue().increment(generationKey);
+                this.redisTemplate.expire(generationKey, GENERATION_TTL);
+                this.redisTemplate.delete(KEY_PREFIX + userId);
+                this.evictions.increment();
+            } catch (DataAccessException dae) {
+                logger.error("Failed to evict the schedule of user with id: {} from the cache", userId, dae);
+            }
+        }
+    }
+
+    /*
+        Buffers the schedule and keeps it to be cached. Nothing reaches the response until finish(), so an exception
+        while the slots are serialized is still handled by the exception handlers, the response is not committed with a
+        200 status and half an array. Schedules larger than MAX_SIZE are not cached, once the buffer is full it is
+        written to the response and the rest is streamed, so that a wide range is not held in memory while it is
+        written. A failure after that point aborts the response, the client gets a truncated body.
+     */
+    static final class CachingOutputStream extends OutputStream {
+        private final OutputStream outputStream;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        static final int MAX_SIZE = 1024 * 1024;
+
+        CachingOutputStream(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.buffer != null && this.buffer.size() + len > MAX_SIZE) {
+                this.buffer.writeTo(this.outputStream);
+                this.buffer = null;
+            }
+
+            if (this.buffer == null) {
+                this.outputStream.write(b, off, len);
+            } else {
+                this.buffer.write(b, off, len);
+            }
+        }
+
+        // A flush while buffering would commit the response
+        @Override
+        public void flush() throws IOException {
+            if (this.buffer == null) {
+                this.outputStream.flush();
+            }
+        }
+
+        // The generator closes its target even when the serialization failed, the response is left to the container
+        @Override
+        public void close() {
+        }
+
+        // Called once the whole schedule was serialized
+        void finish() throws IOException {
+            if (this.buffer != null) {
+                this.buffer.writeTo(this.outputStream);
+            }
+            this.outputStream.flush();
+        }
+
+        Optional<String> getCopy() {
+            return Optional.ofNullable(this.buffer).map(bytes -> bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+}
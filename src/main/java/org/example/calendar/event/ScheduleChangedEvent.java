@@ -0,0 +1,11 @@
+package org.example.calendar.event;
+
+import java.util.Set;
+
+/*
+    Published when an event or a slot is created, updated, deleted or guests are invited to it. The schedule of the
+    organizer and of every guest, before and after the change, is no longer valid. Guests are identified by their
+    email, they might not be users.
+ */
+public record ScheduleChangedEvent(Long organizerId, Set<String> guestEmails) {
+}
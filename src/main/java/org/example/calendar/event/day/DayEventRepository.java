@@ -1,15 +1,19 @@
 package org.example.calendar.event.day;
 
 import org.example.calendar.entity.DayEvent;
+import org.example.calendar.event.day.projection.ForeverDayEventProjection;
 import org.example.calendar.event.day.projection.DayEventProjection;
+import org.example.calendar.event.day.projection.mapper.ForeverDayEventProjectionRowMapper;
 import org.example.calendar.event.day.projection.mapper.DayEventProjectionRowMapper;
-import org.example.calendar.event.slot.day.projection.DayEventSlotProjection;
+import org.example.calendar.event.day.projection.mapper.DayEventRowMapper;
 import org.example.calendar.utils.EventUtils;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,8 +33,8 @@ public class DayEventRepository {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         this.jdbcClient.sql("""
-                        INSERT INTO day_events(organizer_id, start_date, end_date, recurrence_frequency, recurrence_step, weekly_recurrence_days, monthly_recurrence_type, recurrence_duration, recurrence_end_date, number_of_occurrences)
-                        VALUES (:organizerId, :startDate, :endDate, :recurrenceFrequency::recurrence_frequency, :recurrenceStep, :weeklyRecurrenceDays, :monthlyRecurrenceType::monthly_recurrence_type, :recurrenceDuration::recurrence_duration, :recurrenceEndDate, :numberOfOccurrences)
+                        INSERT INTO day_events(organizer_id, start_date, end_date, recurrence_frequency, recurrence_step, weekly_recurrence_days, monthly_recurrence_type, recurrence_duration, recurrence_end_date, number_of_occurrences, materialized_until, title, location, description)
+                        VALUES (:organizerId, :startDate, :endDate, :recurrenceFrequency::recurrence_frequency, :recurrenceStep, :weeklyRecurrenceDays, :monthlyRecurrenceType::monthly_recurrence_type, :recurrenceDuration::recurrence_duration, :recurrenceEndDate, :numberOfOccurrences, :materializedUntil, :title, :location, :description)
                         """)
                 .param("organizerId", event.getOrganizerId())
                 // java Date to sql Date
@@ -43,6 +47,10 @@ public class DayEventRepository {
                 .param("recurrenceDuration", event.getRecurrenceDuration() == null ? null : event.getRecurrenceDuration().name())
                 .param("recurrenceEndDate", event.getRecurrenceEndDate() == null ? null : Date.valueOf(event.getRecurrenceEndDate()))
                 .param("numberOfOccurrences", event.getNumberOfOccurrences())
+                .param("materializedUntil", event.getMaterializedUntil() == null ? null : Date.valueOf(event.getMaterializedUntil()))
+                .param("title", event.getTitle())
+                .param("location", event.getLocation())
+                .param("description", event.getDescription())
                 // If we don't pass the column that will hold the auto-generated key, all the columns will be returned and
                 // when we try to access it, we would get InvalidDataAccessApiUsageException: The getKey method should only be used when a single key is returned. The current key entry contains multiple keys: [{id=5, email=sylvester.schneider@yahoo.com, username=emeline.haley, password=$2a$10$Fb0ngWuoUI.U8Q/K2.ZkZebeTM1TocDYz3Utttoe4Y80F4IhVALGm}]
                 .update(keyHolder, "id");
@@ -90,24 +98,21 @@ public class DayEventRepository {
         des.description,
         des.start_date AS day_event_slot_start_date,
         des.end_date AS day_event_slot_end_date,
-        ge.email AS guest_email
+        ARRAY(...) AS guest_emails
 
         We need to give an alias to attributes with the same name, so we can have them all as part of our result set,
         otherwise it would be ambiguous. For example, as we fetch both day event and day event slots, we will have 2
         attributes with the same name, start_date and id. We need to add an alias with AS.
 
-        Our query is going to return multiple rows for the same event if it has more than 1 event slot and multiple rows
-        for the same event slot if it has multiple guests. Our DayEventProjectionRowMapper() will map each row correctly,
-        to our projection.
-
-        For example, an event with 2 event slots where each slot has 2 guest emails will give us a result set of size 4.
-            1st row: event information, first event slot information with first guest email
-            2nd row: event information, first event slot information with second guest email
-            3rd row: event information, second event slot information with first guest email
-            4th row: event information, second event slot information with second guest email
-        This is standard behaviour of dbs. Now after using the row mapper each row will be a projection. What we want
-        to do next is convert them to a single event where it will have a list of event slots and each event slot will
-        have each own list of guests. We do the conversion in aggregateResults()
+        Our query is going to return 1 row per event slot. The guests of each slot are collected in an array by the
+        query, so an event slot with multiple guests is still 1 row. Our DayEventProjectionRowMapper() will map each row
+        correctly, to our projection.
+
+        For example, an event with 2 event slots where each slot has 2 guest emails will give us a result set of size 2.
+            1st row: event information, first event slot information with both guest emails
+            2nd row: event information, second event slot information with both guest emails
+        Now after using the row mapper each row will be a projection. What we want to do next is convert them to a
+        single event where it will have a list of event slots. We do the conversion in aggregateResults()
      */
     Optional<DayEventProjection> findByEventAndUserId(UUID eventId, Long userId) {
         List<DayEventProjection> results = this.jdbcClient.sql("""
@@ -122,14 +127,14 @@ public class DayEventRepository {
                                 de.recurrence_duration,
                                 de.recurrence_end_date,
                                 de.number_of_occurrences,
+                                de.materialized_until,
                                 des.id AS event_slot_id,
                                 des.title,
                                 des.location,
                                 des.description,
-                                ge.email
+                                ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails
                             FROM day_events de
                             JOIN day_event_slots des ON de.id = des.event_id
-                            LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
                             WHERE de.id = :eventId AND de.organizer_id = :userId
                         """)
                 .param("eventId", eventId)
@@ -140,6 +145,139 @@ public class DayEventRepository {
         return aggregateResults(results);
     }
 
+    /*
+        Returns the FOREVER events, where the user is either the organizer or invited as guest, that have not been
+        materialized up until the given date. The occurrences after their materializedUntil date have no slots yet,
+        they are computed from the event on read. Those slots would inherit the guests of the event, so a guest of the
+        event is a guest of every one of them.
+     */
+    List<ForeverDayEventProjection> findForeverEventsNotMaterializedByUser(Long userId, String email, LocalDate until) {
+        return this.jdbcClient.sql("""
+                            SELECT
+                                de.id AS event_id,
+                                de.organizer_id,
+                                de.start_date,
+                                de.end_date,
+                                de.recurrence_frequency,
+                                de.recurrence_step,
+                                de.weekly_recurrence_days,
+                                de.monthly_recurrence_type,
+                                de.recurrence_duration,
+                                de.recurrence_end_date,
+                                de.number_of_occurrences,
+                                de.materialized_until,
+                                de.title,
+                                de.location,
+                                de.description,
+                                u.username,
+                                ARRAY(SELECT ge.email FROM day_event_guest_emails ge WHERE ge.event_id = de.id) AS guest_emails
+                            FROM day_events de
+                            JOIN users u ON de.organizer_id = u.id
+                            WHERE de.recurrence_duration = 'FOREVER' AND de.materialized_until < :until AND (de.organizer_id = :userId OR EXISTS (
+                                SELECT 1
+                                FROM day_event_guest_emails ge
+                                WHERE ge.event_id = de.id AND ge.email = :email))
+                        """)
+                .param("userId", userId)
+                .param("email", email)
+                .param("until", Date.valueOf(until))
+                .query(new ForeverDayEventProjectionRowMapper())
+                .list();
+    }
+
+    /*
+        The FOREVER events of every user that have not been materialized up until the given date. Used by the scheduled
+        tasks. The title, location and description of the slots to be created come from the event, not from one of its
+        slots: an edit of a single slot must not spread to the next ones, and an event whose slots were all deleted
+        still recurs.
+     */
+    List<DayEvent> findForeverEventsToMaterialize(LocalDate until) {
+        return this.jdbcClient.sql("""
+                            SELECT
+                                de.id AS event_id,
+                                de.organizer_id,
+                                de.start_date,
+                                de.end_date,
+                                de.recurrence_frequency,
+                                de.recurrence_step,
+                                de.weekly_recurrence_days,
+                                de.monthly_recurrence_type,
+                                de.recurrence_duration,
+                                de.recurrence_end_date,
+                                de.number_of_occurrences,
+                                de.materialized_until,
+                                de.title,
+                                de.location,
+                                de.description
+                            FROM day_events de
+                            WHERE de.recurrence_duration = 'FOREVER' AND de.materialized_until < :until
+                        """)
+                .param("until", Date.valueOf(until))
+                .query(new DayEventRowMapper())
+                .list();
+    }
+
+    // The FOREVER events of the organizer, like findForeverEventsToMaterialize()
+    List<DayEvent> findForeverEventsByOrganizer(Long userId) {
+        return this.jdbcClient.sql("""
+                            SELECT
+                                de.id AS event_id,
+                                de.organizer_id,
+                                de.start_date,
+                                de.end_date,
+                                de.recurrence_frequency,
+                                de.recurrence_step,
+                                de.weekly_recurrence_days,
+                                de.monthly_recurrence_type,
+                                de.recurrence_duration,
+                                de.recurrence_end_date,
+                                de.number_of_occurrences,
+                                de.materialized_until,
+                                de.title,
+                                de.location,
+                                de.description
+                            FROM day_events de
+                            WHERE de.organizer_id = :userId AND de.recurrence_duration = 'FOREVER'
+                        """)
+                .param("userId", userId)
+                .query(new DayEventRowMapper())
+                .list();
+    }
+
+    /*
+        The title, location and description the event was created or last updated with. Nothing is written when they
+        did not change.
+     */
+    void updateTemplate(UUID eventId, String title, String location, String description) {
+        this.jdbcClient.sql("""
+                            UPDATE day_events
+                            SET title = :title, location = :location, description = :description
+                            WHERE id = :eventId AND (title, location, description) IS DISTINCT FROM (:title, :location, :description)
+                        """)
+                .param("eventId", eventId)
+                .param("title", title)
+                .param("location", location)
+                .param("description", description)
+                .update();
+    }
+
+    /*
+        Two concurrent requests could both see that the event has to be extended. Only the one that moves
+        materialized_until from the value it read will update 1 row, and it is the one that creates the new slots.
+        The other one will update 0 rows and skip the event.
+     */
+    int updateMaterializedUntil(UUID eventId, LocalDate previous, LocalDate until) {
+        return this.jdbcClient.sql("""
+                            UPDATE day_events
+                            SET materialized_until = :until
+                            WHERE id = :eventId AND materialized_until = :previous
+                        """)
+                .param("eventId", eventId)
+                .param("previous", Date.valueOf(previous))
+                .param("until", Date.valueOf(until))
+                .update();
+    }
+
     // Slots will be deleted by ON DELETE CASCADE
     int deleteByEventAndUserId(UUID eventId, Long userId) {
         return this.jdbcClient.sql("""
@@ -152,31 +290,21 @@ public class DayEventRepository {
     }
 
     private Optional<DayEventProjection> aggregateResults(List<DayEventProjection> resultSet) {
-        if (resultSet.isEmpty()) {
-            return Optional.empty();
-        }
+        return aggregateListResults(resultSet).stream().findFirst();
+    }
 
-        Map<UUID, DayEventProjection> eventMap = new HashMap<>();
-        Map<UUID, DayEventSlotProjection> slotMap = new LinkedHashMap<>();
+    private List<DayEventProjection> aggregateListResults(List<DayEventProjection> resultSet) {
+        Map<UUID, DayEventProjection> eventMap = new LinkedHashMap<>();
 
         for (DayEventProjection event : resultSet) {
             DayEventProjection existingEvent = eventMap.get(event.getId());
 
             if (existingEvent == null) {
                 eventMap.put(event.getId(), event);
-                slotMap.put(event.getEventSlots().get(0).getId(), event.getEventSlots().get(0));
             } else {
-                DayEventSlotProjection slotProjection = event.getEventSlots().get(0);
-                DayEventSlotProjection existingSlot = slotMap.get(slotProjection.getId());
-
-                if (existingSlot == null) {
-                    slotMap.put(slotProjection.getId(), slotProjection);
-                    existingEvent.getEventSlots().add(slotProjection);
-                } else {
-                    existingSlot.getGuestEmails().add(slotProjection.getGuestEmails().iterator().next());
-                }
+                existingEvent.getEventSlots().addAll(event.getEventSlots());
             }
         }
-        return eventMap.values().stream().findFirst();
+        return new ArrayList<>(eventMap.values());
     }
 }
@@ -4,21 +4,29 @@ import org.example.calendar.entity.DayEventSlot;
 import org.example.calendar.event.day.dto.DayEventInvitationRequest;
 import org.example.calendar.event.day.dto.DayEventRequest;
 import org.example.calendar.event.day.projection.DayEventProjection;
+import org.example.calendar.event.day.projection.ForeverDayEventProjection;
 import org.example.calendar.event.recurrence.RecurrenceDuration;
 import org.example.calendar.event.recurrence.RecurrenceFrequency;
 import org.example.calendar.event.slot.day.DayEventSlotService;
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
 import org.example.calendar.email.EmailService;
+import org.example.calendar.event.ScheduleChangedEvent;
 import org.example.calendar.entity.DayEvent;
 import org.example.calendar.entity.User;
 import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
 import org.example.calendar.utils.EventUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -31,7 +39,12 @@ public class DayEventService {
     private final DayEventRepository dayEventRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
     private static final String EVENT_NOT_FOUND_MSG = "Day event not found with id: ";
+    // How far ahead of the date the scheduled tasks request, the slots of FOREVER events are created
+    private static final int MATERIALIZATION_WINDOW_IN_YEARS = 1;
+    // The limit we used to have for FOREVER events. Slots are never created after that
+    private static final int MAX_RECURRENCE_IN_YEARS = 100;
 
     @Transactional
     public UUID createEvent(Long userId, DayEventRequest eventRequest) {
@@ -46,17 +59,20 @@ public class DayEventService {
                 .recurrenceDuration(eventRequest.getRecurrenceDuration())
                 .recurrenceEndDate(eventRequest.getRecurrenceEndDate())
                 .numberOfOccurrences(eventRequest.getNumberOfOccurrences())
+                .title(eventRequest.getTitle())
+                .location(eventRequest.getLocation())
+                .description(eventRequest.getDescription())
                 .organizerId(user.getId())
                 .build();
 
         /*
-            For events that are set to recur forever, we choose an arbitrary limit of 100 years and set the recurrence
-            end date to 100 years in the future. This effectively treats the event as an UNTIL_DATE event, with the
-            recurrence end date now being 100 years from the start date. This is one approach we use to handle the
-            "forever" recurrence scenario.
+            For events that are set to recur forever, we used to choose an arbitrary limit of 100 years and set the
+            recurrence end date to 100 years in the future, creating every slot up until that date. Now we only create
+            the slots for the first MATERIALIZATION_WINDOW_IN_YEARS. The event keeps its recurrence rule and the rest of
+            the slots are created by the scheduled tasks, the occurrences after materializedUntil are computed on read.
         */
         if (eventRequest.getRecurrenceFrequency() != RecurrenceFrequency.NEVER && eventRequest.getRecurrenceDuration() == RecurrenceDuration.FOREVER) {
-            event.setRecurrenceEndDate(eventRequest.getStartDate().plusYears(100));
+            event.setMaterializedUntil(eventRequest.getStartDate().plusYears(MATERIALIZATION_WINDOW_IN_YEARS));
         }
 
         this.dayEventRepository.create(event);
@@ -78,7 +94,8 @@ public class DayEventService {
                 .numbersOfOccurrences(eventRequest.getNumberOfOccurrences())
                 .startDate(eventRequest.getStartDate())
                 .build();
-        this.emailService.sendInvitationEmail(emailRequest);
+        this.emailService.enqueueInvitationEmail(emailRequest);
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(user.getId(), eventRequest.getGuestEmails()));
 
         return event.getId();
     }
@@ -98,38 +115,57 @@ public class DayEventService {
                 .recurrenceDuration(projection.getRecurrenceDuration())
                 .recurrenceEndDate(projection.getRecurrenceEndDate())
                 .numberOfOccurrences(projection.getNumberOfOccurrences())
+                .materializedUntil(projection.getMaterializedUntil())
                 .build();
 
         /*
             DayEvent modified = original; Shallow copy it would also change the original
             Copy constructor where we also consider the cases for shallow copies
 
-            Case 1: different frequency properties, delete all the slots and compute the new ones
-            Case 2: same frequency properties, but different start or end date, delete all the slots and compute the new ones
+            Case 1: different frequency properties, the slots are matched to the occurrences of the new recurrence
+            Case 2: same frequency properties, but different start or end date, the slots move with the event
+            Case 3: same frequency properties and dates, only the title/location/description/guests of the slots change
          */
         DayEvent modified = new DayEvent(original);
         eventRequest.setGuestEmails(EventUtils.processGuestEmails(user, eventRequest.getGuestEmails()));
         EventUtils.setFrequencyProperties(eventRequest, modified);
         modified.setStartDate(eventRequest.getStartDate());
         modified.setEndDate(eventRequest.getEndDate());
+        if (modified.getRecurrenceFrequency() != RecurrenceFrequency.NEVER && modified.getRecurrenceDuration() == RecurrenceDuration.FOREVER) {
+            modified.setMaterializedUntil(modified.getStartDate().plusYears(MATERIALIZATION_WINDOW_IN_YEARS));
+        } else {
+            modified.setMaterializedUntil(null);
+        }
+
+        List<DayEventSlot> eventSlots = projection.getEventSlots().stream()
+                .map(slotProjection -> DayEventSlot.builder()
+                        .id(slotProjection.getId())
+                        .title(slotProjection.getTitle())
+                        .location(slotProjection.getLocation())
+                        .description(slotProjection.getDescription())
+                        .guestEmails(slotProjection.getGuestEmails())
+                        .build())
+                .collect(Collectors.toList());
         if (!EventUtils.hasSameFrequencyProperties(original, modified)
                 || !original.getStartDate().isEqual(modified.getStartDate())
                 || !original.getEndDate().isEqual(modified.getEndDate())) {
-            this.dayEventSlotService.deleteEventSlotsByEventId(original.getId());
-            this.dayEventSlotService.create(eventRequest, modified);
+            // The slots after the new window that were already created are kept, we don't shrink the materialized range
+            if (original.getMaterializedUntil() != null && modified.getMaterializedUntil() != null && original.getMaterializedUntil().isAfter(modified.getMaterializedUntil())) {
+                modified.setMaterializedUntil(original.getMaterializedUntil());
+            }
+            this.dayEventSlotService.updateEventSlotsForRecurrence(eventRequest, original, modified, eventSlots);
             this.dayEventRepository.update(original, modified);
         } else {
-            List<DayEventSlot> eventSlots = projection.getEventSlots().stream()
-                    .map(slotProjection -> DayEventSlot.builder()
-                            .id(slotProjection.getId())
-                            .title(slotProjection.getTitle())
-                            .location(slotProjection.getLocation())
-                            .description(slotProjection.getDescription())
-                            .guestEmails(slotProjection.getGuestEmails())
-                            .build())
-                    .collect(Collectors.toList());
-            this.dayEventSlotService.updateEventSlotsForEvent(eventRequest, eventSlots);
+            this.dayEventSlotService.updateEventSlotsForEvent(eventRequest, original.getId(), eventSlots);
         }
+        this.dayEventRepository.updateTemplate(original.getId(), eventRequest.getTitle(), eventRequest.getLocation(), eventRequest.getDescription());
+
+        // The previous guests of the event, and the guests of the slots that overrode them, are no longer invited
+        Set<String> guestEmails = projection.getEventSlots().stream()
+                .flatMap(slotProjection -> slotProjection.getGuestEmails().stream())
+                .collect(Collectors.toCollection(HashSet::new));
+        guestEmails.addAll(eventRequest.getGuestEmails());
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
     /*
@@ -159,10 +195,100 @@ public class DayEventService {
     /*
        We need all the day events that the user is either the Organizer(id) but also those that they are invited as
        guest via their email.
+
+       The slots of FOREVER events are created up until their materializedUntil date by the scheduled tasks. The
+       occurrences after it are computed from the event and added to the slots, nothing is written on read.
      */
+    @Transactional(readOnly = true)
     public List<DayEventSlotPublicProjection> findEventSlotsByUserInDateRange(Long userId, LocalDate startDate, LocalDate endDate) {
         User user = this.userRepository.findAuthUserByIdOrThrow(userId);
-        return this.dayEventSlotService.findEventSlotsByUserInDateRange(user, startDate, endDate);
+        List<DayEventSlotPublicProjection> eventSlots = this.dayEventSlotService.findEventSlotsByUserInDateRange(user, startDate, endDate);
+        List<DayEventSlotPublicProjection> occurrences = expandForeverEventSlots(user, startDate, endDate);
+        if (occurrences.isEmpty()) {
+            return eventSlots;
+        }
+
+        return merge(eventSlots, occurrences).stream()
+                .sorted(Comparator.comparing(DayEventSlotPublicProjection::getStartDate))
+                .toList();
+    }
+
+    /*
+        The occurrences of the FOREVER events that have no slots yet are merged in the keyset order of the page,
+        (start_date, id). Their ids are compared like the uuid type of Postgres. The page of the slots has the first
+        limit slots after the cursor, so the first limit of the merged list are the page.
+     */
+    @Transactional(readOnly = true)
+    public List<DayEventSlotPublicProjection> findEventSlotPageByUserInDateRange(Long userId, LocalDate startDate, LocalDate endDate, LocalDate afterStartDate, UUID afterId, int limit) {
+        User user = this.userRepository.findAuthUserByIdOrThrow(userId);
+        List<DayEventSlotPublicProjection> eventSlots = this.dayEventSlotService.findEventSlotPageByUserInDateRange(user, startDate, endDate, afterStartDate, afterId, limit);
+        List<DayEventSlotPublicProjection> occurrences = expandForeverEventSlots(user, startDate, endDate);
+        occurrences.removeIf(occurrence -> occurrence.getStartDate().isBefore(afterStartDate)
+                || (occurrence.getStartDate().isEqual(afterStartDate) && EventUtils.compareIds(occurrence.getId(), afterId) <= 0));
+        if (occurrences.isEmpty()) {
+            return eventSlots;
+        }
+
+        List<DayEventSlotPublicProjection> page = merge(eventSlots, occurrences).stream()
+                .sorted(Comparator.comparing(DayEventSlotPublicProjection::getStartDate).thenComparing(DayEventSlotPublicProjection::getId, EventUtils::compareIds))
+                .toList();
+        return page.subList(0, Math.min(limit, page.size()));
+    }
+
+    /*
+        Used by the scheduled tasks, so that the slots of FOREVER events are created before they start and reminders
+        are sent for them. We don't materialize just until the given date but MATERIALIZATION_WINDOW_IN_YEARS after it,
+        so that the next runs don't have to extend the event again.
+     */
+    @Transactional
+    public void materializeForeverEvents(LocalDate until) {
+        for (DayEvent event : this.dayEventRepository.findForeverEventsToMaterialize(until)) {
+            LocalDate materializedUntil = until.plusYears(MATERIALIZATION_WINDOW_IN_YEARS);
+            LocalDate limit = event.getStartDate().plusYears(MAX_RECURRENCE_IN_YEARS);
+            if (materializedUntil.isAfter(limit)) {
+                materializedUntil = limit;
+            }
+
+            materialize(event, materializedUntil);
+        }
+    }
+
+    /*
+        The occurrences of FOREVER events after their materializedUntil date are computed on read, with the ids their
+        slots will be created with. An update, a delete or an invite of one of them needs its slot. When there is no
+        slot with the given id, the FOREVER events of the organizer are expanded until their limit, and the event the
+        occurrence belongs to is materialized up until it, like the scheduled tasks would. Only the organizer writes to
+        a slot, the events the user is invited to are not searched. Nothing is created for an id that is not an
+        occurrence of the user's events, and the write that follows returns 404.
+
+        A slot that exists costs 1 query. The expansion is done in memory and only for ids that have no slot.
+     */
+    @Transactional
+    public void materializeOccurrence(Long userId, UUID slotId) {
+        if (this.dayEventSlotService.existsById(slotId)) {
+            return;
+        }
+
+        for (DayEvent event : this.dayEventRepository.findForeverEventsByOrganizer(userId)) {
+            LocalDate limit = event.getStartDate().plusYears(MAX_RECURRENCE_IN_YEARS);
+            if (!event.getMaterializedUntil().isBefore(limit)) {
+                continue;
+            }
+            Optional<LocalDate> occurrence = this.dayEventSlotService.findOccurrenceDate(event, slotId, limit);
+            if (occurrence.isPresent()) {
+                materialize(event, occurrence.get());
+                return;
+            }
+        }
+    }
+
+    // Either the limit is reached, or another instance has already extended the event
+    private void materialize(DayEvent event, LocalDate materializedUntil) {
+        if (!materializedUntil.isAfter(event.getMaterializedUntil())
+                || this.dayEventRepository.updateMaterializedUntil(event.getId(), event.getMaterializedUntil(), materializedUntil) != 1) {
+            return;
+        }
+        this.dayEventSlotService.extendForeverEventSlots(event, materializedUntil);
     }
 
     /*
@@ -185,9 +311,36 @@ public class DayEventService {
      */
     @Transactional
     public void deleteEventById(UUID eventId, Long userId) {
+        // The guests are deleted with the event
+        List<String> guestEmails = this.dayEventSlotService.findGuestEmailsByEventId(eventId);
         int rowsAffected = this.dayEventRepository.deleteByEventAndUserId(eventId, userId);
         if (rowsAffected != 1) {
             throw new ResourceNotFoundException(EVENT_NOT_FOUND_MSG + eventId);
         }
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, new HashSet<>(guestEmails)));
+    }
+
+    // The occurrences of the FOREVER events of the user, as organizer or guest, after their materializedUntil date
+    private List<DayEventSlotPublicProjection> expandForeverEventSlots(User user, LocalDate startDate, LocalDate endDate) {
+        List<DayEventSlotPublicProjection> occurrences = new ArrayList<>();
+        for (ForeverDayEventProjection projection : this.dayEventRepository.findForeverEventsNotMaterializedByUser(user.getId(), user.getEmail(), endDate)) {
+            LocalDate limit = projection.event().getStartDate().plusYears(MAX_RECURRENCE_IN_YEARS);
+            occurrences.addAll(this.dayEventSlotService.expandForeverEventSlots(projection, user, startDate, endDate, endDate.isAfter(limit) ? limit : endDate));
+        }
+
+        return occurrences;
+    }
+
+    // The scheduled tasks could have created the slot of an occurrence after it was read, it has the same id
+    private List<DayEventSlotPublicProjection> merge(List<DayEventSlotPublicProjection> eventSlots, List<DayEventSlotPublicProjection> occurrences) {
+        Set<UUID> ids = eventSlots.stream().map(DayEventSlotPublicProjection::getId).collect(Collectors.toCollection(HashSet::new));
+        List<DayEventSlotPublicProjection> merged = new ArrayList<>(eventSlots);
+        for (DayEventSlotPublicProjection occurrence : occurrences) {
+            if (ids.add(occurrence.getId())) {
+                merged.add(occurrence);
+            }
+        }
+
+        return merged;
     }
 }
@@ -0,0 +1,9 @@
+package org.example.calendar.event.day.projection;
+
+import org.example.calendar.entity.DayEvent;
+
+import java.util.Set;
+
+// A FOREVER event with the username of its organizer and the guests of the event, the ones its new slots inherit
+public record ForeverDayEventProjection(DayEvent event, String organizer, Set<String> guestEmails) {
+}
@@ -0,0 +1,44 @@
+package org.example.calendar.event.day.projection.mapper;
+
+import org.example.calendar.entity.DayEvent;
+import org.example.calendar.event.recurrence.MonthlyRecurrenceType;
+import org.example.calendar.event.recurrence.RecurrenceDuration;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
+import org.example.calendar.utils.EventUtils;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.util.Set;
+import java.util.UUID;
+
+/*
+    Maps a row of day_events to the entity. Null recurrence step, number of occurrences and weekly recurrence days are
+    handled like in DayEventProjectionRowMapper.
+ */
+public class DayEventRowMapper implements RowMapper<DayEvent> {
+
+    @Override
+    public DayEvent mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        Set<DayOfWeek> weeklyRecurrenceDays = EventUtils.convertFromCsv(resultSet.getString("weekly_recurrence_days"));
+
+        return DayEvent.builder()
+                .id(UUID.fromString(resultSet.getString("event_id")))
+                .organizerId(resultSet.getLong("organizer_id"))
+                .startDate(resultSet.getDate("start_date").toLocalDate())
+                .endDate(resultSet.getDate("end_date").toLocalDate())
+                .recurrenceFrequency(RecurrenceFrequency.valueOf(resultSet.getString("recurrence_frequency")))
+                .recurrenceStep(resultSet.getInt("recurrence_step") == 0 ? null : resultSet.getInt("recurrence_step"))
+                .weeklyRecurrenceDays(weeklyRecurrenceDays.isEmpty() ? null : weeklyRecurrenceDays)
+                .monthlyRecurrenceType(resultSet.getString("monthly_recurrence_type") == null ? null : MonthlyRecurrenceType.valueOf(resultSet.getString("monthly_recurrence_type")))
+                .recurrenceDuration(resultSet.getString("recurrence_duration") == null ? null : RecurrenceDuration.valueOf(resultSet.getString("recurrence_duration")))
+                .recurrenceEndDate(resultSet.getDate("recurrence_end_date") == null ? null : resultSet.getDate("recurrence_end_date").toLocalDate())
+                .numberOfOccurrences(resultSet.getInt("number_of_occurrences") == 0 ? null : resultSet.getInt("number_of_occurrences"))
+                .materializedUntil(resultSet.getDate("materialized_until") == null ? null : resultSet.getDate("materialized_until").toLocalDate())
+                .title(resultSet.getString("title"))
+                .location(resultSet.getString("location"))
+                .description(resultSet.getString("description"))
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.calendar.event.day.projection.mapper;
+
+import org.example.calendar.event.day.projection.ForeverDayEventProjection;
+import org.example.calendar.utils.EventUtils;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class ForeverDayEventProjectionRowMapper implements RowMapper<ForeverDayEventProjection> {
+    private final DayEventRowMapper eventRowMapper = new DayEventRowMapper();
+
+    @Override
+    public ForeverDayEventProjection mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return new ForeverDayEventProjection(
+                this.eventRowMapper.mapRow(resultSet, rowNum),
+                resultSet.getString("username"),
+                EventUtils.convertFromArray(resultSet.getArray("guest_emails")));
+    }
+}
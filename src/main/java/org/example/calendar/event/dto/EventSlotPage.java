@@ -0,0 +1,12 @@
+package org.example.calendar.event.dto;
+
+import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
+
+import java.util.List;
+
+/*
+    next is the cursor of the following page, null for the last page. The client passes it as it is, in the cursor
+    parameter of the next request.
+ */
+public record EventSlotPage(List<AbstractEventSlotPublicProjection> eventSlots, String next) {
+}
@@ -0,0 +1,78 @@
+package org.example.calendar.event.recurrence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    The difference between the occurrences of an event before and after its recurrence or its start changed. Instead
+    of deleting every slot of the event and creating the slots of the new occurrences, the slot of a previous
+    occurrence is moved to the current occurrence it is matched with, and only the slots of the unmatched occurrences
+    are deleted/created. The slots keep their ids, their guests and their reminders.
+
+    A previous occurrence is matched in 2 passes:
+        1. With the current occurrence that is shifted by as many days as the start date of the event moved. Moving a
+        daily meeting 1 day later moves every slot 1 day later, instead of moving none of them and creating 1 slot at
+        the end. When only the time of the event changed, the shift is 0 and every occurrence matches itself.
+        2. With the current occurrence on the same date, if it was not matched in the first pass. When the recurrence
+        changes, e.g. from every Monday and Wednesday to every Monday, the Mondays keep their slots.
+    A current occurrence is matched at most once. The previous occurrences that are not matched are removed, the
+    current ones that are not matched are added.
+
+    The occurrences are compared as dates, the occurrences of an event are on different dates.
+ */
+public final class OccurrenceDiff {
+    private final Map<LocalDate, LocalDate> matches;
+    private final List<LocalDate> removed;
+    private final List<LocalDate> added;
+
+    private OccurrenceDiff(Map<LocalDate, LocalDate> matches, List<LocalDate> removed, List<LocalDate> added) {
+        this.matches = matches;
+        this.removed = removed;
+        this.added = added;
+    }
+
+    public static OccurrenceDiff of(List<LocalDate> previous, List<LocalDate> current, long shiftDays) {
+        Set<LocalDate> unmatched = new LinkedHashSet<>(current);
+        Map<LocalDate, LocalDate> matches = new LinkedHashMap<>();
+        List<LocalDate> removed = new ArrayList<>();
+        for (LocalDate occurrence : previous) {
+            LocalDate shifted = occurrence.plusDays(shiftDays);
+            if (unmatched.remove(shifted)) {
+                matches.put(occurrence, shifted);
+            } else {
+                removed.add(occurrence);
+            }
+        }
+
+        if (shiftDays != 0) {
+            removed.removeIf(occurrence -> {
+                if (unmatched.remove(occurrence)) {
+                    matches.put(occurrence, occurrence);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        return new OccurrenceDiff(Collections.unmodifiableMap(matches), Collections.unmodifiableList(removed), List.copyOf(unmatched));
+    }
+
+    // The previous occurrences that moved, to the current occurrence they moved to
+    public Map<LocalDate, LocalDate> matches() {
+        return this.matches;
+    }
+
+    public List<LocalDate> removed() {
+        return this.removed;
+    }
+
+    public List<LocalDate> added() {
+        return this.added;
+    }
+}
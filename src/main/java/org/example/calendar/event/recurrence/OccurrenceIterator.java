@@ -0,0 +1,223 @@
+package org.example.calendar.event.recurrence;
+
+import org.example.calendar.event.AbstractEvent;
+
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+    Iterates the start dates of the occurrences of an event as epoch days. Every frequency and duration combination is
+    handled here, the slot services only turn the epoch days to dates/times.
+
+    The occurrences are grouped in periods. A period is 1 step of the recurrence, a day for DAILY, a week for WEEKLY
+    and a month/year for MONTHLY/ANNUALLY. Period k starts at the start date plus k steps, so every period is computed
+    in closed form instead of advancing a LocalDate/LocalDateTime step by step:
+        DAILY: the start date of the period
+        WEEKLY: the start date of the period moved to every day of weeklyRecurrenceDays. Days before the start date of
+        the event are skipped
+        MONTHLY, SAME_DAY/ANNUALLY: the day of month of the start date, or the last day of the month if it has fewer
+        days(DateUtils.adjustDateForMonth())
+        MONTHLY, SAME_WEEKDAY: the nth weekday of the month, the last one if the month has only 4
+        (DateUtils.findDateOfNthDayOfWeekInMonth())
+
+    UNTIL_DATE/FOREVER stop at the first period that starts after the until date. The start of a monthly period is the
+    start date plus k months, where the day of month is clamped by every shorter month that was passed, the same as
+    calling plusMonths() repeatedly. An occurrence of the last period can fall after the until date, the callers
+    remove it when needed. N_OCCURRENCES stop after count occurrences.
+ */
+public final class OccurrenceIterator implements PrimitiveIterator.OfLong {
+    private final RecurrenceFrequency frequency;
+    private final boolean sameWeekday;
+    private final long startEpochDay;
+    private final long untilEpochDay;
+    private final int count;
+    // DAILY/WEEKLY: the days of a step. MONTHLY/ANNUALLY: the months of a step
+    private final int step;
+    // WEEKLY: the offsets from the start date of the period to the days of weeklyRecurrenceDays, in the order of the days
+    private final int[] weekdayOffsets;
+    // MONTHLY/ANNUALLY: the month of the start date, as months since year 0, and its day of month/week of the month
+    private final long startMonth;
+    private final int startDayOfMonth;
+    private final int startDayOfWeek;
+    private final int weekOfMonth;
+    private long period;
+    private int weekdayIndex;
+    private int emitted;
+    private int periodDayOfMonth;
+    private long next;
+    private boolean hasNext;
+    private static final long DAYS_0000_TO_1970 = 719528L;
+
+    private OccurrenceIterator(AbstractEvent event, LocalDate startDate, LocalDate until, int count) {
+        this.frequency = event.getRecurrenceFrequency();
+        this.sameWeekday = this.frequency == RecurrenceFrequency.MONTHLY && event.getMonthlyRecurrenceType() == MonthlyRecurrenceType.SAME_WEEKDAY;
+        this.startEpochDay = startDate.toEpochDay();
+        this.untilEpochDay = until == null ? Long.MAX_VALUE : until.toEpochDay();
+        this.count = count;
+        this.startMonth = startDate.getYear() * 12L + startDate.getMonthValue() - 1;
+        this.startDayOfMonth = startDate.getDayOfMonth();
+        this.startDayOfWeek = startDate.getDayOfWeek().getValue();
+        this.weekOfMonth = (this.startDayOfMonth - 1) / 7 + 1;
+        this.periodDayOfMonth = this.startDayOfMonth;
+
+        int recurrenceStep = event.getRecurrenceStep() == null ? 1 : event.getRecurrenceStep();
+        this.step = switch (this.frequency) {
+            case WEEKLY -> recurrenceStep * 7;
+            case ANNUALLY -> recurrenceStep * 12;
+            default -> recurrenceStep;
+        };
+        if (this.frequency == RecurrenceFrequency.WEEKLY) {
+            this.weekdayOffsets = event.getWeeklyRecurrenceDays().stream()
+                    .sorted()
+                    .mapToInt(dayOfWeek -> dayOfWeek.getValue() - this.startDayOfWeek)
+                    .toArray();
+        } else {
+            this.weekdayOffsets = new int[0];
+        }
+
+        advance();
+    }
+
+    // The occurrences that start in periods until the given date, for UNTIL_DATE and FOREVER events
+    public static OccurrenceIterator until(AbstractEvent event, LocalDate startDate, LocalDate until) {
+        return new OccurrenceIterator(event, startDate, until, Integer.MAX_VALUE);
+    }
+
+    // The first count occurrences, for N_OCCURRENCES events
+    public static OccurrenceIterator first(AbstractEvent event, LocalDate startDate, int count) {
+        return new OccurrenceIterator(event, startDate, null, count);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.hasNext;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!this.hasNext) {
+            throw new NoSuchElementException();
+        }
+
+        long epochDay = this.next;
+        this.emitted++;
+        advance();
+
+        return epochDay;
+    }
+
+    private void advance() {
+        this.hasNext = false;
+        if (this.emitted >= this.count) {
+            return;
+        }
+
+        switch (this.frequency) {
+            // Non-recurring event, only the start date
+            case NEVER -> {
+                if (this.emitted == 0) {
+                    emit(this.startEpochDay);
+                }
+            }
+            case DAILY -> {
+                long epochDay = this.startEpochDay + this.period * this.step;
+                if (epochDay <= this.untilEpochDay) {
+                    this.period++;
+                    emit(epochDay);
+                }
+            }
+            case WEEKLY -> advanceWeekly();
+            case MONTHLY, ANNUALLY -> advanceMonthly();
+        }
+    }
+
+    private void advanceWeekly() {
+        while (true) {
+            long periodStart = this.startEpochDay + this.period * this.step;
+            if (periodStart > this.untilEpochDay || this.weekdayOffsets.length == 0) {
+                return;
+            }
+
+            while (this.weekdayIndex < this.weekdayOffsets.length) {
+                long epochDay = periodStart + this.weekdayOffsets[this.weekdayIndex++];
+                if (epochDay >= this.startEpochDay && epochDay <= this.untilEpochDay) {
+                    emit(epochDay);
+                    return;
+                }
+            }
+            this.weekdayIndex = 0;
+            this.period++;
+        }
+    }
+
+    private void advanceMonthly() {
+        long month = this.startMonth + this.period * this.step;
+        int year = (int) Math.floorDiv(month, 12);
+        int monthOfYear = Math.floorMod(month, 12) + 1;
+        int lengthOfMonth = lengthOfMonth(year, monthOfYear);
+        this.periodDayOfMonth = Math.min(this.periodDayOfMonth, lengthOfMonth);
+        long firstOfMonth = epochDay(year, monthOfYear, 1);
+        if (firstOfMonth + this.periodDayOfMonth - 1 > this.untilEpochDay) {
+            return;
+        }
+
+        this.period++;
+        if (this.sameWeekday) {
+            emit(firstOfMonth + nthDayOfWeekInMonth(firstOfMonth, lengthOfMonth, this.startDayOfWeek, this.weekOfMonth) - 1);
+        } else {
+            emit(firstOfMonth + Math.min(this.startDayOfMonth, lengthOfMonth) - 1);
+        }
+    }
+
+    private void emit(long epochDay) {
+        this.next = epochDay;
+        this.hasNext = true;
+    }
+
+    /*
+        The day of month of the nth dayOfWeek of the month. The first one is the first day of the month moved forward to
+        dayOfWeek, every next one is 7 days later. If the month has only 4, the 5th is the 4th.
+     */
+    static int nthDayOfWeekInMonth(long firstOfMonth, int lengthOfMonth, int dayOfWeek, int n) {
+        int dayOfMonth = 1 + Math.floorMod(dayOfWeek - dayOfWeek(firstOfMonth), 7) + (n - 1) * 7;
+        return dayOfMonth > lengthOfMonth ? dayOfMonth - 7 : dayOfMonth;
+    }
+
+    // 1(Monday) to 7(Sunday), 1970-01-01 was a Thursday
+    static int dayOfWeek(long epochDay) {
+        return Math.floorMod(epochDay + 3, 7) + 1;
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Same as LocalDate.toEpochDay() without creating the LocalDate
+    static long epochDay(int year, int month, int dayOfMonth) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367L * month - 362) / 12;
+        total += dayOfMonth - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeap(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Getter
@@ -22,4 +23,6 @@ public abstract class AbstractEventSlot {
     protected String title;
     protected String location;
     protected String description;
+    // The occurrence of the event the slot was created for, V15
+    protected LocalDate occurrenceDate;
 }
@@ -1,10 +1,12 @@
 package org.example.calendar.event.slot;
 
 import jakarta.validation.Valid;
+import org.example.calendar.event.day.DayEventService;
 import org.example.calendar.event.slot.day.DayEventSlotService;
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
 import org.example.calendar.event.slot.day.dto.DayEventSlotRequest;
 import org.example.calendar.event.slot.time.TimeEventSlotService;
+import org.example.calendar.event.time.TimeEventService;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.event.slot.time.dto.TimeEventSlotRequest;
 import org.springframework.http.HttpStatus;
@@ -28,6 +30,9 @@ import lombok.RequiredArgsConstructor;
 /*
      IMPORTANT!!! We don't pass the Jwt in the service to extract the userId. Service layer should not know anything
      about jwt/auth mechanism.
+
+     The schedule returns the occurrences of FOREVER events that have no slot yet, DayEventService.materializeOccurrence()
+     creates the slot of such an occurrence before it is updated, deleted or its guests are invited.
  */
 @RestController
 @RequestMapping("/api/v1/event-slots")
@@ -35,12 +40,15 @@ import lombok.RequiredArgsConstructor;
 class EventSlotController {
     private final DayEventSlotService dayEventSlotService;
     private final TimeEventSlotService timeEventSlotService;
+    private final DayEventService dayEventService;
+    private final TimeEventService timeEventService;
 
     @PutMapping("/day-event-slots/{slotId}/invite")
     ResponseEntity<Void> inviteGuestsToDayEventSlot(@AuthenticationPrincipal Jwt jwt,
                                                     @PathVariable("slotId") UUID slotId,
                                                     @Valid @RequestBody InviteGuestsRequest inviteGuestsRequest) {
         Long userId = Long.valueOf(jwt.getSubject());
+        this.dayEventService.materializeOccurrence(userId, slotId);
         this.dayEventSlotService.inviteGuests(userId, slotId, inviteGuestsRequest);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -51,6 +59,7 @@ class EventSlotController {
                                             @PathVariable("slotId") UUID slotId,
                                             @Validated @RequestBody DayEventSlotRequest eventSlotRequest) {
         Long userId = Long.valueOf(jwt.getSubject());
+        this.dayEventService.materializeOccurrence(userId, slotId);
         this.dayEventSlotService.updateEventSlot(userId, slotId, eventSlotRequest);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -69,6 +78,7 @@ class EventSlotController {
     ResponseEntity<Void> deleteDayEventSlotById(@AuthenticationPrincipal Jwt jwt,
                                                 @PathVariable("slotId") UUID slotId) {
         Long userId = Long.valueOf(jwt.getSubject());
+        this.dayEventService.materializeOccurrence(userId, slotId);
         this.dayEventSlotService.deleteEventSlotById(slotId, userId);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -79,6 +89,7 @@ class EventSlotController {
                                                      @PathVariable("slotId") UUID slotId,
                                                      @Valid @RequestBody InviteGuestsRequest inviteGuestsRequest) {
         Long userId = Long.valueOf(jwt.getSubject());
+        this.timeEventService.materializeOccurrence(userId, slotId);
         this.timeEventSlotService.inviteGuests(userId, slotId, inviteGuestsRequest);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -89,6 +100,7 @@ class EventSlotController {
                                              @PathVariable("slotId") UUID slotId,
                                              @Validated @RequestBody TimeEventSlotRequest eventSlotRequest) {
         Long userId = Long.valueOf(jwt.getSubject());
+        this.timeEventService.materializeOccurrence(userId, slotId);
         this.timeEventSlotService.updateEventSlot(userId, slotId, eventSlotRequest);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -107,6 +119,7 @@ class EventSlotController {
     ResponseEntity<Void> deleteTimeEventSlotById(@AuthenticationPrincipal Jwt jwt,
                                                  @PathVariable("slotId") UUID slotId) {
         Long userId = Long.valueOf(jwt.getSubject());
+        this.timeEventService.materializeOccurrence(userId, slotId);
         this.timeEventSlotService.deleteEventSlotById(slotId, userId);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -0,0 +1,68 @@
+package org.example.calendar.event.slot;
+
+import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/*
+    K-way merge of event slots coming from sources that are already sorted according to the comparator. The heap holds
+    the head of every source that is not exhausted, so at any time we keep k slots instead of copying every source in a
+    new list and sorting it again. For our schedule k = 2(DayEventSlots and TimeEventSlots).
+
+    If 2 slots compare as equal, the one of the source that was passed first is returned first, the same as a stable
+    sort of the sources appended in that order.
+ */
+public class EventSlotMergeIterator implements Iterator<AbstractEventSlotPublicProjection> {
+    private final PriorityQueue<Head> heads;
+
+    public EventSlotMergeIterator(List<? extends Iterator<? extends AbstractEventSlotPublicProjection>> sources,
+                                  Comparator<AbstractEventSlotPublicProjection> comparator) {
+        Comparator<Head> byEventSlot = Comparator.comparing(head -> head.eventSlot, comparator);
+        this.heads = new PriorityQueue<>(Math.max(sources.size(), 1), byEventSlot.thenComparingInt(head -> head.source));
+        for (int i = 0; i < sources.size(); i++) {
+            Iterator<? extends AbstractEventSlotPublicProjection> iterator = sources.get(i);
+            if (iterator.hasNext()) {
+                this.heads.add(new Head(iterator.next(), iterator, i));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !this.heads.isEmpty();
+    }
+
+    @Override
+    public AbstractEventSlotPublicProjection next() {
+        Head head = this.heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+
+        AbstractEventSlotPublicProjection eventSlot = head.eventSlot;
+        if (head.iterator.hasNext()) {
+            head.eventSlot = head.iterator.next();
+            this.heads.add(head);
+        }
+
+        return eventSlot;
+    }
+
+    private static final class Head {
+        private AbstractEventSlotPublicProjection eventSlot;
+        private final Iterator<? extends AbstractEventSlotPublicProjection> iterator;
+        private final int source;
+
+        private Head(AbstractEventSlotPublicProjection eventSlot,
+                     Iterator<? extends AbstractEventSlotPublicProjection> iterator,
+                     int source) {
+            this.eventSlot = eventSlot;
+            this.iterator = iterator;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.calendar.event.slot;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/*
+    The slot tables are partitioned by the year the slots start, {table}_{year}, see V12. The names of the tables are
+    never user input, they are the constants of EventSlotTable.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventSlotPartitionRepository {
+    private final JdbcClient jdbcClient;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum EventSlotTable {
+        DAY("day_event_slots", "day_event_slot_guest_emails", "day_event_slot_reminders"),
+        TIME("time_event_slots", "time_event_slot_guest_emails", "time_event_slot_reminders");
+
+        private final String name;
+        private final String guestEmailsName;
+        private final String remindersName;
+    }
+
+    @Transactional
+    public void createPartitions(EventSlotTable table, int fromYear, int toYear) {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions(:table, :fromYear, :toYear)")
+                .param("table", table.getName())
+                .param("fromYear", fromYear)
+                .param("toYear", toYear)
+                .query()
+                .listOfRows();
+    }
+
+    public List<Integer> findPartitionYears(EventSlotTable table) {
+        return this.jdbcClient.sql("""
+                        SELECT substring(c.relname FROM '_(\\d+)$')::INTEGER
+                        FROM pg_inherits i
+                        JOIN pg_class c ON i.inhrelid = c.oid
+                        WHERE i.inhparent = to_regclass(:table)
+                        ORDER BY 1
+                        """)
+                .param("table", table.getName())
+                .query(Integer.class)
+                .list();
+    }
+
+    /*
+        Dropping a partition removes its slots without firing the triggers that delete the guests and the reminders of
+        a slot, so we delete them first. Dropping the partition also detaches it from the parent table. Every instance
+        of the application runs the task, the instance that comes second waits for the lock of the first one and finds
+        no table to drop. create_event_slot_partitions() takes the same lock.
+     */
+    @Transactional
+    public void dropPartition(EventSlotTable table, int year) {
+        String partition = table.getName() + "_" + year;
+        this.jdbcClient.sql("SELECT pg_advisory_xact_lock(hashtext(:partition))")
+                .param("partition", partition)
+                .query()
+                .listOfRows();
+        if (this.jdbcClient.sql("SELECT to_regclass(:partition) IS NOT NULL")
+                .param("partition", partition)
+                .query(Boolean.class)
+                .single()) {
+            this.jdbcClient.sql("DELETE FROM " + table.getGuestEmailsName() + " WHERE event_slot_id IN (SELECT id FROM " + partition + ")").update();
+            this.jdbcClient.sql("DELETE FROM " + table.getRemindersName() + " WHERE slot_id IN (SELECT id FROM " + partition + ")").update();
+            this.jdbcClient.sql("DROP TABLE IF EXISTS " + partition).update();
+        }
+    }
+}
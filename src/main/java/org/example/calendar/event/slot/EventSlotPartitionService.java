@@ -0,0 +1,56 @@
+package org.example.calendar.event.slot;
+
+import org.example.calendar.event.slot.EventSlotPartitionRepository.EventSlotTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.annotation.Timed;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/*
+    Creates the partitions of the slot tables for the next YEARS_AHEAD years, so creating or updating a slot in the
+    near future never has to create one. Creating a partition locks the parent table, we don't want that on the
+    request path. The repositories still create the partitions of slots further in the future or in the past.
+
+    Retention is opt-in. With calendar.event-slots.retention-years set to N > 0, the partitions of the years before
+    the last N are dropped. The slots of a whole year are removed at once, instead of deleting them row by row and
+    vacuuming the table afterwards. With the default, 0, every slot is kept.
+ */
+@Service
+class EventSlotPartitionService {
+    private final EventSlotPartitionRepository partitionRepository;
+    private final int retentionYears;
+    private static final int YEARS_AHEAD = 2;
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSlotPartitionService.class);
+
+    EventSlotPartitionService(EventSlotPartitionRepository partitionRepository,
+                              @Value("${calendar.event-slots.retention-years:0}") int retentionYears) {
+        this.partitionRepository = partitionRepository;
+        this.retentionYears = retentionYears;
+    }
+
+    @Scheduled(cron = "0 0 1 * * *")
+    @Timed(value = "event.slots.partitions.maintenance", histogram = true)
+    void maintainPartitions() {
+        maintainPartitions(LocalDate.now(ZoneId.of("UTC")).getYear());
+    }
+
+    void maintainPartitions(int currentYear) {
+        for (EventSlotTable table : EventSlotTable.values()) {
+            this.partitionRepository.createPartitions(table, currentYear, currentYear + YEARS_AHEAD);
+            if (this.retentionYears > 0) {
+                for (int year : this.partitionRepository.findPartitionYears(table)) {
+                    if (year <= currentYear - this.retentionYears) {
+                        LOGGER.info("Dropping partition {}_{}", table.getName(), year);
+                        this.partitionRepository.dropPartition(table, year);
+                    }
+                }
+            }
+        }
+    }
+}
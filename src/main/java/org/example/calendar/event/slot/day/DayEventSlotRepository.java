@@ -11,13 +11,16 @@ import org.example.calendar.event.slot.day.projection.mapper.DayEventSlotReminde
 import org.example.calendar.event.slot.projection.mapper.EventSlotWithGuestsProjectionRowMapper;
 import org.example.calendar.utils.EventUtils;
 import org.springframework.jdbc.core.simple.JdbcClient;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -31,62 +34,59 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class DayEventSlotRepository {
     private final JdbcClient jdbcClient;
+    private static final int BATCH_SIZE = 1000;
 
-    void create(DayEventSlot eventSlot) {
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        this.jdbcClient.sql("""
-                        INSERT INTO day_event_slots(event_id, title, location, description, start_date, end_date)
-                        VALUES (:eventId, :title, :location, :description, :startDate, :endDate)
-                        """)
-                .param("eventId", eventSlot.getEventId())
-                .param("title", eventSlot.getTitle())
-                .param("location", eventSlot.getLocation())
-                .param("description", eventSlot.getDescription())
-                .param("startDate", Date.valueOf(eventSlot.getStartDate()))
-                .param("endDate", Date.valueOf(eventSlot.getEndDate()))
-                .update(keyHolder, "id");
+    /*
+        We insert all the slots of an event with multi-row INSERT statements, instead of 1 INSERT per slot and 1 INSERT
+        per guest of every slot. The ids of the slots are generated by us, so we don't have to read back the generated
+        keys before inserting the guests.
 
-        eventSlot.setId(keyHolder.getKeyAs(UUID.class));
+            INSERT INTO day_event_slots(id, event_id, ...) VALUES (:id0, :eventId0, ...), (:id1, :eventId1, ...), ...
 
-        for (String guestEmail : eventSlot.getGuestEmails()) {
-            this.jdbcClient.sql("""
-                            INSERT INTO day_event_slot_guest_emails(event_slot_id, email)
-                            VALUES (:eventSlotId, :email)
-                            """)
-                    .param("eventSlotId", eventSlot.getId())
-                    .param("email", guestEmail)
-                    .update();
-        }
-    }
+        Postgres allows up to 65535 bind parameters per statement, so we insert up to BATCH_SIZE rows at a time.
 
-    void update(DayEventSlot original, DayEventSlot modified) {
-        StringBuilder sql = new StringBuilder("UPDATE day_event_slots SET ");
-        Map<String, Object> params = new HashMap<>();
-        EventUtils.updateDateProperties(sql, original.getStartDate(), modified.getStartDate(), original.getEndDate(), modified.getEndDate(), params);
-        EventUtils.updateCommonEvenSlotProperties(sql, original, modified, params);
-        if (!Objects.equals(original.getGuestEmails(), modified.getGuestEmails())) {
-            updateGuests(original.getId(), modified.getGuestEmails());
+        The slots are created without guest rows. They inherit the guests of the event (updateEventGuests()) until
+        their guest list is modified.
+     */
+    void create(List<DayEventSlot> eventSlots) {
+        if (eventSlots.isEmpty()) {
+            return;
         }
 
-        // If any properties were updated, execute the update
-        if (!params.isEmpty()) {
+        IntSummaryStatistics years = eventSlots.stream().mapToInt(eventSlot -> eventSlot.getStartDate().getYear()).summaryStatistics();
+        createPartitions(years.getMin(), years.getMax());
+        for (int i = 0; i < eventSlots.size(); i += BATCH_SIZE) {
+            List<DayEventSlot> batch = eventSlots.subList(i, Math.min(i + BATCH_SIZE, eventSlots.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO day_event_slots(id, event_id, title, location, description, start_date, end_date, occurrence_date) VALUES ");
+            Map<String, Object> params = new HashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                DayEventSlot eventSlot = batch.get(j);
+                sql.append(String.format("(:id%1$d, :eventId%1$d, :title%1$d, :location%1$d, :description%1$d, :startDate%1$d, :endDate%1$d, :occurrenceDate%1$d), ", j));
+                params.put("id" + j, eventSlot.getId());
+                params.put("eventId" + j, eventSlot.getEventId());
+                params.put("title" + j, eventSlot.getTitle());
+                params.put("location" + j, eventSlot.getLocation());
+                params.put("description" + j, eventSlot.getDescription());
+                params.put("startDate" + j, Date.valueOf(eventSlot.getStartDate()));
+                params.put("endDate" + j, Date.valueOf(eventSlot.getEndDate()));
+                params.put("occurrenceDate" + j, eventSlot.getOccurrenceDate() == null ? null : Date.valueOf(eventSlot.getOccurrenceDate()));
+            }
             // Remove the last ", "
             sql.setLength(sql.length() - 2);
-            sql.append(" WHERE id = :slotId");
-            params.put("slotId", original.getId());
             this.jdbcClient.sql(sql.toString())
                     .params(params)
                     .update();
         }
     }
 
-    // We don't update date related properties. This method updates properties like title, description, location of all
-    // event slots for a given event. To update the start date and end date of all event slots user provided different
-    // frequencies which means we need to delete the previous slots and compute the new ones
-    void updateEventSlotForEvent(DayEventSlot original, DayEventSlot modified) {
+    void update(DayEventSlot original, DayEventSlot modified) {
         StringBuilder sql = new StringBuilder("UPDATE day_event_slots SET ");
         Map<String, Object> params = new HashMap<>();
+        EventUtils.updateDateProperties(sql, original.getStartDate(), modified.getStartDate(), original.getEndDate(), modified.getEndDate(), params);
+        // A slot that moves keeps the occurrence it was created for, the right side is evaluated on the row before the update
+        if (params.containsKey("startDate")) {
+            sql.append("occurrence_date = COALESCE(occurrence_date, start_date), ");
+        }
         EventUtils.updateCommonEvenSlotProperties(sql, original, modified, params);
         if (!Objects.equals(original.getGuestEmails(), modified.getGuestEmails())) {
             updateGuests(original.getId(), modified.getGuestEmails());
@@ -94,6 +94,11 @@ public class DayEventSlotRepository {
 
         // If any properties were updated, execute the update
         if (!params.isEmpty()) {
+            // The slot moves to the partition of the year it starts
+            if (params.containsKey("startDate")) {
+                int year = ((LocalDate) params.get("startDate")).getYear();
+                createPartitions(year, year);
+            }
             // Remove the last ", "
             sql.setLength(sql.length() - 2);
             sql.append(" WHERE id = :slotId");
@@ -104,25 +109,62 @@ public class DayEventSlotRepository {
         }
     }
 
+    // We don't update date related properties. This method updates properties like title, description, location of all
+    // event slots for a given event. The start date and end date of the slots of an event are updated by
+    // updateOccurrences(), when the user provided different frequencies or dates
     /*
         We can't pass directly a day event slot instance and iterate the guest emails, because the set will contain
         all the guests for the current slot, the previous ones and the ones we just added. Instead, we pass the list of
         the new guest emails to be added. In theory, we could and in our INSERT call DO NOTHING ON CONFLICT.
      */
     void inviteGuests(UUID slotId, Set<String> guestEmails) {
-        for (String guestEmail : guestEmails) {
-            this.jdbcClient.sql("""
-                            INSERT INTO day_event_slot_guest_emails(event_slot_id, email)
-                            VALUES (:eventSlotId, :email)
-                            """)
-                    .param("eventSlotId", slotId)
-                    .param("email", guestEmail)
-                    .update();
-        }
+        overrideGuests(slotId);
+        insertGuests("day_event_slot_guest_emails", "event_slot_id", Map.of(slotId, guestEmails));
+    }
+
+    /*
+        Replaces the guests of the event. Every slot of the event that has not overridden its guest list sees the new
+        guests, without rewriting a row per slot.
+     */
+    void updateEventGuests(UUID eventId, Set<String> guestEmails) {
+        this.jdbcClient.sql("""
+                        DELETE
+                        FROM day_event_guest_emails
+                        WHERE event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .update();
+
+        insertGuests("day_event_guest_emails", "event_id", Map.of(eventId, guestEmails));
     }
 
+    // All the slots of the event inherit the event's guests again
+    void resetGuestOverrides(UUID eventId) {
+        this.jdbcClient.sql("""
+                        DELETE
+                        FROM day_event_slot_guest_emails ge
+                        USING day_event_slots des
+                        WHERE des.id = ge.event_slot_id AND des.event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .update();
+
+        this.jdbcClient.sql("""
+                        UPDATE day_event_slots
+                        SET guests_overridden = FALSE
+                        WHERE event_id = :eventId AND guests_overridden
+                        """)
+                .param("eventId", eventId)
+                .update();
+    }
+
+    /*
+        The guests of a slot are collected in an array by the query, so we get 1 row per slot. Previously, we joined the
+        guest emails and got 1 row per guest, with the same slot repeated in every row, and we had to fold them back to
+        a single slot with a set of emails in memory. The row mappers read the array directly.
+     */
     Optional<DayEventSlotProjection> findBySlotAndUserId(UUID slotId, Long userId) {
-        List<DayEventSlotProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             des.id AS event_slot_id,
                             des.start_date,
@@ -130,40 +172,34 @@ public class DayEventSlotRepository {
                             des.title,
                             des.description,
                             des.location,
-                            ge.email
+                            ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails
                         FROM day_event_slots des
                         JOIN day_events de ON des.event_id = de.id
-                        LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
                         WHERE des.id = :slotId AND de.organizer_id = :userId
                         """)
                 .param("slotId", slotId)
                 .param("userId", userId)
                 .query(new DayEventSlotProjectionRowMapper())
-                .list();
-
-        return EventUtils.aggregateGuestEmails(results);
+                .optional();
     }
 
     Optional<EventSlotWithGuestsProjection> findBySlotAndUserIdFetchingGuests(UUID slotId, Long userId) {
-        List<EventSlotWithGuestsProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             des.id,
-                            ge.email
+                            ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails
                         FROM day_event_slots des
                         JOIN day_events de ON des.event_id = de.id
-                        LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
                         WHERE des.id = :slotId AND de.organizer_id = :userId
                         """)
                 .param("slotId", slotId)
                 .param("userId", userId)
                 .query(new EventSlotWithGuestsProjectionRowMapper())
-                .list();
-
-        return EventUtils.aggregateGuestEmails(results);
+                .optional();
     }
 
     public List<DayEventSlotPublicProjection> findByEventAndUserId(UUID eventId, Long userId) {
-        List<DayEventSlotPublicProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             des.id,
                             des.event_id,
@@ -172,12 +208,11 @@ public class DayEventSlotRepository {
                             des.title,
                             des.description,
                             des.location,
-                            ge.email,
+                            ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails,
                             u.username
                         FROM day_event_slots des
                         JOIN day_events de ON des.event_id = de.id
                         JOIN users u ON de.organizer_id = u.id
-                        LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
                         WHERE des.event_id = :eventId AND de.organizer_id = :userId
                         ORDER BY des.start_date
                         """)
@@ -185,12 +220,10 @@ public class DayEventSlotRepository {
                 .param("userId", userId)
                 .query(new DayEventSlotPublicProjectionRowMapper())
                 .list();
-
-        return EventUtils.aggregateListGuestEmails(results);
     }
 
     Optional<DayEventSlotPublicProjection> findByOrganizerOrGuestEmailAndSlotId(UUID slotId, Long userId, String email) {
-        List<DayEventSlotPublicProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             des.id,
                             des.event_id,
@@ -199,74 +232,244 @@ public class DayEventSlotRepository {
                             des.title,
                             des.description,
                             des.location,
-                            ge.email,
+                            CASE WHEN de.organizer_id = :userId THEN ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) ELSE ARRAY[CAST(:email AS TEXT)] END AS guest_emails,
                             u.username
                         FROM day_event_slots des
                         JOIN day_events de ON des.event_id = de.id
                         JOIN users u ON de.organizer_id = u.id
-                        LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
-                        WHERE (de.organizer_id = :userId OR ge.email = :email) AND des.id = :slotId
+                        WHERE des.id = :slotId AND (de.organizer_id = :userId OR EXISTS (
+                            SELECT 1
+                            FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge
+                            WHERE ge.email = :email))
                         """)
                 .param("slotId", slotId)
                 .param("userId", userId)
                 .param("email", email)
                 .query(new DayEventSlotPublicProjectionRowMapper())
-                .list();
-
-        return EventUtils.aggregateGuestEmails(results);
+                .optional();
     }
 
+    /*
+        The slots of the user are the ones they organize and the ones they are invited to. Previously, we had 1 query
+        with the condition WHERE (de.organizer_id = :userId OR ge.email = :email). The guest rows of every slot in the
+        range had to be joined before the condition could be checked, and no index could serve the OR. Each branch of
+        the UNION ALL has its own access path:
+            1. Slots we organize: by the organizer of the event and the interval of the slot. We fetch every guest.
+            2. Slots we are invited to: by our email in the guest tables. Like before, only our own guest email is
+            returned, and the slots we organize are excluded, they are already returned by the 1st branch.
+        The output and the order are the same as the previous query. Slots with the same start date are ordered by id.
+        A slot is in the range if its interval, during(V10), overlaps it. Slots that start before the range and end in
+        it, like multi-day events, are returned as well. The GiST index on during serves the && operator.
+        during is not the partition key, V12, so the overlap alone would probe the partition of every year. A slot that
+        overlaps the range starts until its end, the bound on start_date doesn't change the result, it lets Postgres
+        skip the partitions of the years after the range. A day event can last any number of days, so the partitions
+        of the years before the range are still read.
+     */
+    static final String FIND_BY_USER_IN_DATE_RANGE_SQL = """
+            SELECT
+                des.id,
+                des.event_id,
+                des.start_date,
+                des.end_date,
+                des.title,
+                des.description,
+                des.location,
+                ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails,
+                u.username
+            FROM day_event_slots des
+            JOIN day_events de ON des.event_id = de.id
+            JOIN users u ON de.organizer_id = u.id
+            WHERE de.organizer_id = :userId AND des.during && daterange(:startDate, :endDate, '[]') AND des.start_date <= :endDate
+            UNION ALL
+            SELECT
+                des.id,
+                des.event_id,
+                des.start_date,
+                des.end_date,
+                des.title,
+                des.description,
+                des.location,
+                ARRAY[ge.email] AS guest_emails,
+                u.username
+            FROM day_event_slot_effective_guest_emails ge
+            JOIN day_event_slots des ON ge.event_slot_id = des.id
+            JOIN day_events de ON des.event_id = de.id
+            JOIN users u ON de.organizer_id = u.id
+            WHERE ge.email = :email AND de.organizer_id <> :userId AND des.during && daterange(:startDate, :endDate, '[]') AND des.start_date <= :endDate
+            ORDER BY start_date, id
+            """;
+
     List<DayEventSlotPublicProjection> findByUserInDateRange(Long userId, String email, LocalDate startDate, LocalDate endDate) {
-        List<DayEventSlotPublicProjection> results = this.jdbcClient.sql("""
-                        SELECT
-                            des.id,
-                            des.event_id,
-                            des.start_date,
-                            des.end_date,
-                            des.title,
-                            des.description,
-                            des.location,
-                            ge.email,
-                            u.username
-                        FROM day_event_slots des
-                        JOIN day_events de ON des.event_id = de.id
-                        JOIN users u ON de.organizer_id = u.id
-                        LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
-                        WHERE (de.organizer_id = :userId OR ge.email = :email) AND des.start_date BETWEEN :startDate AND :endDate
-                        ORDER BY des.start_date
-                        """)
+        return this.jdbcClient.sql(FIND_BY_USER_IN_DATE_RANGE_SQL)
+                .param("userId", userId)
+                .param("email", email)
+                .param("startDate", startDate)
+                .param("endDate", endDate)
+                .query(new DayEventSlotPublicProjectionRowMapper())
+                .list();
+    }
+
+    /*
+        A page of the slots of findByUserInDateRange(). The slots are ordered by (start_date, id), so the page starts
+        after the last slot of the previous page, (afterStartDate, afterId), and the index on (start_date, id) is read
+        from there. An OFFSET would read and discard every slot of the previous pages.
+        The first page starts at the earliest date, EventScheduleService, so the slots that overlap the range but start
+        before it are included.
+     */
+    static final String FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL = """
+            SELECT
+                des.id,
+                des.event_id,
+                des.start_date,
+                des.end_date,
+                des.title,
+                des.description,
+                des.location,
+                ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails,
+                u.username
+            FROM day_event_slots des
+            JOIN day_events de ON des.event_id = de.id
+            JOIN users u ON de.organizer_id = u.id
+            WHERE de.organizer_id = :userId AND des.during && daterange(:startDate, :endDate, '[]') AND des.start_date <= :endDate AND (des.start_date, des.id) > (:afterStartDate, :afterId)
+            UNION ALL
+            SELECT
+                des.id,
+                des.event_id,
+                des.start_date,
+                des.end_date,
+                des.title,
+                des.description,
+                des.location,
+                ARRAY[ge.email] AS guest_emails,
+                u.username
+            FROM day_event_slot_effective_guest_emails ge
+            JOIN day_event_slots des ON ge.event_slot_id = des.id
+            JOIN day_events de ON des.event_id = de.id
+            JOIN users u ON de.organizer_id = u.id
+            WHERE ge.email = :email AND de.organizer_id <> :userId AND des.during && daterange(:startDate, :endDate, '[]') AND des.start_date <= :endDate AND (des.start_date, des.id) > (:afterStartDate, :afterId)
+            ORDER BY start_date, id
+            LIMIT :limit
+            """;
+
+    List<DayEventSlotPublicProjection> findPageByUserInDateRange(Long userId, String email, LocalDate startDate, LocalDate endDate, LocalDate afterStartDate, UUID afterId, int limit) {
+        return this.jdbcClient.sql(FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL)
                 .param("userId", userId)
                 .param("email", email)
                 .param("startDate", startDate)
                 .param("endDate", endDate)
+                .param("afterStartDate", afterStartDate)
+                .param("afterId", afterId)
+                .param("limit", limit)
                 .query(new DayEventSlotPublicProjectionRowMapper())
                 .list();
+    }
 
-        return EventUtils.aggregateListGuestEmails(results);
+    static final String ENQUEUE_REMINDERS_SQL = """
+            INSERT INTO day_event_slot_reminders (slot_id)
+            SELECT des.id
+            FROM day_event_slots des
+            WHERE des.start_date > :today AND des.start_date <= :until
+            ON CONFLICT (slot_id) DO NOTHING
+            """;
+
+    // Slots that start in (today, until] enter the reminder outbox. Every instance runs it, the conflicts are ignored
+    @Transactional
+    public int enqueueReminders(LocalDate today, LocalDate until) {
+        return this.jdbcClient.sql(ENQUEUE_REMINDERS_SQL)
+                .param("today", Date.valueOf(today))
+                .param("until", Date.valueOf(until))
+                .update();
     }
 
-    public List<DayEventSlotReminderProjection> findByStartDate(LocalDate startDate) {
-        // Conflict if we fetch ge.email and u.email
-        List<DayEventSlotReminderProjection> results = this.jdbcClient.sql("""
-                        SELECT
-                            des.id,
-                            des.start_date,
-                            des.title,
-                            ge.email AS guest_email,
-                            u.username,
-                            u.email AS organizer_email
-                        FROM day_event_slots des
-                        JOIN day_events de ON des.event_id = de.id
-                        JOIN users u ON de.organizer_id = u.id
-                        LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
-                        WHERE des.start_date = :startDate
-                        ORDER BY des.start_date
-                        """)
-                .param("startDate", Date.valueOf(startDate))
+    static final String CLAIM_REMINDERS_SQL = """
+            WITH claimed AS (
+                UPDATE day_event_slot_reminders
+                SET claimed_at = :now, attempts = attempts + 1
+                WHERE slot_id IN (
+                    SELECT r.slot_id
+                    FROM day_event_slot_reminders r
+                    JOIN day_event_slots des ON r.slot_id = des.id
+                    WHERE r.sent_at IS NULL AND (r.claimed_at IS NULL OR r.claimed_at < :expiry) AND r.attempts < :maxAttempts
+                        AND des.start_date <= :until
+                    ORDER BY des.start_date
+                    LIMIT :limit
+                    FOR UPDATE OF r SKIP LOCKED)
+                RETURNING slot_id
+            )
+            SELECT
+                des.id,
+                des.start_date,
+                des.title,
+                ARRAY(SELECT ge.email FROM day_event_slot_guest_emails_of(des.id, des.event_id, des.guests_overridden) ge) AS guest_emails,
+                u.username,
+                u.email AS organizer_email
+            FROM claimed c
+            JOIN day_event_slots des ON c.slot_id = des.id
+            JOIN day_events de ON des.event_id = de.id
+            JOIN users u ON de.organizer_id = u.id
+            ORDER BY des.start_date
+            """;
+
+    /*
+        Claims up to limit reminders of slots that start until the given date and have not been sent. The rows locked by
+        the claims of other instances are skipped, so concurrent claims never return the same slot. A reminder is
+        claimed again if its claim is older than the expiry, up to maxAttempts, like in TimeEventSlotRepository.
+     */
+    @Transactional
+    public List<DayEventSlotReminderProjection> claimReminders(LocalDateTime now, LocalDateTime expiry, int maxAttempts, LocalDate until, int limit) {
+        return this.jdbcClient.sql(CLAIM_REMINDERS_SQL)
+                .param("now", Timestamp.valueOf(now))
+                .param("expiry", Timestamp.valueOf(expiry))
+                .param("maxAttempts", maxAttempts)
+                .param("until", Date.valueOf(until))
+                .param("limit", limit)
                 .query(new DayEventSlotReminderProjectionRowMapper())
                 .list();
+    }
+
+    // The row of a sent reminder is kept until its slot starts, so enqueueReminders() doesn't add it again
+    @Transactional
+    public void markRemindersSent(LocalDateTime now, List<DayEventSlotReminderProjection> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        this.jdbcClient.sql("""
+                        UPDATE day_event_slot_reminders
+                        SET sent_at = :now
+                        WHERE slot_id IN (:slotIds)
+                        """)
+                .param("now", Timestamp.valueOf(now))
+                .param("slotIds", reminders.stream().map(DayEventSlotReminderProjection::getId).toList())
+                .update();
+    }
+
+    // The reminders that failed are claimed again by the next run
+    @Transactional
+    public void releaseReminders(List<DayEventSlotReminderProjection> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
 
-        return EventUtils.aggregateListGuestEmails(results);
+        this.jdbcClient.sql("""
+                        UPDATE day_event_slot_reminders
+                        SET claimed_at = NULL
+                        WHERE slot_id IN (:slotIds) AND sent_at IS NULL
+                        """)
+                .param("slotIds", reminders.stream().map(DayEventSlotReminderProjection::getId).toList())
+                .update();
+    }
+
+    // Once a slot has started it can't enter the outbox again, its reminder, sent or not, is no longer needed
+    @Transactional
+    public int deleteRemindersOfStartedSlots(LocalDate today) {
+        return this.jdbcClient.sql("""
+                        DELETE FROM day_event_slot_reminders r
+                        USING day_event_slots des
+                        WHERE r.slot_id = des.id AND des.start_date <= :today
+                        """)
+                .param("today", Date.valueOf(today))
+                .update();
     }
 
     /*
@@ -285,15 +488,164 @@ public class DayEventSlotRepository {
                 .update();
     }
 
-    void deleteEventSlotsByEventId(UUID eventId) {
+    // The guests of the event and the guests of the slots that override them
+    List<String> findGuestEmailsByEventId(UUID eventId) {
+        return this.jdbcClient.sql("""
+                        SELECT ege.email
+                        FROM day_event_guest_emails ege
+                        WHERE ege.event_id = :eventId
+                        UNION
+                        SELECT ge.email
+                        FROM day_event_slot_guest_emails ge
+                        JOIN day_event_slots des ON ge.event_slot_id = des.id
+                        WHERE des.event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .query(String.class)
+                .list();
+    }
+
+    /*
+        The slots of the event with the occurrence they were created for, V15. A slot without an occurrence date was
+        never moved, its occurrence is its start date.
+     */
+    List<DayEventSlot> findOccurrencesByEventId(UUID eventId) {
+        return this.jdbcClient.sql("""
+                        SELECT
+                            des.id,
+                            des.start_date,
+                            des.end_date,
+                            COALESCE(des.occurrence_date, des.start_date) AS occurrence_date
+                        FROM day_event_slots des
+                        WHERE des.event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .<DayEventSlot>query((rs, rowNum) -> DayEventSlot.builder()
+                        .id(UUID.fromString(rs.getString("id")))
+                        .eventId(eventId)
+                        .startDate(rs.getDate("start_date").toLocalDate())
+                        .endDate(rs.getDate("end_date").toLocalDate())
+                        .occurrenceDate(rs.getDate("occurrence_date").toLocalDate())
+                        .build())
+                .list();
+    }
+
+    /*
+        Moves the slots of the event to their new occurrence with 1 statement per BATCH_SIZE slots, instead of 1 UPDATE
+        per slot:
+
+            UPDATE day_event_slots des SET start_date = v.start_date, ...
+            FROM (VALUES (:id0, :startDate0, ...), (:id1, :startDate1, ...), ...) AS v(id, start_date, ...)
+            WHERE des.event_id = :eventId AND des.id = v.id
+
+        The parameters of the VALUES list are cast, Postgres does not infer their types from the columns they are
+        assigned to. A slot that starts in another year moves to the partition of that year, like in update().
+     */
+    void updateOccurrences(UUID eventId, List<DayEventSlot> eventSlots) {
+        if (eventSlots.isEmpty()) {
+            return;
+        }
+
+        IntSummaryStatistics years = eventSlots.stream().mapToInt(eventSlot -> eventSlot.getStartDate().getYear()).summaryStatistics();
+        createPartitions(years.getMin(), years.getMax());
+        for (int i = 0; i < eventSlots.size(); i += BATCH_SIZE) {
+            List<DayEventSlot> batch = eventSlots.subList(i, Math.min(i + BATCH_SIZE, eventSlots.size()));
+            StringBuilder sql = new StringBuilder("""
+                    UPDATE day_event_slots des
+                    SET start_date = v.start_date, end_date = v.end_date, occurrence_date = v.occurrence_date
+                    FROM (VALUES\s""");
+            Map<String, Object> params = new HashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                DayEventSlot eventSlot = batch.get(j);
+                sql.append(String.format("(CAST(:id%1$d AS UUID), CAST(:startDate%1$d AS DATE), CAST(:endDate%1$d AS DATE), CAST(:occurrenceDate%1$d AS DATE)), ", j));
+                params.put("id" + j, eventSlot.getId());
+                params.put("startDate" + j, Date.valueOf(eventSlot.getStartDate()));
+                params.put("endDate" + j, Date.valueOf(eventSlot.getEndDate()));
+                params.put("occurrenceDate" + j, Date.valueOf(eventSlot.getOccurrenceDate()));
+            }
+            // Remove the last ", "
+            sql.setLength(sql.length() - 2);
+            sql.append(") AS v(id, start_date, end_date, occurrence_date) WHERE des.event_id = :eventId AND des.id = v.id");
+            params.put("eventId", eventId);
+            this.jdbcClient.sql(sql.toString())
+                    .params(params)
+                    .update();
+        }
+    }
+
+    // The title, location and description of every slot of the event, the slots that already have them are not written
+    void updateCommonPropertiesByEventId(UUID eventId, String title, String location, String description) {
         this.jdbcClient.sql("""
-                            DELETE FROM day_event_slots
-                            WHERE event_id = :eventId
+                        UPDATE day_event_slots
+                        SET title = :title, location = :location, description = :description
+                        WHERE event_id = :eventId
+                            AND (title IS DISTINCT FROM :title OR location IS DISTINCT FROM :location OR description IS DISTINCT FROM :description)
                         """)
                 .param("eventId", eventId)
+                .param("title", title)
+                .param("location", location)
+                .param("description", description)
                 .update();
     }
 
+    // Every partition is read by the index of the primary key, (id, start_date)
+    boolean existsById(UUID slotId) {
+        return this.jdbcClient.sql("""
+                            SELECT EXISTS(
+                                SELECT 1
+                                FROM day_event_slots
+                                WHERE id = :slotId)
+                        """)
+                .param("slotId", slotId)
+                .query(Boolean.class)
+                .single();
+    }
+
+    // The ids of the given ones that are already taken by slots of the event
+    List<UUID> findIdsByEventIdAndSlotIds(UUID eventId, List<UUID> slotIds) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < slotIds.size(); i += BATCH_SIZE) {
+            ids.addAll(this.jdbcClient.sql("""
+                            SELECT id
+                            FROM day_event_slots
+                            WHERE event_id = :eventId AND id IN (:slotIds)
+                            """)
+                    .param("eventId", eventId)
+                    .param("slotIds", slotIds.subList(i, Math.min(i + BATCH_SIZE, slotIds.size())))
+                    .query(UUID.class)
+                    .list());
+        }
+
+        return ids;
+    }
+
+    // The guests and the reminders of the slots are deleted by the trigger of V12
+    void deleteByEventIdAndSlotIds(UUID eventId, List<UUID> slotIds) {
+        for (int i = 0; i < slotIds.size(); i += BATCH_SIZE) {
+            this.jdbcClient.sql("""
+                            DELETE FROM day_event_slots
+                            WHERE event_id = :eventId AND id IN (:slotIds)
+                            """)
+                    .param("eventId", eventId)
+                    .param("slotIds", slotIds.subList(i, Math.min(i + BATCH_SIZE, slotIds.size())))
+                    .update();
+        }
+    }
+
+    /*
+        The slots are partitioned by the year they start, V12, and a row can only be inserted in an existing partition.
+        EventSlotPartitionService creates the partitions of the next years ahead of time, this creates the ones of
+        slots further in the future or in the past. The function only locks and creates the partitions that don't
+        exist yet, for the rest it is a catalog lookup.
+     */
+    private void createPartitions(int fromYear, int toYear) {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions('day_event_slots', :fromYear, :toYear)")
+                .param("fromYear", fromYear)
+                .param("toYear", toYear)
+                .query()
+                .listOfRows();
+    }
+
     private void updateGuests(UUID slotId, Set<String> guestEmails) {
         this.jdbcClient.sql("""
                         DELETE
@@ -303,14 +655,59 @@ public class DayEventSlotRepository {
                 .param("slotId", slotId)
                 .update();
 
+        this.jdbcClient.sql("""
+                        UPDATE day_event_slots
+                        SET guests_overridden = TRUE
+                        WHERE id = :slotId
+                        """)
+                .param("slotId", slotId)
+                .update();
+
         // Empty, can't be null
-        for (String guestEmail : guestEmails) {
-            this.jdbcClient.sql("""
-                            INSERT INTO day_event_slot_guest_emails(event_slot_id, email)
-                            VALUES (:slotId, :email)
-                            """)
-                    .param("slotId", slotId)
-                    .param("email", guestEmail)
+        insertGuests("day_event_slot_guest_emails", "event_slot_id", Map.of(slotId, guestEmails));
+    }
+
+    /*
+        Before adding guests to a slot that inherits the event's guests, we copy the event's guests to the slot, so the
+        slot keeps them alongside the new ones.
+     */
+    private void overrideGuests(UUID slotId) {
+        this.jdbcClient.sql("""
+                        INSERT INTO day_event_slot_guest_emails(event_slot_id, email)
+                        SELECT des.id, ege.email
+                        FROM day_event_slots des
+                        JOIN day_event_guest_emails ege ON des.event_id = ege.event_id
+                        WHERE des.id = :slotId AND NOT des.guests_overridden
+                        """)
+                .param("slotId", slotId)
+                .update();
+
+        this.jdbcClient.sql("""
+                        UPDATE day_event_slots
+                        SET guests_overridden = TRUE
+                        WHERE id = :slotId AND NOT guests_overridden
+                        """)
+                .param("slotId", slotId)
+                .update();
+    }
+
+    private void insertGuests(String tableName, String idColumn, Map<UUID, Set<String>> guestEmails) {
+        List<Map.Entry<UUID, String>> rows = new ArrayList<>();
+        guestEmails.forEach((id, emails) -> emails.forEach(email -> rows.add(Map.entry(id, email))));
+
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<Map.Entry<UUID, String>> batch = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO " + tableName + "(" + idColumn + ", email) VALUES ");
+            Map<String, Object> params = new HashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                sql.append(String.format("(:id%1$d, :email%1$d), ", j));
+                params.put("id" + j, batch.get(j).getKey());
+                params.put("email" + j, batch.get(j).getValue());
+            }
+            // Remove the last ", "
+            sql.setLength(sql.length() - 2);
+            this.jdbcClient.sql(sql.toString())
+                    .params(params)
                     .update();
         }
     }
@@ -1,9 +1,14 @@
 package org.example.calendar.event.slot.day;
 
 import org.example.calendar.event.day.dto.DayEventRequest;
+import org.example.calendar.event.day.projection.ForeverDayEventProjection;
+import org.example.calendar.event.ScheduleChangedEvent;
 import org.example.calendar.event.dto.InviteGuestsRequest;
 import org.example.calendar.event.recurrence.MonthlyRecurrenceType;
+import org.example.calendar.event.recurrence.OccurrenceDiff;
+import org.example.calendar.event.recurrence.OccurrenceIterator;
 import org.example.calendar.event.recurrence.RecurrenceDuration;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
 import org.example.calendar.event.slot.day.dto.DayEventSlotRequest;
 import org.example.calendar.entity.DayEvent;
@@ -13,16 +18,20 @@ import org.example.calendar.event.slot.day.projection.DayEventSlotProjection;
 import org.example.calendar.event.slot.projection.EventSlotWithGuestsProjection;
 import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
-import org.example.calendar.utils.DateUtils;
 import org.example.calendar.utils.EventUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+
 import java.time.LocalDate;
-import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -33,6 +42,11 @@ import lombok.RequiredArgsConstructor;
 public class DayEventSlotService {
     private final DayEventSlotRepository eventSlotRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DistributionSummary expandedEventSlots = DistributionSummary.builder("event.slots.expanded")
+            .tag("type", "day")
+            .description("Slots created per expansion of an event")
+            .register(Metrics.globalRegistry);
     private static final String EVENT_SLOT_NOT_FOUND_MSG = "Day event slot not found with id: ";
 
     /*
@@ -46,73 +60,164 @@ public class DayEventSlotService {
             ChronoUnit.DAYS.between(dayEvent.getStartDate(), dayEvent.getEndDate()).
         We advance the start date by the number of days specified in the recurrence step (e.g., every 2 days, weeks,
         months, etc.) and repeat the process.
+
+        Events that recur FOREVER are not expanded until an arbitrary date far in the future. We only create the slots
+        up until the event's materializedUntil date. The scheduled tasks move that date ahead with
+        extendForeverEventSlots(), the occurrences after it are computed on read by expandForeverEventSlots().
     */
     @Transactional
     public void create(DayEventRequest eventRequest, DayEvent event) {
-        switch (event.getRecurrenceFrequency()) {
-            // Since the event is not recurring, we only create 1 DayEventSlot
-            case NEVER -> createDayEventSlot(eventRequest, event, event.getStartDate());
-            case DAILY -> {
-                createUntilDateDailyEventSlots(eventRequest, event);
-                createNOccurrencesDailyEventSlots(eventRequest, event);
-            }
-            case WEEKLY -> {
-                createUntilDateWeeklyEventSlots(eventRequest, event);
-                createNOccurrencesWeeklyEventSlots(eventRequest, event);
+        this.eventSlotRepository.updateEventGuests(event.getId(), eventRequest.getGuestEmails());
+        createEventSlots(materializeOccurrences(event).stream().map(occurrence -> buildDayEventSlot(eventRequest, event, occurrence)).toList());
+    }
+
+    /*
+        When the recurrence or the dates of an event change, its slots are not deleted and created again. That would
+        rewrite every slot of the event to move it by 1 day, and the slots would lose their ids and everything that was
+        edited per slot. We expand the previous and the current recurrence of the event, and OccurrenceDiff matches
+        the slot of every previous occurrence to a current occurrence:
+            A matched slot moves to its current occurrence. A slot that was moved by the user keeps its dates, only its
+            occurrence changes. The slot of an event that does not recur always moves with the event.
+            The slots of the previous occurrences that are not matched are deleted.
+            Only the current occurrences that are not matched get a new slot. A previous occurrence without a slot was
+            deleted by the user, the occurrence it is matched with stays deleted.
+        Every step is 1 statement per BATCH_SIZE slots, and the slots that don't change are not written.
+
+        Slots created before V15 that were moved have no occurrence date, their occurrence can't be told. They are
+        deleted, and the previous occurrences without a slot get a new one, as before V15.
+     */
+    @Transactional
+    public void updateEventSlotsForRecurrence(DayEventRequest eventRequest, DayEvent original, DayEvent modified, List<DayEventSlot> eventSlots) {
+        List<LocalDate> previous = materializeOccurrences(original);
+        OccurrenceDiff diff = OccurrenceDiff.of(previous, materializeOccurrences(modified), ChronoUnit.DAYS.between(original.getStartDate(), modified.getStartDate()));
+        Set<LocalDate> previousOccurrences = new HashSet<>(previous);
+        boolean follow = original.getRecurrenceFrequency() == RecurrenceFrequency.NEVER || modified.getRecurrenceFrequency() == RecurrenceFrequency.NEVER;
+        int previousDuration = getEventDuration(original.getStartDate(), original.getEndDate());
+
+        List<UUID> deleted = new ArrayList<>();
+        List<DayEventSlot> moved = new ArrayList<>();
+        Set<LocalDate> withSlot = new HashSet<>();
+        boolean unknownOccurrences = false;
+        for (DayEventSlot eventSlot : this.eventSlotRepository.findOccurrencesByEventId(modified.getId())) {
+            LocalDate occurrence = diff.matches().get(eventSlot.getOccurrenceDate());
+            unknownOccurrences |= !previousOccurrences.contains(eventSlot.getOccurrenceDate());
+            if (occurrence == null) {
+                deleted.add(eventSlot.getId());
+                continue;
             }
-            case MONTHLY -> {
-                if (event.getMonthlyRecurrenceType().equals(MonthlyRecurrenceType.SAME_WEEKDAY)) {
-                    createUntilDateMonthlySameWeekdayEventSlots(eventRequest, event);
-                    createNOccurrencesMonthlySameWeekdayEventSlots(eventRequest, event);
-                } else {
-                    // For events that are recurring Monthly, over N Months, Annually, or over N years we will use the
-                    // same method to take into consideration things like leap years for events at 29 February and
-                    // events that are to occur at the last day of the month
-                    createUntilDateSameDayEventSlots(eventRequest, event, ChronoUnit.MONTHS);
-                    createNOccurrencesSameDayEventSlots(eventRequest, event, ChronoUnit.MONTHS);
-                }
+
+            withSlot.add(eventSlot.getOccurrenceDate());
+            DayEventSlot modifiedSlot = new DayEventSlot(eventSlot);
+            modifiedSlot.setOccurrenceDate(occurrence);
+            if (follow || (eventSlot.getStartDate().isEqual(eventSlot.getOccurrenceDate()) && eventSlot.getEndDate().isEqual(eventSlot.getOccurrenceDate().plusDays(previousDuration)))) {
+                modifiedSlot.setStartDate(occurrence);
+                modifiedSlot.setEndDate(occurrence.plusDays(getEventDuration(modified.getStartDate(), modified.getEndDate())));
             }
-            /*
-                For annually recurring events, apart from 29th of February, all we need to know is, that months have
-                the same numbers of days in different years.
-
-                January: Always has 31 days,
-                February:
-                    Non-leap years: February has 28 days.
-                    Leap years: February has 29 days.
-                March: Always has 31 days.
-                April: Always has 30 days.
-                May: Always has 31 days.
-                June: Always has 30 days.
-                July: Always has 31 days.
-                August: Always has 31 days.
-                September: Always has 30 days.
-                October: Always has 31 days.
-                November: Always has 30 days.
-                December: Always has 31 days.
-             */
-            case ANNUALLY -> {
-                createUntilDateSameDayEventSlots(eventRequest, event, ChronoUnit.YEARS);
-                createNOccurrencesSameDayEventSlots(eventRequest, event, ChronoUnit.YEARS);
+            if (!modifiedSlot.getOccurrenceDate().isEqual(eventSlot.getOccurrenceDate())
+                    || !modifiedSlot.getStartDate().isEqual(eventSlot.getStartDate())
+                    || !modifiedSlot.getEndDate().isEqual(eventSlot.getEndDate())) {
+                moved.add(modifiedSlot);
             }
         }
+
+        List<LocalDate> added = new ArrayList<>(diff.added());
+        if (unknownOccurrences) {
+            diff.matches().forEach((previousOccurrence, occurrence) -> {
+                if (!withSlot.contains(previousOccurrence)) {
+                    added.add(occurrence);
+                }
+            });
+        }
+
+        this.eventSlotRepository.deleteByEventIdAndSlotIds(modified.getId(), deleted);
+        this.eventSlotRepository.updateOccurrences(modified.getId(), moved);
+        this.eventSlotRepository.updateCommonPropertiesByEventId(modified.getId(), eventRequest.getTitle(), eventRequest.getLocation(), eventRequest.getDescription());
+        createEventSlots(added.stream().map(occurrence -> buildDayEventSlot(eventRequest, modified, occurrence)).toList());
+        updateEventGuests(eventRequest, modified.getId(), eventSlots);
     }
 
-    public void updateEventSlotsForEvent(DayEventRequest eventRequest, List<DayEventSlot> eventSlots) {
-        DayEventSlotRequest eventSlotRequest = DayEventSlotRequest.builder()
-                .title(eventRequest.getTitle())
-                .location(eventRequest.getLocation())
-                .description(eventRequest.getDescription())
-                .build();
+    /*
+        The event's materializedUntil is the date that its slots have been created up until. We expand the event again
+        until the new date, and we only create the occurrences after the previous materializedUntil. Occurrences before
+        that date are either already created, or they were deleted/edited by the user and must not be recreated. The
+        title, location and description of the new slots are the ones of the event, and they inherit the guests of the
+        event.
+
+        The new slots get the ids expandForeverEventSlots() returned for their occurrences on read. A slot that was
+        moved to another occurrence when the recurrence of the event changed keeps its id, so an id can already be
+        taken, that slot gets the next id of its occurrence, EventUtils.occurrenceId().
+     */
+    @Transactional
+    public void extendForeverEventSlots(DayEvent event, LocalDate until) {
+        List<LocalDate> occurrences = expandOccurrences(event, until);
+        occurrences.removeIf(occurrence -> !occurrence.isAfter(event.getMaterializedUntil()) || occurrence.isAfter(until));
+        DayEventRequest eventRequest = buildTemplateRequest(event);
+        List<DayEventSlot> eventSlots = occurrences.stream().map(occurrence -> buildDayEventSlot(eventRequest, event, occurrence)).toList();
+        List<DayEventSlot> pending = eventSlots;
+        // 1 query when no id is taken
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            int next = attempt;
+            pending.forEach(eventSlot -> eventSlot.setId(EventUtils.occurrenceId(event.getId(), eventSlot.getOccurrenceDate(), next)));
+            Set<UUID> taken = new HashSet<>(this.eventSlotRepository.findIdsByEventIdAndSlotIds(event.getId(), pending.stream().map(DayEventSlot::getId).toList()));
+            pending = pending.stream().filter(eventSlot -> taken.contains(eventSlot.getId())).toList();
+        }
+        createEventSlots(eventSlots);
+    }
+
+    /*
+        The date of the occurrence of a FOREVER event after its materializedUntil date, up until the given date, that
+        expandForeverEventSlots() returns with the given id.
+     */
+    public Optional<LocalDate> findOccurrenceDate(DayEvent event, UUID slotId, LocalDate until) {
+        return expandOccurrences(event, until).stream()
+                .filter(occurrence -> occurrence.isAfter(event.getMaterializedUntil()) && !occurrence.isAfter(until))
+                .filter(occurrence -> EventUtils.occurrenceId(event.getId(), occurrence).equals(slotId))
+                .findFirst();
+    }
 
-        for (DayEventSlot original : eventSlots) {
-            DayEventSlot modified = new DayEventSlot();
-            modified.setId(original.getId());
-            EventUtils.setCommonEventSlotProperties(eventSlotRequest, modified);
-            // Can't be null. Emails are processed and if they were null an empty set is returned.
-            modified.setGuestEmails(eventRequest.getGuestEmails());
-            this.eventSlotRepository.updateEventSlotForEvent(original, modified);
+    public boolean existsById(UUID slotId) {
+        return this.eventSlotRepository.existsById(slotId);
+    }
+
+    /*
+        The occurrences of a FOREVER event after its materializedUntil date, up until the given date, that overlap the
+        range. They are built like extendForeverEventSlots() will create them, with the same ids, but nothing is
+        written: a request for a range far in the future no longer creates the slots of every year up until it. The
+        organizer sees the guests of the event, a guest only their own email, like in the queries of the slots.
+     */
+    public List<DayEventSlotPublicProjection> expandForeverEventSlots(ForeverDayEventProjection projection, User user, LocalDate startDate, LocalDate endDate, LocalDate until) {
+        DayEvent event = projection.event();
+        DayEventRequest eventRequest = buildTemplateRequest(event);
+        Set<String> guestEmails = event.getOrganizerId().equals(user.getId()) ? projection.guestEmails() : Set.of(user.getEmail());
+        List<DayEventSlotPublicProjection> eventSlots = new ArrayList<>();
+        for (LocalDate occurrence : expandOccurrences(event, until)) {
+            if (!occurrence.isAfter(event.getMaterializedUntil()) || occurrence.isAfter(until)) {
+                continue;
+            }
+
+            DayEventSlot eventSlot = buildDayEventSlot(eventRequest, event, occurrence);
+            if (eventSlot.getStartDate().isAfter(endDate) || eventSlot.getEndDate().isBefore(startDate)) {
+                continue;
+            }
+            eventSlots.add(DayEventSlotPublicProjection.builder()
+                    .id(EventUtils.occurrenceId(event.getId(), eventSlot.getOccurrenceDate()))
+                    .eventId(event.getId())
+                    .startDate(eventSlot.getStartDate())
+                    .endDate(eventSlot.getEndDate())
+                    .title(eventSlot.getTitle())
+                    .location(eventSlot.getLocation())
+                    .description(eventSlot.getDescription())
+                    .organizer(projection.organizer())
+                    .guestEmails(guestEmails)
+                    .build());
         }
+
+        return eventSlots;
+    }
+
+    public void updateEventSlotsForEvent(DayEventRequest eventRequest, UUID eventId, List<DayEventSlot> eventSlots) {
+        this.eventSlotRepository.updateCommonPropertiesByEventId(eventId, eventRequest.getTitle(), eventRequest.getLocation(), eventRequest.getDescription());
+        updateEventGuests(eventRequest, eventId, eventSlots);
     }
 
     /*
@@ -156,6 +261,10 @@ public class DayEventSlotService {
         modified.setGuestEmails(EventUtils.processGuestEmails(user, eventSlotRequest.getGuestEmails()));
 
         this.eventSlotRepository.update(original, modified);
+
+        Set<String> guestEmails = new HashSet<>(original.getGuestEmails());
+        guestEmails.addAll(modified.getGuestEmails());
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
     /*
@@ -184,6 +293,7 @@ public class DayEventSlotService {
         Set<String> guestEmails = EventUtils.processGuestEmails(user, inviteGuestsRequest, projection.getGuestEmails());
 
         this.eventSlotRepository.inviteGuests(projection.getId(), guestEmails);
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
     public List<DayEventSlotPublicProjection> findEventSlotsByEventAndUserId(UUID eventId, Long userId) {
@@ -202,229 +312,113 @@ public class DayEventSlotService {
         return this.eventSlotRepository.findByUserInDateRange(user.getId(), user.getEmail(), startDate, endDate);
     }
 
+    public List<DayEventSlotPublicProjection> findEventSlotPageByUserInDateRange(User user, LocalDate startDate, LocalDate endDate, LocalDate afterStartDate, UUID afterId, int limit) {
+        return this.eventSlotRepository.findPageByUserInDateRange(user.getId(), user.getEmail(), startDate, endDate, afterStartDate, afterId, limit);
+    }
+
     @Transactional
     public void deleteEventSlotById(UUID slotId, Long userId) {
+        Set<String> guestEmails = this.eventSlotRepository.findBySlotAndUserIdFetchingGuests(slotId, userId)
+                .map(EventSlotWithGuestsProjection::getGuestEmails)
+                .orElse(Set.of());
         int rowsAffected = this.eventSlotRepository.deleteBySlotAndUserId(slotId, userId);
         if (rowsAffected != 1) {
             throw new ResourceNotFoundException(EVENT_SLOT_NOT_FOUND_MSG + slotId);
         }
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
-    // This method is used to delete the current event slots before creating new ones based on the new recurrence
-    // properties when we update an event. We need to delete the previous ones and create the new
-    public void deleteEventSlotsByEventId(UUID eventId) {
-        this.eventSlotRepository.deleteEventSlotsByEventId(eventId);
+    public List<String> findGuestEmailsByEventId(UUID eventId) {
+        return this.eventSlotRepository.findGuestEmailsByEventId(eventId);
     }
 
-    private void createUntilDateDailyEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && dayEvent.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
-        }
-
-        LocalDate date = dayEvent.getStartDate();
-        while (!date.isAfter(dayEvent.getRecurrenceEndDate())) {
-            createDayEventSlot(dayEventRequest, dayEvent, date);
-            date = date.plusDays(dayEvent.getRecurrenceStep());
+    /*
+        The guests are stored once for the event. Instead of rewriting the guests of every slot, we replace the
+        event's guests and the slots that had their own guest list inherit them again. Nothing is written if every
+        slot already has the requested guests. The guest emails can't be null. Emails are processed and if they
+        were null an empty set is returned.
+     */
+    private void updateEventGuests(DayEventRequest eventRequest, UUID eventId, List<DayEventSlot> eventSlots) {
+        Set<String> guestEmails = eventRequest.getGuestEmails();
+        if (eventSlots.isEmpty() || eventSlots.stream().anyMatch(eventSlot -> !guestEmails.equals(eventSlot.getGuestEmails()))) {
+            this.eventSlotRepository.updateEventGuests(eventId, guestEmails);
+            this.eventSlotRepository.resetGuestOverrides(eventId);
         }
     }
 
-    private void createNOccurrencesDailyEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
-        }
-
-        LocalDate startDate = dayEvent.getStartDate();
-        for (int i = 0; i < dayEvent.getNumberOfOccurrences(); i++) {
-            createDayEventSlot(dayEventRequest, dayEvent, startDate);
-           /*
-                The starDate is updated to the previous value plus the number of the recurrence step which
-                can be 1, 2 etc, meaning the event is to occur every 1,2, days until we reach N_OCCURRENCES
-            */
-            startDate = startDate.plusDays(dayEvent.getRecurrenceStep());
-        }
+    // The number of slots every create/extend produces, the sum is the number of slots created
+    private void createEventSlots(List<DayEventSlot> eventSlots) {
+        this.expandedEventSlots.record(eventSlots.size());
+        this.eventSlotRepository.create(eventSlots);
     }
 
-    /*
-        Weekly events can occur on certain days of week. ["MONDAY", "THURSDAY", "SATURDAY"]. In the request,
-        one of those 3 days will correspond to the date provided by the user. We have 2 cases to consider:
-            Case 1: The next day to occur is after the day that corresponds to the start date. For example,
-            if 2024-09-12 is a Thursday and we want the event to occur on Monday, Monday is before Thursday so,
-            we need to adjust the date. We need to find the difference between the day of the start date and the day
-            to occur in our case: Thursday - Monday (in ordinal enum values) will give us a positive difference
-            which means the day of the start date is after the day to occur, so we need to subtract days from the
-            startDate (startDate = date.minus(difference)), Thursday - Monday = 3 in ordinal,
-            startDate = date.minus(3) would result in 2024-09-09 which is a Monday, but this is in the past relative
-            to our event. In this case, we need to find the next Monday, this is why the check is there
-            !startDate.isBefore(dayEventRequest.getStartDate()). We are interested in future occurrences relative to
-            our eventRequest.getStatDate()
-
-            Case 2: Opposite of 1. We need to add the difference but since the number will be negative will add its
-            absolute value
-
-            @Test
-            void shouldCreateDayEventSlotsWhenEventIsRecurringEveryNWeeksUntilACertainDate(), DayEventSlotServiceTest
-     */
-    private void createUntilDateWeeklyEventSlots(DayEventRequest eventRequest, DayEvent dayEvent) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && dayEvent.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
+    // The occurrences that have slots, the ones of FOREVER events until their materializedUntil
+    private List<LocalDate> materializeOccurrences(DayEvent event) {
+        if (event.getRecurrenceDuration() == RecurrenceDuration.FOREVER && event.getRecurrenceFrequency() != RecurrenceFrequency.NEVER) {
+            List<LocalDate> occurrences = expandOccurrences(event, event.getMaterializedUntil());
+            // Monthly same weekday occurrences can fall after the date we expanded until. They belong to the next window
+            occurrences.removeIf(occurrence -> occurrence.isAfter(event.getMaterializedUntil()));
+            return occurrences;
         }
 
-        LocalDate startDate;
-        LocalDate date = dayEvent.getStartDate();
-        while (!date.isAfter(dayEvent.getRecurrenceEndDate())) {
-            for (DayOfWeek dayOfWeek : dayEvent.getWeeklyRecurrenceDays()) {
-                int differenceInDays = dayEvent.getStartDate().getDayOfWeek().getValue() - dayOfWeek.getValue();
-                if (differenceInDays > 0) {
-                    startDate = date.minusDays(differenceInDays);
-                } else {
-                    // Math.abs() would also work, we are using the minus operator, which negates the integer(changes the sing)
-                    startDate = date.plusDays(-differenceInDays);
-                }
-
-                /*
-                    The start date must fall within the recurrence end date. For example, if the current day is
-                     Thursday, but the event is set to occur on Mondays, we need to handle the situation where Monday
-                     comes before Thursday. In this case, for the first occurrence of the event, we consider the first
-                     Monday after the start date, ensuring that the event starts on the next available Monday.
-                 */
-                if (!startDate.isBefore(dayEvent.getStartDate()) && !startDate.isAfter(dayEvent.getRecurrenceEndDate())) {
-                    createDayEventSlot(eventRequest, dayEvent, startDate);
-                }
-            }
-            date = date.plusWeeks(dayEvent.getRecurrenceStep());
-        }
+        return expandOccurrences(event, event.getRecurrenceEndDate());
     }
 
     /*
-        Similar logic with createUntilDateWeeklyEventSlots()
+        Computes the start dates of the event's occurrences. For UNTIL_DATE and FOREVER events we expand until the given
+        end date. OccurrenceIterator explains how the occurrences of every frequency are computed.
 
-            @Test
-            void shouldCreateDayEventSlotsWhenEventIsRecurringEveryNWeeksForNOccurrences(), DayEventSlotServiceTest
+        When it comes to monthly recurring events on the same day we have to consider an edge case where we want the
+        event to occur at the last day of each month. If we have an event for the 31 of January we can't move to the
+        31st of February, it is not a valid date. We move to the last day of each month, 28 or 29 of February and back
+        to 31 for March. Logic also explained to the DateUtils.adjustDateForMonth()
      */
-    private void createNOccurrencesWeeklyEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
-        }
-
-        int count = 0;
-        LocalDate startDate;
-        LocalDate date = dayEvent.getStartDate();
-        while (count < dayEvent.getNumberOfOccurrences()) {
-            for (DayOfWeek dayOfWeek : dayEvent.getWeeklyRecurrenceDays()) {
-                int differenceInDays = dayEvent.getStartDate().getDayOfWeek().getValue() - dayOfWeek.getValue();
-                if (differenceInDays > 0) {
-                    startDate = date.minusDays(differenceInDays);
-                } else {
-                    // Math.abs() would also, we are using the minus operator, which negates the integer(changes the sing)
-                    startDate = date.plusDays(-differenceInDays);
-                }
-                if (!startDate.isBefore(dayEvent.getStartDate())) {
-                    createDayEventSlot(dayEventRequest, dayEvent, startDate);
-                    count++;
-                    // During the inner loop the count might be equal or greater than the occurrences
-                    if (count == dayEvent.getNumberOfOccurrences()) {
-                        return;
-                    }
-                }
-            }
-            date = date.plusWeeks(dayEvent.getRecurrenceStep());
-        }
-    }
-
-    // Monthly events that occur the same weekday until a certain date(2nd Tuesday of the month)
-    private void createUntilDateMonthlySameWeekdayEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && dayEvent.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
+    private List<LocalDate> expandOccurrences(DayEvent event, LocalDate endDate) {
+        OccurrenceIterator iterator = event.getRecurrenceDuration() == RecurrenceDuration.N_OCCURRENCES
+                ? OccurrenceIterator.first(event, event.getStartDate(), getOccurrenceCount(event))
+                : OccurrenceIterator.until(event, event.getStartDate(), endDate);
+        List<LocalDate> occurrences = new ArrayList<>();
+        while (iterator.hasNext()) {
+            occurrences.add(LocalDate.ofEpochDay(iterator.nextLong()));
         }
 
-        int occurrences = DateUtils.findDayOfMonthOccurrence(dayEvent.getStartDate());
-        LocalDate startDate;
-        LocalDate date = dayEvent.getStartDate();
-        while (!date.isAfter(dayEvent.getRecurrenceEndDate())) {
-            startDate = DateUtils.findDateOfNthDayOfWeekInMonth(YearMonth.of(date.getYear(), date.getMonth()), dayEvent.getStartDate().getDayOfWeek(), occurrences);
-            createDayEventSlot(dayEventRequest, dayEvent, startDate);
-            date = date.plusMonths(dayEvent.getRecurrenceStep());
-        }
-    }
-
-    // Monthly events that occur the same weekday until a number of occurrences(2nd Tuesday of the month)
-    private void createNOccurrencesMonthlySameWeekdayEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
-        }
-        int occurrences = DateUtils.findDayOfMonthOccurrence(dayEvent.getStartDate());
-        LocalDate startDate = dayEvent.getStartDate();
-        for (int i = 0; i < dayEvent.getNumberOfOccurrences(); i++) {
-            createDayEventSlot(dayEventRequest, dayEvent, startDate);
-            startDate = startDate.plusMonths(dayEvent.getRecurrenceStep());
-            startDate = DateUtils.findDateOfNthDayOfWeekInMonth(YearMonth.of(startDate.getYear(), startDate.getMonth()), dayEvent.getStartDate().getDayOfWeek(), occurrences);
-        }
+        return occurrences;
     }
 
     /*
-        When it comes to monthly recurring events on the same day we have to consider an edge case where we want the
-        event to occur at the last day of each month for 14 months. If we have an event for the 31 of January
-        we can't move to the 31st of February, it is not a valid date. We need to move to the last day of each month.
-        Java takes care of the advancing part, where if we are at 31st of January and, we say date = date.plusMonths(1)
-        it will take us to 28 or 29 of February depending on if it is a leap year or not. The problem is that when we
-        advance again we will move to the 28 or 29 of March which is not the last day of the month. We have to address
-        that scenario.
-        Logic also explained to the DateUtils.adjustDateForMonth()
+        Monthly on the same day and annually recurring events count the repetitions after the original event, for
+        2 repetitions the event occurs 3 times. The rest count the original event too.
      */
-    private void createUntilDateSameDayEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent, ChronoUnit unit) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && dayEvent.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
-        }
+    private int getOccurrenceCount(DayEvent event) {
+        boolean sameDay = event.getRecurrenceFrequency() == RecurrenceFrequency.ANNUALLY
+                || (event.getRecurrenceFrequency() == RecurrenceFrequency.MONTHLY && event.getMonthlyRecurrenceType() == MonthlyRecurrenceType.SAME_DAY);
 
-        /*
-            int dayOfMonth = dayEvent.getStartDate().getDayOfMonth();
-            for (LocalDate date = dayEvent.getStartDate(); !date.isAfter(dayEvent.getRecurrenceEndDate());
-                 date = date.plusMonths(dayEvent.getRecurrenceStep())) {
-                date = DateUtils.adjustDateForMonth(dayOfMonth, date);
-                createDayEventSlot(dayEventRequest, dayEvent, date);
-            }
-
-            The above code would work but the linter would complain as : Refactor the code in order to not assign to this
-            loop counter from within the loop body. We increment the months of the date and also adjust the date of
-            the month.
-         */
-        int dayOfMonth = dayEvent.getStartDate().getDayOfMonth();
-        LocalDate date = dayEvent.getStartDate();
-        while (!date.isAfter(dayEvent.getRecurrenceEndDate())) {
-            LocalDate adjustedDate = DateUtils.adjustDateForMonth(dayOfMonth, date);
-            createDayEventSlot(dayEventRequest, dayEvent, adjustedDate);
-            date = date.plus(dayEvent.getRecurrenceStep(), unit);
-        }
+        return sameDay ? event.getNumberOfOccurrences() + 1 : event.getNumberOfOccurrences();
     }
 
-    // Same logic as the above method. We have to handle last day of month case.
-    private void createNOccurrencesSameDayEventSlots(DayEventRequest dayEventRequest, DayEvent dayEvent, ChronoUnit unit) {
-        if (dayEvent.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
-        }
-
-        int dayOfMonth = dayEvent.getStartDate().getDayOfMonth();
-        LocalDate startDate = dayEvent.getStartDate();
-        for (int i = 0; i <= dayEvent.getNumberOfOccurrences(); i++) {
-            startDate = DateUtils.adjustDateForMonth(dayOfMonth, startDate);
-            createDayEventSlot(dayEventRequest, dayEvent, startDate);
-            startDate = startDate.plus(dayEvent.getRecurrenceStep(), unit);
-        }
+    // The slots of FOREVER events that are created after the event, are created with the event's title/location/description
+    private DayEventRequest buildTemplateRequest(DayEvent event) {
+        return DayEventRequest.builder()
+                .title(event.getTitle())
+                .location(event.getLocation())
+                .description(event.getDescription())
+                .build();
     }
 
-    private void createDayEventSlot(DayEventRequest eventRequest, DayEvent dayEvent, LocalDate startDate) {
+    private DayEventSlot buildDayEventSlot(DayEventRequest eventRequest, DayEvent dayEvent, LocalDate startDate) {
         LocalDate endDate = startDate.plusDays(getEventDuration(dayEvent.getStartDate(), dayEvent.getEndDate()));
-        DayEventSlot eventSlot = DayEventSlot.builder()
+        // The id is generated here and not by the db, so the slots and their guests can be inserted in batches
+        return DayEventSlot.builder()
                 .id(UUID.randomUUID())
                 .eventId(dayEvent.getId())
                 .startDate(startDate)
                 .endDate(endDate)
+                .occurrenceDate(startDate)
                 .title(eventRequest.getTitle())
                 .description(eventRequest.getDescription())
                 .location(eventRequest.getLocation())
                 .guestEmails(eventRequest.getGuestEmails())
                 .build();
-        this.eventSlotRepository.create(eventSlot);
     }
 
     /*
@@ -2,10 +2,10 @@ package org.example.calendar.event.slot.day.projection.mapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.TreeSet;
 import java.util.UUID;
 
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
+import org.example.calendar.utils.EventUtils;
 import org.springframework.jdbc.core.RowMapper;
 
 public class DayEventSlotPublicProjectionRowMapper implements RowMapper<DayEventSlotPublicProjection> {
@@ -14,7 +14,7 @@ public class DayEventSlotPublicProjectionRowMapper implements RowMapper<DayEvent
     // row in the result set
     @Override
     public DayEventSlotPublicProjection mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        DayEventSlotPublicProjection eventSlot = DayEventSlotPublicProjection.builder()
+        return DayEventSlotPublicProjection.builder()
                 .id(UUID.fromString(resultSet.getString("id")))
                 .startDate(resultSet.getDate("start_date").toLocalDate())
                 .endDate(resultSet.getDate("end_date").toLocalDate())
@@ -23,12 +23,7 @@ public class DayEventSlotPublicProjectionRowMapper implements RowMapper<DayEvent
                 .location(resultSet.getString("location"))
                 .organizer(resultSet.getString("username"))
                 .eventId(UUID.fromString(resultSet.getString("event_id")))
-                .guestEmails(new TreeSet<>())
+                .guestEmails(EventUtils.convertFromArray(resultSet.getArray("guest_emails")))
                 .build();
-
-        if (resultSet.getString("email") != null) {
-            eventSlot.getGuestEmails().add(resultSet.getString("email"));
-        }
-        return eventSlot;
     }
 }
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.UUID;
 
@@ -22,4 +23,13 @@ public abstract class AbstractEventSlotReminderProjection {
     protected String organizerUsername;
     protected String organizerEmail;
     protected Set<String> guestEmails;
+
+    // The organizer and the guests of the slot, the recipients of its reminder
+    public Set<String> recipients() {
+        Set<String> recipients = new LinkedHashSet<>();
+        recipients.add(this.organizerEmail);
+        recipients.addAll(this.guestEmails);
+
+        return recipients;
+    }
 }
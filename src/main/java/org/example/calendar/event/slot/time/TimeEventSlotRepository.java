@@ -3,21 +3,27 @@ package org.example.calendar.event.slot.time;
 import org.example.calendar.entity.TimeEventSlot;
 import org.example.calendar.event.slot.projection.EventSlotWithGuestsProjection;
 import org.example.calendar.event.slot.projection.mapper.EventSlotWithGuestsProjectionRowMapper;
+import org.example.calendar.event.slot.time.dto.TimeEventSlotRequest;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotProjection;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotReminderProjection;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotScheduledReminder;
 import org.example.calendar.event.slot.time.projection.mapper.TimeEventSlotProjectionRowMapper;
 import org.example.calendar.event.slot.time.projection.mapper.TimeEventSlotPublicProjectionRowMapper;
 import org.example.calendar.event.slot.time.projection.mapper.TimeEventSlotReminderProjectionRowMapper;
 import org.example.calendar.utils.EventUtils;
 import org.springframework.jdbc.core.simple.JdbcClient;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -31,61 +37,61 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class TimeEventSlotRepository {
     private final JdbcClient jdbcClient;
+    private static final int BATCH_SIZE = 1000;
 
-    void create(TimeEventSlot eventSlot) {
-        KeyHolder keyHolder = new GeneratedKeyHolder();
+    /*
+        We insert all the slots of an event with multi-row INSERT statements, instead of 1 INSERT per slot and 1 INSERT
+        per guest of every slot. The ids of the slots are generated by us, so we don't have to read back the generated
+        keys before inserting the guests.
 
-        this.jdbcClient.sql("""
-                        INSERT INTO time_event_slots(event_id, title, location, description, start_time, start_time_zone_id, end_time, end_time_zone_id)
-                        VALUES (:eventId, :title, :location, :description, :startTime, :startTimeZoneId, :endTime, :endTimeZoneId)
-                        """)
-                .param("eventId", eventSlot.getEventId())
-                .param("title", eventSlot.getTitle())
-                .param("location", eventSlot.getLocation())
-                .param("description", eventSlot.getDescription())
-                .param("startTime", eventSlot.getStartTime())
-                .param("startTimeZoneId", eventSlot.getStartTimeZoneId().toString())
-                .param("endTime", eventSlot.getEndTime())
-                .param("endTimeZoneId", eventSlot.getEndTimeZoneId().toString())
-                .update(keyHolder, "id");
-
-        eventSlot.setId(keyHolder.getKeyAs(UUID.class));
-
-        for (String guestEmail : eventSlot.getGuestEmails()) {
-            this.jdbcClient.sql("""
-                            INSERT INTO time_event_slot_guest_emails(event_slot_id, email)
-                            VALUES (:eventSlotId, :email)
-                            """)
-                    .param("eventSlotId", eventSlot.getId())
-                    .param("email", guestEmail)
-                    .update();
-        }
-    }
+            INSERT INTO time_event_slots(id, event_id, ...) VALUES (:id0, :eventId0, ...), (:id1, :eventId1, ...), ...
 
-    void update(TimeEventSlot original, TimeEventSlot modified) {
-        StringBuilder sql = new StringBuilder("UPDATE time_event_slots SET ");
-        Map<String, Object> params = new HashMap<>();
-        EventUtils.updateDateTimeProperties(sql, original.getStartTime(), original.getStartTimeZoneId(), modified.getStartTime(), modified.getStartTimeZoneId(), original.getEndTime(), original.getEndTimeZoneId(), modified.getEndTime(), modified.getEndTimeZoneId(), params);
-        EventUtils.updateCommonEvenSlotProperties(sql, original, modified, params);
-        if (!Objects.equals(original.getGuestEmails(), modified.getGuestEmails())) {
-            updateGuests(original.getId(), modified.getGuestEmails());
+        Postgres allows up to 65535 bind parameters per statement, so we insert up to BATCH_SIZE rows at a time.
+
+        The slots are created without guest rows. They inherit the guests of the event (updateEventGuests()) until
+        their guest list is modified.
+     */
+    void create(List<TimeEventSlot> eventSlots) {
+        if (eventSlots.isEmpty()) {
+            return;
         }
 
-        // If any properties were updated, execute the update
-        if (!params.isEmpty()) {
+        IntSummaryStatistics years = eventSlots.stream().mapToInt(eventSlot -> eventSlot.getStartTime().getYear()).summaryStatistics();
+        createPartitions(years.getMin(), years.getMax());
+        for (int i = 0; i < eventSlots.size(); i += BATCH_SIZE) {
+            List<TimeEventSlot> batch = eventSlots.subList(i, Math.min(i + BATCH_SIZE, eventSlots.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO time_event_slots(id, event_id, title, location, description, start_time, start_time_zone_id, end_time, end_time_zone_id, occurrence_date) VALUES ");
+            Map<String, Object> params = new HashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                TimeEventSlot eventSlot = batch.get(j);
+                sql.append(String.format("(:id%1$d, :eventId%1$d, :title%1$d, :location%1$d, :description%1$d, :startTime%1$d, :startTimeZoneId%1$d, :endTime%1$d, :endTimeZoneId%1$d, :occurrenceDate%1$d), ", j));
+                params.put("id" + j, eventSlot.getId());
+                params.put("eventId" + j, eventSlot.getEventId());
+                params.put("title" + j, eventSlot.getTitle());
+                params.put("location" + j, eventSlot.getLocation());
+                params.put("description" + j, eventSlot.getDescription());
+                params.put("startTime" + j, eventSlot.getStartTime());
+                params.put("startTimeZoneId" + j, eventSlot.getStartTimeZoneId().toString());
+                params.put("endTime" + j, eventSlot.getEndTime());
+                params.put("endTimeZoneId" + j, eventSlot.getEndTimeZoneId().toString());
+                params.put("occurrenceDate" + j, eventSlot.getOccurrenceDate() == null ? null : Date.valueOf(eventSlot.getOccurrenceDate()));
+            }
             // Remove the last ", "
             sql.setLength(sql.length() - 2);
-            sql.append(" WHERE id = :slotId");
-            params.put("slotId", original.getId());
             this.jdbcClient.sql(sql.toString())
                     .params(params)
                     .update();
         }
     }
 
-    void updateEventSlotForEvent(TimeEventSlot original, TimeEventSlot modified) {
+    void update(TimeEventSlot original, TimeEventSlot modified) {
         StringBuilder sql = new StringBuilder("UPDATE time_event_slots SET ");
         Map<String, Object> params = new HashMap<>();
+        EventUtils.updateDateTimeProperties(sql, original.getStartTime(), original.getStartTimeZoneId(), modified.getStartTime(), modified.getStartTimeZoneId(), original.getEndTime(), original.getEndTimeZoneId(), modified.getEndTime(), modified.getEndTimeZoneId(), params);
+        // A slot that moves keeps the occurrence it was created for, the right side is evaluated on the row before the update
+        if (params.containsKey("startTime") || params.containsKey("startTimeZoneId")) {
+            sql.append("occurrence_date = COALESCE(occurrence_date, (start_time AT TIME ZONE 'UTC' AT TIME ZONE start_time_zone_id)::date), ");
+        }
         EventUtils.updateCommonEvenSlotProperties(sql, original, modified, params);
         if (!Objects.equals(original.getGuestEmails(), modified.getGuestEmails())) {
             updateGuests(original.getId(), modified.getGuestEmails());
@@ -93,6 +99,11 @@ public class TimeEventSlotRepository {
 
         // If any properties were updated, execute the update
         if (!params.isEmpty()) {
+            // The slot moves to the partition of the year it starts
+            if (params.containsKey("startTime")) {
+                int year = ((LocalDateTime) params.get("startTime")).getYear();
+                createPartitions(year, year);
+            }
             // Remove the last ", "
             sql.setLength(sql.length() - 2);
             sql.append(" WHERE id = :slotId");
@@ -100,6 +111,9 @@ public class TimeEventSlotRepository {
             this.jdbcClient.sql(sql.toString())
                     .params(params)
                     .update();
+            if (params.containsKey("startTime")) {
+                rescheduleReminders(original.getId());
+            }
         }
     }
 
@@ -109,22 +123,53 @@ public class TimeEventSlotRepository {
         the new guest emails to be added. In theory, we could and in our INSERT call DO NOTHING ON CONFLICT.
      */
     void inviteGuests(UUID slotId, Set<String> guestEmails) {
-        for (String guestEmail : guestEmails) {
-            this.jdbcClient.sql("""
-                            INSERT INTO time_event_slot_guest_emails(event_slot_id, email)
-                            VALUES (:eventSlotId, :email)
-                            """)
-                    .param("eventSlotId", slotId)
-                    .param("email", guestEmail)
-                    .update();
-        }
+        overrideGuests(slotId);
+        insertGuests("time_event_slot_guest_emails", "event_slot_id", Map.of(slotId, guestEmails));
     }
 
-    // We return a list from our query, because if the event slot has more than 1 guest email, we will have 1 row with
-    // the same event slot but different email each time. We handle the case of conversion to a single event slot with
-    // a list of emails on the aggregateGuestEmails()
+    /*
+        Replaces the guests of the event. Every slot of the event that has not overridden its guest list sees the new
+        guests, without rewriting a row per slot.
+     */
+    void updateEventGuests(UUID eventId, Set<String> guestEmails) {
+        this.jdbcClient.sql("""
+                        DELETE
+                        FROM time_event_guest_emails
+                        WHERE event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .update();
+
+        insertGuests("time_event_guest_emails", "event_id", Map.of(eventId, guestEmails));
+    }
+
+    // All the slots of the event inherit the event's guests again
+    void resetGuestOverrides(UUID eventId) {
+        this.jdbcClient.sql("""
+                        DELETE
+                        FROM time_event_slot_guest_emails ge
+                        USING time_event_slots tes
+                        WHERE tes.id = ge.event_slot_id AND tes.event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .update();
+
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slots
+                        SET guests_overridden = FALSE
+                        WHERE event_id = :eventId AND guests_overridden
+                        """)
+                .param("eventId", eventId)
+                .update();
+    }
+
+    /*
+        The guests of a slot are collected in an array by the query, so we get 1 row per slot. Previously, we joined the
+        guest emails and got 1 row per guest, with the same slot repeated in every row, and we had to fold them back to
+        a single slot with a set of emails in memory. The row mappers read the array directly.
+     */
     Optional<TimeEventSlotProjection> findBySlotAndUserId(UUID slotId, Long userId) {
-        List<TimeEventSlotProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             tes.id AS event_slot_id,
                             tes.start_time,
@@ -134,43 +179,34 @@ public class TimeEventSlotRepository {
                             tes.title,
                             tes.description,
                             tes.location,
-                            ge.email
+                            ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails
                         FROM time_event_slots tes
                         JOIN time_events te ON tes.event_id = te.id
-                        LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
                         WHERE tes.id = :slotId AND te.organizer_id = :userId
                         """)
                 .param("slotId", slotId)
                 .param("userId", userId)
                 .query(new TimeEventSlotProjectionRowMapper())
-                .list();
-
-        return EventUtils.aggregateGuestEmails(results);
+                .optional();
     }
 
-    // We return a list from our query, because if the event slot has more than 1 guest email, we will have 1 row with
-    // the same event slot but different email each time. We handle the case of conversion to a single event slot with
-    // a list of emails on the aggregateGuestEmails()
     Optional<EventSlotWithGuestsProjection> findBySlotAndUserIdFetchingGuests(UUID slotId, Long userId) {
-        List<EventSlotWithGuestsProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             tes.id,
-                            ge.email
+                            ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails
                         FROM time_event_slots tes
                         JOIN time_events te ON tes.event_id = te.id
-                        LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
                         WHERE tes.id = :slotId AND te.organizer_id = :userId
                         """)
                 .param("slotId", slotId)
                 .param("userId", userId)
                 .query(new EventSlotWithGuestsProjectionRowMapper())
-                .list();
-
-        return EventUtils.aggregateGuestEmails(results);
+                .optional();
     }
 
     public List<TimeEventSlotPublicProjection> findByEventAndUserId(UUID eventId, Long userId) {
-        List<TimeEventSlotPublicProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             tes.id,
                             tes.event_id,
@@ -181,12 +217,11 @@ public class TimeEventSlotRepository {
                             tes.title,
                             tes.description,
                             tes.location,
-                            ge.email,
+                            ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails,
                             u.username
                         FROM time_event_slots tes
                         JOIN time_events te ON tes.event_id = te.id
                         JOIN users u ON te.organizer_id = u.id
-                        LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
                         WHERE tes.event_id = :eventId AND te.organizer_id = :userId
                         ORDER BY tes.start_time
                         """)
@@ -194,15 +229,10 @@ public class TimeEventSlotRepository {
                 .param("userId", userId)
                 .query(new TimeEventSlotPublicProjectionRowMapper())
                 .list();
-
-        return EventUtils.aggregateListGuestEmails(results);
     }
 
-    // We return a list from our query, because if the event slot has more than 1 guest email, we will have 1 row with
-    // the same event slot but different email each time. We handle the case of conversion to a single event slot with
-    // a list of emails on the aggregateGuestEmails()
     Optional<TimeEventSlotPublicProjection> findByOrganizerOrGuestEmailAndSlotId(UUID slotId, Long userId, String email) {
-        List<TimeEventSlotPublicProjection> results = this.jdbcClient.sql("""
+        return this.jdbcClient.sql("""
                         SELECT
                             tes.id,
                             tes.event_id,
@@ -213,76 +243,344 @@ public class TimeEventSlotRepository {
                             tes.title,
                             tes.description,
                             tes.location,
-                            ge.email,
+                            CASE WHEN te.organizer_id = :userId THEN ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) ELSE ARRAY[CAST(:email AS TEXT)] END AS guest_emails,
                             u.username
                         FROM time_event_slots tes
                         JOIN time_events te ON tes.event_id = te.id
                         JOIN users u ON te.organizer_id = u.id
-                        LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
-                        WHERE (te.organizer_id = :userId OR ge.email = :email) AND tes.id = :slotId
+                        WHERE tes.id = :slotId AND (te.organizer_id = :userId OR EXISTS (
+                            SELECT 1
+                            FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge
+                            WHERE ge.email = :email))
                         """)
                 .param("slotId", slotId)
                 .param("userId", userId)
                 .param("email", email)
                 .query(new TimeEventSlotPublicProjectionRowMapper())
-                .list();
-
-        return EventUtils.aggregateGuestEmails(results);
+                .optional();
     }
 
+    /*
+        The slots of the user are the ones they organize and the ones they are invited to. Previously, we had 1 query
+        with the condition WHERE (te.organizer_id = :userId OR ge.email = :email). The guest rows of every slot in the
+        range had to be joined before the condition could be checked, and no index could serve the OR. Each branch of
+        the UNION ALL has its own access path:
+            1. Slots we organize: by the organizer of the event and the interval of the slot. We fetch every guest.
+            2. Slots we are invited to: by our email in the guest tables. Like before, only our own guest email is
+            returned, and the slots we organize are excluded, they are already returned by the 1st branch.
+        The output and the order are the same as the previous query. Slots with the same start time are ordered by id.
+        A slot is in the range if its interval, during(V10), overlaps it. Slots that start before the range and end in
+        it are returned as well. The GiST index on during serves the && operator.
+        during is not the partition key, V12, so the overlap alone would probe the partition of every year. A slot that
+        overlaps the range starts until its end, and at most 1 day before its start, a time event lasts less than 24
+        hours. The bounds on start_time don't change the result, they let Postgres skip the partitions of other years.
+     */
+    static final String FIND_BY_USER_IN_DATE_RANGE_SQL = """
+            SELECT
+                tes.id,
+                tes.event_id,
+                tes.start_time,
+                tes.start_time_zone_id,
+                tes.end_time,
+                tes.end_time_zone_id,
+                tes.title,
+                tes.description,
+                tes.location,
+                ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails,
+                u.username
+            FROM time_event_slots tes
+            JOIN time_events te ON tes.event_id = te.id
+            JOIN users u ON te.organizer_id = u.id
+            WHERE te.organizer_id = :userId AND tes.during && tsrange(:startTime, :endTime, '[]') AND tes.start_time BETWEEN :earliestStartTime AND :endTime
+            UNION ALL
+            SELECT
+                tes.id,
+                tes.event_id,
+                tes.start_time,
+                tes.start_time_zone_id,
+                tes.end_time,
+                tes.end_time_zone_id,
+                tes.title,
+                tes.description,
+                tes.location,
+                ARRAY[ge.email] AS guest_emails,
+                u.username
+            FROM time_event_slot_effective_guest_emails ge
+            JOIN time_event_slots tes ON ge.event_slot_id = tes.id
+            JOIN time_events te ON tes.event_id = te.id
+            JOIN users u ON te.organizer_id = u.id
+            WHERE ge.email = :email AND te.organizer_id <> :userId AND tes.during && tsrange(:startTime, :endTime, '[]') AND tes.start_time BETWEEN :earliestStartTime AND :endTime
+            ORDER BY start_time, id
+            """;
+
     List<TimeEventSlotPublicProjection> findByUserInDateRange(Long userId, String email, LocalDateTime startTime, LocalDateTime endTime) {
-        List<TimeEventSlotPublicProjection> results = this.jdbcClient.sql("""
-                        SELECT
-                            tes.id,
-                            tes.event_id,
-                            tes.start_time,
-                            tes.start_time_zone_id,
-                            tes.end_time,
-                            tes.end_time_zone_id,
-                            tes.title,
-                            tes.description,
-                            tes.location,
-                            ge.email,
-                            u.username
-                        FROM time_event_slots tes
-                        JOIN time_events te ON tes.event_id = te.id
-                        JOIN users u ON te.organizer_id = u.id
-                        LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
-                        WHERE (te.organizer_id = :userId OR ge.email = :email) AND tes.start_time BETWEEN :startTime AND :endTime
-                        ORDER BY tes.start_time
-                        """)
+        return this.jdbcClient.sql(FIND_BY_USER_IN_DATE_RANGE_SQL)
                 .param("userId", userId)
                 .param("email", email)
                 .param("startTime", Timestamp.valueOf(startTime))
                 .param("endTime", Timestamp.valueOf(endTime))
+                // A time event lasts less than 24 hours, EventUtils.hasValidDateTimeProperties()
+                .param("earliestStartTime", Timestamp.valueOf(startTime.minusDays(1)))
                 .query(new TimeEventSlotPublicProjectionRowMapper())
                 .list();
+    }
+
+    /*
+        A page of the slots of findByUserInDateRange(). The slots are ordered by (start_time, id), so the page starts
+        after the last slot of the previous page, (afterStartTime, afterId), and the index on (start_time, id) is read
+        from there. An OFFSET would read and discard every slot of the previous pages.
+        The first page starts at the earliest time, EventScheduleService, so the slots that overlap the range but start
+        before it are included.
+     */
+    static final String FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL = """
+            SELECT
+                tes.id,
+                tes.event_id,
+                tes.start_time,
+                tes.start_time_zone_id,
+                tes.end_time,
+                tes.end_time_zone_id,
+                tes.title,
+                tes.description,
+                tes.location,
+                ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails,
+                u.username
+            FROM time_event_slots tes
+            JOIN time_events te ON tes.event_id = te.id
+            JOIN users u ON te.organizer_id = u.id
+            WHERE te.organizer_id = :userId AND tes.during && tsrange(:startTime, :endTime, '[]') AND tes.start_time BETWEEN :earliestStartTime AND :endTime AND (tes.start_time, tes.id) > (:afterStartTime, :afterId)
+            UNION ALL
+            SELECT
+                tes.id,
+                tes.event_id,
+                tes.start_time,
+                tes.start_time_zone_id,
+                tes.end_time,
+                tes.end_time_zone_id,
+                tes.title,
+                tes.description,
+                tes.location,
+                ARRAY[ge.email] AS guest_emails,
+                u.username
+            FROM time_event_slot_effective_guest_emails ge
+            JOIN time_event_slots tes ON ge.event_slot_id = tes.id
+            JOIN time_events te ON tes.event_id = te.id
+            JOIN users u ON te.organizer_id = u.id
+            WHERE ge.email = :email AND te.organizer_id <> :userId AND tes.during && tsrange(:startTime, :endTime, '[]') AND tes.start_time BETWEEN :earliestStartTime AND :endTime AND (tes.start_time, tes.id) > (:afterStartTime, :afterId)
+            ORDER BY start_time, id
+            LIMIT :limit
+            """;
 
-        return EventUtils.aggregateListGuestEmails(results);
+    List<TimeEventSlotPublicProjection> findPageByUserInDateRange(Long userId, String email, LocalDateTime startTime, LocalDateTime endTime, LocalDateTime afterStartTime, UUID afterId, int limit) {
+        return this.jdbcClient.sql(FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL)
+                .param("userId", userId)
+                .param("email", email)
+                .param("startTime", Timestamp.valueOf(startTime))
+                .param("endTime", Timestamp.valueOf(endTime))
+                // A time event lasts less than 24 hours, EventUtils.hasValidDateTimeProperties()
+                .param("earliestStartTime", Timestamp.valueOf(startTime.minusDays(1)))
+                .param("afterStartTime", Timestamp.valueOf(afterStartTime))
+                .param("afterId", afterId)
+                .param("limit", limit)
+                .query(new TimeEventSlotPublicProjectionRowMapper())
+                .list();
     }
 
-    public List<TimeEventSlotReminderProjection> findByStartTime(LocalDateTime startTime) {
-        List<TimeEventSlotReminderProjection> results = this.jdbcClient.sql("""
-                        SELECT
-                            tes.id,
-                            tes.start_time,
-                            tes.end_time,
-                            tes.title,
-                            ge.email AS guest_email,
-                            u.username,
-                            u.email AS organizer_email
-                        FROM time_event_slots tes
-                        JOIN time_events te ON tes.event_id = te.id
-                        JOIN users u ON te.organizer_id = u.id
-                        LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
-                        WHERE tes.start_time = :startTime
-                        ORDER BY tes.start_time
+    static final String ENQUEUE_REMINDERS_SQL = """
+            INSERT INTO time_event_slot_reminders (slot_id, offset_minutes, fire_at)
+            SELECT tes.id, o.offset_minutes, tes.start_time - make_interval(mins => o.offset_minutes)
+            FROM time_event_slots tes
+            JOIN time_events te ON te.id = tes.event_id
+            CROSS JOIN LATERAL unnest(COALESCE(tes.reminder_offsets, te.reminder_offsets, CAST(:defaultOffsets AS INTEGER[]))) AS o(offset_minutes)
+            WHERE tes.start_time > :now
+                AND tes.start_time <= :lastStartTime
+                AND tes.start_time - make_interval(mins => o.offset_minutes) <= :until
+            ON CONFLICT (slot_id, offset_minutes) DO NOTHING
+            """;
+
+    /*
+        A slot that has not started enters the reminder outbox once per offset, when its reminder fires until the given
+        time. A reminder that should have fired already, because the slot was created or moved close to its start, is
+        enqueued too and sent right away. Every instance runs it, the conflicts are ignored.
+
+        The offsets of a slot are its own, or the ones of its event, or the given default ones, V17. An empty array
+        means no reminders.
+     */
+    @Transactional
+    public int enqueueReminders(LocalDateTime now, LocalDateTime until, List<Integer> defaultOffsets) {
+        return this.jdbcClient.sql(ENQUEUE_REMINDERS_SQL)
+                .param("defaultOffsets", defaultOffsets.toArray(new Integer[0]))
+                .param("now", Timestamp.valueOf(now))
+                // Bounds the slots that are read by the largest offset, so the range of start_time uses the index
+                .param("lastStartTime", Timestamp.valueOf(until.plusMinutes(maxReminderOffset(defaultOffsets))))
+                .param("until", Timestamp.valueOf(until))
+                .update();
+    }
+
+    // The largest offset a slot can have, the validated ones of the requests or the largest default one
+    public static int maxReminderOffset(List<Integer> defaultOffsets) {
+        return Math.max(TimeEventSlotRequest.MAX_REMINDER_OFFSET_IN_MINUTES, defaultOffsets.isEmpty() ? 0 : Collections.max(defaultOffsets));
+    }
+
+    /*
+        The reminders of the slot that have not been claimed are deleted when its offsets change, the next run of
+        enqueueReminders() adds the ones of the new offsets. The ones that were claimed were already sent.
+     */
+    void updateReminderOffsets(UUID slotId, List<Integer> reminderOffsets) {
+        int updated = this.jdbcClient.sql("""
+                        UPDATE time_event_slots
+                        SET reminder_offsets = CAST(:reminderOffsets AS INTEGER[])
+                        WHERE id = :slotId AND reminder_offsets IS DISTINCT FROM CAST(:reminderOffsets AS INTEGER[])
                         """)
-                .param("startTime", Timestamp.valueOf(startTime))
-                .query(new TimeEventSlotReminderProjectionRowMapper())
+                .param("slotId", slotId)
+                .param("reminderOffsets", reminderOffsets == null ? null : reminderOffsets.toArray(new Integer[0]))
+                .update();
+        if (updated == 0) {
+            return;
+        }
+
+        this.jdbcClient.sql("""
+                        DELETE FROM time_event_slot_reminders
+                        WHERE slot_id = :slotId AND claimed_at IS NULL
+                        """)
+                .param("slotId", slotId)
+                .update();
+    }
+
+    // Like updateReminderOffsets(), for the slots that inherit the offsets of the event
+    void deleteUnclaimedRemindersOfInheritingSlots(UUID eventId) {
+        this.jdbcClient.sql("""
+                        DELETE FROM time_event_slot_reminders r
+                        USING time_event_slots tes
+                        WHERE r.slot_id = tes.id AND tes.event_id = :eventId AND tes.reminder_offsets IS NULL AND r.claimed_at IS NULL
+                        """)
+                .param("eventId", eventId)
+                .update();
+    }
+
+    /*
+        The reminders that can be claimed and fire until the given time, ordered by the time they fire. The ones whose
+        claim expired are scheduled again.
+     */
+    public List<TimeEventSlotScheduledReminder> findScheduledReminders(LocalDateTime until, LocalDateTime expiry, int maxAttempts) {
+        return this.jdbcClient.sql("""
+                        SELECT r.slot_id, r.offset_minutes, r.fire_at
+                        FROM time_event_slot_reminders r
+                        WHERE r.sent_at IS NULL AND r.fire_at <= :until
+                            AND (r.claimed_at IS NULL OR r.claimed_at < :expiry) AND r.attempts < :maxAttempts
+                        ORDER BY r.fire_at
+                        """)
+                .param("until", Timestamp.valueOf(until))
+                .param("expiry", Timestamp.valueOf(expiry))
+                .param("maxAttempts", maxAttempts)
+                .query((rs, rowNum) -> new TimeEventSlotScheduledReminder(
+                        UUID.fromString(rs.getString("slot_id")),
+                        rs.getInt("offset_minutes"),
+                        rs.getTimestamp("fire_at").toLocalDateTime()))
                 .list();
+    }
+
+    static final String CLAIM_REMINDERS_SQL = """
+            WITH claimed AS (
+                UPDATE time_event_slot_reminders
+                SET claimed_at = :now, attempts = attempts + 1
+                WHERE (slot_id, offset_minutes) IN (
+                    SELECT r.slot_id, r.offset_minutes
+                    FROM time_event_slot_reminders r
+                    WHERE (r.slot_id, r.offset_minutes) IN (:keys) AND r.sent_at IS NULL AND r.fire_at <= :now
+                        AND (r.claimed_at IS NULL OR r.claimed_at < :expiry) AND r.attempts < :maxAttempts
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING slot_id, offset_minutes
+            )
+            SELECT
+                tes.id,
+                c.offset_minutes,
+                tes.start_time,
+                tes.end_time,
+                tes.title,
+                ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails,
+                u.username,
+                u.email AS organizer_email
+            FROM claimed c
+            JOIN time_event_slots tes ON c.slot_id = tes.id
+            JOIN time_events te ON tes.event_id = te.id
+            JOIN users u ON te.organizer_id = u.id
+            WHERE tes.start_time > :now
+            ORDER BY tes.start_time
+            """;
+
+    /*
+        Claims the given reminders that have fired and have not been sent. Every instance schedules the same reminders,
+        the rows locked by the claims of other instances are skipped, so a reminder is claimed by 1 instance only. A
+        reminder is claimed again if its claim is older than the expiry, the instance that claimed it died before it
+        could mark it as sent or release it. Reminders that reached maxAttempts are not claimed again. The reminders of
+        slots that were moved after they were scheduled fire on their new time, their fire_at was updated by update().
+     */
+    @Transactional
+    public List<TimeEventSlotReminderProjection> claimReminders(LocalDateTime now, LocalDateTime expiry, int maxAttempts, List<TimeEventSlotScheduledReminder> reminders) {
+        if (reminders.isEmpty()) {
+            return List.of();
+        }
 
-        return EventUtils.aggregateListGuestEmails(results);
+        List<Object[]> keys = reminders.stream()
+                .map(reminder -> new Object[]{reminder.slotId(), reminder.offsetMinutes()})
+                .toList();
+        return this.jdbcClient.sql(CLAIM_REMINDERS_SQL)
+                .param("now", Timestamp.valueOf(now))
+                .param("expiry", Timestamp.valueOf(expiry))
+                .param("maxAttempts", maxAttempts)
+                .param("keys", keys)
+                .query((rs, rowNum) -> {
+                    TimeEventSlotReminderProjection projection = new TimeEventSlotReminderProjectionRowMapper().mapRow(rs, rowNum);
+                    projection.setOffsetMinutes(rs.getInt("offset_minutes"));
+                    return projection;
+                })
+                .list();
+    }
+
+    // The row of a sent reminder is kept until its slot starts, so enqueueReminders() doesn't add it again
+    @Transactional
+    public void markRemindersSent(LocalDateTime now, List<TimeEventSlotReminderProjection> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slot_reminders
+                        SET sent_at = :now
+                        WHERE (slot_id, offset_minutes) IN (:keys)
+                        """)
+                .param("now", Timestamp.valueOf(now))
+                .param("keys", keysOf(reminders))
+                .update();
+    }
+
+    // The reminders that failed are claimed again by the next run
+    @Transactional
+    public void releaseReminders(List<TimeEventSlotReminderProjection> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slot_reminders
+                        SET claimed_at = NULL
+                        WHERE (slot_id, offset_minutes) IN (:keys) AND sent_at IS NULL
+                        """)
+                .param("keys", keysOf(reminders))
+                .update();
+    }
+
+    // Once a slot has started it can't enter the outbox again, its reminder, sent or not, is no longer needed
+    @Transactional
+    public int deleteRemindersOfStartedSlots(LocalDateTime now) {
+        return this.jdbcClient.sql("""
+                        DELETE FROM time_event_slot_reminders r
+                        USING time_event_slots tes
+                        WHERE r.slot_id = tes.id AND tes.start_time <= :now
+                        """)
+                .param("now", Timestamp.valueOf(now))
+                .update();
     }
 
     /*
@@ -301,15 +599,199 @@ public class TimeEventSlotRepository {
                 .update();
     }
 
-    void deleteEventSlotsByEventId(UUID eventId) {
+    // The guests of the event and the guests of the slots that override them
+    List<String> findGuestEmailsByEventId(UUID eventId) {
+        return this.jdbcClient.sql("""
+                        SELECT ege.email
+                        FROM time_event_guest_emails ege
+                        WHERE ege.event_id = :eventId
+                        UNION
+                        SELECT ge.email
+                        FROM time_event_slot_guest_emails ge
+                        JOIN time_event_slots tes ON ge.event_slot_id = tes.id
+                        WHERE tes.event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .query(String.class)
+                .list();
+    }
+
+    /*
+        The slots of the event with the occurrence they were created for, V15. A slot without an occurrence date was
+        never moved, its occurrence is the date it starts in its own timezone.
+     */
+    List<TimeEventSlot> findOccurrencesByEventId(UUID eventId) {
+        return this.jdbcClient.sql("""
+                        SELECT
+                            tes.id,
+                            tes.start_time,
+                            tes.start_time_zone_id,
+                            tes.end_time,
+                            tes.end_time_zone_id,
+                            COALESCE(tes.occurrence_date, (tes.start_time AT TIME ZONE 'UTC' AT TIME ZONE tes.start_time_zone_id)::date) AS occurrence_date
+                        FROM time_event_slots tes
+                        WHERE tes.event_id = :eventId
+                        """)
+                .param("eventId", eventId)
+                .<TimeEventSlot>query((rs, rowNum) -> TimeEventSlot.builder()
+                        .id(UUID.fromString(rs.getString("id")))
+                        .eventId(eventId)
+                        .startTime(rs.getTimestamp("start_time").toLocalDateTime())
+                        .startTimeZoneId(ZoneId.of(rs.getString("start_time_zone_id")))
+                        .endTime(rs.getTimestamp("end_time").toLocalDateTime())
+                        .endTimeZoneId(ZoneId.of(rs.getString("end_time_zone_id")))
+                        .occurrenceDate(rs.getDate("occurrence_date").toLocalDate())
+                        .build())
+                .list();
+    }
+
+    /*
+        Moves the slots of the event to their new occurrence with 1 statement per BATCH_SIZE slots, instead of 1 UPDATE
+        per slot:
+
+            UPDATE time_event_slots tes SET start_time = v.start_time, ...
+            FROM (VALUES (:id0, :startTime0, ...), (:id1, :startTime1, ...), ...) AS v(id, start_time, ...)
+            WHERE tes.event_id = :eventId AND tes.id = v.id
+
+        The parameters of the VALUES list are cast, Postgres does not infer their types from the columns they are
+        assigned to. A slot that starts in another year moves to the partition of that year, like in update(). The
+        reminders that have not been sent are rescheduled once for the whole event.
+     */
+    void updateOccurrences(UUID eventId, List<TimeEventSlot> eventSlots) {
+        if (eventSlots.isEmpty()) {
+            return;
+        }
+
+        IntSummaryStatistics years = eventSlots.stream().mapToInt(eventSlot -> eventSlot.getStartTime().getYear()).summaryStatistics();
+        createPartitions(years.getMin(), years.getMax());
+        for (int i = 0; i < eventSlots.size(); i += BATCH_SIZE) {
+            List<TimeEventSlot> batch = eventSlots.subList(i, Math.min(i + BATCH_SIZE, eventSlots.size()));
+            StringBuilder sql = new StringBuilder("""
+                    UPDATE time_event_slots tes
+                    SET start_time = v.start_time, start_time_zone_id = v.start_time_zone_id, end_time = v.end_time, end_time_zone_id = v.end_time_zone_id, occurrence_date = v.occurrence_date
+                    FROM (VALUES\s""");
+            Map<String, Object> params = new HashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                TimeEventSlot eventSlot = batch.get(j);
+                sql.append(String.format("(CAST(:id%1$d AS UUID), CAST(:startTime%1$d AS TIMESTAMP), CAST(:startTimeZoneId%1$d AS TEXT), CAST(:endTime%1$d AS TIMESTAMP), CAST(:endTimeZoneId%1$d AS TEXT), CAST(:occurrenceDate%1$d AS DATE)), ", j));
+                params.put("id" + j, eventSlot.getId());
+                params.put("startTime" + j, eventSlot.getStartTime());
+                params.put("startTimeZoneId" + j, eventSlot.getStartTimeZoneId().toString());
+                params.put("endTime" + j, eventSlot.getEndTime());
+                params.put("endTimeZoneId" + j, eventSlot.getEndTimeZoneId().toString());
+                params.put("occurrenceDate" + j, Date.valueOf(eventSlot.getOccurrenceDate()));
+            }
+            // Remove the last ", "
+            sql.setLength(sql.length() - 2);
+            sql.append(") AS v(id, start_time, start_time_zone_id, end_time, end_time_zone_id, occurrence_date) WHERE tes.event_id = :eventId AND tes.id = v.id");
+            params.put("eventId", eventId);
+            this.jdbcClient.sql(sql.toString())
+                    .params(params)
+                    .update();
+        }
+
         this.jdbcClient.sql("""
-                            DELETE FROM time_event_slots
-                            WHERE event_id = :eventId
+                        UPDATE time_event_slot_reminders r
+                        SET fire_at = tes.start_time - make_interval(mins => r.offset_minutes)
+                        FROM time_event_slots tes
+                        WHERE r.slot_id = tes.id AND tes.event_id = :eventId AND r.sent_at IS NULL
+                            AND r.fire_at <> tes.start_time - make_interval(mins => r.offset_minutes)
                         """)
                 .param("eventId", eventId)
                 .update();
     }
 
+    // The title, location and description of every slot of the event, the slots that already have them are not written
+    void updateCommonPropertiesByEventId(UUID eventId, String title, String location, String description) {
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slots
+                        SET title = :title, location = :location, description = :description
+                        WHERE event_id = :eventId
+                            AND (title IS DISTINCT FROM :title OR location IS DISTINCT FROM :location OR description IS DISTINCT FROM :description)
+                        """)
+                .param("eventId", eventId)
+                .param("title", title)
+                .param("location", location)
+                .param("description", description)
+                .update();
+    }
+
+    // Every partition is read by the index of the primary key, (id, start_time)
+    boolean existsById(UUID slotId) {
+        return this.jdbcClient.sql("""
+                            SELECT EXISTS(
+                                SELECT 1
+                                FROM time_event_slots
+                                WHERE id = :slotId)
+                        """)
+                .param("slotId", slotId)
+                .query(Boolean.class)
+                .single();
+    }
+
+    // The ids of the given ones that are already taken by slots of the event
+    List<UUID> findIdsByEventIdAndSlotIds(UUID eventId, List<UUID> slotIds) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < slotIds.size(); i += BATCH_SIZE) {
+            ids.addAll(this.jdbcClient.sql("""
+                            SELECT id
+                            FROM time_event_slots
+                            WHERE event_id = :eventId AND id IN (:slotIds)
+                            """)
+                    .param("eventId", eventId)
+                    .param("slotIds", slotIds.subList(i, Math.min(i + BATCH_SIZE, slotIds.size())))
+                    .query(UUID.class)
+                    .list());
+        }
+
+        return ids;
+    }
+
+    // The guests and the reminders of the slots are deleted by the trigger of V12
+    void deleteByEventIdAndSlotIds(UUID eventId, List<UUID> slotIds) {
+        for (int i = 0; i < slotIds.size(); i += BATCH_SIZE) {
+            this.jdbcClient.sql("""
+                            DELETE FROM time_event_slots
+                            WHERE event_id = :eventId AND id IN (:slotIds)
+                            """)
+                    .param("eventId", eventId)
+                    .param("slotIds", slotIds.subList(i, Math.min(i + BATCH_SIZE, slotIds.size())))
+                    .update();
+        }
+    }
+
+    /*
+        The slots are partitioned by the year they start, V12, and a row can only be inserted in an existing partition.
+        EventSlotPartitionService creates the partitions of the next years ahead of time, this creates the ones of
+        slots further in the future or in the past. The function only locks and creates the partitions that don't
+        exist yet, for the rest it is a catalog lookup.
+     */
+    private void createPartitions(int fromYear, int toYear) {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions('time_event_slots', :fromYear, :toYear)")
+                .param("fromYear", fromYear)
+                .param("toYear", toYear)
+                .query()
+                .listOfRows();
+    }
+
+    // The reminders of a moved slot that have not been sent fire on its new start time
+    private void rescheduleReminders(UUID slotId) {
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slot_reminders r
+                        SET fire_at = tes.start_time - make_interval(mins => r.offset_minutes)
+                        FROM time_event_slots tes
+                        WHERE r.slot_id = tes.id AND r.slot_id = :slotId AND r.sent_at IS NULL
+                        """)
+                .param("slotId", slotId)
+                .update();
+    }
+
+    private static List<Object[]> keysOf(List<TimeEventSlotReminderProjection> reminders) {
+        return reminders.stream()
+                .map(reminder -> new Object[]{reminder.getId(), reminder.getOffsetMinutes()})
+                .toList();
+    }
+
     private void updateGuests(UUID slotId, Set<String> guestEmails) {
         this.jdbcClient.sql("""
                         DELETE
@@ -319,13 +801,59 @@ public class TimeEventSlotRepository {
                 .param("slotId", slotId)
                 .update();
 
-        for (String guestEmail : guestEmails) {
-            this.jdbcClient.sql("""
-                            INSERT INTO time_event_slot_guest_emails(event_slot_id, email)
-                            VALUES (:slotId, :email)
-                            """)
-                    .param("slotId", slotId)
-                    .param("email", guestEmail)
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slots
+                        SET guests_overridden = TRUE
+                        WHERE id = :slotId
+                        """)
+                .param("slotId", slotId)
+                .update();
+
+        // Empty, can't be null
+        insertGuests("time_event_slot_guest_emails", "event_slot_id", Map.of(slotId, guestEmails));
+    }
+
+    /*
+        Before adding guests to a slot that inherits the event's guests, we copy the event's guests to the slot, so the
+        slot keeps them alongside the new ones.
+     */
+    private void overrideGuests(UUID slotId) {
+        this.jdbcClient.sql("""
+                        INSERT INTO time_event_slot_guest_emails(event_slot_id, email)
+                        SELECT tes.id, ege.email
+                        FROM time_event_slots tes
+                        JOIN time_event_guest_emails ege ON tes.event_id = ege.event_id
+                        WHERE tes.id = :slotId AND NOT tes.guests_overridden
+                        """)
+                .param("slotId", slotId)
+                .update();
+
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slots
+                        SET guests_overridden = TRUE
+                        WHERE id = :slotId AND NOT guests_overridden
+                        """)
+                .param("slotId", slotId)
+                .update();
+    }
+
+    private void insertGuests(String tableName, String idColumn, Map<UUID, Set<String>> guestEmails) {
+        List<Map.Entry<UUID, String>> rows = new ArrayList<>();
+        guestEmails.forEach((id, emails) -> emails.forEach(email -> rows.add(Map.entry(id, email))));
+
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<Map.Entry<UUID, String>> batch = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO " + tableName + "(" + idColumn + ", email) VALUES ");
+            Map<String, Object> params = new HashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                sql.append(String.format("(:id%1$d, :email%1$d), ", j));
+                params.put("id" + j, batch.get(j).getKey());
+                params.put("email" + j, batch.get(j).getValue());
+            }
+            // Remove the last ", "
+            sql.setLength(sql.length() - 2);
+            this.jdbcClient.sql(sql.toString())
+                    .params(params)
                     .update();
         }
     }
@@ -1,12 +1,16 @@
 package org.example.calendar.event.slot.time;
 
+import org.example.calendar.event.ScheduleChangedEvent;
 import org.example.calendar.event.dto.InviteGuestsRequest;
-import org.example.calendar.event.recurrence.MonthlyRecurrenceType;
+import org.example.calendar.event.recurrence.OccurrenceDiff;
+import org.example.calendar.event.recurrence.OccurrenceIterator;
 import org.example.calendar.event.recurrence.RecurrenceDuration;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
 import org.example.calendar.event.slot.projection.EventSlotWithGuestsProjection;
 import org.example.calendar.event.slot.time.dto.TimeEventSlotRequest;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotProjection;
 import org.example.calendar.event.time.dto.TimeEventRequest;
+import org.example.calendar.event.time.projection.ForeverTimeEventProjection;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.entity.TimeEvent;
 import org.example.calendar.entity.TimeEventSlot;
@@ -15,12 +19,20 @@ import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
 import org.example.calendar.utils.DateUtils;
 import org.example.calendar.utils.EventUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+
 import java.time.*;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 import java.util.Set;
 import java.util.UUID;
@@ -32,66 +44,188 @@ import lombok.RequiredArgsConstructor;
 public class TimeEventSlotService {
     private final TimeEventSlotRepository eventSlotRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DistributionSummary expandedEventSlots = DistributionSummary.builder("event.slots.expanded")
+            .tag("type", "time")
+            .description("Slots created per expansion of an event")
+            .register(Metrics.globalRegistry);
     private static final String EVENT_SLOT_NOT_FOUND_MSG = "Time event slot not found with id: ";
 
     /*
         For every time event slot, we convert the start/end time to UTC according to their respective timezones. All
         the times stored in the DB will be in UTC. When we return an event slot to the user we convert the UTC time
         back to their local time according to the timezones we stored alongside them. This happens in the converter
+
+        Events that recur FOREVER are not expanded until an arbitrary date far in the future. We only create the slots
+        up until the event's materializedUntil date. The scheduled tasks move that date ahead with
+        extendForeverEventSlots(), the occurrences after it are computed on read by expandForeverEventSlots().
      */
     @Transactional
     public void create(TimeEventRequest eventRequest, TimeEvent event) {
-        switch (event.getRecurrenceFrequency()) {
-            // Non-recurring event, we only create 1 TimeEventSlot
-            case NEVER -> createTimeEventSlot(eventRequest, event, event.getStartTime());
-            case DAILY -> {
-                createUntilDateDailyEventSlots(eventRequest, event);
-                createNOccurrencesDailyEventSlots(eventRequest, event);
-            }
-            case WEEKLY -> {
-                createUntilDateWeeklyEventSlots(eventRequest, event);
-                createNOccurrencesWeeklyEventSlots(eventRequest, event);
+        this.eventSlotRepository.updateEventGuests(event.getId(), eventRequest.getGuestEmails());
+        createEventSlots(materializeOccurrences(event).stream().map(occurrence -> buildTimeEventSlot(eventRequest, event, occurrence)).toList());
+    }
+
+    /*
+        When the recurrence or the times of an event change, its slots are not deleted and created again. That would
+        rewrite every slot of the event to move a meeting by 15 minutes, and the slots would lose their ids, their
+        reminders and everything that was edited per slot. We expand the previous and the current recurrence of the
+        event, and OccurrenceDiff matches the slot of every previous occurrence to a current occurrence:
+            A matched slot moves to the time of its current occurrence. A slot that was moved by the user keeps its
+            times, only its occurrence changes. The slot of an event that does not recur always moves with the event.
+            The slots of the previous occurrences that are not matched are deleted.
+            Only the current occurrences that are not matched get a new slot. A previous occurrence without a slot was
+            deleted by the user, the occurrence it is matched with stays deleted.
+        Every step is 1 statement per BATCH_SIZE slots, and the slots that don't change are not written. The reminders
+        of the moved slots that have not been sent fire at their new time.
+
+        Slots created before V15 that were moved have no occurrence date, their occurrence can't be told. They are
+        deleted, and the previous occurrences without a slot get a new one, as before V15.
+     */
+    @Transactional
+    public void updateEventSlotsForRecurrence(TimeEventRequest eventRequest, TimeEvent original, TimeEvent modified, List<TimeEventSlot> eventSlots) {
+        List<LocalDate> previous = materializeOccurrences(original).stream().map(LocalDateTime::toLocalDate).toList();
+        List<LocalDate> current = materializeOccurrences(modified).stream().map(LocalDateTime::toLocalDate).toList();
+        OccurrenceDiff diff = OccurrenceDiff.of(previous, current, ChronoUnit.DAYS.between(original.getStartTime().toLocalDate(), modified.getStartTime().toLocalDate()));
+        Set<LocalDate> previousOccurrences = new HashSet<>(previous);
+        boolean follow = original.getRecurrenceFrequency() == RecurrenceFrequency.NEVER || modified.getRecurrenceFrequency() == RecurrenceFrequency.NEVER;
+
+        List<UUID> deleted = new ArrayList<>();
+        List<TimeEventSlot> moved = new ArrayList<>();
+        Set<LocalDate> withSlot = new HashSet<>();
+        boolean unknownOccurrences = false;
+        for (TimeEventSlot eventSlot : this.eventSlotRepository.findOccurrencesByEventId(modified.getId())) {
+            LocalDate occurrence = diff.matches().get(eventSlot.getOccurrenceDate());
+            unknownOccurrences |= !previousOccurrences.contains(eventSlot.getOccurrenceDate());
+            if (occurrence == null) {
+                deleted.add(eventSlot.getId());
+                continue;
             }
-            case MONTHLY -> {
-                if (event.getMonthlyRecurrenceType().equals(MonthlyRecurrenceType.SAME_WEEKDAY)) {
-                    createUntilDateMonthlySameWeekdayEventSlots(eventRequest, event);
-                    createNOccurrencesMonthlySameWeekdayEventSlots(eventRequest, event);
-                } else {
-                    // For events that are recurring Monthly, over N Months, Annually, or over N years we will use the
-                    // same method to take into consideration things like leap years for events at 29 February and
-                    // events that are to occur at the last day of the month
-                    createUntilDateSameDayEventSlots(eventRequest, event, ChronoUnit.MONTHS);
-                    createNOccurrencesSameDayEventSlots(eventRequest, event, ChronoUnit.MONTHS);
-                }
+
+            withSlot.add(eventSlot.getOccurrenceDate());
+            TimeEventSlot modifiedSlot = new TimeEventSlot(eventSlot);
+            modifiedSlot.setOccurrenceDate(occurrence);
+            if (follow || hasSameTimes(eventSlot, buildTimeEventSlot(eventRequest, original, LocalDateTime.of(eventSlot.getOccurrenceDate(), original.getStartTime().toLocalTime())))) {
+                TimeEventSlot occurrenceSlot = buildTimeEventSlot(eventRequest, modified, LocalDateTime.of(occurrence, modified.getStartTime().toLocalTime()));
+                modifiedSlot.setStartTime(occurrenceSlot.getStartTime());
+                modifiedSlot.setStartTimeZoneId(occurrenceSlot.getStartTimeZoneId());
+                modifiedSlot.setEndTime(occurrenceSlot.getEndTime());
+                modifiedSlot.setEndTimeZoneId(occurrenceSlot.getEndTimeZoneId());
             }
-            case ANNUALLY -> {
-                createUntilDateSameDayEventSlots(eventRequest, event, ChronoUnit.YEARS);
-                createNOccurrencesSameDayEventSlots(eventRequest, event, ChronoUnit.YEARS);
+            if (!modifiedSlot.getOccurrenceDate().isEqual(eventSlot.getOccurrenceDate()) || !hasSameTimes(modifiedSlot, eventSlot)) {
+                moved.add(modifiedSlot);
             }
         }
+
+        List<LocalDate> added = new ArrayList<>(diff.added());
+        if (unknownOccurrences) {
+            diff.matches().forEach((previousOccurrence, occurrence) -> {
+                if (!withSlot.contains(previousOccurrence)) {
+                    added.add(occurrence);
+                }
+            });
+        }
+
+        LocalTime startTime = modified.getStartTime().toLocalTime();
+        this.eventSlotRepository.deleteByEventIdAndSlotIds(modified.getId(), deleted);
+        this.eventSlotRepository.updateOccurrences(modified.getId(), moved);
+        this.eventSlotRepository.updateCommonPropertiesByEventId(modified.getId(), eventRequest.getTitle(), eventRequest.getLocation(), eventRequest.getDescription());
+        createEventSlots(added.stream().map(occurrence -> buildTimeEventSlot(eventRequest, modified, LocalDateTime.of(occurrence, startTime))).toList());
+        updateEventGuests(eventRequest, modified.getId(), eventSlots);
     }
 
     /*
-        This method will be tested via an Integration test, because EventUtils.hasSameFrequencyDetails() is already
-        tested and the remaining code is just calling delete() and save(). No logic to be tested in the
-        TimeEventSlotServiceTest class, create is already fully tested.
+        The event's materializedUntil is the date that its slots have been created up until. We expand the event again
+        until the new date, and we only create the occurrences after the previous materializedUntil. Occurrences before
+        that date are either already created, or they were deleted/edited by the user and must not be recreated. The
+        title, location and description of the new slots are the ones of the event, and they inherit the guests of the
+        event.
+
+        The new slots get the ids expandForeverEventSlots() returned for their occurrences on read. A slot that was
+        moved to another occurrence when the recurrence of the event changed keeps its id, so an id can already be
+        taken, that slot gets the next id of its occurrence, EventUtils.occurrenceId().
      */
     @Transactional
-    public void updateEventSlotsForEvent(TimeEventRequest eventRequest, List<TimeEventSlot> eventSlots) {
-        TimeEventSlotRequest eventSlotRequest = TimeEventSlotRequest.builder()
-                .title(eventRequest.getTitle())
-                .location(eventRequest.getLocation())
-                .description(eventRequest.getDescription())
-                .build();
+    public void extendForeverEventSlots(TimeEvent event, LocalDate until) {
+        List<LocalDateTime> occurrences = expandOccurrences(event, until);
+        occurrences.removeIf(occurrence -> !occurrence.toLocalDate().isAfter(event.getMaterializedUntil()) || occurrence.toLocalDate().isAfter(until));
+        TimeEventRequest eventRequest = buildTemplateRequest(event);
+        List<TimeEventSlot> eventSlots = occurrences.stream().map(occurrence -> buildTimeEventSlot(eventRequest, event, occurrence)).toList();
+        List<TimeEventSlot> pending = eventSlots;
+        // 1 query when no id is taken
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            int next = attempt;
+            pending.forEach(eventSlot -> eventSlot.setId(EventUtils.occurrenceId(event.getId(), eventSlot.getOccurrenceDate(), next)));
+            Set<UUID> taken = new HashSet<>(this.eventSlotRepository.findIdsByEventIdAndSlotIds(event.getId(), pending.stream().map(TimeEventSlot::getId).toList()));
+            pending = pending.stream().filter(eventSlot -> taken.contains(eventSlot.getId())).toList();
+        }
+        createEventSlots(eventSlots);
+    }
+
+    /*
+        The date of the occurrence of a FOREVER event after its materializedUntil date, up until the given date, that
+        expandForeverEventSlots() returns with the given id.
+     */
+    public Optional<LocalDate> findOccurrenceDate(TimeEvent event, UUID slotId, LocalDate until) {
+        return expandOccurrences(event, until).stream()
+                .map(LocalDateTime::toLocalDate)
+                .filter(occurrence -> occurrence.isAfter(event.getMaterializedUntil()) && !occurrence.isAfter(until))
+                .filter(occurrence -> EventUtils.occurrenceId(event.getId(), occurrence).equals(slotId))
+                .findFirst();
+    }
 
-        for (TimeEventSlot original : eventSlots) {
-            TimeEventSlot modified = new TimeEventSlot();
-            modified.setId(original.getId());
-            EventUtils.setCommonEventSlotProperties(eventSlotRequest, modified);
-            modified.setGuestEmails(eventRequest.getGuestEmails());
+    public boolean existsById(UUID slotId) {
+        return this.eventSlotRepository.existsById(slotId);
+    }
+
+    /*
+        The occurrences of a FOREVER event after its materializedUntil date, up until the given date, that overlap the
+        range. The range and the start/end times of the returned slots are in UTC. They are built like
+        extendForeverEventSlots() will create them, with the same ids, but nothing is written: a request for a range far
+        in the future no longer creates the slots of every year up until it. The organizer sees the guests of the event,
+        a guest only their own email, like in the queries of the slots.
+     */
+    public List<TimeEventSlotPublicProjection> expandForeverEventSlots(ForeverTimeEventProjection projection, User user, LocalDateTime startTime, LocalDateTime endTime, LocalDate until) {
+        TimeEvent event = projection.event();
+        TimeEventRequest eventRequest = buildTemplateRequest(event);
+        Set<String> guestEmails = event.getOrganizerId().equals(user.getId()) ? projection.guestEmails() : Set.of(user.getEmail());
+        List<TimeEventSlotPublicProjection> eventSlots = new ArrayList<>();
+        for (LocalDateTime occurrence : expandOccurrences(event, until)) {
+            if (!occurrence.toLocalDate().isAfter(event.getMaterializedUntil()) || occurrence.toLocalDate().isAfter(until)) {
+                continue;
+            }
 
-            this.eventSlotRepository.updateEventSlotForEvent(original, modified);
+            TimeEventSlot eventSlot = buildTimeEventSlot(eventRequest, event, occurrence);
+            // The slot is [start, end), a slot that starts and ends at the same time is a point
+            if (eventSlot.getStartTime().isAfter(endTime) || (!eventSlot.getEndTime().isAfter(startTime) && eventSlot.getStartTime().isBefore(startTime))) {
+                continue;
+            }
+            eventSlots.add(TimeEventSlotPublicProjection.builder()
+                    .id(EventUtils.occurrenceId(event.getId(), eventSlot.getOccurrenceDate()))
+                    .eventId(event.getId())
+                    .startTime(eventSlot.getStartTime())
+                    .startTimeZoneId(eventSlot.getStartTimeZoneId())
+                    .endTime(eventSlot.getEndTime())
+                    .endTimeZoneId(eventSlot.getEndTimeZoneId())
+                    .title(eventSlot.getTitle())
+                    .location(eventSlot.getLocation())
+                    .description(eventSlot.getDescription())
+                    .organizer(projection.organizer())
+                    .guestEmails(guestEmails)
+                    .build());
         }
+
+        return eventSlots;
+    }
+
+    /*
+        The title, location and description of every slot of the event are updated with 1 statement, like in
+        updateEventSlotsForRecurrence(). The slots that already have them are not written.
+     */
+    @Transactional
+    public void updateEventSlotsForEvent(TimeEventRequest eventRequest, UUID eventId, List<TimeEventSlot> eventSlots) {
+        this.eventSlotRepository.updateCommonPropertiesByEventId(eventId, eventRequest.getTitle(), eventRequest.getLocation(), eventRequest.getDescription());
+        updateEventGuests(eventRequest, eventId, eventSlots);
     }
 
     /*
@@ -140,6 +274,11 @@ public class TimeEventSlotService {
         modified.setGuestEmails(EventUtils.processGuestEmails(user, eventSlotRequest.getGuestEmails()));
 
         this.eventSlotRepository.update(original, modified);
+        this.eventSlotRepository.updateReminderOffsets(original.getId(), eventSlotRequest.getReminderOffsets());
+
+        Set<String> guestEmails = new HashSet<>(original.getGuestEmails());
+        guestEmails.addAll(modified.getGuestEmails());
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
     /*
@@ -170,6 +309,7 @@ public class TimeEventSlotService {
         Set<String> guestEmails = EventUtils.processGuestEmails(user, inviteGuestsRequest, projection.getGuestEmails());
 
         this.eventSlotRepository.inviteGuests(projection.getId(), guestEmails);
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
     public List<TimeEventSlotPublicProjection> findEventSlotsByEventAndUserId(UUID eventId, Long userId) {
@@ -198,227 +338,134 @@ public class TimeEventSlotService {
         startTime = startTimeZoneId.equals(ZoneId.of("UTC")) ? startTime : DateUtils.convertToUTC(startTime, startTimeZoneId);
         endTime = endTimeZoneId.equals(ZoneId.of("UTC")) ? endTime : DateUtils.convertToUTC(endTime, endTimeZoneId);
 
+        /*
+            The query sorts the slots by their start time in UTC. After converting the start time of each slot to its
+            own timezone, slots of events in different timezones can be out of order. The schedule merges this list
+            with the DayEventSlots and expects it to be sorted by the start time that is returned. The list is almost
+            sorted already, so the stable sort is close to a single pass over it.
+         */
         return this.eventSlotRepository.findByUserInDateRange(user.getId(), user.getEmail(), startTime, endTime).stream()
                 // Don't use peek
                 .map(eventSlot -> {
                     eventSlot.setStartTime(DateUtils.convertFromUTC(eventSlot.getStartTime(), eventSlot.getStartTimeZoneId()));
                     eventSlot.setEndTime(DateUtils.convertFromUTC(eventSlot.getEndTime(), eventSlot.getEndTimeZoneId()));
                     return eventSlot;
-                }).toList();
+                })
+                .sorted(Comparator.comparing(TimeEventSlotPublicProjection::getStartTime))
+                .toList();
+    }
+
+    /*
+        Unlike findEventSlotsByUserInDateRange(), the range and the returned start/end times are in UTC. The page is
+        merged with the DayEventSlots in the order of the UTC start time, the caller converts the times to the timezone
+        of each slot afterwards.
+     */
+    public List<TimeEventSlotPublicProjection> findEventSlotPageByUserInDateRange(User user, LocalDateTime startTime, LocalDateTime endTime, LocalDateTime afterStartTime, UUID afterId, int limit) {
+        return this.eventSlotRepository.findPageByUserInDateRange(user.getId(), user.getEmail(), startTime, endTime, afterStartTime, afterId, limit);
     }
 
     // 2 delete queries will be logged, first to delete all the guest emails and then the slot itself
     @Transactional
     public void deleteEventSlotById(UUID slotId, Long userId) {
+        Set<String> guestEmails = this.eventSlotRepository.findBySlotAndUserIdFetchingGuests(slotId, userId)
+                .map(EventSlotWithGuestsProjection::getGuestEmails)
+                .orElse(Set.of());
         int rowsAffected = this.eventSlotRepository.deleteBySlotAndUserId(slotId, userId);
         if (rowsAffected != 1) {
             throw new ResourceNotFoundException(EVENT_SLOT_NOT_FOUND_MSG + slotId);
         }
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
-    // This method is used to delete the current event slots before creating new ones based on the new recurrence
-    // properties when we update an event. We need to delete the previous ones and create the new
-    public void deleteEventSlotsByEventId(UUID eventId) {
-        this.eventSlotRepository.deleteEventSlotsByEventId(eventId);
+    // The reminders of the slots that inherit the changed offsets of the event are enqueued again with the new ones
+    public void rescheduleRemindersForEvent(UUID eventId) {
+        this.eventSlotRepository.deleteUnclaimedRemindersOfInheritingSlots(eventId);
     }
 
-    /*
-        In the plus() method we can pass a unit of time to increase our date in the loop. According to the unit passed
-        plusWeeks(), plusDays() etc will be called. It is a way to avoid having a different case for each value
+    public List<String> findGuestEmailsByEventId(UUID eventId) {
+        return this.eventSlotRepository.findGuestEmailsByEventId(eventId);
+    }
 
-        date = date.plusDays(), date = date.plusWeeks() etc
+    /*
+        The guests are stored once for the event. Instead of rewriting the guests of every slot, we replace the
+        event's guests and the slots that had their own guest list inherit them again. Nothing is written if every
+        slot already has the requested guests. The guest emails can't be null. Emails are processed and if they
+        were null an empty set is returned.
      */
-    private void createUntilDateDailyEventSlots(TimeEventRequest eventRequest, TimeEvent event) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE
-                && event.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
+    private void updateEventGuests(TimeEventRequest eventRequest, UUID eventId, List<TimeEventSlot> eventSlots) {
+        Set<String> guestEmails = eventRequest.getGuestEmails();
+        if (eventSlots.isEmpty() || eventSlots.stream().anyMatch(eventSlot -> !guestEmails.equals(eventSlot.getGuestEmails()))) {
+            this.eventSlotRepository.updateEventGuests(eventId, guestEmails);
+            this.eventSlotRepository.resetGuestOverrides(eventId);
         }
+    }
 
-        LocalDateTime dateTime = event.getStartTime();
-        while (!dateTime.toLocalDate().isAfter(event.getRecurrenceEndDate())) {
-            createTimeEventSlot(eventRequest, event, dateTime);
-            dateTime = dateTime.plusDays(event.getRecurrenceStep());
-        }
+    // The number of slots every create/extend produces, the sum is the number of slots created
+    private void createEventSlots(List<TimeEventSlot> eventSlots) {
+        this.expandedEventSlots.record(eventSlots.size());
+        this.eventSlotRepository.create(eventSlots);
     }
 
-    private void createNOccurrencesDailyEventSlots(TimeEventRequest eventRequest, TimeEvent event) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
+    // The occurrences that have slots, the ones of FOREVER events until their materializedUntil
+    private List<LocalDateTime> materializeOccurrences(TimeEvent event) {
+        if (event.getRecurrenceDuration() == RecurrenceDuration.FOREVER && event.getRecurrenceFrequency() != RecurrenceFrequency.NEVER) {
+            List<LocalDateTime> occurrences = expandOccurrences(event, event.getMaterializedUntil());
+            // Monthly same weekday occurrences can fall after the date we expanded until. They belong to the next window
+            occurrences.removeIf(occurrence -> occurrence.toLocalDate().isAfter(event.getMaterializedUntil()));
+            return occurrences;
         }
 
-        LocalDateTime startTime = event.getStartTime();
-        for (int i = 0; i <= event.getNumberOfOccurrences(); i++) {
-            createTimeEventSlot(eventRequest, event, startTime);
-           /*
-                The starDate is updated to the previous value plus the number of the recurrence step which
-                can be 1, 2 etc, meaning the event is to occur every 1,2, days until we reach N_OCCURRENCES
-            */
-            startTime = startTime.plusDays(event.getRecurrenceStep());
-        }
+        return expandOccurrences(event, event.getRecurrenceEndDate());
     }
 
     /*
-        Weekly events can occur on certain days of week. ["MONDAY", "THURSDAY", "SATURDAY"]. In the request,
-        one of those 3 days will correspond to the date provided by the user. We have 2 cases to consider:
-            Case 1: The next day to occur is after the day that corresponds to the start date. For example,
-            if 2024-09-12 is a Thursday and we want the event to occur on Monday, Monday is before Thursday so,
-            we need to adjust the date. We need to find the difference between the day of the start date and the day
-            to occur in our case: Thursday - Monday (in ordinal enum values) will give us a positive difference
-            which means the day of the start date is after the day to occur, so we need to subtract days from the
-            startDate (startDate = date.minus(difference)), Thursday - Monday = 3 in ordinal,
-            startDate = date.minus(3) would result in 2024-09-09 which is a Monday, but this is in the past relative
-            to our event. In this case, we need to find the next Monday, this is why the check is there
-            !startDate.isBefore(event.getStartTime().toLocalDate(). We are interested in future occurrences relative to
-            our eventRequest.getStatDate()
-
-            Case 2: Opposite of 1. We need to add the difference but since the number will be negative will add its
-            absolute value
-
-            @Test
-            void shouldCreateTimeEventSlotsWhenEventIsRecurringEveryNWeeksUntilACertainDate(), TimeEventSlotServiceTest
+        Computes the start times of the event's occurrences, in the event's timezone. For UNTIL_DATE and FOREVER events
+        we expand until the given end date. Every occurrence starts at the same local time as the event, the timezone
+        conversion happens when the slot is built. OccurrenceIterator explains how the occurrences of every frequency
+        are computed.
      */
-    private void createUntilDateWeeklyEventSlots(TimeEventRequest eventRequest, TimeEvent event) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && event.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
+    private List<LocalDateTime> expandOccurrences(TimeEvent event, LocalDate endDate) {
+        LocalDate startDate = event.getStartTime().toLocalDate();
+        OccurrenceIterator iterator = event.getRecurrenceDuration() == RecurrenceDuration.N_OCCURRENCES
+                ? OccurrenceIterator.first(event, startDate, getOccurrenceCount(event))
+                : OccurrenceIterator.until(event, startDate, endDate);
+        LocalTime startTime = event.getStartTime().toLocalTime();
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        while (iterator.hasNext()) {
+            occurrences.add(LocalDateTime.of(LocalDate.ofEpochDay(iterator.nextLong()), startTime));
         }
 
-        LocalDate startDate;
-        LocalDateTime startTime;
-        LocalDateTime dateTime = event.getStartTime();
-        while (!dateTime.toLocalDate().isAfter(event.getRecurrenceEndDate())) {
-            for (DayOfWeek dayOfWeek : event.getWeeklyRecurrenceDays()) {
-                int differenceInDays = event.getStartTime().getDayOfWeek().getValue() - dayOfWeek.getValue();
-                if (differenceInDays > 0) {
-                    startDate = LocalDate.from(dateTime.minusDays(differenceInDays));
-                } else {
-                    // Math.abs() would also, we are using the minus operator, which negates the integer(changes the sing)
-                    startDate = LocalDate.from(dateTime).plusDays(-differenceInDays);
-                }
-
-                // The start date is within the recurrence end date
-                if (!startDate.isBefore(event.getStartTime().toLocalDate()) && !startDate.isAfter(event.getRecurrenceEndDate())) {
-                    startTime = startDate.atTime(event.getStartTime().toLocalTime());
-                    createTimeEventSlot(eventRequest, event, startTime);
-                }
-            }
-            dateTime = dateTime.plusWeeks(event.getRecurrenceStep());
-        }
+        return occurrences;
     }
 
     /*
-        Similar logic with createUntilDateWeeklyEventSlots()
-
-            @Test
-            void shouldCreateTimeEventSlotsWhenEventIsRecurringEveryNWeeksForNOccurrences(), TimeEventSlotServiceTest
+        Weekly recurring events count the original event as 1 of the occurrences. The rest count the repetitions after
+        the original event, for 4 repetitions the event occurs 5 times.
      */
-    private void createNOccurrencesWeeklyEventSlots(TimeEventRequest eventRequest, TimeEvent event) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
+    private int getOccurrenceCount(TimeEvent event) {
+        if (event.getRecurrenceFrequency() == RecurrenceFrequency.WEEKLY) {
+            return event.getNumberOfOccurrences();
         }
 
-        int count = 0;
-        LocalDate startDate;
-        LocalDateTime startTime;
-        LocalDateTime dateTime = event.getStartTime();
-        while (count < event.getNumberOfOccurrences()) {
-            for (DayOfWeek dayOfWeek : event.getWeeklyRecurrenceDays()) {
-                int differenceInDays = event.getStartTime().getDayOfWeek().getValue() - dayOfWeek.getValue();
-                if (differenceInDays > 0) {
-                    startDate = LocalDate.from(dateTime.minusDays(differenceInDays));
-                } else {
-                    // Math.abs() would also, we are using the minus operator, which negates the integer(changes the sing)
-                    startDate = LocalDate.from(dateTime).plusDays(-differenceInDays);
-                }
-                if (!startDate.isBefore(event.getStartTime().toLocalDate())) {
-                    startTime = startDate.atTime(event.getStartTime().toLocalTime());
-                    createTimeEventSlot(eventRequest, event, startTime);
-                    count++;
-                    // During the inner loop the count might be equal or greater than the occurrences
-                    if (count == event.getNumberOfOccurrences()) {
-                        return;
-                    }
-                }
-            }
-            dateTime = dateTime.plusWeeks(event.getRecurrenceStep());
-        }
+        return event.getNumberOfOccurrences() + 1;
     }
 
-    // Monthly events that occur the same week day until a certain date(2nd Tuesday of the month)
-    private void createUntilDateMonthlySameWeekdayEventSlots(TimeEventRequest eventRequest, TimeEvent event) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && event.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
-        }
-
-        int occurrences = DateUtils.findDayOfMonthOccurrence(LocalDate.from(event.getStartTime()));
-        LocalDate startDate;
-        LocalDateTime startTime;
-        LocalDateTime dateTime = event.getStartTime();
-        while (!dateTime.toLocalDate().isAfter(event.getRecurrenceEndDate())) {
-            startDate = DateUtils.findDateOfNthDayOfWeekInMonth(
-                    YearMonth.of(dateTime.getYear(), dateTime.getMonth()),
-                    event.getStartTime().getDayOfWeek(),
-                    occurrences
-            );
-            // Combines this date with a time to create a LocalDateTime. Returns LocalDateTime formed from this date at
-            // the specified time.
-            startTime = startDate.atTime(event.getStartTime().toLocalTime());
-            createTimeEventSlot(eventRequest, event, startTime);
-            dateTime = dateTime.plusMonths(event.getRecurrenceStep());
-        }
-    }
-
-    // Monthly events that occur the same week day until a number of occurrences(2nd Tuesday of the month)
-    private void createNOccurrencesMonthlySameWeekdayEventSlots(TimeEventRequest eventRequest, TimeEvent event) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
-        }
-
-        int occurrences = DateUtils.findDayOfMonthOccurrence(LocalDate.from(event.getStartTime()));
-        LocalDate startDate = LocalDate.from(event.getStartTime());
-        LocalDateTime startTime = event.getStartTime();
-        for (int i = 0; i <= event.getNumberOfOccurrences(); i++) {
-            createTimeEventSlot(eventRequest, event, startTime);
-            startDate = LocalDate.from(startDate).plusMonths(event.getRecurrenceStep());
-            startDate = DateUtils.findDateOfNthDayOfWeekInMonth(
-                    YearMonth.of(startDate.getYear(), startDate.getMonth()),
-                    event.getStartTime().getDayOfWeek(),
-                    occurrences
-            );
-            // We want the upcoming events to start the same time as the original one. We find the next date and add the time
-            startTime = startDate.atTime(event.getStartTime().toLocalTime());
-        }
-    }
-
-    private void createUntilDateSameDayEventSlots(TimeEventRequest eventRequest, TimeEvent event, ChronoUnit unit) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.UNTIL_DATE && event.getRecurrenceDuration() != RecurrenceDuration.FOREVER) {
-            return;
-        }
-
-        int dayOfMonth = event.getStartTime().getDayOfMonth();
-        LocalDateTime dateTime = event.getStartTime();
-        while (!dateTime.toLocalDate().isAfter(event.getRecurrenceEndDate())) {
-            LocalDate adjustedDate = DateUtils.adjustDateForMonth(dayOfMonth, dateTime.toLocalDate());
-            LocalDateTime adjustedDateTime = adjustedDate.atTime(dateTime.toLocalTime());
-            createTimeEventSlot(eventRequest, event, adjustedDateTime);
-
-            dateTime = dateTime.plus(event.getRecurrenceStep(), unit);
-        }
+    private boolean hasSameTimes(TimeEventSlot eventSlot, TimeEventSlot other) {
+        return eventSlot.getStartTime().isEqual(other.getStartTime())
+                && eventSlot.getEndTime().isEqual(other.getEndTime())
+                && eventSlot.getStartTimeZoneId().equals(other.getStartTimeZoneId())
+                && eventSlot.getEndTimeZoneId().equals(other.getEndTimeZoneId());
     }
 
-    private void createNOccurrencesSameDayEventSlots(TimeEventRequest eventRequest, TimeEvent event, ChronoUnit unit) {
-        if (event.getRecurrenceDuration() != RecurrenceDuration.N_OCCURRENCES) {
-            return;
-        }
-
-        int dayOfMonth = event.getStartTime().getDayOfMonth();
-        LocalDateTime startTime = event.getStartTime();
-        for (int i = 0; i <= event.getNumberOfOccurrences(); i++) {
-            LocalDate adjustedDate = DateUtils.adjustDateForMonth(dayOfMonth, startTime.toLocalDate());
-            LocalDateTime adjustedStartTime = adjustedDate.atTime(startTime.toLocalTime());
-            createTimeEventSlot(eventRequest, event, adjustedStartTime);
-
-            startTime = startTime.plus(event.getRecurrenceStep(), unit);
-        }
+    // The slots of FOREVER events that are created after the event, are created with the event's title/location/description
+    private TimeEventRequest buildTemplateRequest(TimeEvent event) {
+        return TimeEventRequest.builder()
+                .title(event.getTitle())
+                .location(event.getLocation())
+                .description(event.getDescription())
+                .startTimeZoneId(event.getStartTimeZoneId())
+                .endTimeZoneId(event.getEndTimeZoneId())
+                .build();
     }
 
     /*
@@ -436,11 +483,13 @@ public class TimeEventSlotService {
             case. If both are converted to UTC, the difference is 0, both are 14:00 UTC. This is why we need to consider
             timezones for the event duration
      */
-    private void createTimeEventSlot(TimeEventRequest eventRequest, TimeEvent event, LocalDateTime startTime) {
-        startTime = DateUtils.convertToUTC(startTime, eventRequest.getStartTimeZoneId());
+    private TimeEventSlot buildTimeEventSlot(TimeEventRequest eventRequest, TimeEvent event, LocalDateTime occurrence) {
+        LocalDateTime startTime = DateUtils.convertToUTC(occurrence, event.getStartTimeZoneId());
         LocalDateTime endTime = startTime.plusMinutes(DateUtils.timeZoneAwareDifference(event.getStartTime(), event.getStartTimeZoneId(), event.getEndTime(), event.getEndTimeZoneId(), ChronoUnit.MINUTES));
 
+        // The id is generated here and not by the db, so the slots and their guests can be inserted in batches
         TimeEventSlot timeEventSlot = new TimeEventSlot();
+        timeEventSlot.setId(UUID.randomUUID());
         timeEventSlot.setStartTime(startTime);
         timeEventSlot.setEndTime(endTime);
         timeEventSlot.setStartTimeZoneId(event.getStartTimeZoneId());
@@ -450,6 +499,8 @@ public class TimeEventSlotService {
         timeEventSlot.setLocation(eventRequest.getLocation());
         timeEventSlot.setGuestEmails(eventRequest.getGuestEmails());
         timeEventSlot.setEventId(event.getId());
-        this.eventSlotRepository.create(timeEventSlot);
+        timeEventSlot.setOccurrenceDate(occurrence.toLocalDate());
+
+        return timeEventSlot;
     }
 }
\ No newline at end of file
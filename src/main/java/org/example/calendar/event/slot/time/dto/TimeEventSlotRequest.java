@@ -12,6 +12,12 @@ import org.example.calendar.event.slot.time.validator.ValidTimeEventSlotRequest;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.List;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 @Getter
 @Setter
@@ -21,9 +27,18 @@ import java.time.ZoneId;
 @ValidTimeEventSlotRequest
 @EqualsAndHashCode(callSuper = true)
 public class TimeEventSlotRequest extends AbstractEventSlotRequest {
+    // A reminder is sent at most a day before the slot starts, the reminder task only reads the slots of the next day
+    public static final int MAX_REMINDER_OFFSET_IN_MINUTES = 24 * 60;
+    public static final int MAX_REMINDER_OFFSETS = 5;
+
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     // It throws ZoneRulesException: Unknown time-zone ID, for invalid timezone during deserialization
     private ZoneId startTimeZoneId;
     private ZoneId endTimeZoneId;
+    // null for the reminder offsets of the event, an empty list for no reminders
+    @Size(max = MAX_REMINDER_OFFSETS, message = "A slot can have up to " + MAX_REMINDER_OFFSETS + " reminders")
+    private List<@NotNull(message = "Reminder offset must not be null")
+                 @Min(value = 0, message = "Reminder offset must be between 0 and " + MAX_REMINDER_OFFSET_IN_MINUTES + " minutes")
+                 @Max(value = MAX_REMINDER_OFFSET_IN_MINUTES, message = "Reminder offset must be between 0 and " + MAX_REMINDER_OFFSET_IN_MINUTES + " minutes") Integer> reminderOffsets;
 }
@@ -19,4 +19,6 @@ import java.time.LocalDateTime;
 public class TimeEventSlotReminderProjection extends AbstractEventSlotReminderProjection implements GuestProjection {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    // The offset of the reminder that was claimed, null for the slots that were not claimed
+    private Integer offsetMinutes;
 }
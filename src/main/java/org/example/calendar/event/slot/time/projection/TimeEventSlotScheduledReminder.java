@@ -0,0 +1,8 @@
+package org.example.calendar.event.slot.time.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A reminder that has not been sent, it is sent offsetMinutes before the start of its slot, at fireAt
+public record TimeEventSlotScheduledReminder(UUID slotId, int offsetMinutes, LocalDateTime fireAt) {
+}
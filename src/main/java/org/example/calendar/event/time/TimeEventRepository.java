@@ -1,8 +1,10 @@
 package org.example.calendar.event.time;
 
-import org.example.calendar.event.slot.time.projection.TimeEventSlotProjection;
+import org.example.calendar.event.time.projection.ForeverTimeEventProjection;
 import org.example.calendar.event.time.projection.TimeEventProjection;
+import org.example.calendar.event.time.projection.mapper.ForeverTimeEventProjectionRowMapper;
 import org.example.calendar.event.time.projection.mapper.TimeEventProjectionRowMapper;
+import org.example.calendar.event.time.projection.mapper.TimeEventRowMapper;
 import org.example.calendar.utils.DateUtils;
 import org.example.calendar.utils.EventUtils;
 import org.example.calendar.entity.TimeEvent;
@@ -11,6 +13,8 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -30,8 +34,8 @@ public class TimeEventRepository {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         this.jdbcClient.sql("""
-                        INSERT INTO time_events(organizer_id, start_time, start_time_zone_id, end_time, end_time_zone_id, recurrence_frequency, recurrence_step, weekly_recurrence_days, monthly_recurrence_type, recurrence_duration, recurrence_end_date, number_of_occurrences)
-                        VALUES (:organizerId, :startTime, :startTimeZoneId, :endTime, :endTimeZoneId, :recurrenceFrequency::recurrence_frequency, :recurrenceStep, :weeklyRecurrenceDays, :monthlyRecurrenceType::monthly_recurrence_type, :recurrenceDuration::recurrence_duration, :recurrenceEndDate, :numberOfOccurrences)
+                        INSERT INTO time_events(organizer_id, start_time, start_time_zone_id, end_time, end_time_zone_id, recurrence_frequency, recurrence_step, weekly_recurrence_days, monthly_recurrence_type, recurrence_duration, recurrence_end_date, number_of_occurrences, materialized_until, title, location, description, reminder_offsets)
+                        VALUES (:organizerId, :startTime, :startTimeZoneId, :endTime, :endTimeZoneId, :recurrenceFrequency::recurrence_frequency, :recurrenceStep, :weeklyRecurrenceDays, :monthlyRecurrenceType::monthly_recurrence_type, :recurrenceDuration::recurrence_duration, :recurrenceEndDate, :numberOfOccurrences, :materializedUntil, :title, :location, :description, :reminderOffsets)
                         """)
                 .param("organizerId", event.getOrganizerId())
                 .param("startTime", DateUtils.convertToUTC(event.getStartTime(), event.getStartTimeZoneId()))
@@ -45,6 +49,11 @@ public class TimeEventRepository {
                 .param("recurrenceDuration", event.getRecurrenceDuration() == null ? null : event.getRecurrenceDuration().name())
                 .param("recurrenceEndDate", event.getRecurrenceEndDate() == null ? null : Date.valueOf(event.getRecurrenceEndDate()))
                 .param("numberOfOccurrences", event.getNumberOfOccurrences())
+                .param("materializedUntil", event.getMaterializedUntil() == null ? null : Date.valueOf(event.getMaterializedUntil()))
+                .param("title", event.getTitle())
+                .param("location", event.getLocation())
+                .param("description", event.getDescription())
+                .param("reminderOffsets", event.getReminderOffsets() == null ? null : event.getReminderOffsets().toArray(new Integer[0]))
                 // If we don't pass the column that will hold the auto-generated key, all the columns will be returned and
                 // when we try to access it, we would get InvalidDataAccessApiUsageException: The getKey method should only be used when a single key is returned. The current key entry contains multiple keys: [{id=5, email=sylvester.schneider@yahoo.com, username=emeline.haley, password=$2a$10$Fb0ngWuoUI.U8Q/K2.ZkZebeTM1TocDYz3Utttoe4Y80F4IhVALGm}]
                 .update(keyHolder, "id");
@@ -91,24 +100,21 @@ public class TimeEventRepository {
         des.description,
         des.start_date AS day_event_slot_start_date,
         des.end_date AS day_event_slot_end_date,
-        ge.email AS guest_email
+        ARRAY(...) AS guest_emails
 
         We need to give an alias to attributes with the same name, so we can have them all as part of our result set,
         otherwise it would be ambiguous. For example, as we fetch both day event and day event slots, we will have 2
         attributes with the same name, start_date and id. We need to add an alias with AS.
 
-        Our query is going to return multiple rows for the same event if it has more than 1 event slot and multiple rows
-        for the same event slot if it has multiple guests. Our DayEventProjectionRowMapper() will map each row correctly,
-        to our projection.
-
-        For example, an event with 2 event slots where each slot has 2 guest emails will give us a result set of size 4.
-            1st row: event information, first event slot information with first guest email
-            2nd row: event information, first event slot information with second guest email
-            3rd row: event information, second event slot information with first guest email
-            4th row: event information, second event slot information with second guest email
-        This is standard behaviour of dbs. Now after using the row mapper each row will be a projection. What we want
-        to do next is convert them to a single event where it will have a list of event slots and each event slot will
-        have each own list of guests. We do the conversion in aggregateResults()
+        Our query is going to return 1 row per event slot. The guests of each slot are collected in an array by the
+        query, so an event slot with multiple guests is still 1 row. Our TimeEventProjectionRowMapper() will map each row
+        correctly, to our projection.
+
+        For example, an event with 2 event slots where each slot has 2 guest emails will give us a result set of size 2.
+            1st row: event information, first event slot information with both guest emails
+            2nd row: event information, second event slot information with both guest emails
+        Now after using the row mapper each row will be a projection. What we want to do next is convert them to a
+        single event where it will have a list of event slots. We do the conversion in aggregateResults()
      */
     Optional<TimeEventProjection> findByEventAndUserId(UUID eventId, Long userId) {
         List<TimeEventProjection> results = this.jdbcClient.sql("""
@@ -125,14 +131,14 @@ public class TimeEventRepository {
                                 te.recurrence_duration,
                                 te.recurrence_end_date,
                                 te.number_of_occurrences,
+                                te.materialized_until,
                                 tes.id AS event_slot_id,
                                 tes.title,
                                 tes.location,
                                 tes.description,
-                                ge.email
+                                ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) AS guest_emails
                             FROM time_events te
                             JOIN time_event_slots tes ON te.id = tes.event_id
-                            LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
                             WHERE te.id = :eventId AND te.organizer_id = :userId
                         """)
                 .param("eventId", eventId)
@@ -143,6 +149,157 @@ public class TimeEventRepository {
         return aggregateResults(results);
     }
 
+    /*
+        Returns the FOREVER events, where the user is either the organizer or invited as guest, that have not been
+        materialized up until the given date. The occurrences after their materializedUntil date have no slots yet,
+        they are computed from the event on read. Those slots would inherit the guests of the event, so a guest of the
+        event is a guest of every one of them.
+     */
+    List<ForeverTimeEventProjection> findForeverEventsNotMaterializedByUser(Long userId, String email, LocalDate until) {
+        return this.jdbcClient.sql("""
+                            SELECT
+                                te.id AS event_id,
+                                te.organizer_id,
+                                te.start_time,
+                                te.start_time_zone_id,
+                                te.end_time,
+                                te.end_time_zone_id,
+                                te.recurrence_frequency,
+                                te.recurrence_step,
+                                te.weekly_recurrence_days,
+                                te.monthly_recurrence_type,
+                                te.recurrence_duration,
+                                te.recurrence_end_date,
+                                te.number_of_occurrences,
+                                te.materialized_until,
+                                te.title,
+                                te.location,
+                                te.description,
+                                u.username,
+                                ARRAY(SELECT ge.email FROM time_event_guest_emails ge WHERE ge.event_id = te.id) AS guest_emails
+                            FROM time_events te
+                            JOIN users u ON te.organizer_id = u.id
+                            WHERE te.recurrence_duration = 'FOREVER' AND te.materialized_until < :until AND (te.organizer_id = :userId OR EXISTS (
+                                SELECT 1
+                                FROM time_event_guest_emails ge
+                                WHERE ge.event_id = te.id AND ge.email = :email))
+                        """)
+                .param("userId", userId)
+                .param("email", email)
+                .param("until", Date.valueOf(until))
+                .query(new ForeverTimeEventProjectionRowMapper())
+                .list();
+    }
+
+    /*
+        The FOREVER events of every user that have not been materialized up until the given date. Used by the scheduled
+        tasks. The title, location and description of the slots to be created come from the event, not from one of its
+        slots: an edit of a single slot must not spread to the next ones, and an event whose slots were all deleted
+        still recurs.
+     */
+    List<TimeEvent> findForeverEventsToMaterialize(LocalDate until) {
+        return this.jdbcClient.sql("""
+                            SELECT
+                                te.id AS event_id,
+                                te.organizer_id,
+                                te.start_time,
+                                te.start_time_zone_id,
+                                te.end_time,
+                                te.end_time_zone_id,
+                                te.recurrence_frequency,
+                                te.recurrence_step,
+                                te.weekly_recurrence_days,
+                                te.monthly_recurrence_type,
+                                te.recurrence_duration,
+                                te.recurrence_end_date,
+                                te.number_of_occurrences,
+                                te.materialized_until,
+                                te.title,
+                                te.location,
+                                te.description
+                            FROM time_events te
+                            WHERE te.recurrence_duration = 'FOREVER' AND te.materialized_until < :until
+                        """)
+                .param("until", Date.valueOf(until))
+                .query(new TimeEventRowMapper())
+                .list();
+    }
+
+    // The FOREVER events of the organizer, like findForeverEventsToMaterialize()
+    List<TimeEvent> findForeverEventsByOrganizer(Long userId) {
+        return this.jdbcClient.sql("""
+                            SELECT
+                                te.id AS event_id,
+                                te.organizer_id,
+                                te.start_time,
+                                te.start_time_zone_id,
+                                te.end_time,
+                                te.end_time_zone_id,
+                                te.recurrence_frequency,
+                                te.recurrence_step,
+                                te.weekly_recurrence_days,
+                                te.monthly_recurrence_type,
+                                te.recurrence_duration,
+                                te.recurrence_end_date,
+                                te.number_of_occurrences,
+                                te.materialized_until,
+                                te.title,
+                                te.location,
+                                te.description
+                            FROM time_events te
+                            WHERE te.organizer_id = :userId AND te.recurrence_duration = 'FOREVER'
+                        """)
+                .param("userId", userId)
+                .query(new TimeEventRowMapper())
+                .list();
+    }
+
+    /*
+        The title, location and description the event was created or last updated with. Nothing is written when they
+        did not change.
+     */
+    void updateTemplate(UUID eventId, String title, String location, String description) {
+        this.jdbcClient.sql("""
+                            UPDATE time_events
+                            SET title = :title, location = :location, description = :description
+                            WHERE id = :eventId AND (title, location, description) IS DISTINCT FROM (:title, :location, :description)
+                        """)
+                .param("eventId", eventId)
+                .param("title", title)
+                .param("location", location)
+                .param("description", description)
+                .update();
+    }
+
+    // Returns 0 when the event already has the given offsets
+    int updateReminderOffsets(UUID eventId, List<Integer> reminderOffsets) {
+        return this.jdbcClient.sql("""
+                            UPDATE time_events
+                            SET reminder_offsets = CAST(:reminderOffsets AS INTEGER[])
+                            WHERE id = :eventId AND reminder_offsets IS DISTINCT FROM CAST(:reminderOffsets AS INTEGER[])
+                        """)
+                .param("eventId", eventId)
+                .param("reminderOffsets", reminderOffsets == null ? null : reminderOffsets.toArray(new Integer[0]))
+                .update();
+    }
+
+    /*
+        Two concurrent requests could both see that the event has to be extended. Only the one that moves
+        materialized_until from the value it read will update 1 row, and it is the one that creates the new slots.
+        The other one will update 0 rows and skip the event.
+     */
+    int updateMaterializedUntil(UUID eventId, LocalDate previous, LocalDate until) {
+        return this.jdbcClient.sql("""
+                            UPDATE time_events
+                            SET materialized_until = :until
+                            WHERE id = :eventId AND materialized_until = :previous
+                        """)
+                .param("eventId", eventId)
+                .param("previous", Date.valueOf(previous))
+                .param("until", Date.valueOf(until))
+                .update();
+    }
+
     // Slots will be deleted by ON DELETE CASCADE
     int deleteByEventAndUserId(UUID eventId, Long userId) {
         return this.jdbcClient.sql("""
@@ -155,32 +312,22 @@ public class TimeEventRepository {
     }
 
     private Optional<TimeEventProjection> aggregateResults(List<TimeEventProjection> resultSet) {
-        if (resultSet.isEmpty()) {
-            return Optional.empty();
-        }
+        return aggregateListResults(resultSet).stream().findFirst();
+    }
 
-        Map<UUID, TimeEventProjection> eventMap = new HashMap<>();
-        Map<UUID, TimeEventSlotProjection> slotMap = new LinkedHashMap<>();
+    private List<TimeEventProjection> aggregateListResults(List<TimeEventProjection> resultSet) {
+        Map<UUID, TimeEventProjection> eventMap = new LinkedHashMap<>();
 
         for (TimeEventProjection event : resultSet) {
             TimeEventProjection existingEvent = eventMap.get(event.getId());
 
             if (existingEvent == null) {
                 eventMap.put(event.getId(), event);
-                slotMap.put(event.getEventSlots().get(0).getId(), event.getEventSlots().get(0));
             } else {
-                TimeEventSlotProjection slotProjection = event.getEventSlots().get(0);
-                TimeEventSlotProjection existingSlot = slotMap.get(slotProjection.getId());
-
-                if (existingSlot == null) {
-                    slotMap.put(slotProjection.getId(), slotProjection);
-                    existingEvent.getEventSlots().add(slotProjection);
-                } else {
-                    existingSlot.getGuestEmails().add(slotProjection.getGuestEmails().iterator().next());
-                }
+                existingEvent.getEventSlots().addAll(event.getEventSlots());
             }
         }
-        return eventMap.values().stream().findFirst();
+        return new ArrayList<>(eventMap.values());
     }
 }
 
@@ -8,19 +8,28 @@ import org.example.calendar.event.time.dto.TimeEventRequest;
 import org.example.calendar.event.slot.time.TimeEventSlotService;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.email.EmailService;
+import org.example.calendar.event.ScheduleChangedEvent;
 import org.example.calendar.entity.TimeEvent;
 import org.example.calendar.entity.User;
+import org.example.calendar.event.time.projection.ForeverTimeEventProjection;
 import org.example.calendar.event.time.projection.TimeEventProjection;
 import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
+import org.example.calendar.utils.DateUtils;
 import org.example.calendar.utils.EventUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,7 +42,12 @@ public class TimeEventService {
     private final UserRepository userRepository;
     private final TimeEventSlotService timeEventSlotService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
     private static final String EVENT_NOT_FOUND_MSG = "Time event not found with id: ";
+    // How far ahead of the date the scheduled tasks request, the slots of FOREVER events are created
+    private static final int MATERIALIZATION_WINDOW_IN_YEARS = 1;
+    // The limit we used to have for FOREVER events. Slots are never created after that
+    private static final int MAX_RECURRENCE_IN_YEARS = 100;
 
     @Transactional
     public UUID createEvent(Long userId, TimeEventRequest eventRequest) {
@@ -54,16 +68,20 @@ public class TimeEventService {
                 .recurrenceDuration(eventRequest.getRecurrenceDuration())
                 .recurrenceEndDate(eventRequest.getRecurrenceEndDate())
                 .numberOfOccurrences(eventRequest.getNumberOfOccurrences())
+                .title(eventRequest.getTitle())
+                .location(eventRequest.getLocation())
+                .description(eventRequest.getDescription())
+                .reminderOffsets(eventRequest.getReminderOffsets())
                 .organizerId(user.getId())
                 .build();
         /*
-            For events that are set to recur forever, we choose an arbitrary limit of 100 years and set the recurrence
-            end date to 100 years in the future. This effectively treats the event as an UNTIL_DATE event, with the
-            recurrence end date now being 100 years from the start date. This is one approach we use to handle the
-            "forever" recurrence scenario.
+            For events that are set to recur forever, we used to choose an arbitrary limit of 100 years and set the
+            recurrence end date to 100 years in the future, creating every slot up until that date. Now we only create
+            the slots for the first MATERIALIZATION_WINDOW_IN_YEARS. The event keeps its recurrence rule and the rest of
+            the slots are created by the scheduled tasks, the occurrences after materializedUntil are computed on read.
         */
         if (event.getRecurrenceFrequency() != RecurrenceFrequency.NEVER && event.getRecurrenceDuration() == RecurrenceDuration.FOREVER) {
-            event.setRecurrenceEndDate(LocalDate.from(event.getStartTime().plusYears(100)));
+            event.setMaterializedUntil(LocalDate.from(event.getStartTime()).plusYears(MATERIALIZATION_WINDOW_IN_YEARS));
         }
 
         this.timeEventRepository.create(event);
@@ -86,7 +104,8 @@ public class TimeEventService {
                 .startTimeZoneId(eventRequest.getStartTimeZoneId())
                 .endTimeZoneId(eventRequest.getEndTimeZoneId())
                 .build();
-        this.emailService.sendInvitationEmail(emailRequest);
+        this.emailService.enqueueInvitationEmail(emailRequest);
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(user.getId(), eventRequest.getGuestEmails()));
 
         return event.getId();
     }
@@ -109,6 +128,7 @@ public class TimeEventService {
                 .recurrenceDuration(projection.getRecurrenceDuration())
                 .recurrenceEndDate(projection.getRecurrenceEndDate())
                 .numberOfOccurrences(projection.getNumberOfOccurrences())
+                .materializedUntil(projection.getMaterializedUntil())
                 .build();
 
         // TimeEvent modified = original; Shallow copy it would also change the original
@@ -119,26 +139,46 @@ public class TimeEventService {
         modified.setStartTimeZoneId(eventRequest.getStartTimeZoneId());
         modified.setEndTime(eventRequest.getEndTime());
         modified.setEndTimeZoneId(eventRequest.getEndTimeZoneId());
+        if (modified.getRecurrenceFrequency() != RecurrenceFrequency.NEVER && modified.getRecurrenceDuration() == RecurrenceDuration.FOREVER) {
+            modified.setMaterializedUntil(LocalDate.from(modified.getStartTime()).plusYears(MATERIALIZATION_WINDOW_IN_YEARS));
+        } else {
+            modified.setMaterializedUntil(null);
+        }
+
+        List<TimeEventSlot> eventSlots = projection.getEventSlots().stream()
+                .map(slotProjection -> TimeEventSlot.builder()
+                        .id(slotProjection.getId())
+                        .title(slotProjection.getTitle())
+                        .location(slotProjection.getLocation())
+                        .description(slotProjection.getDescription())
+                        .guestEmails(slotProjection.getGuestEmails())
+                        .build())
+                .collect(Collectors.toList());
         if (!EventUtils.hasSameFrequencyProperties(original, modified)
                 || !original.getStartTime().isEqual(modified.getStartTime())
                 || !original.getStartTimeZoneId().equals(modified.getStartTimeZoneId())
                 || !original.getEndTime().isEqual(modified.getEndTime())
                 || !original.getEndTimeZoneId().equals(modified.getEndTimeZoneId())) {
-            this.timeEventSlotService.deleteEventSlotsByEventId(original.getId());
-            this.timeEventSlotService.create(eventRequest, modified);
+            // The slots after the new window that were already created are kept, we don't shrink the materialized range
+            if (original.getMaterializedUntil() != null && modified.getMaterializedUntil() != null && original.getMaterializedUntil().isAfter(modified.getMaterializedUntil())) {
+                modified.setMaterializedUntil(original.getMaterializedUntil());
+            }
+            this.timeEventSlotService.updateEventSlotsForRecurrence(eventRequest, original, modified, eventSlots);
             this.timeEventRepository.update(original, modified);
         } else {
-            List<TimeEventSlot> eventSlots = projection.getEventSlots().stream()
-                    .map(slotProjection -> TimeEventSlot.builder()
-                            .id(slotProjection.getId())
-                            .title(slotProjection.getTitle())
-                            .location(slotProjection.getLocation())
-                            .description(slotProjection.getDescription())
-                            .guestEmails(slotProjection.getGuestEmails())
-                            .build())
-                    .collect(Collectors.toList());
-            this.timeEventSlotService.updateEventSlotsForEvent(eventRequest, eventSlots);
+            this.timeEventSlotService.updateEventSlotsForEvent(eventRequest, original.getId(), eventSlots);
+        }
+        this.timeEventRepository.updateTemplate(original.getId(), eventRequest.getTitle(), eventRequest.getLocation(), eventRequest.getDescription());
+        if (this.timeEventRepository.updateReminderOffsets(original.getId(), eventRequest.getReminderOffsets()) > 0) {
+            this.timeEventSlotService.rescheduleRemindersForEvent(original.getId());
         }
+
+        // The previous guests of the event, and the guests of the slots that overrode them, are no longer invited
+        Set<String> guestEmails = projection.getEventSlots().stream()
+                .flatMap(slotProjection -> slotProjection.getGuestEmails().stream())
+                .collect(Collectors.toCollection(HashSet::new));
+        guestEmails.addAll(eventRequest.getGuestEmails());
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, guestEmails));
     }
 
     /*
@@ -168,11 +208,107 @@ public class TimeEventService {
     /*
         Calling getReferenceById() will not work like it did before because we need all the day events that the user
         is either the Organizer(id) but also those that they are invited as guest via their email. We need both.
+
+        The slots of FOREVER events are created up until their materializedUntil date by the scheduled tasks. The
+        occurrences after it are computed from the event and added to the slots, nothing is written on read.
      */
+    @Transactional(readOnly = true)
     public List<TimeEventSlotPublicProjection> findEventSlotsByUserInDateRange(Long userId, LocalDateTime startTime, ZoneId startTimeZoneId, LocalDateTime endTime, ZoneId endTimeZoneId) {
         User user = this.userRepository.findAuthUserByIdOrThrow(userId);
+        List<TimeEventSlotPublicProjection> eventSlots = this.timeEventSlotService.findEventSlotsByUserInDateRange(user, startTime, startTimeZoneId, endTime, endTimeZoneId);
+        List<TimeEventSlotPublicProjection> occurrences = expandForeverEventSlots(user, DateUtils.convertToUTC(startTime, startTimeZoneId), DateUtils.convertToUTC(endTime, endTimeZoneId));
+        if (occurrences.isEmpty()) {
+            return eventSlots;
+        }
+
+        // The slots are returned in the timezone of each slot, like TimeEventSlotService.findEventSlotsByUserInDateRange()
+        for (TimeEventSlotPublicProjection occurrence : occurrences) {
+            occurrence.setStartTime(DateUtils.convertFromUTC(occurrence.getStartTime(), occurrence.getStartTimeZoneId()));
+            occurrence.setEndTime(DateUtils.convertFromUTC(occurrence.getEndTime(), occurrence.getEndTimeZoneId()));
+        }
+
+        return merge(eventSlots, occurrences).stream()
+                .sorted(Comparator.comparing(TimeEventSlotPublicProjection::getStartTime))
+                .toList();
+    }
+
+    /*
+        The range and the start/end times of the returned slots are in UTC. The occurrences of the FOREVER events that
+        have no slots yet are merged in the keyset order of the page, (start_time, id). Their ids are compared like the
+        uuid type of Postgres. The page of the slots has the first limit slots after the cursor, so the first limit of
+        the merged list are the page.
+     */
+    @Transactional(readOnly = true)
+    public List<TimeEventSlotPublicProjection> findEventSlotPageByUserInDateRange(Long userId, LocalDateTime startTime, LocalDateTime endTime, LocalDateTime afterStartTime, UUID afterId, int limit) {
+        User user = this.userRepository.findAuthUserByIdOrThrow(userId);
+        List<TimeEventSlotPublicProjection> eventSlots = this.timeEventSlotService.findEventSlotPageByUserInDateRange(user, startTime, endTime, afterStartTime, afterId, limit);
+        List<TimeEventSlotPublicProjection> occurrences = expandForeverEventSlots(user, startTime, endTime);
+        occurrences.removeIf(occurrence -> occurrence.getStartTime().isBefore(afterStartTime)
+                || (occurrence.getStartTime().isEqual(afterStartTime) && EventUtils.compareIds(occurrence.getId(), afterId) <= 0));
+        if (occurrences.isEmpty()) {
+            return eventSlots;
+        }
+
+        List<TimeEventSlotPublicProjection> page = merge(eventSlots, occurrences).stream()
+                .sorted(Comparator.comparing(TimeEventSlotPublicProjection::getStartTime).thenComparing(TimeEventSlotPublicProjection::getId, EventUtils::compareIds))
+                .toList();
+        return page.subList(0, Math.min(limit, page.size()));
+    }
 
-        return this.timeEventSlotService.findEventSlotsByUserInDateRange(user, startTime, startTimeZoneId, endTime, endTimeZoneId);
+    /*
+        Used by the scheduled tasks, so that the slots of FOREVER events are created before they start and reminders
+        are sent for them. We don't materialize just until the given date but MATERIALIZATION_WINDOW_IN_YEARS after it,
+        so that the next runs don't have to extend the event again.
+     */
+    @Transactional
+    public void materializeForeverEvents(LocalDate until) {
+        for (TimeEvent event : this.timeEventRepository.findForeverEventsToMaterialize(until)) {
+            LocalDate materializedUntil = until.plusYears(MATERIALIZATION_WINDOW_IN_YEARS);
+            LocalDate limit = LocalDate.from(event.getStartTime()).plusYears(MAX_RECURRENCE_IN_YEARS);
+            if (materializedUntil.isAfter(limit)) {
+                materializedUntil = limit;
+            }
+
+            materialize(event, materializedUntil);
+        }
+    }
+
+    /*
+        The occurrences of FOREVER events after their materializedUntil date are computed on read, with the ids their
+        slots will be created with. An update, a delete or an invite of one of them needs its slot. When there is no
+        slot with the given id, the FOREVER events of the organizer are expanded until their limit, and the event the
+        occurrence belongs to is materialized up until it, like the scheduled tasks would. Only the organizer writes to
+        a slot, the events the user is invited to are not searched. Nothing is created for an id that is not an
+        occurrence of the user's events, and the write that follows returns 404.
+
+        A slot that exists costs 1 query. The expansion is done in memory and only for ids that have no slot.
+     */
+    @Transactional
+    public void materializeOccurrence(Long userId, UUID slotId) {
+        if (this.timeEventSlotService.existsById(slotId)) {
+            return;
+        }
+
+        for (TimeEvent event : this.timeEventRepository.findForeverEventsByOrganizer(userId)) {
+            LocalDate limit = LocalDate.from(event.getStartTime()).plusYears(MAX_RECURRENCE_IN_YEARS);
+            if (!event.getMaterializedUntil().isBefore(limit)) {
+                continue;
+            }
+            Optional<LocalDate> occurrence = this.timeEventSlotService.findOccurrenceDate(event, slotId, limit);
+            if (occurrence.isPresent()) {
+                materialize(event, occurrence.get());
+                return;
+            }
+        }
+    }
+
+    // Either the limit is reached, or another instance has already extended the event
+    private void materialize(TimeEvent event, LocalDate materializedUntil) {
+        if (!materializedUntil.isAfter(event.getMaterializedUntil())
+                || this.timeEventRepository.updateMaterializedUntil(event.getId(), event.getMaterializedUntil(), materializedUntil) != 1) {
+            return;
+        }
+        this.timeEventSlotService.extendForeverEventSlots(event, materializedUntil);
     }
 
     /*
@@ -195,9 +331,40 @@ public class TimeEventService {
      */
     @Transactional
     public void deleteEventById(UUID eventId, Long userId) {
+        // The guests are deleted with the event
+        List<String> guestEmails = this.timeEventSlotService.findGuestEmailsByEventId(eventId);
         int deleted = this.timeEventRepository.deleteByEventAndUserId(eventId, userId);
         if (deleted != 1) {
             throw new ResourceNotFoundException(EVENT_NOT_FOUND_MSG + eventId);
         }
+        this.eventPublisher.publishEvent(new ScheduleChangedEvent(userId, new HashSet<>(guestEmails)));
+    }
+
+    /*
+        The occurrences of the FOREVER events of the user, as organizer or guest, after their materializedUntil date.
+        The range is in UTC. Slots are expanded in the event's timezone, the extra day covers any offset from UTC.
+     */
+    private List<TimeEventSlotPublicProjection> expandForeverEventSlots(User user, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate until = LocalDate.from(endTime).plusDays(1);
+        List<TimeEventSlotPublicProjection> occurrences = new ArrayList<>();
+        for (ForeverTimeEventProjection projection : this.timeEventRepository.findForeverEventsNotMaterializedByUser(user.getId(), user.getEmail(), until)) {
+            LocalDate limit = LocalDate.from(projection.event().getStartTime()).plusYears(MAX_RECURRENCE_IN_YEARS);
+            occurrences.addAll(this.timeEventSlotService.expandForeverEventSlots(projection, user, startTime, endTime, until.isAfter(limit) ? limit : until));
+        }
+
+        return occurrences;
+    }
+
+    // The scheduled tasks could have created the slot of an occurrence after it was read, it has the same id
+    private List<TimeEventSlotPublicProjection> merge(List<TimeEventSlotPublicProjection> eventSlots, List<TimeEventSlotPublicProjection> occurrences) {
+        Set<UUID> ids = eventSlots.stream().map(TimeEventSlotPublicProjection::getId).collect(Collectors.toCollection(HashSet::new));
+        List<TimeEventSlotPublicProjection> merged = new ArrayList<>(eventSlots);
+        for (TimeEventSlotPublicProjection occurrence : occurrences) {
+            if (ids.add(occurrence.getId())) {
+                merged.add(occurrence);
+            }
+        }
+
+        return merged;
     }
 }
@@ -14,8 +14,15 @@ import org.example.calendar.event.time.validator.ValidTimeEventCreateRequest;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.List;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import static org.example.calendar.event.slot.time.dto.TimeEventSlotRequest.MAX_REMINDER_OFFSETS;
+import static org.example.calendar.event.slot.time.dto.TimeEventSlotRequest.MAX_REMINDER_OFFSET_IN_MINUTES;
 
 import org.example.calendar.event.time.validator.ValidTimeEventUpdateRequest;
 
@@ -50,4 +57,9 @@ public class TimeEventRequest extends AbstractEventRequest {
     private ZoneId startTimeZoneId;
     @NotNull(message = "The time zone for the event's end time is required. Please provide one", groups = OnCreate.class)
     private ZoneId endTimeZoneId;
+    // null for the default reminder offsets, an empty list for no reminders. A slot can override them
+    @Size(max = MAX_REMINDER_OFFSETS, message = "An event can have up to " + MAX_REMINDER_OFFSETS + " reminders", groups = {OnCreate.class, OnUpdate.class})
+    private List<@NotNull(message = "Reminder offset must not be null", groups = {OnCreate.class, OnUpdate.class})
+                 @Min(value = 0, message = "Reminder offset must be between 0 and " + MAX_REMINDER_OFFSET_IN_MINUTES + " minutes", groups = {OnCreate.class, OnUpdate.class})
+                 @Max(value = MAX_REMINDER_OFFSET_IN_MINUTES, message = "Reminder offset must be between 0 and " + MAX_REMINDER_OFFSET_IN_MINUTES + " minutes", groups = {OnCreate.class, OnUpdate.class}) Integer> reminderOffsets;
 }
@@ -0,0 +1,9 @@
+package org.example.calendar.event.time.projection;
+
+import org.example.calendar.entity.TimeEvent;
+
+import java.util.Set;
+
+// A FOREVER event with the username of its organizer and the guests of the event, the ones its new slots inherit
+public record ForeverTimeEventProjection(TimeEvent event, String organizer, Set<String> guestEmails) {
+}
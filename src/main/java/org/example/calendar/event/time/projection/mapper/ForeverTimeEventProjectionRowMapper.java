@@ -0,0 +1,20 @@
+package org.example.calendar.event.time.projection.mapper;
+
+import org.example.calendar.event.time.projection.ForeverTimeEventProjection;
+import org.example.calendar.utils.EventUtils;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class ForeverTimeEventProjectionRowMapper implements RowMapper<ForeverTimeEventProjection> {
+    private final TimeEventRowMapper eventRowMapper = new TimeEventRowMapper();
+
+    @Override
+    public ForeverTimeEventProjection mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return new ForeverTimeEventProjection(
+                this.eventRowMapper.mapRow(resultSet, rowNum),
+                resultSet.getString("username"),
+                EventUtils.convertFromArray(resultSet.getArray("guest_emails")));
+    }
+}
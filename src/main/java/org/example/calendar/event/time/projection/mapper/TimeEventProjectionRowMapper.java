@@ -45,6 +45,7 @@ public class TimeEventProjectionRowMapper implements RowMapper<TimeEventProjecti
                 .recurrenceDuration(resultSet.getString("recurrence_duration") == null ? null : RecurrenceDuration.valueOf(resultSet.getString("recurrence_duration")))
                 .recurrenceEndDate(resultSet.getDate("recurrence_end_date") == null ? null : resultSet.getDate("recurrence_end_date").toLocalDate())
                 .numberOfOccurrences(resultSet.getInt("number_of_occurrences") == 0 ? null : resultSet.getInt("number_of_occurrences"))
+                .materializedUntil(resultSet.getDate("materialized_until") == null ? null : resultSet.getDate("materialized_until").toLocalDate())
                 .eventSlots(new ArrayList<>())
                 .build();
 
@@ -0,0 +1,51 @@
+package org.example.calendar.event.time.projection.mapper;
+
+import org.example.calendar.entity.TimeEvent;
+import org.example.calendar.event.recurrence.MonthlyRecurrenceType;
+import org.example.calendar.event.recurrence.RecurrenceDuration;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
+import org.example.calendar.utils.DateUtils;
+import org.example.calendar.utils.EventUtils;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.UUID;
+
+/*
+    Maps a row of time_events to the entity. The start/end times are stored in UTC and the entity holds them in the
+    event's timezones, the slots of the event are expanded from them. Null recurrence step, number of occurrences and
+    weekly recurrence days are handled like in TimeEventProjectionRowMapper.
+ */
+public class TimeEventRowMapper implements RowMapper<TimeEvent> {
+
+    @Override
+    public TimeEvent mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        Set<DayOfWeek> weeklyRecurrenceDays = EventUtils.convertFromCsv(resultSet.getString("weekly_recurrence_days"));
+        ZoneId startTimeZoneId = ZoneId.of(resultSet.getString("start_time_zone_id"));
+        ZoneId endTimeZoneId = ZoneId.of(resultSet.getString("end_time_zone_id"));
+
+        return TimeEvent.builder()
+                .id(UUID.fromString(resultSet.getString("event_id")))
+                .organizerId(resultSet.getLong("organizer_id"))
+                .startTime(DateUtils.convertFromUTC(resultSet.getTimestamp("start_time").toLocalDateTime(), startTimeZoneId))
+                .startTimeZoneId(startTimeZoneId)
+                .endTime(DateUtils.convertFromUTC(resultSet.getTimestamp("end_time").toLocalDateTime(), endTimeZoneId))
+                .endTimeZoneId(endTimeZoneId)
+                .recurrenceFrequency(RecurrenceFrequency.valueOf(resultSet.getString("recurrence_frequency")))
+                .recurrenceStep(resultSet.getInt("recurrence_step") == 0 ? null : resultSet.getInt("recurrence_step"))
+                .weeklyRecurrenceDays(weeklyRecurrenceDays.isEmpty() ? null : weeklyRecurrenceDays)
+                .monthlyRecurrenceType(resultSet.getString("monthly_recurrence_type") == null ? null : MonthlyRecurrenceType.valueOf(resultSet.getString("monthly_recurrence_type")))
+                .recurrenceDuration(resultSet.getString("recurrence_duration") == null ? null : RecurrenceDuration.valueOf(resultSet.getString("recurrence_duration")))
+                .recurrenceEndDate(resultSet.getDate("recurrence_end_date") == null ? null : resultSet.getDate("recurrence_end_date").toLocalDate())
+                .numberOfOccurrences(resultSet.getInt("number_of_occurrences") == 0 ? null : resultSet.getInt("number_of_occurrences"))
+                .materializedUntil(resultSet.getDate("materialized_until") == null ? null : resultSet.getDate("materialized_until").toLocalDate())
+                .title(resultSet.getString("title"))
+                .location(resultSet.getString("location"))
+                .description(resultSet.getString("description"))
+                .build();
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.calendar.exception;
+
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
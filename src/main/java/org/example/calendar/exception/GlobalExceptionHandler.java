@@ -34,6 +34,13 @@ class GlobalExceptionHandler {
         return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    private ResponseEntity<ErrorMessage> handleBadRequestException(HttpServletRequest servletRequest,
+                                                                   BadRequestException bre) {
+        ErrorMessage errorMessage = new ErrorMessage(Instant.now(), HttpStatus.BAD_REQUEST.value(), ErrorMessage.ErrorType.BAD_REQUEST, bre.getMessage(), servletRequest.getRequestURI());
+        return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(DuplicateResourceException.class)
     private ResponseEntity<ErrorMessage> handleDuplicateResourceException(HttpServletRequest servletRequest,
                                                                           DuplicateResourceException dre) {
@@ -0,0 +1,93 @@
+package org.example.calendar.notification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/*
+    A hashed timer wheel. The wheel is a ring of wheelSize buckets, each one covers a tick of tickDuration. A task is
+    placed in the bucket of the tick of its deadline, (tick % wheelSize), with the number of full turns of the wheel
+    that have to pass before it expires. Scheduling a task is O(1) and advancing the wheel by 1 tick only visits the
+    tasks of 1 bucket, no matter how many tasks are scheduled.
+
+    The wheel has no thread of its own, it is advanced by the caller with the current time. Every tick between the
+    previous and the current time is visited in order, a late call expires the tasks of the ticks it missed. A task
+    expires at the first tick that starts at or after its deadline, never before it. A task with a deadline in the past
+    expires at the next tick.
+
+    A task that is already scheduled is not scheduled again, until it expires. The tasks are compared with equals().
+
+    http://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf
+ */
+class HashedTimerWheel<T> {
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Timeout<T>>> buckets;
+    private final Set<T> scheduled = new HashSet<>();
+    // The next tick to visit
+    private long tick;
+
+    HashedTimerWheel(Duration tickDuration, int wheelSize, long nowMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+
+        this.tickMillis = tickDuration.toMillis();
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            this.buckets.add(new ArrayList<>());
+        }
+        this.tick = nowMillis / this.tickMillis;
+    }
+
+    synchronized boolean schedule(T task, long deadlineMillis) {
+        if (!this.scheduled.add(task)) {
+            return false;
+        }
+
+        // The tick that starts at or after the deadline, a past deadline is placed in the next tick to visit
+        long deadlineTick = Math.max((deadlineMillis + this.tickMillis - 1) / this.tickMillis, this.tick);
+        long rounds = (deadlineTick - this.tick) / this.buckets.size();
+        this.buckets.get((int) (deadlineTick & this.mask)).add(new Timeout<>(task, rounds));
+        return true;
+    }
+
+    // Visits every tick until the current time and returns the tasks that expired, in the order of their ticks
+    synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long lastTick = nowMillis / this.tickMillis;
+        for (; this.tick <= lastTick; this.tick++) {
+            Iterator<Timeout<T>> iterator = this.buckets.get((int) (this.tick & this.mask)).iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.rounds == 0) {
+                    iterator.remove();
+                    this.scheduled.remove(timeout.task);
+                    expired.add(timeout.task);
+                } else {
+                    timeout.rounds--;
+                }
+            }
+        }
+
+        return expired;
+    }
+
+    synchronized int size() {
+        return this.scheduled.size();
+    }
+
+    private static final class Timeout<T> {
+        private final T task;
+        private long rounds;
+
+        private Timeout(T task, long rounds) {
+            this.task = task;
+            this.rounds = rounds;
+        }
+    }
+}
@@ -1,30 +1,47 @@
 package org.example.calendar.notification;
 
+import org.example.calendar.event.day.DayEventService;
 import org.example.calendar.event.slot.day.DayEventSlotRepository;
 import org.example.calendar.event.slot.day.projection.DayEventSlotReminderProjection;
 import org.example.calendar.event.slot.time.TimeEventSlotRepository;
+import org.example.calendar.email.EmailBatchResult;
 import org.example.calendar.email.EmailService;
+import org.example.calendar.event.slot.projection.AbstractEventSlotReminderProjection;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotReminderProjection;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotScheduledReminder;
+import org.example.calendar.event.time.TimeEventService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /*
     When it comes to testing the notification task, we need to think what we do we need to test. The methods from the
     repositories are tested and so are the email ones and all is left is our cron expression logic. In our case,
-    it will run once a day at midnight for day events and every 30 minutes for time events. (00:00, 00:30, 01:00, 01:30)
+    it will run once a day at midnight for day events. The reminders of time events are sent at their own time, see
+    notifyTimeEvents().
     We don't need to write an actual test for the cron expressions. They are sites that test cron expressions.
     https://crontab.guru/ This is Linux based, seconds are absent, just be aware.
 
     There are tests that have very small intervals like every 5 seconds and use @SpyBean with @SpringBootTest to call
-    verify to the method that performs the task. This will not work in our case, where we have intervals of 30 minutes
-    and once a day.
+    verify to the method that performs the task. This will not work in our case, where the day events run once a day
+    and the reminders of time events depend on the start of their slots.
     https://www.baeldung.com/spring-testing-scheduled-annotation
 
     Another approach is to use a ScheduledTaskHolder
@@ -32,18 +49,89 @@ import lombok.RequiredArgsConstructor;
     https://stackoverflow.com/questions/64880738/test-a-scheduled-function-in-spring-boot-with-cron-property
 
     https://docs.spring.io/spring-framework/docs/current/javadoc-api/org/springframework/scheduling/support/CronExpression.html
+
+    Every instance of the application runs the tasks at the same time. The slots that are about to start are added to
+    a reminder outbox, *_event_slot_reminders, once, no matter how many instances add them. Then every instance claims
+    batches of reminders with FOR UPDATE SKIP LOCKED until there are none left. A batch is claimed by 1 instance only,
+    so each reminder is sent once and the batches are spread across the instances that run the task.
+
+    The tasks don't run in a transaction, every method of the outbox commits in a transaction of its own, the
+    connections of the pool don't auto-commit. The claim is committed before the emails are sent, so the row locks are
+    not held while the emails are sent, and the result is written by another transaction. A reminder that was sent to
+    all of its recipients is marked as sent, its row is kept until the slot starts so that the other instances don't
+    enqueue it again. A reminder that failed for any of its recipients is released, and a claim expires after
+    CLAIM_EXPIRY_IN_MINUTES, in case the instance died while sending. Both are claimed again, up to MAX_ATTEMPTS, the
+    same way as the invitations of InvitationEmailDispatcher. The recipients that received the reminder before it
+    failed might receive it twice, we prefer that to losing it. The day reminders are enqueued at midnight,
+    retryDayEventReminders() claims the ones that were released or expired since.
+
+    With calendar.reminders.digest enabled, the reminders an instance claims during a run are sent as digests, 1 email
+    per recipient that lists all of their slots, instead of 1 email per slot and recipient. The digest covers the
+    claims of the instance, if the batches of a run are spread across instances, a recipient receives 1 digest from
+    each of them. It is disabled by default, enable it for a single instance or when a few digests per recipient are
+    acceptable.
  */
 @Service
-@RequiredArgsConstructor
 class NotificationService {
     private final EmailService emailService;
     private final DayEventSlotRepository eventSlotRepository;
     private final TimeEventSlotRepository timeEventSlotRepository;
+    private final DayEventService dayEventService;
+    private final TimeEventService timeEventService;
+    private final boolean digest;
+    private final List<Integer> reminderOffsets;
+    private final HashedTimerWheel<TimeEventSlotScheduledReminder> reminderWheel;
+    private final Timer reminderLag = Timer.builder("notification.reminder.lag")
+            .description("Time between the fire time of a reminder and the time it was claimed")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int CLAIM_EXPIRY_IN_MINUTES = 10;
+    private static final long LOAD_INTERVAL = 60_000;
+    private static final int WINDOW_IN_MINUTES = 5;
+    private static final long TICK = 1_000;
+    // 512 ticks of 1 second, a turn of the wheel covers the window
+    private static final int WHEEL_SIZE = 512;
+
+    NotificationService(EmailService emailService,
+                        DayEventSlotRepository eventSlotRepository,
+                        TimeEventSlotRepository timeEventSlotRepository,
+                        DayEventService dayEventService,
+                        TimeEventService timeEventService,
+                        @Value("${calendar.reminders.digest:false}") boolean digest,
+                        @Value("${calendar.reminders.time-event-offsets:30}") List<Integer> reminderOffsets) {
+        this.emailService = emailService;
+        this.eventSlotRepository = eventSlotRepository;
+        this.timeEventSlotRepository = timeEventSlotRepository;
+        this.dayEventService = dayEventService;
+        this.timeEventService = timeEventService;
+        this.digest = digest;
+        this.reminderOffsets = reminderOffsets;
+        this.reminderWheel = new HashedTimerWheel<>(Duration.ofMillis(TICK), WHEEL_SIZE, toEpochMilli(LocalDateTime.now(ZoneId.of("UTC"))));
+        Gauge.builder("notification.reminders.scheduled", this.reminderWheel, HashedTimerWheel::size)
+                .description("Reminders scheduled in the timer wheel")
+                .register(Metrics.globalRegistry);
+    }
 
     @Scheduled(cron = "0 0 0 * * *")
+    @Timed(value = "notification.run", extraTags = {"task", "day-reminders"}, histogram = true)
     void notifyDayEvents() {
-        List<DayEventSlotReminderProjection> eventSlots = this.eventSlotRepository.findByStartDate(LocalDate.now().plusDays(1));
-        eventSlots.forEach(this.emailService::sendReminderEmail);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = LocalDate.from(now);
+        LocalDate date = today.plusDays(1);
+        // Slots of FOREVER events are created ahead by this task, the ones for tomorrow might not exist yet
+        this.dayEventService.materializeForeverEvents(date);
+        this.eventSlotRepository.deleteRemindersOfStartedSlots(today);
+        this.eventSlotRepository.enqueueReminders(today, date);
+        sendDayEventReminders(now, date);
+    }
+
+    @Scheduled(fixedDelay = LOAD_INTERVAL)
+    @Timed(value = "notification.run", extraTags = {"task", "retry-day-reminders"}, histogram = true)
+    void retryDayEventReminders() {
+        LocalDateTime now = LocalDateTime.now();
+        sendDayEventReminders(now, LocalDate.from(now).plusDays(1));
     }
 
     /*
@@ -51,17 +139,98 @@ class NotificationService {
          user's local time zone.
              Scheduled event at 3:00 PM(Europe/London)
              Event is stored as 2:00 PM UTC
-             At 1:30 PM UTC, our task runs and looks for events starting at 2:00 PM UTC
-             The event is found, and a notification is sent exactly 30 minutes before the event starts in the user's local
-             time
-         Because we store event start times in UTC, querying for events starting 30 minutes from the current UTC time
-         effectively finds events that are 30 minutes away in each user's local time zone. Time zone conversions were
-         already handled when the events were scheduled
+             The reminder with an offset of 30 minutes fires at 1:30 PM UTC
+             A notification is sent exactly 30 minutes before the event starts in the user's local time
+         Because we store event start times in UTC, the fire time of a reminder in UTC is the same number of minutes
+         before the start in each user's local time zone. Time zone conversions were already handled when the events
+         were scheduled.
+
+         The offsets are set per event and can be overridden per slot, calendar.reminders.time-event-offsets are the
+         ones of the events that don't set them.
+
+         Every LOAD_INTERVAL, the reminders that fire in the next WINDOW_IN_MINUTES enter the outbox and are scheduled
+         in a timer wheel. The wheel is advanced every TICK, the reminders that fired are claimed and sent. A reminder
+         is sent at its own time, at most 1 TICK late, instead of every reminder being sent at :00 or :30. The window
+         is larger than the interval, a reminder is scheduled before it fires even if a load runs late. Every instance
+         schedules every reminder, the one that claims it sends it.
      */
-    @Scheduled(cron = "0 */30 * * * *")
+    @Scheduled(fixedDelay = LOAD_INTERVAL)
+    @Timed(value = "notification.run", extraTags = {"task", "schedule-time-reminders"}, histogram = true)
+    void scheduleTimeEventReminders() {
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("UTC"));
+        LocalDateTime until = now.plusMinutes(WINDOW_IN_MINUTES);
+        // Slots of FOREVER events are created ahead by this task, the extra day covers the offset of the event's timezone
+        this.timeEventService.materializeForeverEvents(LocalDate.from(until.plusMinutes(TimeEventSlotRepository.maxReminderOffset(this.reminderOffsets))).plusDays(1));
+        this.timeEventSlotRepository.deleteRemindersOfStartedSlots(now);
+        this.timeEventSlotRepository.enqueueReminders(now, until, this.reminderOffsets);
+        this.timeEventSlotRepository.findScheduledReminders(until, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS)
+                .forEach(reminder -> this.reminderWheel.schedule(reminder, toEpochMilli(reminder.fireAt())));
+    }
+
+    @Scheduled(fixedRate = TICK)
+    @Timed(value = "notification.run", extraTags = {"task", "time-reminders"}, histogram = true)
     void notifyTimeEvents() {
-        LocalDateTime dateTime = LocalDateTime.now(ZoneId.of("UTC")).plusMinutes(30);
-        List<TimeEventSlotReminderProjection> eventSlots = this.timeEventSlotRepository.findByStartTime(dateTime);
-        eventSlots.forEach(this.emailService::sendReminderEmail);
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("UTC"));
+        List<TimeEventSlotScheduledReminder> reminders = this.reminderWheel.advance(toEpochMilli(now));
+        if (reminders.isEmpty()) {
+            return;
+        }
+        // How late the reminders fired, the TICK, a busy scheduler or a late load
+        reminders.forEach(reminder -> this.reminderLag.record(Duration.between(reminder.fireAt(), now)));
+
+        List<TimeEventSlotReminderProjection> eventSlots = this.timeEventSlotRepository.claimReminders(now, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, reminders);
+        if (eventSlots.isEmpty()) {
+            return;
+        }
+
+        if (this.digest) {
+            this.emailService.sendTimeEventReminderDigests(eventSlots)
+                    .thenAccept(result -> complete(eventSlots, result, this::markTimeEventRemindersSent, this.timeEventSlotRepository::releaseReminders));
+        } else {
+            eventSlots.forEach(eventSlot -> this.emailService.sendReminderEmail(eventSlot)
+                    .thenAccept(result -> complete(List.of(eventSlot), result, this::markTimeEventRemindersSent, this.timeEventSlotRepository::releaseReminders)));
+        }
+    }
+
+    private void sendDayEventReminders(LocalDateTime now, LocalDate date) {
+        List<DayEventSlotReminderProjection> claimed = new ArrayList<>();
+        List<DayEventSlotReminderProjection> eventSlots;
+        do {
+            eventSlots = this.eventSlotRepository.claimReminders(now, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, date, BATCH_SIZE);
+            if (this.digest) {
+                claimed.addAll(eventSlots);
+            } else {
+                eventSlots.forEach(eventSlot -> this.emailService.sendReminderEmail(eventSlot)
+                        .thenAccept(result -> complete(List.of(eventSlot), result, this::markDayEventRemindersSent, this.eventSlotRepository::releaseReminders)));
+            }
+        } while (eventSlots.size() == BATCH_SIZE);
+
+        if (!claimed.isEmpty()) {
+            this.emailService.sendDayEventReminderDigests(claimed)
+                    .thenAccept(result -> complete(claimed, result, this::markDayEventRemindersSent, this.eventSlotRepository::releaseReminders));
+        }
+    }
+
+    /*
+        Runs on the reminderExecutor once the emails were sent. A reminder is sent if none of its recipients failed. If
+        sending throws, nothing is written and the claims expire.
+     */
+    private static <T extends AbstractEventSlotReminderProjection> void complete(List<T> eventSlots, EmailBatchResult result, Consumer<List<T>> sent, Consumer<List<T>> failed) {
+        Map<Boolean, List<T>> byFailure = eventSlots.stream()
+                .collect(Collectors.partitioningBy(eventSlot -> !Collections.disjoint(eventSlot.recipients(), result.failedRecipients())));
+        sent.accept(byFailure.get(false));
+        failed.accept(byFailure.get(true));
+    }
+
+    private void markDayEventRemindersSent(List<DayEventSlotReminderProjection> eventSlots) {
+        this.eventSlotRepository.markRemindersSent(LocalDateTime.now(), eventSlots);
+    }
+
+    private void markTimeEventRemindersSent(List<TimeEventSlotReminderProjection> eventSlots) {
+        this.timeEventSlotRepository.markRemindersSent(LocalDateTime.now(ZoneId.of("UTC")), eventSlots);
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
     }
 }
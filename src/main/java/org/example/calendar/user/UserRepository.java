@@ -11,6 +11,7 @@ import org.example.calendar.exception.ServerErrorException;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.transaction.annotation.Transactional;
@@ -83,6 +84,22 @@ public class UserRepository {
         });
     }
 
+    // Emails are compared case-insensitive, the same as findByEmail()
+    public List<Long> findIdsByEmails(Set<String> emails) {
+        if (emails.isEmpty()) {
+            return List.of();
+        }
+
+        return this.jdbcClient.sql("""
+                            SELECT u.id
+                            FROM users u
+                            WHERE LOWER(u.email) IN (:emails)
+                        """)
+                .param("emails", emails.stream().map(String::toLowerCase).toList())
+                .query(Long.class)
+                .list();
+    }
+
     Optional<User> findById(Long userId) {
         return this.jdbcClient.sql("""
                             SELECT u.id, u.username, u.email
@@ -41,23 +41,18 @@ public final class DateUtils {
         return startDate.isAfter(endDate);
     }
 
-    // 2023-09-23 is the 4th Monday of September
+    // 2023-09-23 is the 4th Saturday of September. The days 1-7 hold the 1st occurrence of every weekday, 8-14 the 2nd etc
     public static int findDayOfMonthOccurrence(LocalDate date) {
-        // For the given year/month and index returns the day of the month
-        LocalDate firstDayOfMonth = LocalDate.of(date.getYear(), date.getMonth(), 1);
-        int occurrences = 0;
-        for (LocalDate currentDate = firstDayOfMonth; !currentDate.isAfter(date); currentDate = currentDate.plusDays(1)) {
-            if (currentDate.getDayOfWeek().equals(date.getDayOfWeek())) {
-                occurrences++;
-            }
-        }
-        return occurrences;
+        return (date.getDayOfMonth() - 1) / 7 + 1;
     }
 
     /*
         The date corresponds to the nth occurrence of a given day of the week within a month.
         2nd Tuesday of April 2024 -> returns the date 9/04/2024
 
+        The first occurrence is the first day of the month moved forward to the given day, every next occurrence is 7
+        days later. April 2024 starts on Monday, the 1st Tuesday is the 2nd and the 2nd Tuesday is the 9th.
+
         The edge case to consider here is that some days appear 5 times within a month so if a user requests for a
         monthly event to be repeated on the 5th Monday of the month, we need to make sure that if the repeating months
         do not have 5 occurrences of a Monday we return the last one(4th). For example 2024-09-30, is the 5th Monday
@@ -69,45 +64,21 @@ public final class DateUtils {
         void shouldCreateDayEventSlotsWhenEventIsRepeatingEveryNMonthsAtTheSameWeekDayUntilDate(), DayEventSlotServiceTest
      */
     public static LocalDate findDateOfNthDayOfWeekInMonth(YearMonth yearMonth, DayOfWeek day, int occurrences) {
-        LocalDate firstDayOfMonth = LocalDate.of(yearMonth.getYear(), yearMonth.getMonth(), 1);
-        LocalDate lastDayOfMonth = yearMonth.atEndOfMonth();
-        LocalDate lastFoundDate = null;
-        int count = 0;
-
-        for (LocalDate currentDate = firstDayOfMonth; !currentDate.isAfter(lastDayOfMonth); currentDate = currentDate.plusDays(1)) {
-            if (currentDate.getDayOfWeek().equals(day)) {
-                count++;
-                lastFoundDate = currentDate;
-            }
-            if (count == occurrences) {
-                return lastFoundDate;
-            }
+        int dayOfMonth = findDayOfMonthOfNthDayOfWeek(yearMonth, day, occurrences);
+        if (dayOfMonth > yearMonth.lengthOfMonth()) {
+            int lastDayOfMonth = dayOfMonth - ((dayOfMonth - yearMonth.lengthOfMonth() + 6) / 7) * 7;
+            logger.info("The {} occurrence of {} was not found in {}. Returning last found: {}",
+                    occurrences, day, yearMonth, yearMonth.atDay(lastDayOfMonth));
+            return yearMonth.atDay(lastDayOfMonth);
         }
 
-        logger.info("The {} occurrence of {} was not found in {}. Returning last found: {}",
-                occurrences, day, yearMonth, lastFoundDate);
-        return lastFoundDate;
+        return yearMonth.atDay(dayOfMonth);
     }
 
+    // True when the nth occurrence of the day of the week of the date is the last day of its month
     public static boolean isLastOccurrenceOfMonth(LocalDate date, int occurrences) {
-        LocalDate firstDayOfMonth = LocalDate.of(date.getYear(), date.getMonth(), 1);
-        LocalDate lastDayOfMonth = YearMonth.of(date.getYear(), date.getMonth()).atEndOfMonth();
-        int count = 0;
-
-        LocalDate currentDate = firstDayOfMonth;
-        for (; !currentDate.isAfter(lastDayOfMonth); currentDate = currentDate.plusDays(1)) {
-            if (currentDate.getDayOfWeek().equals(date.getDayOfWeek())) {
-                count++;
-            }
-            if (count == occurrences) {
-                break;
-            }
-        }
-
-        // Returns true when the if condition in the loop was never true, which is the case of the 5th occurrence of a day in a month
-        // 2024-09-30 is the 5th Monday of September. If the month we are iterating does not have a 5th Monday it will return true
-        // because we will iterate the loop without the condition count == occurrences being true.
-        return currentDate.equals(lastDayOfMonth);
+        YearMonth yearMonth = YearMonth.from(date);
+        return findDayOfMonthOfNthDayOfWeek(yearMonth, date.getDayOfWeek(), occurrences) == yearMonth.lengthOfMonth();
     }
 
     /*
@@ -165,8 +136,17 @@ public final class DateUtils {
 
         We handle the following scenario correctly where September 16, 2024, 11:00 PM (23:00) for "America/Los_Angeles"
         with a UTC offset of -7 is actually 2024-09-17T06:00 which moves it to the next day the (17)
+
+        Every slot is converted when it is created and when it is read, so the offsets of the timezone are looked up
+        in a ZoneOffsetTable. It returns the same time as ZonedDateTime for DST gaps and overlaps. Times outside the
+        years of the table are converted with ZonedDateTime.
      */
     public static LocalDateTime convertToUTC(LocalDateTime dateTime, ZoneId zoneId) {
+        LocalDateTime utc = ZoneOffsetTable.of(zoneId).toUTC(dateTime);
+        if (utc != null) {
+            return utc;
+        }
+
         // Convert the LocalDateTime to ZonedDateTime with the provided ZoneId
         ZonedDateTime zonedDateTime = dateTime.atZone(zoneId);
 
@@ -175,6 +155,11 @@ public final class DateUtils {
     }
 
     public static LocalDateTime convertFromUTC(LocalDateTime dateTime, ZoneId zoneId) {
+        LocalDateTime local = ZoneOffsetTable.of(zoneId).fromUTC(dateTime);
+        if (local != null) {
+            return local;
+        }
+
         // Convert the LocalDateTime from UTC to ZonedDateTime in UTC
         ZonedDateTime utc = dateTime.atZone(ZoneId.of("UTC"));
 
@@ -214,4 +199,10 @@ public final class DateUtils {
 
         return startFormatted;
     }
+
+    // Can be after the last day of the month, if the month has fewer than n occurrences of the day
+    private static int findDayOfMonthOfNthDayOfWeek(YearMonth yearMonth, DayOfWeek day, int occurrences) {
+        DayOfWeek firstDayOfWeek = yearMonth.atDay(1).getDayOfWeek();
+        return 1 + Math.floorMod(day.getValue() - firstDayOfWeek.getValue(), 7) + (occurrences - 1) * 7;
+    }
 }
@@ -9,13 +9,15 @@ import org.example.calendar.event.recurrence.RecurrenceFrequency;
 import org.example.calendar.event.slot.AbstractEventSlot;
 import org.example.calendar.event.slot.dto.AbstractEventSlotRequest;
 import org.example.calendar.event.slot.day.dto.DayEventSlotRequest;
-import org.example.calendar.event.slot.projection.GuestProjection;
 import org.example.calendar.event.slot.time.dto.TimeEventSlotRequest;
 import org.example.calendar.event.time.dto.TimeEventRequest;
 import org.example.calendar.entity.User;
 import org.example.calendar.exception.ConflictException;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
 import java.sql.Date;
+import java.sql.SQLException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,12 +26,11 @@ import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -496,6 +497,11 @@ public final class EventUtils {
             sql.append("number_of_occurrences = :numberOfOccurrences, ");
             params.put("numberOfOccurrences", modified.getNumberOfOccurrences());
         }
+
+        if (!Objects.equals(original.getMaterializedUntil(), modified.getMaterializedUntil())) {
+            sql.append("materialized_until = :materializedUntil, ");
+            params.put("materializedUntil", modified.getMaterializedUntil() == null ? null : Date.valueOf(modified.getMaterializedUntil()));
+        }
     }
 
     public static void updateCommonEvenSlotProperties(StringBuilder sql, AbstractEventSlot original, AbstractEventSlot modified, Map<String, Object> params) {
@@ -520,6 +526,7 @@ public final class EventUtils {
                 && eventRequest.getEndTime() == null
                 && eventRequest.getStartTimeZoneId() == null
                 && eventRequest.getEndTimeZoneId() == null
+                && eventRequest.getReminderOffsets() == null
                 && hasEmptyEventRequestProperties(eventRequest);
     }
 
@@ -540,6 +547,7 @@ public final class EventUtils {
                 && eventSlotRequest.getEndTime() == null
                 && eventSlotRequest.getStartTimeZoneId() == null
                 && eventSlotRequest.getEndTimeZoneId() == null
+                && eventSlotRequest.getReminderOffsets() == null
                 && hasEmptyEventSlotRequestProperties(eventSlotRequest);
     }
 
@@ -556,64 +564,57 @@ public final class EventUtils {
                 .collect(Collectors.joining(SEPARATOR));
     }
 
-    public static Set<DayOfWeek> convertFromCsv(String daysOfWeek) {
-        final String SEPARATOR = ",";
-
-        if (daysOfWeek == null) {
-            return EnumSet.noneOf(DayOfWeek.class);
+    /*
+        The guest emails of a slot are collected in an array by our queries. A slot without guests has an empty array,
+        not NULL. The emails are returned sorted, like the TreeSet the mappers used to fill row by row.
+     */
+    public static Set<String> convertFromArray(Array guestEmails) throws SQLException {
+        try {
+            return new TreeSet<>(Arrays.asList((String[]) guestEmails.getArray()));
+        } finally {
+            guestEmails.free();
         }
+    }
 
-        Set<DayOfWeek> days = Arrays.stream(daysOfWeek.split(SEPARATOR))
-                .map(DayOfWeek::valueOf)
-                .collect(Collectors.toSet());
-
-        return EnumSet.copyOf(days);
+    /*
+        The id of the slot of a FOREVER event's occurrence after its materializedUntil date. The occurrences that are
+        computed on read and the slot that the scheduled task creates later for the same occurrence have the same id,
+        so a cursor or a cached schedule that holds the id stays valid.
+     */
+    public static UUID occurrenceId(UUID eventId, LocalDate occurrenceDate) {
+        return occurrenceId(eventId, occurrenceDate, 0);
     }
 
     /*
-        For every projection that requires the list of guest emails, we share a common interface to be able to do the
-        mapping for every implementation.
-        In the case of a day event slot that has 4 guests, the result will have 4 rows. (same event slot, different email)
-        The mapper for each projection will map the row to the projection, and then we need to aggregate the result by
-        returning a single day event slot with the list of the guests emails combined.
+        The ids an occurrence can have, the first one is occurrenceId(eventId, occurrenceDate). A slot that was moved to
+        another occurrence keeps its id, so the id of an occurrence can be taken, its slot gets the next one. They are
+        derived from the occurrence, every instance that creates the slot picks the same id.
      */
-    public static <T extends GuestProjection> Optional<T> aggregateGuestEmails(List<T> resultSet) {
-        if (resultSet.isEmpty()) {
-            return Optional.empty();
-        }
+    public static UUID occurrenceId(UUID eventId, LocalDate occurrenceDate, int attempt) {
+        String name = attempt == 0 ? eventId + "/" + occurrenceDate : eventId + "/" + occurrenceDate + "/" + attempt;
 
-        Map<UUID, T> slotMap = new LinkedHashMap<>();
-        for (T slotProjection : resultSet) {
-            T existingSlot = slotMap.get(slotProjection.getId());
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
 
-            if (existingSlot == null) {
-                slotMap.put(slotProjection.getId(), slotProjection);
-            } else {
-                existingSlot.getGuestEmails().add(slotProjection.getGuestEmails().iterator().next());
-            }
-        }
-        return slotMap.values().stream()
-                .findFirst();
+    // The order of the uuid type in Postgres, byte by byte unsigned. UUID.compareTo() compares signed longs
+    public static int compareIds(UUID id, UUID other) {
+        int result = Long.compareUnsigned(id.getMostSignificantBits(), other.getMostSignificantBits());
+
+        return result != 0 ? result : Long.compareUnsigned(id.getLeastSignificantBits(), other.getLeastSignificantBits());
     }
 
-    public static <T extends GuestProjection> List<T> aggregateListGuestEmails(List<T> resultSet) {
-        if (resultSet.isEmpty()) {
-            return Collections.emptyList();
+    public static Set<DayOfWeek> convertFromCsv(String daysOfWeek) {
+        final String SEPARATOR = ",";
+
+        if (daysOfWeek == null) {
+            return EnumSet.noneOf(DayOfWeek.class);
         }
 
-        // We need to maintain the order of the result set because it was sorted by start_date
-        Map<UUID, T> slotMap = new LinkedHashMap<>();
-        for (T eventSlotDTO : resultSet) {
-            T existingSlot = slotMap.get(eventSlotDTO.getId());
+        Set<DayOfWeek> days = Arrays.stream(daysOfWeek.split(SEPARATOR))
+                .map(DayOfWeek::valueOf)
+                .collect(Collectors.toSet());
 
-            if (existingSlot == null) {
-                slotMap.put(eventSlotDTO.getId(), eventSlotDTO);
-            } else {
-                existingSlot.getGuestEmails().add(eventSlotDTO.getGuestEmails().iterator().next());
-            }
-        }
-        return slotMap.values().stream()
-                .toList();
+        return EnumSet.copyOf(days);
     }
 
     // Checks the common fields
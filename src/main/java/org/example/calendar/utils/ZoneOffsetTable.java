@@ -0,0 +1,114 @@
+package org.example.calendar.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    The offset transitions of a timezone between FROM and UNTIL, so that converting between UTC and the local time of
+    the timezone is a binary search over 2 arrays instead of resolving the ZoneRules and creating a ZonedDateTime on
+    every call. The tables are created the first time a timezone is used and kept for the lifetime of the application,
+    our users share a handful of timezones. Times outside the range return null and the caller falls back to java.time.
+
+    UTC to local: the offset of the last transition at or before the instant, or the offset before the first one.
+
+    Local to UTC, with the same result as ZonedDateTime.of(localDateTime, zoneId), explained in EventController:
+        Gap: local times in [before + offsetBefore, before + offsetAfter) don't exist. They are shifted later by the
+        length of the gap, which is the same as using the offset before the transition.
+        Overlap: local times in [before + offsetAfter, before + offsetBefore) occur twice. The earlier offset is
+        used, the offset before the transition.
+    In both cases a local time uses the offset before the transition until the later of the 2 local times of the
+    transition, localBoundaries, and the offset after the transition from then on.
+
+    The transitions of the rules are at least days apart, so the local boundaries are sorted as well.
+ */
+final class ZoneOffsetTable {
+    // Transitions of the first and the last year we have to answer fast. Schedules outside of them are rare
+    private static final long FROM = LocalDateTime.parse("1970-01-01T00:00").toEpochSecond(ZoneOffset.UTC);
+    private static final long UNTIL = LocalDateTime.parse("2100-01-01T00:00").toEpochSecond(ZoneOffset.UTC);
+    // Larger than any offset, +/-18:00, so a local time near FROM/UNTIL is never looked up with a missing transition
+    private static final long MARGIN = 24 * 60 * 60;
+    private static final Map<ZoneId, ZoneOffsetTable> TABLES = new ConcurrentHashMap<>();
+    // Epoch seconds of the transitions
+    private final long[] instants;
+    // Local epoch seconds from which the offset after the transition applies
+    private final long[] localBoundaries;
+    // offsets[0] is the offset before the first transition, offsets[i + 1] the offset after transition i
+    private final int[] offsets;
+
+    private ZoneOffsetTable(long[] instants, long[] localBoundaries, int[] offsets) {
+        this.instants = instants;
+        this.localBoundaries = localBoundaries;
+        this.offsets = offsets;
+    }
+
+    static ZoneOffsetTable of(ZoneId zoneId) {
+        return TABLES.computeIfAbsent(zoneId, ZoneOffsetTable::create);
+    }
+
+    private static ZoneOffsetTable create(ZoneId zoneId) {
+        ZoneRules rules = zoneId.getRules();
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FROM - MARGIN));
+        while (transition != null && transition.toEpochSecond() < UNTIL + MARGIN) {
+            transitions.add(transition);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+
+        long[] instants = new long[transitions.size()];
+        long[] localBoundaries = new long[transitions.size()];
+        int[] offsets = new int[transitions.size() + 1];
+        offsets[0] = rules.getOffset(Instant.ofEpochSecond(FROM - MARGIN)).getTotalSeconds();
+        for (int i = 0; i < transitions.size(); i++) {
+            ZoneOffsetTransition current = transitions.get(i);
+            instants[i] = current.toEpochSecond();
+            localBoundaries[i] = current.toEpochSecond() + Math.max(current.getOffsetBefore().getTotalSeconds(), current.getOffsetAfter().getTotalSeconds());
+            offsets[i + 1] = current.getOffsetAfter().getTotalSeconds();
+        }
+
+        return new ZoneOffsetTable(instants, localBoundaries, offsets);
+    }
+
+    LocalDateTime toUTC(LocalDateTime dateTime) {
+        long localEpochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (localEpochSecond < FROM || localEpochSecond >= UNTIL) {
+            return null;
+        }
+
+        int offset = this.offsets[upperBound(this.localBoundaries, localEpochSecond)];
+        return LocalDateTime.ofEpochSecond(localEpochSecond - offset, dateTime.getNano(), ZoneOffset.UTC);
+    }
+
+    LocalDateTime fromUTC(LocalDateTime dateTime) {
+        long epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (epochSecond < FROM || epochSecond >= UNTIL) {
+            return null;
+        }
+
+        int offset = this.offsets[upperBound(this.instants, epochSecond)];
+        return LocalDateTime.ofEpochSecond(epochSecond + offset, dateTime.getNano(), ZoneOffset.UTC);
+    }
+
+    // The number of values that are less than or equal to the key
+    private static int upperBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+}
@@ -0,0 +1,36 @@
+-- The interval of every slot, so the schedule finds the slots that overlap the requested range, not only the ones that
+-- start in it. A multi-day DayEventSlot includes its end date. A TimeEventSlot does not include its end time, a slot
+-- that ends when the range starts is not part of it, unless it ends when it starts.
+--
+-- The column is kept in sync by triggers, so every INSERT/UPDATE of the start and end keeps working as it is. The
+-- existing rows are backfilled in batches by V11, adding the column without a default does not rewrite the table.
+ALTER TABLE day_event_slots ADD COLUMN IF NOT EXISTS during daterange;
+ALTER TABLE time_event_slots ADD COLUMN IF NOT EXISTS during tsrange;
+
+CREATE OR REPLACE FUNCTION day_event_slots_set_during()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.during := daterange(NEW.start_date, NEW.end_date, '[]');
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION time_event_slots_set_during()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.during := tsrange(NEW.start_time, NEW.end_time, CASE WHEN NEW.start_time = NEW.end_time THEN '[]' ELSE '[)' END);
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE TRIGGER trg_day_event_slots_during
+    BEFORE INSERT OR UPDATE OF start_date, end_date ON day_event_slots
+    FOR EACH ROW EXECUTE FUNCTION day_event_slots_set_during();
+
+CREATE OR REPLACE TRIGGER trg_time_event_slots_during
+    BEFORE INSERT OR UPDATE OF start_time, end_time ON time_event_slots
+    FOR EACH ROW EXECUTE FUNCTION time_event_slots_set_during();
@@ -0,0 +1,47 @@
+-- Runs outside a transaction(V11__backfill_event_slots_during.sql.conf). Every batch of 10000 slots is committed on its
+-- own, so the rows of a large table are not locked until the whole backfill is done. The batches walk the primary key,
+-- the slots that are already set, by the triggers of V10, are skipped.
+--
+-- The GiST indexes can't be created CONCURRENTLY. Flyway keeps a transaction open on another connection while it
+-- migrates, and CREATE INDEX CONCURRENTLY would wait for it forever. They block the writes to the tables, not the
+-- reads, while they are built.
+DO $$
+DECLARE
+    last_id uuid := '00000000-0000-0000-0000-000000000000';
+    batch_last_id uuid;
+BEGIN
+    LOOP
+        -- The last id of the batch, null if less than 10000 slots are left
+        SELECT id INTO batch_last_id FROM day_event_slots WHERE id > last_id ORDER BY id OFFSET 9999 LIMIT 1;
+
+        UPDATE day_event_slots
+        SET during = daterange(start_date, end_date, '[]')
+        WHERE id > last_id AND (batch_last_id IS NULL OR id <= batch_last_id) AND during IS NULL;
+        COMMIT;
+        EXIT WHEN batch_last_id IS NULL;
+        last_id := batch_last_id;
+    END LOOP;
+END
+$$;
+
+DO $$
+DECLARE
+    last_id uuid := '00000000-0000-0000-0000-000000000000';
+    batch_last_id uuid;
+BEGIN
+    LOOP
+        -- The last id of the batch, null if less than 10000 slots are left
+        SELECT id INTO batch_last_id FROM time_event_slots WHERE id > last_id ORDER BY id OFFSET 9999 LIMIT 1;
+
+        UPDATE time_event_slots
+        SET during = tsrange(start_time, end_time, CASE WHEN start_time = end_time THEN '[]' ELSE '[)' END)
+        WHERE id > last_id AND (batch_last_id IS NULL OR id <= batch_last_id) AND during IS NULL;
+        COMMIT;
+        EXIT WHEN batch_last_id IS NULL;
+        last_id := batch_last_id;
+    END LOOP;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_during ON day_event_slots USING gist (during);
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_during ON time_event_slots USING gist (during);
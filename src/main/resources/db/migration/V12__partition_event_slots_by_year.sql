@@ -0,0 +1,160 @@
+-- The slots are partitioned by the year of their start date/time, so the queries of a date range and the reminder
+-- tasks only read the partitions of that range, and the slots of a past year are removed by dropping their partition
+-- instead of deleting them row by row. Partitions are named {table}_{year}, EventSlotPartitionService creates the
+-- ones of the next years and drops the old ones.
+--
+-- The primary key of a partitioned table must include the partition key, so it is (id, start_date) and
+-- (id, start_time). The ids are still unique, they are random UUIDs, but they can't be referenced by a foreign key
+-- anymore. The guests and the reminders of a slot are deleted with the slot by triggers instead of ON DELETE CASCADE.
+--
+-- A slot can only be inserted in an existing partition. create_event_slot_partitions() creates the partitions of a
+-- range of years that don't exist yet. The repositories call it before writing a slot.
+CREATE OR REPLACE FUNCTION create_event_slot_partitions(parent TEXT, from_year INTEGER, to_year INTEGER)
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    FOR partition_year IN from_year..to_year LOOP
+        IF to_regclass(parent || '_' || partition_year) IS NULL THEN
+            -- 2 transactions could try to create the same partition, the 2nd one waits for the 1st and checks again
+            PERFORM pg_advisory_xact_lock(hashtext(parent || '_' || partition_year));
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                    parent || '_' || partition_year, parent, make_date(partition_year, 1, 1), make_date(partition_year + 1, 1, 1));
+        END IF;
+    END LOOP;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION delete_day_event_slot_dependents()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- An UPDATE that moves a slot to the partition of another year is a DELETE and an INSERT of the same id
+    IF EXISTS (SELECT 1 FROM day_event_slots WHERE id = OLD.id) THEN
+        RETURN OLD;
+    END IF;
+    DELETE FROM day_event_slot_guest_emails WHERE event_slot_id = OLD.id;
+    DELETE FROM day_event_slot_reminders WHERE slot_id = OLD.id;
+    RETURN OLD;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION delete_time_event_slot_dependents()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- An UPDATE that moves a slot to the partition of another year is a DELETE and an INSERT of the same id
+    IF EXISTS (SELECT 1 FROM time_event_slots WHERE id = OLD.id) THEN
+        RETURN OLD;
+    END IF;
+    DELETE FROM time_event_slot_guest_emails WHERE event_slot_id = OLD.id;
+    DELETE FROM time_event_slot_reminders WHERE slot_id = OLD.id;
+    RETURN OLD;
+END
+$$;
+
+-- The foreign keys of the guests and the reminders depend on the primary keys, they are dropped with them
+ALTER TABLE day_event_slots RENAME TO day_event_slots_unpartitioned;
+ALTER TABLE day_event_slots_unpartitioned DROP CONSTRAINT pk_day_event_slots CASCADE;
+DROP INDEX IF EXISTS idx_day_event_slots_event_id, idx_day_event_slots_start_date_id, idx_day_event_slots_during;
+
+CREATE TABLE day_event_slots(
+    id uuid DEFAULT uuid_generate_v4(),
+    event_id uuid NOT NULL,
+    title VARCHAR(50) NULL,
+    location VARCHAR(50) NULL,
+    description TEXT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    guests_overridden BOOLEAN NOT NULL DEFAULT FALSE,
+    during daterange,
+    CONSTRAINT pk_day_event_slots PRIMARY KEY (id, start_date),
+    CONSTRAINT fk_day_event_slots_day_events_id FOREIGN KEY (event_id) REFERENCES day_events ON DELETE CASCADE
+) PARTITION BY RANGE (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_event_id ON day_event_slots(event_id);
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_start_date_id ON day_event_slots(start_date, id);
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_during ON day_event_slots USING gist (during);
+
+CREATE OR REPLACE TRIGGER trg_day_event_slots_during
+    BEFORE INSERT OR UPDATE OF start_date, end_date ON day_event_slots
+    FOR EACH ROW EXECUTE FUNCTION day_event_slots_set_during();
+
+CREATE OR REPLACE TRIGGER trg_day_event_slots_delete_dependents
+    AFTER DELETE ON day_event_slots
+    FOR EACH ROW EXECUTE FUNCTION delete_day_event_slot_dependents();
+
+SELECT create_event_slot_partitions('day_event_slots',
+        LEAST(COALESCE(EXTRACT(YEAR FROM MIN(start_date))::INTEGER, EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER), EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER),
+        GREATEST(COALESCE(EXTRACT(YEAR FROM MAX(start_date))::INTEGER, 0), EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 2))
+FROM day_event_slots_unpartitioned;
+
+INSERT INTO day_event_slots(id, event_id, title, location, description, start_date, end_date, guests_overridden)
+SELECT id, event_id, title, location, description, start_date, end_date, guests_overridden
+FROM day_event_slots_unpartitioned;
+
+-- The view of the effective guests reads the old table, it is dropped with it and created again below
+DROP TABLE day_event_slots_unpartitioned CASCADE;
+
+ALTER TABLE time_event_slots RENAME TO time_event_slots_unpartitioned;
+ALTER TABLE time_event_slots_unpartitioned DROP CONSTRAINT pk_time_event_slots CASCADE;
+DROP INDEX IF EXISTS idx_time_event_slots_event_id, idx_time_event_slots_start_time_id, idx_time_event_slots_during;
+
+CREATE TABLE time_event_slots(
+    id uuid DEFAULT uuid_generate_v4(),
+    event_id uuid NOT NULL,
+    title VARCHAR(50) NULL,
+    location VARCHAR(50) NULL,
+    description TEXT NULL,
+    start_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    start_time_zone_id TEXT NOT NULL,
+    end_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_time_zone_id TEXT NOT NULL,
+    guests_overridden BOOLEAN NOT NULL DEFAULT FALSE,
+    during tsrange,
+    CONSTRAINT pk_time_event_slots PRIMARY KEY (id, start_time),
+    CONSTRAINT fk_time_event_slots_time_events_id FOREIGN KEY (event_id) REFERENCES time_events ON DELETE CASCADE
+) PARTITION BY RANGE (start_time);
+
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_event_id ON time_event_slots(event_id);
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_start_time_id ON time_event_slots(start_time, id);
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_during ON time_event_slots USING gist (during);
+
+CREATE OR REPLACE TRIGGER trg_time_event_slots_during
+    BEFORE INSERT OR UPDATE OF start_time, end_time ON time_event_slots
+    FOR EACH ROW EXECUTE FUNCTION time_event_slots_set_during();
+
+CREATE OR REPLACE TRIGGER trg_time_event_slots_delete_dependents
+    AFTER DELETE ON time_event_slots
+    FOR EACH ROW EXECUTE FUNCTION delete_time_event_slot_dependents();
+
+SELECT create_event_slot_partitions('time_event_slots',
+        LEAST(COALESCE(EXTRACT(YEAR FROM MIN(start_time))::INTEGER, EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER), EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER),
+        GREATEST(COALESCE(EXTRACT(YEAR FROM MAX(start_time))::INTEGER, 0), EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 2))
+FROM time_event_slots_unpartitioned;
+
+INSERT INTO time_event_slots(id, event_id, title, location, description, start_time, start_time_zone_id, end_time, end_time_zone_id, guests_overridden)
+SELECT id, event_id, title, location, description, start_time, start_time_zone_id, end_time, end_time_zone_id, guests_overridden
+FROM time_event_slots_unpartitioned;
+
+DROP TABLE time_event_slots_unpartitioned CASCADE;
+
+CREATE OR REPLACE VIEW day_event_slot_effective_guest_emails AS
+SELECT ge.event_slot_id, ge.email
+FROM day_event_slot_guest_emails ge
+UNION ALL
+SELECT des.id AS event_slot_id, ege.email
+FROM day_event_slots des
+JOIN day_event_guest_emails ege ON des.event_id = ege.event_id
+WHERE NOT des.guests_overridden;
+
+CREATE OR REPLACE VIEW time_event_slot_effective_guest_emails AS
+SELECT ge.event_slot_id, ge.email
+FROM time_event_slot_guest_emails ge
+UNION ALL
+SELECT tes.id AS event_slot_id, ege.email
+FROM time_event_slots tes
+JOIN time_event_guest_emails ege ON tes.event_id = ege.event_id
+WHERE NOT tes.guests_overridden;
@@ -0,0 +1,13 @@
+-- Invitation outbox. The invitation of an event is written in the transaction that creates the event, so it is only
+-- sent if the event is committed. A row is an event, payload is its invitation request and guest_emails the guests
+-- that have not received it yet. InvitationEmailDispatcher claims (claimed_at) batches of rows, sends the emails and
+-- deletes the row, or releases it with the guests that failed for a later attempt.
+CREATE TABLE IF NOT EXISTS invitation_email_outbox (
+    id BIGSERIAL,
+    event_type TEXT NOT NULL,
+    payload JSONB NOT NULL,
+    guest_emails TEXT[] NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    claimed_at TIMESTAMP NULL,
+    CONSTRAINT pk_invitation_email_outbox PRIMARY KEY (id)
+);
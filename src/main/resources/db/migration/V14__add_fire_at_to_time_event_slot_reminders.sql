@@ -0,0 +1,20 @@
+-- The reminders of time event slots fire at their own time instead of every 30 minutes. A slot has a reminder per
+-- offset, offset_minutes before its start, and fire_at is the time the reminder is sent. The existing reminders were
+-- all sent 30 minutes before the start of their slot.
+ALTER TABLE time_event_slot_reminders ADD COLUMN IF NOT EXISTS offset_minutes INTEGER NOT NULL DEFAULT 30;
+ALTER TABLE time_event_slot_reminders ADD COLUMN IF NOT EXISTS fire_at TIMESTAMP NULL;
+
+UPDATE time_event_slot_reminders r
+SET fire_at = tes.start_time - make_interval(mins => r.offset_minutes)
+FROM time_event_slots tes
+WHERE r.slot_id = tes.id;
+
+DELETE FROM time_event_slot_reminders WHERE fire_at IS NULL;
+
+ALTER TABLE time_event_slot_reminders ALTER COLUMN fire_at SET NOT NULL;
+ALTER TABLE time_event_slot_reminders ALTER COLUMN offset_minutes DROP DEFAULT;
+ALTER TABLE time_event_slot_reminders DROP CONSTRAINT IF EXISTS pk_time_event_slot_reminders;
+ALTER TABLE time_event_slot_reminders ADD CONSTRAINT pk_time_event_slot_reminders PRIMARY KEY (slot_id, offset_minutes);
+
+-- The scheduler loads the reminders that have not been sent and fire in the next minutes
+CREATE INDEX IF NOT EXISTS idx_time_event_slot_reminders_fire_at ON time_event_slot_reminders(fire_at) WHERE claimed_at IS NULL;
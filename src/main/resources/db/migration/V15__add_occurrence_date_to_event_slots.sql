@@ -0,0 +1,9 @@
+-- The occurrence of the event's recurrence that a slot was created for, the RECURRENCE-ID of RFC 5545. It is the local
+-- start date of the slot until the slot is moved, then it keeps the date it was created for. When the recurrence of an
+-- event changes, the slots are matched to the new occurrences by it, see OccurrenceDiff.
+--
+-- NULL is the local start date of the slot, start_date for day event slots and start_time in start_time_zone_id for
+-- time event slots. The existing rows are not backfilled, adding a nullable column without a default does not rewrite
+-- the tables. A slot that is moved gets its occurrence date before its start changes.
+ALTER TABLE day_event_slots ADD COLUMN IF NOT EXISTS occurrence_date DATE NULL;
+ALTER TABLE time_event_slots ADD COLUMN IF NOT EXISTS occurrence_date DATE NULL;
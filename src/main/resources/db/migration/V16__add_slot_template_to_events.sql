@@ -0,0 +1,35 @@
+-- The title, location and description of the event, the ones it was created or last updated with. The slots of a
+-- FOREVER event that are created after materialized_until, and the occurrences after it that are computed on read, are
+-- built from them. An edit of a single slot does not change them. The guests of the event are already stored once per
+-- event, V5.
+--
+-- The existing events get the values most of their slots have, the slots that were edited one by one are outvoted. An
+-- event without slots keeps NULL.
+ALTER TABLE day_events
+    ADD COLUMN IF NOT EXISTS title VARCHAR(50) NULL,
+    ADD COLUMN IF NOT EXISTS location VARCHAR(50) NULL,
+    ADD COLUMN IF NOT EXISTS description TEXT NULL;
+ALTER TABLE time_events
+    ADD COLUMN IF NOT EXISTS title VARCHAR(50) NULL,
+    ADD COLUMN IF NOT EXISTS location VARCHAR(50) NULL,
+    ADD COLUMN IF NOT EXISTS description TEXT NULL;
+
+UPDATE day_events de
+SET title = t.title, location = t.location, description = t.description
+FROM (
+    SELECT DISTINCT ON (event_id) event_id, title, location, description
+    FROM day_event_slots
+    GROUP BY event_id, title, location, description
+    ORDER BY event_id, COUNT(*) DESC
+) t
+WHERE t.event_id = de.id;
+
+UPDATE time_events te
+SET title = t.title, location = t.location, description = t.description
+FROM (
+    SELECT DISTINCT ON (event_id) event_id, title, location, description
+    FROM time_event_slots
+    GROUP BY event_id, title, location, description
+    ORDER BY event_id, COUNT(*) DESC
+) t
+WHERE t.event_id = te.id;
@@ -0,0 +1,5 @@
+-- The reminder offsets of a time event, in minutes before the start of its slots, and the ones of a slot that overrides
+-- the offsets of its event. NULL inherits: a slot has the offsets of its event, an event has the default offsets of
+-- the application, calendar.reminders.time-event-offsets. An empty array has no reminders.
+ALTER TABLE time_events ADD COLUMN IF NOT EXISTS reminder_offsets INTEGER[] NULL;
+ALTER TABLE time_event_slots ADD COLUMN IF NOT EXISTS reminder_offsets INTEGER[] NULL;
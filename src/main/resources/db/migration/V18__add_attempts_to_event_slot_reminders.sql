@@ -0,0 +1,15 @@
+-- A claim of a reminder expires, like the ones of invitation_email_outbox. The reminder of an instance that died while
+-- sending it, or that failed to send it, is claimed again, up to a number of attempts. sent_at marks the reminders that
+-- were sent. The row is kept until the slot starts, so the reminder tasks of the other instances don't enqueue it
+-- again. The reminders that were claimed before were sent, or lost.
+ALTER TABLE day_event_slot_reminders ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE day_event_slot_reminders ADD COLUMN IF NOT EXISTS sent_at TIMESTAMP NULL;
+ALTER TABLE time_event_slot_reminders ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE time_event_slot_reminders ADD COLUMN IF NOT EXISTS sent_at TIMESTAMP NULL;
+
+UPDATE day_event_slot_reminders SET sent_at = claimed_at, attempts = 1 WHERE claimed_at IS NOT NULL;
+UPDATE time_event_slot_reminders SET sent_at = claimed_at, attempts = 1 WHERE claimed_at IS NOT NULL;
+
+-- The scheduler loads the reminders that have not been sent, claimed or not
+DROP INDEX IF EXISTS idx_time_event_slot_reminders_fire_at;
+CREATE INDEX IF NOT EXISTS idx_time_event_slot_reminders_fire_at ON time_event_slot_reminders(fire_at) WHERE sent_at IS NULL;
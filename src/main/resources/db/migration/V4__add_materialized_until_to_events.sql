@@ -0,0 +1,4 @@
+-- For events that recur FOREVER, the slots are materialized up to this date and extended on demand. For every other
+-- event it is NULL and all the slots are created when the event is created/updated.
+ALTER TABLE day_events ADD COLUMN IF NOT EXISTS materialized_until DATE NULL;
+ALTER TABLE time_events ADD COLUMN IF NOT EXISTS materialized_until DATE NULL;
@@ -0,0 +1,81 @@
+-- The guests of an event are stored once per event instead of once per slot. A slot has its own rows in the
+-- *_slot_guest_emails table only when its guest list differs from the event's (guests_overridden = TRUE). An overridden
+-- slot with no rows has no guests.
+CREATE TABLE IF NOT EXISTS day_event_guest_emails (
+    event_id uuid,
+    email TEXT,
+    CONSTRAINT pk_day_event_guest_emails PRIMARY KEY (event_id, email),
+    CONSTRAINT fk_day_event_guest_emails_day_events_id FOREIGN KEY (event_id) REFERENCES day_events(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS time_event_guest_emails (
+    event_id uuid,
+    email TEXT,
+    CONSTRAINT pk_time_event_guest_emails PRIMARY KEY (event_id, email),
+    CONSTRAINT fk_time_event_guest_emails_time_events_id FOREIGN KEY (event_id) REFERENCES time_events(id) ON DELETE CASCADE
+);
+
+ALTER TABLE day_event_slots ADD COLUMN IF NOT EXISTS guests_overridden BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE time_event_slots ADD COLUMN IF NOT EXISTS guests_overridden BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Existing data: if every slot of an event has the same guests, the guests move to the event. Otherwise, every slot of
+-- the event keeps its own guests.
+WITH slot_guests AS (
+    SELECT des.event_id, des.id, COALESCE(string_agg(ge.email, ',' ORDER BY ge.email), '') AS guests
+    FROM day_event_slots des
+    LEFT JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
+    GROUP BY des.event_id, des.id
+)
+UPDATE day_event_slots
+SET guests_overridden = TRUE
+WHERE event_id IN (SELECT event_id FROM slot_guests GROUP BY event_id HAVING COUNT(DISTINCT guests) > 1);
+
+INSERT INTO day_event_guest_emails(event_id, email)
+SELECT DISTINCT des.event_id, ge.email
+FROM day_event_slots des
+JOIN day_event_slot_guest_emails ge ON des.id = ge.event_slot_id
+WHERE NOT des.guests_overridden;
+
+DELETE FROM day_event_slot_guest_emails ge
+USING day_event_slots des
+WHERE des.id = ge.event_slot_id AND NOT des.guests_overridden;
+
+WITH slot_guests AS (
+    SELECT tes.event_id, tes.id, COALESCE(string_agg(ge.email, ',' ORDER BY ge.email), '') AS guests
+    FROM time_event_slots tes
+    LEFT JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
+    GROUP BY tes.event_id, tes.id
+)
+UPDATE time_event_slots
+SET guests_overridden = TRUE
+WHERE event_id IN (SELECT event_id FROM slot_guests GROUP BY event_id HAVING COUNT(DISTINCT guests) > 1);
+
+INSERT INTO time_event_guest_emails(event_id, email)
+SELECT DISTINCT tes.event_id, ge.email
+FROM time_event_slots tes
+JOIN time_event_slot_guest_emails ge ON tes.id = ge.event_slot_id
+WHERE NOT tes.guests_overridden;
+
+DELETE FROM time_event_slot_guest_emails ge
+USING time_event_slots tes
+WHERE tes.id = ge.event_slot_id AND NOT tes.guests_overridden;
+
+-- The effective guests of every slot. The rows of the slot if it is overridden, the rows of its event otherwise. The
+-- read queries join this view instead of the *_slot_guest_emails tables.
+CREATE OR REPLACE VIEW day_event_slot_effective_guest_emails AS
+SELECT ge.event_slot_id, ge.email
+FROM day_event_slot_guest_emails ge
+UNION ALL
+SELECT des.id AS event_slot_id, ege.email
+FROM day_event_slots des
+JOIN day_event_guest_emails ege ON des.event_id = ege.event_id
+WHERE NOT des.guests_overridden;
+
+CREATE OR REPLACE VIEW time_event_slot_effective_guest_emails AS
+SELECT ge.event_slot_id, ge.email
+FROM time_event_slot_guest_emails ge
+UNION ALL
+SELECT tes.id AS event_slot_id, ege.email
+FROM time_event_slots tes
+JOIN time_event_guest_emails ege ON tes.event_id = ege.event_id
+WHERE NOT tes.guests_overridden;
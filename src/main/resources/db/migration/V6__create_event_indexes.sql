@@ -0,0 +1,17 @@
+-- Schedule queries filter the slots by their start time/date and the reminder jobs look them up by their exact start
+-- time/date.
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_start_date ON day_event_slots(start_date);
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_start_time ON time_event_slots(start_time);
+
+-- Slots are fetched, updated and deleted by their event. Postgres does not index the referencing side of a foreign key.
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_event_id ON day_event_slots(event_id);
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_event_id ON time_event_slots(event_id);
+
+-- The events of a user are found by the organizer, or by the email of the user as guest. The primary keys of the guest
+-- tables start with the event/slot id, so they can't be used to look up an email.
+CREATE INDEX IF NOT EXISTS idx_day_events_organizer_id ON day_events(organizer_id);
+CREATE INDEX IF NOT EXISTS idx_time_events_organizer_id ON time_events(organizer_id);
+CREATE INDEX IF NOT EXISTS idx_day_event_guest_emails_email ON day_event_guest_emails(email);
+CREATE INDEX IF NOT EXISTS idx_time_event_guest_emails_email ON time_event_guest_emails(email);
+CREATE INDEX IF NOT EXISTS idx_day_event_slot_guest_emails_email ON day_event_slot_guest_emails(email);
+CREATE INDEX IF NOT EXISTS idx_time_event_slot_guest_emails_email ON time_event_slot_guest_emails(email);
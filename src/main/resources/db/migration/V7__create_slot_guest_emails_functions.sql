@@ -0,0 +1,30 @@
+-- The effective guests of a single slot. Joining the *_slot_effective_guest_emails views by slot id makes the planner
+-- build the whole view (every slot joined with the guests of its event) in a hash table, because it can't push the slot
+-- id into the join of the 2nd branch. These functions are inlined by the planner and used with LEFT JOIN LATERAL, so
+-- the guests of every slot are looked up by the primary keys of the guest tables. The views are still used to find
+-- slots by guest email.
+CREATE OR REPLACE FUNCTION day_event_slot_guest_emails_of(slot_id uuid, event_id uuid, guests_overridden BOOLEAN)
+RETURNS TABLE (email TEXT)
+LANGUAGE sql STABLE
+AS $$
+    SELECT ge.email
+    FROM day_event_slot_guest_emails ge
+    WHERE ge.event_slot_id = slot_id AND guests_overridden
+    UNION ALL
+    SELECT ege.email
+    FROM day_event_guest_emails ege
+    WHERE ege.event_id = day_event_slot_guest_emails_of.event_id AND NOT guests_overridden
+$$;
+
+CREATE OR REPLACE FUNCTION time_event_slot_guest_emails_of(slot_id uuid, event_id uuid, guests_overridden BOOLEAN)
+RETURNS TABLE (email TEXT)
+LANGUAGE sql STABLE
+AS $$
+    SELECT ge.email
+    FROM time_event_slot_guest_emails ge
+    WHERE ge.event_slot_id = slot_id AND guests_overridden
+    UNION ALL
+    SELECT ege.email
+    FROM time_event_guest_emails ege
+    WHERE ege.event_id = time_event_slot_guest_emails_of.event_id AND NOT guests_overridden
+$$;
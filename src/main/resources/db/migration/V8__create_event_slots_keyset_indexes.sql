@@ -0,0 +1,7 @@
+-- The schedule is paginated by (start_time, id) and (start_date, id). The composite indexes serve both the page and
+-- the previous lookups by start time/date, so they replace the ones of V6.
+CREATE INDEX IF NOT EXISTS idx_day_event_slots_start_date_id ON day_event_slots(start_date, id);
+CREATE INDEX IF NOT EXISTS idx_time_event_slots_start_time_id ON time_event_slots(start_time, id);
+
+DROP INDEX IF EXISTS idx_day_event_slots_start_date;
+DROP INDEX IF EXISTS idx_time_event_slots_start_time;
@@ -0,0 +1,15 @@
+-- Reminder outbox. Every instance runs the reminder tasks, a row makes sure that the reminder of a slot is sent once.
+-- The row is created when the slot enters the reminder window and claimed (claimed_at) by the instance that sends it.
+CREATE TABLE IF NOT EXISTS day_event_slot_reminders (
+    slot_id uuid,
+    claimed_at TIMESTAMP,
+    CONSTRAINT pk_day_event_slot_reminders PRIMARY KEY (slot_id),
+    CONSTRAINT fk_day_event_slot_reminders_day_event_slots_id FOREIGN KEY (slot_id) REFERENCES day_event_slots(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS time_event_slot_reminders (
+    slot_id uuid,
+    claimed_at TIMESTAMP,
+    CONSTRAINT pk_time_event_slot_reminders PRIMARY KEY (slot_id),
+    CONSTRAINT fk_time_event_slot_reminders_time_event_slots_id FOREIGN KEY (slot_id) REFERENCES time_event_slots(id) ON DELETE CASCADE
+);
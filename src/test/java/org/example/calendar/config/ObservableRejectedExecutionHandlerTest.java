@@ -0,0 +1,66 @@
+package org.example.calendar.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+// The executor has 1 thread and a queue of 1 task, the thread is blocked so the third task is rejected
+class ObservableRejectedExecutionHandlerTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private ThreadPoolExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        this.latch.countDown();
+        this.executor.shutdown();
+    }
+
+    @Test
+    void shouldCountRejectionAndRunTaskOnCallerThread() {
+        this.executor = saturatedExecutor(new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        this.executor.execute(() -> thread.set(Thread.currentThread()));
+
+        assertThat(thread.get()).isEqualTo(Thread.currentThread());
+        assertThat(this.registry.get("executor.rejected").tag("name", "reminders").counter().count()).isOne();
+    }
+
+    @Test
+    void shouldCountRejectionAndThrowRejectedExecutionException() {
+        this.executor = saturatedExecutor(new ThreadPoolExecutor.AbortPolicy());
+
+        assertThatExceptionOfType(RejectedExecutionException.class).isThrownBy(() -> this.executor.execute(() -> {}));
+        assertThat(this.registry.get("executor.rejected").tag("name", "reminders").counter().count()).isOne();
+    }
+
+    private ThreadPoolExecutor saturatedExecutor(RejectedExecutionHandler policy) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                new ObservableRejectedExecutionHandler("reminders", policy, this.registry));
+        executor.execute(this::await);
+        executor.execute(this::await);
+
+        return executor;
+    }
+
+    private void await() {
+        try {
+            this.latch.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
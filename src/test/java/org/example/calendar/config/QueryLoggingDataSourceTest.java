@@ -0,0 +1,159 @@
+package org.example.calendar.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// The connection, the statement and the result set of the driver are mocks
+class QueryLoggingDataSourceTest {
+    private final List<QueryExecution> executions = new ArrayList<>();
+    private final Connection connection = Mockito.mock(Connection.class);
+    private final PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+    private QueryLoggingDataSource underTest;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(this.connection);
+        when(this.connection.prepareStatement(anyString())).thenReturn(this.statement);
+        this.underTest = new QueryLoggingDataSource(dataSource, this.executions::add);
+        QueryStatistics.reset();
+    }
+
+    @Test
+    void shouldRecordUpdateWithBindsAndRows() throws SQLException {
+        when(this.statement.executeUpdate()).thenReturn(2);
+
+        try (Connection connection = this.underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("UPDATE users SET name = ? WHERE id = ?")) {
+            statement.setString(1, "Tom");
+            statement.setNull(2, Types.OTHER);
+            statement.executeUpdate();
+        }
+
+        assertThat(this.executions).singleElement().satisfies(execution -> {
+            assertThat(execution.sql()).isEqualTo("UPDATE users SET name = ? WHERE id = ?");
+            assertThat(execution.binds()).hasSize(2).containsEntry(1, "Tom").containsEntry(2, null);
+            assertThat(execution.rows()).isEqualTo(2);
+        });
+        assertThat(QueryStatistics.count()).isOne();
+    }
+
+    // The query is passed to the listener when its result set is closed, with the rows that were read
+    @Test
+    void shouldCountRowsOfQueryWhenResultSetIsClosed() throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(this.statement.executeQuery()).thenReturn(resultSet);
+
+        try (Connection connection = this.underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE email = ?")) {
+            statement.setString(1, "tom@example.com");
+            ResultSet rows = statement.executeQuery();
+            while (rows.next()) {
+                assertThat(this.executions).isEmpty();
+            }
+            rows.close();
+        }
+
+        assertThat(this.executions).singleElement().extracting(QueryExecution::rows).isEqualTo(3L);
+        assertThat(QueryStatistics.count()).isOne();
+    }
+
+    @Test
+    void shouldMaskPasswordAndEmailBinds() throws SQLException {
+        try (Connection connection = this.underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO users(email, username, password) VALUES (?, ?, ?)")) {
+            statement.setString(1, "tom@example.com");
+            statement.setString(2, "tom");
+            statement.setString(3, "$2a$10$Fb0ngWuoUI.U8Q/K2.ZkZebeTM1TocDYz3Utttoe4Y80F4IhVALGm");
+            statement.executeUpdate();
+        }
+
+        assertThat(this.executions).singleElement().extracting(QueryExecution::binds)
+                .isEqualTo(Map.of(1, SensitiveBinds.REDACTED, 2, "tom", 3, SensitiveBinds.REDACTED));
+        assertThat(SlowQueryLogger.format(this.executions.get(0).binds())).isEqualTo("[1=***, 2='tom', 3=***]");
+    }
+
+    // The column of the ? is the last one before it, the value is masked even if it doesn't look like a password
+    @Test
+    void shouldMaskBindOfPasswordColumn() throws SQLException {
+        try (Connection connection = this.underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("UPDATE users SET password = ? WHERE id = ?")) {
+            statement.setString(1, "secret");
+            statement.setLong(2, 1L);
+            statement.executeUpdate();
+        }
+
+        assertThat(this.executions).singleElement().extracting(QueryExecution::binds)
+                .isEqualTo(Map.of(1, SensitiveBinds.REDACTED, 2, 1L));
+    }
+
+    @Test
+    void shouldFindSensitiveBindsByColumn() {
+        assertThat(SensitiveBinds.indexesOf("SELECT id FROM users WHERE LOWER(u.email) IN (?, ?) AND username = ?")).containsExactlyInAnyOrder(1, 2);
+        assertThat(SensitiveBinds.indexesOf("""
+                INSERT INTO event_guests(event_id, guest_email) VALUES (CAST(? AS UUID), ?), (CAST(? AS UUID), ?)
+                ON CONFLICT DO NOTHING""")).containsExactlyInAnyOrder(2, 4);
+        assertThat(SensitiveBinds.indexesOf("SELECT 'password = ?' FROM users WHERE id = ?")).isEmpty();
+    }
+
+    @Test
+    void shouldSumRowsOfBatch() throws SQLException {
+        when(this.statement.executeBatch()).thenReturn(new int[]{1, 1, 1});
+
+        try (Connection connection = this.underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO event_guests VALUES (?)")) {
+            for (String email : List.of("a@example.com", "b@example.com", "c@example.com")) {
+                statement.setString(1, email);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        assertThat(this.executions).singleElement().extracting(QueryExecution::rows).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldRecordFailedStatementAndRethrowException() throws SQLException {
+        when(this.statement.executeUpdate()).thenThrow(new SQLException("duplicate key"));
+
+        try (Connection connection = this.underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO users VALUES (?)")) {
+            assertThatExceptionOfType(SQLException.class).isThrownBy(statement::executeUpdate)
+                    .withMessage("duplicate key");
+        }
+
+        assertThat(this.executions).singleElement().extracting(QueryExecution::rows).isEqualTo(-1L);
+    }
+
+    @Test
+    void shouldUnwrapConnectionOfDriver() throws SQLException {
+        when(this.connection.unwrap(Connection.class)).thenReturn(this.connection);
+
+        try (Connection connection = this.underTest.getConnection()) {
+            assertThat(connection).isNotSameAs(this.connection);
+            assertThat(connection.unwrap(Connection.class)).isSameAs(this.connection);
+        }
+    }
+
+    @Test
+    void shouldFormatBindsAndTruncateLongValues() {
+        assertThat(SlowQueryLogger.format(Map.of(1, "x".repeat(120)))).isEqualTo("[1='" + "x".repeat(100) + "...']");
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.calendar.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class RepositoryMetricsAspectTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TestRepository underTest;
+
+    @BeforeEach
+    void setup() {
+        Metrics.addRegistry(this.registry);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TestRepository());
+        factory.addAspect(new RepositoryMetricsAspect());
+        this.underTest = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(this.registry);
+    }
+
+    // Most of the methods of the repositories are package-private
+    @Test
+    void shouldTimeEveryCallToRepositoryMethod() {
+        this.underTest.findById(1L);
+        this.underTest.findById(2L);
+
+        assertThat(this.registry.get("repository.invocations")
+                .tag("repository", "TestRepository")
+                .tag("method", "findById")
+                .tag("exception", "none")
+                .timer()
+                .count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTagTimerWithExceptionOfFailedCall() {
+        assertThatIllegalStateException().isThrownBy(() -> this.underTest.delete(1L));
+
+        assertThat(this.registry.get("repository.invocations")
+                .tag("method", "delete")
+                .tag("exception", "IllegalStateException")
+                .timer()
+                .count()).isOne();
+    }
+
+    @Repository
+    static class TestRepository {
+
+        String findById(Long id) {
+            return "slot" + id;
+        }
+
+        public void delete(Long id) {
+            throw new IllegalStateException("Failed to delete " + id);
+        }
+    }
+}
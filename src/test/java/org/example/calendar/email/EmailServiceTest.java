@@ -0,0 +1,127 @@
+package org.example.calendar.email;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The reminders are rendered with the templates of the application and sent to GreenMail
+class EmailServiceTest {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test", "test"));
+    private ExecutorService executor;
+    private PooledMailSender pooledMailSender;
+    private EmailService underTest;
+
+    @BeforeEach
+    void setup() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setUsername("test");
+        mailSender.setPassword("test");
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", "true");
+        mailSender.setJavaMailProperties(properties);
+
+        SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
+        templateResolver.setApplicationContext(new StaticApplicationContext());
+        templateResolver.setPrefix("classpath:/templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        TemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        this.executor = Executors.newFixedThreadPool(PooledMailSender.POOL_SIZE);
+        this.pooledMailSender = new PooledMailSender(mailSender, this.executor);
+        this.underTest = new EmailService(
+                mailSender,
+                new ThymeleafService(templateEngine),
+                this.pooledMailSender,
+                Mockito.mock(InvitationEmailOutboxRepository.class),
+                Mockito.mock(ApplicationEventPublisher.class)
+        );
+        // Set by @Value from spring.mail.username
+        ReflectionTestUtils.setField(this.underTest, "sender", "test@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.pooledMailSender.shutdown();
+        this.executor.shutdown();
+    }
+
+    @Test
+    void shouldSendOneReminderDigestPerRecipient() {
+        List<EventSlotReminder> reminders = List.of(
+                reminder("First event", "organizer@example.com", "ericka.ankunding@hotmail.com", "waltraud.roberts@gmail.com"),
+                reminder("Second event", "organizer@example.com", "ericka.ankunding@hotmail.com"),
+                reminder("Third event", "organizer@example.com", "ericka.ankunding@hotmail.com")
+        );
+
+        EmailBatchResult result = this.underTest.sendReminderDigests(reminders);
+
+        // 9 reminders, 1 per slot and recipient, are sent as 3 emails
+        assertThat(result.sent()).isEqualTo(3);
+        assertThat(result.failedRecipients()).isEmpty();
+        assertThat(greenMail.getReceivedMessagesForDomain("example.com")).hasSize(1);
+        assertThat(greenMail.getReceivedMessagesForDomain("hotmail.com")).hasSize(1);
+        assertThat(greenMail.getReceivedMessagesForDomain("gmail.com")).hasSize(1);
+
+        String digest = GreenMailUtil.getBody(greenMail.getReceivedMessagesForDomain("hotmail.com")[0]);
+        assertThat(digest).contains("You have 3 upcoming events", "First event", "Second event", "Third event");
+    }
+
+    // A recipient of 1 slot receives the reminder of the slot
+    @Test
+    void shouldSendReminderWhenRecipientHasOneSlot() {
+        List<EventSlotReminder> reminders = List.of(
+                reminder("First event", "organizer@example.com", "waltraud.roberts@gmail.com"),
+                reminder("Second event", "organizer@example.com")
+        );
+
+        this.underTest.sendReminderDigests(reminders);
+
+        MimeMessage[] reminderEmails = greenMail.getReceivedMessagesForDomain("gmail.com");
+        assertThat(reminderEmails).hasSize(1);
+        assertThat(GreenMailUtil.getBody(reminderEmails[0])).contains("You have an upcoming event", "First event")
+                .doesNotContain("Second event");
+    }
+
+    private EventSlotReminder reminder(String title, String organizerEmail, String... guestEmails) {
+        UUID id = UUID.randomUUID();
+        Set<String> recipients = new LinkedHashSet<>();
+        recipients.add(organizerEmail);
+        recipients.addAll(Arrays.asList(guestEmails));
+
+        return new EventSlotReminder(id, "Thursday Sep 19, 2024", title, "Organizer", Set.of(guestEmails), "api/v1/events/day-event-slots/" + id, recipients);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.calendar.email;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.example.calendar.event.recurrence.RecurrenceFrequency;
+import org.example.calendar.event.time.dto.TimeEventInvitationRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The dispatch runs on the calling thread, the EmailService is mocked
+@ExtendWith(MockitoExtension.class)
+class InvitationEmailDispatcherTest extends AbstractRepositoryTest {
+    @Autowired
+    private JdbcClient jdbcClient;
+    private InvitationEmailOutboxRepository outboxRepository;
+    @Mock
+    private EmailService emailService;
+    private InvitationEmailDispatcher underTest;
+    private static final Set<String> GUEST_EMAILS = Set.of("ericka.ankunding@hotmail.com", "waltraud.roberts@gmail.com");
+    private static final TimeEventInvitationRequest INVITATION_REQUEST = TimeEventInvitationRequest.builder()
+            .eventName("Event title")
+            .organizer("kris.hudson")
+            .guestEmails(GUEST_EMAILS)
+            .recurrenceFrequency(RecurrenceFrequency.NEVER)
+            .startTime(LocalDateTime.parse("2024-10-11T10:00:00"))
+            .endTime(LocalDateTime.parse("2024-10-11T15:00:00"))
+            .startTimeZoneId(ZoneId.of("Europe/London"))
+            .endTimeZoneId(ZoneId.of("Europe/London"))
+            .build();
+
+    @BeforeEach
+    void setup() {
+        // The ObjectMapper of the application, with the java.time module
+        this.outboxRepository = new InvitationEmailOutboxRepository(this.jdbcClient, JsonMapper.builder().findAndAddModules().build());
+        this.underTest = new InvitationEmailDispatcher(this.outboxRepository, this.emailService, Runnable::run);
+    }
+
+    @Test
+    void shouldRenderInvitationOnceAndSendItToEveryGuest() {
+        this.outboxRepository.create(INVITATION_REQUEST);
+        when(this.emailService.renderInvitationEmail(INVITATION_REQUEST)).thenReturn("invitation");
+        when(this.emailService.sendInvitationEmails(GUEST_EMAILS, "invitation")).thenReturn(new EmailBatchResult(2, Set.of(), 1, Duration.ofMillis(10)));
+
+        this.underTest.dispatch();
+
+        verify(this.emailService, times(1)).renderInvitationEmail(INVITATION_REQUEST);
+        verify(this.emailService, times(1)).sendInvitationEmails(GUEST_EMAILS, "invitation");
+        assertThat(count()).isZero();
+    }
+
+    @Test
+    void shouldSendInvitationAgainOnlyToTheGuestsThatFailed() {
+        this.outboxRepository.create(INVITATION_REQUEST);
+        when(this.emailService.renderInvitationEmail(any())).thenReturn("invitation");
+        when(this.emailService.sendInvitationEmails(any(), any())).thenReturn(new EmailBatchResult(1, Set.of("waltraud.roberts@gmail.com"), 1, Duration.ofMillis(10)));
+
+        this.underTest.dispatch();
+
+        assertThat(count()).isOne();
+        assertThat(this.jdbcClient.sql("SELECT guest_emails FROM invitation_email_outbox").query((rs, rowNum) -> (String[]) rs.getArray(1).getArray()).single())
+                .containsExactly("waltraud.roberts@gmail.com");
+
+        this.underTest.dispatch();
+
+        verify(this.emailService, times(1)).sendInvitationEmails(GUEST_EMAILS, "invitation");
+        verify(this.emailService, times(1)).sendInvitationEmails(Set.of("waltraud.roberts@gmail.com"), "invitation");
+    }
+
+    @Test
+    void shouldNotClaimInvitationAfterMaxAttempts() {
+        this.outboxRepository.create(INVITATION_REQUEST);
+        when(this.emailService.renderInvitationEmail(any())).thenReturn("invitation");
+        when(this.emailService.sendInvitationEmails(any(), any())).thenReturn(new EmailBatchResult(0, GUEST_EMAILS, 1, Duration.ofMillis(10)));
+
+        for (int i = 0; i < 10; i++) {
+            this.underTest.dispatch();
+        }
+
+        verify(this.emailService, times(5)).renderInvitationEmail(any());
+        assertThat(count()).isOne();
+    }
+
+    private long count() {
+        return this.jdbcClient.sql("SELECT count(*) FROM invitation_email_outbox").query(Long.class).single();
+    }
+}
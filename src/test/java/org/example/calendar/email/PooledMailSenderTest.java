@@ -0,0 +1,123 @@
+package org.example.calendar.email;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The emails are sent to GreenMail with the same authentication as the integration tests
+class PooledMailSenderTest {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test", "test"));
+    private ExecutorService executor;
+    private JavaMailSenderImpl mailSender;
+    private PooledMailSender underTest;
+
+    @BeforeEach
+    void setup() {
+        this.executor = Executors.newFixedThreadPool(PooledMailSender.POOL_SIZE);
+        this.mailSender = mailSender(ServerSetupTest.SMTP.getPort());
+        this.underTest = new PooledMailSender(this.mailSender, this.executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.underTest.shutdown();
+        this.executor.shutdown();
+    }
+
+    @Test
+    void shouldSendEveryEmailOfTheBatchOverThePooledConnections() throws MessagingException {
+        EmailBatchResult result = this.underTest.send(emails(this.mailSender, 100));
+
+        assertThat(result.sent()).isEqualTo(100);
+        assertThat(result.failedRecipients()).isEmpty();
+        assertThat(result.connections()).isEqualTo(PooledMailSender.POOL_SIZE);
+        assertThat(result.emailsPerSecond()).isPositive();
+        assertThat(greenMail.getReceivedMessages()).hasSize(100);
+    }
+
+    // A batch of less than MIN_EMAILS_PER_CONNECTION emails per connection is sent on 1 connection
+    @Test
+    void shouldSendSmallBatchesOnOneConnection() throws MessagingException {
+        EmailBatchResult result = this.underTest.send(emails(this.mailSender, 5));
+
+        assertThat(result.connections()).isOne();
+
+        result = this.underTest.send(emails(this.mailSender, 5));
+
+        assertThat(result.sent()).isEqualTo(5);
+        assertThat(greenMail.getReceivedMessages()).hasSize(10);
+    }
+
+    // The pooled connections are closed by the restart, they are replaced when they are borrowed
+    @Test
+    void shouldReplaceConnectionsClosedByTheServer() throws MessagingException {
+        this.underTest.send(emails(this.mailSender, 40));
+        greenMail.reset();
+        // The restart drops the users of the configuration
+        greenMail.setUser("test", "test", "test");
+
+        EmailBatchResult result = this.underTest.send(emails(this.mailSender, 40));
+
+        assertThat(result.sent()).isEqualTo(40);
+        assertThat(result.failedRecipients()).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).hasSize(40);
+    }
+
+    @Test
+    void shouldReturnRecipientsOfEmailsThatFailedWhenServerCanNotBeReached() throws MessagingException {
+        JavaMailSenderImpl unreachable = mailSender(ServerSetupTest.SMTP.getPort() + 1);
+        PooledMailSender sender = new PooledMailSender(unreachable, this.executor);
+
+        EmailBatchResult result = sender.send(emails(unreachable, 20));
+
+        assertThat(result.sent()).isZero();
+        assertThat(result.failedRecipients()).hasSize(20)
+                .contains("guest0@example.com", "guest19@example.com");
+    }
+
+    private JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(port);
+        sender.setUsername("test");
+        sender.setPassword("test");
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", "true");
+        sender.setJavaMailProperties(properties);
+
+        return sender;
+    }
+
+    private List<MimeMessage> emails(JavaMailSenderImpl sender, int count) throws MessagingException {
+        List<MimeMessage> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MimeMessage email = sender.createMimeMessage();
+            email.setFrom("test@example.com");
+            email.setRecipients(MimeMessage.RecipientType.TO, "guest" + i + "@example.com");
+            email.setSubject("Invitation");
+            email.setText("Invitation " + i);
+            emails.add(email);
+        }
+
+        return emails;
+    }
+}
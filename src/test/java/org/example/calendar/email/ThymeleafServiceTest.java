@@ -12,8 +12,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -80,4 +82,17 @@ class ThymeleafServiceTest {
 
         assertThat(actual.replaceAll("\\s+", " ").trim()).isEqualTo(expected.replaceAll("\\s+", " ").trim());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSetContextForEventReminderDigestEmail() throws IOException {
+        List<EventSlotReminder> reminders = List.of(
+                new EventSlotReminder(UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"), "Thursday Sep 19, 2024", "Event title", "Organizer", new TreeSet<>(Set.of("example1@example.com", "example2@example.com")), "api/v1/events/day-event-slots/3075c6eb-8028-4f99-8c6c-27db1bb5cc43", Set.of()),
+                new EventSlotReminder(UUID.fromString("a1d2b5c4-7b8e-4f6a-9c3d-2e1f0a9b8c7d"), "Friday Sep 20, 2024", null, "Organizer", Set.of("example1@example.com"), "api/v1/events/day-event-slots/a1d2b5c4-7b8e-4f6a-9c3d-2e1f0a9b8c7d", Set.of())
+        );
+        String path = "src/test/resources/templates/test_reminder_digest_email.html";
+        String expected = new String(Files.readAllBytes(Paths.get(path)));
+        String actual = this.underTest.setReminderDigestEmailContext(reminders);
+
+        assertThat(actual.replaceAll("\\s+", " ").trim()).isEqualTo(expected.replaceAll("\\s+", " ").trim());
+    }
+}
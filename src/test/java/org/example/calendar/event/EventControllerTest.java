@@ -10,6 +10,8 @@ import org.example.calendar.event.time.TimeEventService;
 import org.example.calendar.event.time.dto.TimeEventRequest;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.config.SecurityConfig;
+import org.example.calendar.event.dto.EventSlotPage;
+import org.example.calendar.exception.BadRequestException;
 import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.AuthTestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,12 +19,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.junit.jupiter.api.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -38,13 +49,17 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.Matchers.containsString;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /*
@@ -57,6 +72,8 @@ class EventControllerTest {
     @Autowired
     private MockMvc mockMvc;
     @Autowired
+    private EventController eventController;
+    @Autowired
     private ObjectMapper objectMapper;
     @MockBean
     private JwtDecoder jwtDecoder;
@@ -64,6 +81,10 @@ class EventControllerTest {
     private TimeEventService timeEventService;
     @MockBean
     private DayEventService dayEventService;
+    @MockBean
+    private EventScheduleService eventScheduleService;
+    @MockBean
+    private ScheduleCache scheduleCache;
     private static final String DAY_EVENT_PATH = "/api/v1/events/day-events";
     private static final String TIME_EVENT_PATH = "/api/v1/events/time-events";
 
@@ -950,6 +971,128 @@ class EventControllerTest {
                         content().json(this.objectMapper.writeValueAsString(List.of(dayEventSlotPublicProjection, timeEventSlotPublicProjection)))
                 );
     }
+    @Test
+    void should200WithEventSlotsSortedByStartDateAndStartTime() throws Exception {
+        DayEventSlotPublicProjection dayEventSlot1 = createDayEventSlotPublicProjection(UUID.randomUUID());
+        dayEventSlot1.setId(UUID.randomUUID());
+        dayEventSlot1.setStartDate(LocalDate.now());
+        DayEventSlotPublicProjection dayEventSlot2 = createDayEventSlotPublicProjection(UUID.randomUUID());
+        dayEventSlot2.setId(UUID.randomUUID());
+        dayEventSlot2.setStartDate(LocalDate.now().plusDays(3));
+        TimeEventSlotPublicProjection timeEventSlot1 = createTimeEventSlotPublicProjection(UUID.randomUUID());
+        timeEventSlot1.setId(UUID.randomUUID());
+        timeEventSlot1.setStartTime(LocalDate.now().plusDays(1).atTime(9, 0));
+        TimeEventSlotPublicProjection timeEventSlot2 = createTimeEventSlotPublicProjection(UUID.randomUUID());
+        timeEventSlot2.setId(UUID.randomUUID());
+        timeEventSlot2.setStartTime(LocalDate.now().plusDays(4).atTime(9, 0));
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+
+        when(this.dayEventService.findEventSlotsByUserInDateRange(1L, startDate, endDate)).thenReturn(List.of(dayEventSlot1, dayEventSlot2));
+        when(this.timeEventService.findEventSlotsByUserInDateRange(1L, startDate.atStartOfDay(), ZoneId.of("UTC"), endDate.atStartOfDay(), ZoneId.of("UTC"))).thenReturn(List.of(timeEventSlot1, timeEventSlot2));
+
+        this.mockMvc.perform(get("/api/v1/events?start={start}&end={end}", startDate, endDate)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(authentication(AuthTestUtils.getAuthentication())))
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        content().json(this.objectMapper.writeValueAsString(List.of(dayEventSlot1, timeEventSlot1, dayEventSlot2, timeEventSlot2)), true)
+                );
+    }
+
+    // The cached schedule is written as it is, the services are not called
+    @Test
+    void should200WithCachedEventSlots() throws Exception {
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+        String window = ScheduleCache.window(startDate, endDate, ZoneId.of("UTC"), ZoneId.of("UTC"));
+        String schedule = this.objectMapper.writeValueAsString(List.of(createDayEventSlotPublicProjection(UUID.randomUUID())));
+
+        when(this.scheduleCache.find(1L, window)).thenReturn(Optional.of(schedule));
+
+        this.mockMvc.perform(get("/api/v1/events?start={start}&end={end}", startDate, endDate)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(authentication(AuthTestUtils.getAuthentication())))
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        content().json(schedule, true)
+                );
+
+        verifyNoInteractions(this.dayEventService);
+        verifyNoInteractions(this.timeEventService);
+    }
+
+    // The generation is read before the schedule, so the schedule is only cached if it did not change in between
+    @Test
+    void shouldCacheEventSlotsWhenScheduleIsNotCached() throws Exception {
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+        String window = ScheduleCache.window(startDate, endDate, ZoneId.of("UTC"), ZoneId.of("UTC"));
+
+        when(this.scheduleCache.find(1L, window)).thenReturn(Optional.empty());
+        when(this.scheduleCache.generation(1L)).thenReturn("3");
+        when(this.dayEventService.findEventSlotsByUserInDateRange(1L, startDate, endDate)).thenReturn(List.of());
+        when(this.timeEventService.findEventSlotsByUserInDateRange(1L, startDate.atStartOfDay(), ZoneId.of("UTC"), endDate.atStartOfDay(), ZoneId.of("UTC"))).thenReturn(List.of());
+
+        this.mockMvc.perform(get("/api/v1/events?start={start}&end={end}", startDate, endDate)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(authentication(AuthTestUtils.getAuthentication())))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json("[]", true)
+                );
+
+        verify(this.scheduleCache, times(1)).put(eq(1L), eq(window), eq("3"), anyString());
+    }
+
+    /*
+        The schedule is buffered until every slot is serialized. A slot that fails leaves the response uncommitted and
+        empty, the exception is handled like the ones of the services. The controller is called directly, MockMvc
+        rethrows the exception without the response.
+     */
+    @Test
+    void shouldNotWriteTheScheduleWhenAnEventSlotFailsToSerialize() {
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(this.scheduleCache.find(eq(1L), anyString())).thenReturn(Optional.empty());
+        when(this.dayEventService.findEventSlotsByUserInDateRange(1L, startDate, endDate)).thenReturn(List.of(dayEventSlot(startDate, "Title"), failingDayEventSlot(startDate)));
+        when(this.timeEventService.findEventSlotsByUserInDateRange(1L, startDate.atStartOfDay(), ZoneId.of("UTC"), endDate.atStartOfDay(), ZoneId.of("UTC"))).thenReturn(List.of());
+
+        assertThatExceptionOfType(JsonMappingException.class).isThrownBy(() -> this.eventController.findEventsByUserInDateRange(startDate, endDate, "", "", jwt(), response));
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        verify(this.scheduleCache, never()).put(anyLong(), anyString(), any(), anyString());
+    }
+
+    // A schedule larger than the buffer is streamed, a slot that fails after that truncates it, the array is not closed
+    @Test
+    void shouldTruncateTheStreamedScheduleWhenAnEventSlotFailsToSerialize() throws Exception {
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<DayEventSlotPublicProjection> eventSlots = new ArrayList<>();
+        String title = "T".repeat(1024);
+        for (int i = 0; i < 2 * 1024; i++) {
+            eventSlots.add(dayEventSlot(startDate, title));
+        }
+        eventSlots.add(failingDayEventSlot(startDate));
+
+        when(this.scheduleCache.find(eq(1L), anyString())).thenReturn(Optional.empty());
+        when(this.dayEventService.findEventSlotsByUserInDateRange(1L, startDate, endDate)).thenReturn(eventSlots);
+        when(this.timeEventService.findEventSlotsByUserInDateRange(1L, startDate.atStartOfDay(), ZoneId.of("UTC"), endDate.atStartOfDay(), ZoneId.of("UTC"))).thenReturn(List.of());
+
+        assertThatExceptionOfType(JsonMappingException.class).isThrownBy(() -> this.eventController.findEventsByUserInDateRange(startDate, endDate, "", "", jwt(), response));
+
+        assertThat(response.getContentAsByteArray()).hasSizeGreaterThan(ScheduleCache.CachingOutputStream.MAX_SIZE);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).startsWith("[").doesNotEndWith("]");
+        verify(this.scheduleCache, never()).put(anyLong(), anyString(), any(), anyString());
+    }
+
     @Test
     void should401WhenFindEventSlotsByUserInDateRangeIsCalledByUnauthenticatedUser() throws Exception {
         String responseBody = """
@@ -972,6 +1115,65 @@ class EventControllerTest {
         verifyNoInteractions(this.timeEventService);
     }
 
+    // findEventPageByUserInDateRange()
+    @Test
+    void should200WithEventSlotPage() throws Exception {
+        DayEventSlotPublicProjection dayEventSlotPublicProjection = createDayEventSlotPublicProjection(UUID.randomUUID());
+        TimeEventSlotPublicProjection timeEventSlotPublicProjection = createTimeEventSlotPublicProjection(UUID.randomUUID());
+        EventSlotPage page = new EventSlotPage(List.of(timeEventSlotPublicProjection, dayEventSlotPublicProjection), "next");
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+
+        when(this.eventScheduleService.findEventSlotPageByUserInDateRange(1L, startDate, endDate, ZoneId.of("UTC"), ZoneId.of("UTC"), "cursor", 2)).thenReturn(page);
+
+        this.mockMvc.perform(get("/api/v1/events/page?start={start}&end={end}&limit={limit}&cursor={cursor}", startDate, endDate, 2, "cursor")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(authentication(AuthTestUtils.getAuthentication())))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(this.objectMapper.writeValueAsString(page), true)
+                );
+    }
+
+    @Test
+    void should200WithEventSlotPageOfMaxSizeWhenLimitIsTooLarge() throws Exception {
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+
+        when(this.eventScheduleService.findEventSlotPageByUserInDateRange(1L, startDate, endDate, ZoneId.of("UTC"), ZoneId.of("UTC"), "", 200)).thenReturn(new EventSlotPage(List.of(), null));
+
+        this.mockMvc.perform(get("/api/v1/events/page?start={start}&end={end}&limit={limit}", startDate, endDate, 1000)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(authentication(AuthTestUtils.getAuthentication())))
+                .andExpect(status().isOk());
+
+        verify(this.eventScheduleService, times(1)).findEventSlotPageByUserInDateRange(1L, startDate, endDate, ZoneId.of("UTC"), ZoneId.of("UTC"), "", 200);
+    }
+
+    @Test
+    void should400WhenCursorIsInvalid() throws Exception {
+        String responseBody = """
+                {
+                    "status": 400,
+                    "type": "BAD_REQUEST",
+                    "message": "Invalid cursor: invalid",
+                    "path": "/api/v1/events/page"
+                }
+                """;
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now().plusDays(4);
+
+        when(this.eventScheduleService.findEventSlotPageByUserInDateRange(1L, startDate, endDate, ZoneId.of("UTC"), ZoneId.of("UTC"), "invalid", 50)).thenThrow(new BadRequestException("Invalid cursor: invalid"));
+
+        this.mockMvc.perform(get("/api/v1/events/page?start={start}&end={end}&cursor={cursor}", startDate, endDate, "invalid")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(authentication(AuthTestUtils.getAuthentication())))
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().json(responseBody, false)
+                );
+    }
+
     private DayEventRequest createDayEventRequest(LocalDate startDate, LocalDate endDate) {
         return DayEventRequest.builder()
                 .title("Event name")
@@ -1034,4 +1236,32 @@ class EventControllerTest {
                 .eventId(eventId)
                 .build();
     }
+
+    private Jwt jwt() {
+        return (Jwt) AuthTestUtils.getAuthentication().getPrincipal();
+    }
+
+    private DayEventSlotPublicProjection dayEventSlot(LocalDate startDate, String title) {
+        return DayEventSlotPublicProjection.builder()
+                .id(UUID.randomUUID())
+                .title(title)
+                .startDate(startDate)
+                .endDate(startDate)
+                .build();
+    }
+
+    // Jackson wraps the exception of the getter in a JsonMappingException
+    private DayEventSlotPublicProjection failingDayEventSlot(LocalDate startDate) {
+        DayEventSlotPublicProjection eventSlot = new DayEventSlotPublicProjection() {
+            @Override
+            public String getTitle() {
+                throw new IllegalStateException("Failed to read the title");
+            }
+        };
+        eventSlot.setId(UUID.randomUUID());
+        eventSlot.setStartDate(startDate);
+        eventSlot.setEndDate(startDate);
+
+        return eventSlot;
+    }
 }
@@ -0,0 +1,91 @@
+package org.example.calendar.event;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    The statements below are not issued by our repositories. Postgres looks up the slots of an event and the events of
+    a user for the foreign keys when they are deleted, and the schedule queries look up the slots of a guest email. The
+    plans of the repository queries are tested by TimeEventSlotQueryPlanTest and DayEventSlotQueryPlanTest, against
+    the statements of the repositories themselves. Our test data are a few rows, so the planner would pick a sequential
+    scan for every table regardless of the indexes. We disable sequential scans for the transaction of each test. If a
+    table still has a Seq Scan in the plan, there is no index the query can use.
+ */
+@Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+class EventQueryPlanTest extends AbstractRepositoryTest {
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    @BeforeEach
+    void setup() {
+        // @JdbcTest runs every test in a transaction that is rolled back, SET LOCAL does not outlive it
+        this.jdbcClient.sql("SET LOCAL enable_seqscan = off").update();
+    }
+
+    @Test
+    void shouldNotSeqScanToDeleteTimeEventSlotsByEventId() {
+        List<String> plan = explain("""
+                DELETE FROM time_event_slots
+                WHERE event_id = :eventId
+                """, Map.of("eventId", UUID.fromString("0c9d6398-a6de-47f0-8328-04a2f3c0511c")));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void shouldNotSeqScanToDeleteDayEventSlotsByEventId() {
+        List<String> plan = explain("""
+                DELETE FROM day_event_slots
+                WHERE event_id = :eventId
+                """, Map.of("eventId", UUID.fromString("4472d36c-2051-40e3-a2cf-00c6497807b5")));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void shouldNotSeqScanToFindEventsByOrganizer() {
+        List<String> plan = explain("""
+                SELECT te.id
+                FROM time_events te
+                WHERE te.organizer_id = :userId
+                UNION ALL
+                SELECT de.id
+                FROM day_events de
+                WHERE de.organizer_id = :userId
+                """, Map.of("userId", 1L));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void shouldNotSeqScanToFindSlotsByGuestEmail() {
+        List<String> plan = explain("""
+                SELECT event_slot_id
+                FROM time_event_slot_effective_guest_emails
+                WHERE email = :email
+                UNION ALL
+                SELECT event_slot_id
+                FROM day_event_slot_effective_guest_emails
+                WHERE email = :email
+                """, Map.of("email", "ericka.ankunding@hotmail.com"));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    private List<String> explain(String sql, Map<String, Object> params) {
+        return this.jdbcClient.sql("EXPLAIN " + sql)
+                .params(params)
+                .query(String.class)
+                .list();
+    }
+}
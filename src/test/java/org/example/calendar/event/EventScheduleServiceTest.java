@@ -0,0 +1,160 @@
+package org.example.calendar.event;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.example.calendar.email.EmailService;
+import org.example.calendar.event.day.DayEventRepository;
+import org.example.calendar.event.day.DayEventService;
+import org.example.calendar.event.dto.EventSlotPage;
+import org.example.calendar.event.slot.day.DayEventSlotRepository;
+import org.example.calendar.event.slot.day.DayEventSlotService;
+import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
+import org.example.calendar.event.slot.time.TimeEventSlotRepository;
+import org.example.calendar.event.slot.time.TimeEventSlotService;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
+import org.example.calendar.event.time.TimeEventRepository;
+import org.example.calendar.event.time.TimeEventService;
+import org.example.calendar.exception.BadRequestException;
+import org.example.calendar.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@ExtendWith(MockitoExtension.class)
+@Import({DayEventRepository.class, DayEventSlotRepository.class, TimeEventRepository.class, TimeEventSlotRepository.class, UserRepository.class})
+@Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+class EventScheduleServiceTest extends AbstractRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private DayEventRepository dayEventRepository;
+    @Autowired
+    private DayEventSlotRepository dayEventSlotRepository;
+    @Autowired
+    private TimeEventRepository timeEventRepository;
+    @Autowired
+    private TimeEventSlotRepository timeEventSlotRepository;
+    @Mock
+    private EmailService emailService;
+    private EventScheduleService underTest;
+    private static final LocalDate START_DATE = LocalDate.parse("2024-09-01");
+    private static final LocalDate END_DATE = LocalDate.parse("2024-11-30");
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    @BeforeEach
+    void setup() {
+        DayEventService dayEventService = new DayEventService(new DayEventSlotService(dayEventSlotRepository, userRepository, eventPublisher), dayEventRepository, userRepository, emailService, eventPublisher);
+        TimeEventService timeEventService = new TimeEventService(timeEventRepository, userRepository, new TimeEventSlotService(timeEventSlotRepository, userRepository, eventPublisher), emailService, eventPublisher);
+        this.underTest = new EventScheduleService(dayEventService, timeEventService);
+    }
+
+    /*
+        The user is organizer of 4 day event slots and 1 time event slot and invited to 1 day event slot and 2 time
+        event slots. In UTC:
+            2024-09-30, 2024-10-04, 2024-10-08, 2024-10-12, 2024-10-15T09:00, 2024-10-28T13:00, 2024-10-29,
+            2024-10-29T09:00
+     */
+    @Test
+    void shouldFindEventSlotPagesByUserInDateRange() {
+        EventSlotPage page = this.underTest.findEventSlotPageByUserInDateRange(2L, START_DATE, END_DATE, UTC, UTC, null, 3);
+
+        assertThat(page.eventSlots()).extracting(AbstractEventSlotPublicProjection::getId)
+                .containsExactly(
+                        UUID.fromString("5ff9cedf-ee36-4ec2-aa2e-5b6a16708ab0"),
+                        UUID.fromString("009d1441-ab86-411a-baeb-77a1d976868f"),
+                        UUID.fromString("35bdbe9f-9c5b-4907-8ae9-a983dacbda43"));
+        assertThat(page.next()).isNotNull();
+
+        page = this.underTest.findEventSlotPageByUserInDateRange(2L, START_DATE, END_DATE, UTC, UTC, page.next(), 3);
+
+        assertThat(page.eventSlots()).extracting(AbstractEventSlotPublicProjection::getId)
+                .containsExactly(
+                        UUID.fromString("e2985eda-5c5a-40a0-851e-6dc088081afa"),
+                        UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"),
+                        UUID.fromString("77a7f7aa-a075-42fb-a06f-7d0fb5016352"));
+        // Converted from UTC to the timezone of the slot after the page is merged
+        assertThat(((TimeEventSlotPublicProjection) page.eventSlots().get(1)).getStartTime()).isEqualTo(LocalDateTime.parse("2024-10-15T10:00:00"));
+        assertThat(page.next()).isNotNull();
+
+        page = this.underTest.findEventSlotPageByUserInDateRange(2L, START_DATE, END_DATE, UTC, UTC, page.next(), 3);
+
+        assertThat(page.eventSlots()).extracting(AbstractEventSlotPublicProjection::getId)
+                .containsExactly(
+                        UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa"),
+                        UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"));
+        assertThat(page.next()).isNull();
+    }
+
+    // Every cursor points to the previous slot, whether it is a day or a time event slot
+    @Test
+    void shouldFindEveryEventSlotOnceWhenPageHasOneEventSlot() {
+        List<UUID> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            EventSlotPage page = this.underTest.findEventSlotPageByUserInDateRange(2L, START_DATE, END_DATE, UTC, UTC, cursor, 1);
+            page.eventSlots().forEach(eventSlot -> ids.add(eventSlot.getId()));
+            cursor = page.next();
+        } while (cursor != null);
+
+        assertThat(ids).containsExactly(
+                UUID.fromString("5ff9cedf-ee36-4ec2-aa2e-5b6a16708ab0"),
+                UUID.fromString("009d1441-ab86-411a-baeb-77a1d976868f"),
+                UUID.fromString("35bdbe9f-9c5b-4907-8ae9-a983dacbda43"),
+                UUID.fromString("e2985eda-5c5a-40a0-851e-6dc088081afa"),
+                UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"),
+                UUID.fromString("77a7f7aa-a075-42fb-a06f-7d0fb5016352"),
+                UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa"),
+                UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"));
+    }
+
+    /*
+        The midnight of 2024-10-29 in Asia/Tokyo is 2024-10-28T15:00 UTC. The day event slot of 2024-10-29 comes after
+        the time event slot of 2024-10-28T13:00 UTC, even in a page that starts after the time event slot.
+     */
+    @Test
+    void shouldFindEventSlotPagesByUserInDateRangeInTheTimezoneOfTheRequest() {
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        EventSlotPage page = this.underTest.findEventSlotPageByUserInDateRange(2L, LocalDate.parse("2024-10-28"), END_DATE, tokyo, tokyo, null, 1);
+
+        assertThat(page.eventSlots()).extracting(AbstractEventSlotPublicProjection::getId)
+                .containsExactly(UUID.fromString("77a7f7aa-a075-42fb-a06f-7d0fb5016352"));
+
+        page = this.underTest.findEventSlotPageByUserInDateRange(2L, LocalDate.parse("2024-10-28"), END_DATE, tokyo, tokyo, page.next(), 1);
+
+        assertThat(page.eventSlots()).extracting(AbstractEventSlotPublicProjection::getId)
+                .containsExactly(UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa"));
+    }
+
+    // The day event slot of 2024-10-29 to 2024-10-30 starts before the range and ends in it
+    @Test
+    void shouldFindEventSlotsThatStartBeforeTheRangeAndOverlapIt() {
+        EventSlotPage page = this.underTest.findEventSlotPageByUserInDateRange(2L, LocalDate.parse("2024-10-30"), END_DATE, UTC, UTC, null, 3);
+
+        assertThat(page.eventSlots()).extracting(AbstractEventSlotPublicProjection::getId)
+                .containsExactly(UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa"));
+        assertThat(page.next()).isNull();
+    }
+
+    @Test
+    void shouldThrowBadRequestExceptionWhenCursorIsInvalid() {
+        assertThatExceptionOfType(BadRequestException.class).isThrownBy(() -> this.underTest.findEventSlotPageByUserInDateRange(2L, START_DATE, END_DATE, UTC, UTC, "invalid", 3))
+                .withMessage("Invalid cursor: invalid");
+    }
+}
@@ -10,6 +10,7 @@ import org.example.calendar.event.recurrence.RecurrenceFrequency;
 import org.example.calendar.event.slot.day.DayEventSlotPublicProjectionAssert;
 import org.example.calendar.event.slot.day.DayEventSlotRepository;
 import org.example.calendar.event.slot.day.DayEventSlotService;
+import org.example.calendar.event.slot.day.dto.DayEventSlotRequest;
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
 import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.jdbc.Sql;
 import org.mockito.Mock;
@@ -29,8 +31,10 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /*
@@ -47,6 +51,8 @@ class DayEventServiceTest extends AbstractRepositoryTest {
     private DayEventSlotRepository eventSlotRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     private DayEventSlotService dayEventSlotService;
     @Mock
     private EmailService emailService;
@@ -54,8 +60,8 @@ class DayEventServiceTest extends AbstractRepositoryTest {
 
     @BeforeEach
     void setup() {
-        this.dayEventSlotService = new DayEventSlotService(eventSlotRepository, userRepository);
-        this.underTest = new DayEventService(dayEventSlotService, eventRepository, userRepository, emailService);
+        this.dayEventSlotService = new DayEventSlotService(eventSlotRepository, userRepository, eventPublisher);
+        this.underTest = new DayEventService(dayEventSlotService, eventRepository, userRepository, emailService, eventPublisher);
     }
 
     @Test
@@ -91,7 +97,7 @@ class DayEventServiceTest extends AbstractRepositoryTest {
                 .numbersOfOccurrences(eventRequest.getNumberOfOccurrences())
                 .startDate(eventRequest.getStartDate())
                 .build();
-        doNothing().when(this.emailService).sendInvitationEmail(emailRequest);
+        doNothing().when(this.emailService).enqueueInvitationEmail(emailRequest);
 
         UUID eventId = this.underTest.createEvent(1L, eventRequest);
 
@@ -107,13 +113,13 @@ class DayEventServiceTest extends AbstractRepositoryTest {
                 .hasDescription(null)
                 .hasGuests(Collections.emptySet());
 
-        verify(this.emailService, times(1)).sendInvitationEmail(emailRequest);
+        verify(this.emailService, times(1)).enqueueInvitationEmail(emailRequest);
     }
 
     /*
         In this method, the event request we provide has different frequency properties and start/end date from the
-        current state of the resource(event). In this case, we delete all the event slots(4) and compute the new ones
-        based on the event request.
+        current state of the resource(event). In this case, the event slots(4) are matched to the occurrences of the
+        event request. The event no longer recurs, it has 1 slot.
      */
     @Test
     @Sql({"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
@@ -176,6 +182,75 @@ class DayEventServiceTest extends AbstractRepositoryTest {
         );
     }
 
+    /*
+        The event starts 1 day later. Its slots move with it and keep their ids, the slot that was moved by the user
+        keeps its dates, and the slot that was deleted by the user is not created again.
+     */
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldMoveTheEventSlotsWhenTheStartDateOfTheEventChanges() {
+        DayEventRequest eventRequest = DayEventRequest.builder()
+                .title("Event title")
+                .startDate(LocalDate.parse("2030-01-07"))
+                .endDate(LocalDate.parse("2030-01-08"))
+                .recurrenceFrequency(RecurrenceFrequency.DAILY)
+                .recurrenceStep(1)
+                .recurrenceDuration(RecurrenceDuration.N_OCCURRENCES)
+                .numberOfOccurrences(4)
+                .guestEmails(Collections.emptySet())
+                .build();
+        UUID eventId = this.underTest.createEvent(1L, eventRequest);
+        List<DayEventSlotPublicProjection> created = this.dayEventSlotService.findEventSlotsByEventAndUserId(eventId, 1L);
+        this.dayEventSlotService.updateEventSlot(1L, created.get(2).getId(), DayEventSlotRequest.builder()
+                .title("Event title")
+                .startDate(LocalDate.parse("2030-01-20"))
+                .endDate(LocalDate.parse("2030-01-20"))
+                .guestEmails(Collections.emptySet())
+                .build());
+        this.dayEventSlotService.deleteEventSlotById(created.get(3).getId(), 1L);
+
+        eventRequest.setStartDate(LocalDate.parse("2030-01-08"));
+        eventRequest.setEndDate(LocalDate.parse("2030-01-09"));
+        eventRequest.setTitle("New title");
+        this.underTest.updateEvent(1L, eventId, eventRequest);
+
+        List<DayEventSlotPublicProjection> projections = this.dayEventSlotService.findEventSlotsByEventAndUserId(eventId, 1L);
+
+        assertThat(projections).extracting(DayEventSlotPublicProjection::getId).containsExactly(created.get(0).getId(), created.get(1).getId(), created.get(2).getId());
+        assertThat(projections).extracting(DayEventSlotPublicProjection::getStartDate).containsExactly(LocalDate.parse("2030-01-08"), LocalDate.parse("2030-01-09"), LocalDate.parse("2030-01-20"));
+        assertThat(projections).extracting(DayEventSlotPublicProjection::getEndDate).containsExactly(LocalDate.parse("2030-01-09"), LocalDate.parse("2030-01-10"), LocalDate.parse("2030-01-20"));
+        assertThat(projections).extracting(DayEventSlotPublicProjection::getTitle).containsOnly("New title");
+    }
+
+    // Only the occurrences of the new recurrence that had no slot are created, the ones that no longer occur are deleted
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldCreateAndDeleteOnlyTheChangedOccurrencesWhenTheRecurrenceChanges() {
+        DayEventRequest eventRequest = DayEventRequest.builder()
+                .title("Event title")
+                .startDate(LocalDate.parse("2030-01-07"))
+                .endDate(LocalDate.parse("2030-01-07"))
+                .recurrenceFrequency(RecurrenceFrequency.DAILY)
+                .recurrenceStep(2)
+                .recurrenceDuration(RecurrenceDuration.N_OCCURRENCES)
+                .numberOfOccurrences(3)
+                .guestEmails(Collections.emptySet())
+                .build();
+        UUID eventId = this.underTest.createEvent(1L, eventRequest);
+        List<DayEventSlotPublicProjection> created = this.dayEventSlotService.findEventSlotsByEventAndUserId(eventId, 1L);
+
+        // 2030-01-07, 2030-01-09, 2030-01-11 to 2030-01-07, 2030-01-10
+        eventRequest.setRecurrenceStep(3);
+        eventRequest.setNumberOfOccurrences(2);
+        this.underTest.updateEvent(1L, eventId, eventRequest);
+
+        List<DayEventSlotPublicProjection> projections = this.dayEventSlotService.findEventSlotsByEventAndUserId(eventId, 1L);
+
+        assertThat(projections).extracting(DayEventSlotPublicProjection::getStartDate).containsExactly(LocalDate.parse("2030-01-07"), LocalDate.parse("2030-01-10"));
+        assertThat(projections.get(0).getId()).isEqualTo(created.get(0).getId());
+        assertThat(projections.get(1).getId()).isNotIn(created.stream().map(DayEventSlotPublicProjection::getId).toList());
+    }
+
     /*
         There are 2 cases where the findByEventIdAndUserId() could throw ResourceNotFoundException.
             1. Event exists but the authenticated user is not the organizer
@@ -192,6 +267,82 @@ class DayEventServiceTest extends AbstractRepositoryTest {
         assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.underTest.updateEvent(2L, eventId, eventRequest)).withMessage("Day event not found with id: " + eventId);
     }
 
+    /*
+        For events that are recurring FOREVER, only the slots of the first year are created. When a date range after
+        that is requested, the occurrences of the range are computed from the event and nothing is written. The
+        scheduled task creates their slots later, with the same ids.
+     */
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldComputeOccurrencesAfterTheMaterializedSlotsForEventsRecurringForever() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        UUID eventId = this.underTest.createEvent(1L, foreverEventRequest(startDate));
+
+        List<DayEventSlotPublicProjection> projections = this.underTest.findEventSlotsByEventId(eventId, 1L);
+        int materializedSlots = (int) ChronoUnit.DAYS.between(startDate, startDate.plusYears(1)) + 1;
+        assertThat(projections).hasSize(materializedSlots);
+
+        // The guest requests a week 3 years later
+        projections = this.underTest.findEventSlotsByUserInDateRange(2L, startDate.plusYears(3), startDate.plusYears(3).plusDays(6));
+
+        assertThat(projections).hasSize(7);
+        DayEventSlotPublicProjectionAssert.assertThat(projections.get(0))
+                .hasStartDate(startDate.plusYears(3))
+                .hasEndDate(startDate.plusYears(3))
+                .hasTitle("Event title")
+                .hasLocation("Location")
+                .hasGuests(Set.of("ericka.ankunding@hotmail.com"));
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).hasSize(materializedSlots);
+
+        this.underTest.materializeForeverEvents(startDate.plusYears(3).plusDays(6));
+
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).extracting(DayEventSlotPublicProjection::getId)
+                .containsAll(projections.stream().map(DayEventSlotPublicProjection::getId).toList());
+    }
+
+    /*
+        The schedule returns the ids of occurrences that have no slot yet. A write to one of them creates the slots of
+        the event up until it first. The guest can't write to the slots, nothing is created for them.
+     */
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldMaterializeTheOccurrenceOfEventsRecurringForeverBeforeItIsWritten() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        UUID eventId = this.underTest.createEvent(1L, foreverEventRequest(startDate));
+        UUID slotId = this.underTest.findEventSlotsByUserInDateRange(1L, startDate.plusYears(3), startDate.plusYears(3)).get(0).getId();
+
+        this.underTest.materializeOccurrence(2L, slotId);
+        assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.dayEventSlotService.deleteEventSlotById(slotId, 2L));
+
+        this.underTest.materializeOccurrence(1L, slotId);
+        this.dayEventSlotService.deleteEventSlotById(slotId, 1L);
+
+        assertThat(this.underTest.findEventSlotsByUserInDateRange(1L, startDate.plusYears(3), startDate.plusYears(3))).isEmpty();
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).hasSize((int) ChronoUnit.DAYS.between(startDate, startDate.plusYears(3)))
+                .extracting(DayEventSlotPublicProjection::getId).doesNotContain(slotId);
+    }
+
+    // The template of the slots is the event, neither an edit of the last slot nor deleting every slot changes it
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldCreateTheSlotsOfEventsRecurringForeverFromTheEvent() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        UUID eventId = this.underTest.createEvent(1L, foreverEventRequest(startDate));
+        List<DayEventSlotPublicProjection> eventSlots = this.underTest.findEventSlotsByEventId(eventId, 1L);
+        DayEventSlotRequest eventSlotRequest = DayEventSlotRequest.builder()
+                .title("Edited title")
+                .build();
+        this.dayEventSlotService.updateEventSlot(1L, eventSlots.get(eventSlots.size() - 1).getId(), eventSlotRequest);
+        for (DayEventSlotPublicProjection eventSlot : eventSlots) {
+            this.dayEventSlotService.deleteEventSlotById(eventSlot.getId(), 1L);
+        }
+
+        this.underTest.materializeForeverEvents(startDate.plusYears(2));
+
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).isNotEmpty()
+                .allMatch(eventSlot -> eventSlot.getTitle().equals("Event title"));
+    }
+
     // We can also assert that findByEventSlotsByEventId returns an empty list. Event slots are delete for the event with ON DELETE CASCADE
     @Test
     @Sql({"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
@@ -214,4 +365,17 @@ class DayEventServiceTest extends AbstractRepositoryTest {
         UUID eventId = UUID.randomUUID();
         assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.underTest.deleteEventById(eventId, 1L)).withMessage("Day event not found with id: " + eventId);
     }
+
+    private DayEventRequest foreverEventRequest(LocalDate startDate) {
+        return DayEventRequest.builder()
+                .title("Event title")
+                .location("Location")
+                .startDate(startDate)
+                .endDate(startDate)
+                .recurrenceFrequency(RecurrenceFrequency.DAILY)
+                .recurrenceStep(1)
+                .recurrenceDuration(RecurrenceDuration.FOREVER)
+                .guestEmails(Set.of("ericka.ankunding@hotmail.com"))
+                .build();
+    }
 }
@@ -0,0 +1,93 @@
+package org.example.calendar.event.recurrence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccurrenceDiffTest {
+
+    // Only the time of the event changed, every occurrence matches itself
+    @Test
+    void shouldMatchEveryOccurrenceWhenTheDatesDidNotChange() {
+        List<LocalDate> occurrences = List.of(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-14"), LocalDate.parse("2024-10-21"));
+
+        OccurrenceDiff diff = OccurrenceDiff.of(occurrences, occurrences, 0);
+
+        assertThat(diff.matches()).isEqualTo(Map.of(
+                LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-07"),
+                LocalDate.parse("2024-10-14"), LocalDate.parse("2024-10-14"),
+                LocalDate.parse("2024-10-21"), LocalDate.parse("2024-10-21")));
+        assertThat(diff.removed()).isEmpty();
+        assertThat(diff.added()).isEmpty();
+    }
+
+    // A daily event that starts 1 day later, every slot moves by 1 day, none is deleted and created again
+    @Test
+    void shouldMatchTheShiftedOccurrencesWhenTheStartDateMoved() {
+        List<LocalDate> previous = List.of(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"));
+        List<LocalDate> current = List.of(LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-10"));
+
+        OccurrenceDiff diff = OccurrenceDiff.of(previous, current, 1);
+
+        assertThat(diff.matches()).containsEntry(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-08"))
+                .containsEntry(LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"))
+                .containsEntry(LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-10"))
+                .hasSize(3);
+        assertThat(diff.removed()).isEmpty();
+        assertThat(diff.added()).isEmpty();
+    }
+
+    // Every Monday and Wednesday to every Monday and Friday, the Mondays keep their slots
+    @Test
+    void shouldMatchTheOccurrencesOnTheSameDateWhenTheRecurrenceChanged() {
+        List<LocalDate> previous = List.of(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-14"), LocalDate.parse("2024-10-16"));
+        List<LocalDate> current = List.of(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-11"), LocalDate.parse("2024-10-14"), LocalDate.parse("2024-10-18"));
+
+        OccurrenceDiff diff = OccurrenceDiff.of(previous, current, 0);
+
+        assertThat(diff.matches()).containsEntry(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-07"))
+                .containsEntry(LocalDate.parse("2024-10-14"), LocalDate.parse("2024-10-14"))
+                .hasSize(2);
+        assertThat(diff.removed()).containsExactly(LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-16"));
+        assertThat(diff.added()).containsExactly(LocalDate.parse("2024-10-11"), LocalDate.parse("2024-10-18"));
+    }
+
+    /*
+        The start moved from Monday to Tuesday and the recurrence changed from every Monday and Wednesday to every
+        Tuesday, Wednesday and Friday. The Monday is matched with the shifted Tuesday, the Wednesday has no shifted
+        match and is matched with the same date.
+     */
+    @Test
+    void shouldMatchTheSameDateWhenTheShiftedOccurrenceDoesNotExist() {
+        List<LocalDate> previous = List.of(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-14"));
+        List<LocalDate> current = List.of(LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-11"));
+
+        OccurrenceDiff diff = OccurrenceDiff.of(previous, current, 1);
+
+        assertThat(diff.matches()).containsEntry(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-08"))
+                .containsEntry(LocalDate.parse("2024-10-09"), LocalDate.parse("2024-10-09"))
+                .hasSize(2);
+        assertThat(diff.removed()).containsExactly(LocalDate.parse("2024-10-14"));
+        assertThat(diff.added()).containsExactly(LocalDate.parse("2024-10-11"));
+    }
+
+    // Fewer occurrences, the last ones are removed. More occurrences, only the new ones are added
+    @Test
+    void shouldRemoveAndAddOnlyTheOccurrencesThatChanged() {
+        List<LocalDate> previous = List.of(LocalDate.parse("2024-10-07"), LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"));
+
+        OccurrenceDiff fewer = OccurrenceDiff.of(previous, previous.subList(0, 1), 0);
+        OccurrenceDiff more = OccurrenceDiff.of(previous.subList(0, 1), previous, 0);
+
+        assertThat(fewer.matches()).containsOnlyKeys(LocalDate.parse("2024-10-07"));
+        assertThat(fewer.removed()).containsExactly(LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"));
+        assertThat(fewer.added()).isEmpty();
+        assertThat(more.matches()).containsOnlyKeys(LocalDate.parse("2024-10-07"));
+        assertThat(more.removed()).isEmpty();
+        assertThat(more.added()).containsExactly(LocalDate.parse("2024-10-08"), LocalDate.parse("2024-10-09"));
+    }
+}
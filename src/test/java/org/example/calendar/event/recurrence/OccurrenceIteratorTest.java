@@ -0,0 +1,112 @@
+package org.example.calendar.event.recurrence;
+
+import org.example.calendar.entity.DayEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    The occurrences of every frequency are tested by the slot service tests. These tests cover the closed form
+    arithmetic against the java.time API, for every day of a range that includes leap years.
+ */
+class OccurrenceIteratorTest {
+
+    @Test
+    void shouldComputeEpochDayAndDayOfWeek() {
+        for (LocalDate date = LocalDate.parse("1999-01-01"); date.isBefore(LocalDate.parse("2101-01-01")); date = date.plusDays(1)) {
+            long epochDay = OccurrenceIterator.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+
+            assertThat(epochDay).isEqualTo(date.toEpochDay());
+            assertThat(OccurrenceIterator.dayOfWeek(epochDay)).isEqualTo(date.getDayOfWeek().getValue());
+            assertThat(OccurrenceIterator.lengthOfMonth(date.getYear(), date.getMonthValue())).isEqualTo(date.lengthOfMonth());
+        }
+    }
+
+    // The 5th occurrence of a day falls back to the 4th, when the month has only 4
+    @Test
+    void shouldFindNthDayOfWeekInMonth() {
+        for (YearMonth yearMonth = YearMonth.parse("2020-01"); yearMonth.isBefore(YearMonth.parse("2030-01")); yearMonth = yearMonth.plusMonths(1)) {
+            long firstOfMonth = yearMonth.atDay(1).toEpochDay();
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                for (int n = 1; n <= 5; n++) {
+                    LocalDate expected = yearMonth.atDay(1).with(TemporalAdjusters.dayOfWeekInMonth(n, dayOfWeek));
+                    if (!YearMonth.from(expected).equals(yearMonth)) {
+                        expected = yearMonth.atDay(1).with(TemporalAdjusters.lastInMonth(dayOfWeek));
+                    }
+
+                    assertThat(OccurrenceIterator.nthDayOfWeekInMonth(firstOfMonth, yearMonth.lengthOfMonth(), dayOfWeek.getValue(), n))
+                            .isEqualTo(expected.getDayOfMonth());
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldIterateWeeklyOccurrencesUntilDate() {
+        DayEvent event = DayEvent.builder()
+                .recurrenceFrequency(RecurrenceFrequency.WEEKLY)
+                .recurrenceStep(2)
+                .weeklyRecurrenceDays(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+                .build();
+
+        // 2024-09-12 is a Thursday, the Monday of its week is before the start date
+        List<LocalDate> occurrences = toDates(OccurrenceIterator.until(event, LocalDate.parse("2024-09-12"), LocalDate.parse("2024-10-10")));
+
+        assertThat(occurrences).containsExactly(
+                LocalDate.parse("2024-09-12"),
+                LocalDate.parse("2024-09-23"),
+                LocalDate.parse("2024-09-26"),
+                LocalDate.parse("2024-10-07"),
+                LocalDate.parse("2024-10-10"));
+    }
+
+    @Test
+    void shouldIterateMonthlySameDayOccurrencesOnTheLastDayOfMonth() {
+        DayEvent event = DayEvent.builder()
+                .recurrenceFrequency(RecurrenceFrequency.MONTHLY)
+                .monthlyRecurrenceType(MonthlyRecurrenceType.SAME_DAY)
+                .recurrenceStep(1)
+                .build();
+
+        List<LocalDate> occurrences = toDates(OccurrenceIterator.first(event, LocalDate.parse("2023-01-31"), 4));
+
+        assertThat(occurrences).containsExactly(
+                LocalDate.parse("2023-01-31"),
+                LocalDate.parse("2023-02-28"),
+                LocalDate.parse("2023-03-31"),
+                LocalDate.parse("2023-04-30"));
+    }
+
+    @Test
+    void shouldIterateAnnualOccurrencesOfLeapDay() {
+        DayEvent event = DayEvent.builder()
+                .recurrenceFrequency(RecurrenceFrequency.ANNUALLY)
+                .recurrenceStep(1)
+                .build();
+
+        List<LocalDate> occurrences = toDates(OccurrenceIterator.until(event, LocalDate.parse("2024-02-29"), LocalDate.parse("2028-02-29")));
+
+        assertThat(occurrences).containsExactly(
+                LocalDate.parse("2024-02-29"),
+                LocalDate.parse("2025-02-28"),
+                LocalDate.parse("2026-02-28"),
+                LocalDate.parse("2027-02-28"),
+                LocalDate.parse("2028-02-29"));
+    }
+
+    private List<LocalDate> toDates(OccurrenceIterator iterator) {
+        List<LocalDate> dates = new ArrayList<>();
+        while (iterator.hasNext()) {
+            dates.add(LocalDate.ofEpochDay(iterator.nextLong()));
+        }
+        return dates;
+    }
+}
@@ -3,10 +3,12 @@ package org.example.calendar.event.slot;
 
 import org.example.calendar.AuthTestUtils;
 import org.example.calendar.event.dto.InviteGuestsRequest;
+import org.example.calendar.event.day.DayEventService;
 import org.example.calendar.event.slot.day.DayEventSlotService;
 import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjection;
 import org.example.calendar.event.slot.day.dto.DayEventSlotRequest;
 import org.example.calendar.event.slot.time.TimeEventSlotService;
+import org.example.calendar.event.time.TimeEventService;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.event.slot.time.dto.TimeEventSlotRequest;
 import org.example.calendar.config.SecurityConfig;
@@ -58,6 +60,10 @@ class EventSlotControllerTest {
     private DayEventSlotService dayEventSlotService;
     @MockBean
     private TimeEventSlotService timeEventSlotService;
+    @MockBean
+    private DayEventService dayEventService;
+    @MockBean
+    private TimeEventService timeEventService;
     private static final Faker FAKER = new Faker();
     private static final String DAY_EVENT_SLOT_PATH = "/api/v1/event-slots/day-event-slots";
     private static final String TIME_EVENT_SLOT_PATH = "/api/v1/event-slots/time-event-slots";
@@ -76,6 +82,8 @@ class EventSlotControllerTest {
                         .with(authentication(AuthTestUtils.getAuthentication())))
                 .andExpect(status().isNoContent());
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).inviteGuests(1L, slotId, request);
     }
 
@@ -105,6 +113,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).inviteGuests(1L, slotId, request);
     }
 
@@ -134,6 +144,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).inviteGuests(1L, slotId, request);
     }
 
@@ -231,6 +243,8 @@ class EventSlotControllerTest {
                         .with(authentication(AuthTestUtils.getAuthentication())))
                 .andExpect(status().isNoContent());
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).updateEventSlot(1L, slotId, eventSlotRequest);
     }
 
@@ -259,6 +273,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).updateEventSlot(1L, slotId, eventSlotRequest);
     }
 
@@ -287,6 +303,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).updateEventSlot(1L, slotId, eventSlotRequest);
     }
 
@@ -455,6 +473,8 @@ class EventSlotControllerTest {
                         status().isNoContent()
                 );
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).deleteEventSlotById(slotId, 1L);
     }
 
@@ -480,6 +500,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.dayEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.dayEventSlotService, times(1)).deleteEventSlotById(slotId, 1L);
     }
 
@@ -568,6 +590,8 @@ class EventSlotControllerTest {
                         .with(authentication(AuthTestUtils.getAuthentication())))
                 .andExpect(status().isNoContent());
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).inviteGuests(1L, slotId, request);
     }
 
@@ -596,6 +620,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).inviteGuests(1L, slotId, request);
     }
 
@@ -624,6 +650,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).inviteGuests(1L, slotId, request);
     }
 
@@ -718,6 +746,8 @@ class EventSlotControllerTest {
                         .with(authentication(AuthTestUtils.getAuthentication())))
                 .andExpect(status().isNoContent());
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).updateEventSlot(1L, slotId, eventSlotRequest);
     }
 
@@ -746,6 +776,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).updateEventSlot(1L, slotId, eventSlotRequest);
     }
 
@@ -774,6 +806,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).updateEventSlot(1L, slotId, eventSlotRequest);
     }
 
@@ -939,6 +973,8 @@ class EventSlotControllerTest {
                         .with(authentication(AuthTestUtils.getAuthentication())))
                 .andExpect(status().isNoContent());
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).deleteEventSlotById(slotId, 1L);
     }
 
@@ -964,6 +1000,8 @@ class EventSlotControllerTest {
                         content().json(responseBody, false)
                 );
 
+        verify(this.timeEventService, times(1)).materializeOccurrence(1L, slotId);
+
         verify(this.timeEventSlotService, times(1)).deleteEventSlotById(slotId, 1L);
     }
 
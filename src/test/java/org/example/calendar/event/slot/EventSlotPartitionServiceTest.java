@@ -0,0 +1,71 @@
+package org.example.calendar.event.slot;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.example.calendar.event.slot.EventSlotPartitionRepository.EventSlotTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The slots of INIT_EVENTS.sql start in 2024
+@Import(EventSlotPartitionRepository.class)
+@Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+class EventSlotPartitionServiceTest extends AbstractRepositoryTest {
+    @Autowired
+    private EventSlotPartitionRepository partitionRepository;
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    @Test
+    void shouldCreatePartitionsOfTheNextYears() {
+        EventSlotPartitionService underTest = new EventSlotPartitionService(this.partitionRepository, 0);
+
+        underTest.maintainPartitions(2030);
+
+        for (EventSlotTable table : EventSlotTable.values()) {
+            assertThat(this.partitionRepository.findPartitionYears(table)).contains(2024, 2030, 2031, 2032);
+        }
+    }
+
+    @Test
+    void shouldDropPartitionsBeforeTheRetentionPeriodWithTheirGuestsAndReminders() {
+        EventSlotPartitionService underTest = new EventSlotPartitionService(this.partitionRepository, 1);
+        this.jdbcClient.sql("INSERT INTO time_event_slot_reminders (slot_id, offset_minutes, fire_at) VALUES ('3075c6eb-8028-4f99-8c6c-27db1bb5cc43', 30, '2024-10-15T08:30:00')").update();
+
+        underTest.maintainPartitions(2025);
+
+        for (EventSlotTable table : EventSlotTable.values()) {
+            assertThat(this.partitionRepository.findPartitionYears(table)).doesNotContain(2024)
+                    .contains(2025, 2026, 2027);
+            assertThat(count("SELECT count(*) FROM " + table.getName())).isZero();
+            assertThat(count("SELECT count(*) FROM " + table.getGuestEmailsName())).isZero();
+            assertThat(count("SELECT count(*) FROM " + table.getRemindersName())).isZero();
+        }
+    }
+
+    // The UPDATE deletes the row from the partition of 2024 and inserts it in the one of 2025
+    @Test
+    void shouldKeepGuestsOfSlotThatMovesToThePartitionOfAnotherYear() {
+        this.partitionRepository.createPartitions(EventSlotTable.TIME, 2025, 2025);
+        this.jdbcClient.sql("""
+                        UPDATE time_event_slots
+                        SET start_time = '2025-01-07T09:00:00', end_time = '2025-01-07T14:00:00'
+                        WHERE id = '3075c6eb-8028-4f99-8c6c-27db1bb5cc43'
+                        """)
+                .update();
+
+        assertThat(count("SELECT count(*) FROM time_event_slots_2025 WHERE id = '3075c6eb-8028-4f99-8c6c-27db1bb5cc43'")).isOne();
+        assertThat(count("SELECT count(*) FROM time_event_slot_guest_emails WHERE event_slot_id = '3075c6eb-8028-4f99-8c6c-27db1bb5cc43'")).isOne();
+
+        this.jdbcClient.sql("DELETE FROM time_event_slots WHERE id = '3075c6eb-8028-4f99-8c6c-27db1bb5cc43'").update();
+
+        assertThat(count("SELECT count(*) FROM time_event_slot_guest_emails WHERE event_slot_id = '3075c6eb-8028-4f99-8c6c-27db1bb5cc43'")).isZero();
+    }
+
+    private long count(String sql) {
+        return this.jdbcClient.sql(sql).query(Long.class).single();
+    }
+}
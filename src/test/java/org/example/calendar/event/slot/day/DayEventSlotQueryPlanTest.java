@@ -0,0 +1,110 @@
+package org.example.calendar.event.slot.day;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    The plans of the queries of DayEventSlotRepository that run the most, or on the largest tables. We EXPLAIN the
+    statements of the repository itself, so a change to a query is tested as it is executed. Sequential scans are
+    disabled for the transaction of each test, if a table still has a Seq Scan in the plan, there is no index the
+    query can use.
+ */
+@Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+class DayEventSlotQueryPlanTest extends AbstractRepositoryTest {
+    @Autowired
+    private JdbcClient jdbcClient;
+    private static final Pattern PARTITION_PATTERN = Pattern.compile("day_event_slots_(\\d{4})");
+
+    @BeforeEach
+    void setup() {
+        // @JdbcTest runs every test in a transaction that is rolled back, SET LOCAL does not outlive it
+        this.jdbcClient.sql("SET LOCAL enable_seqscan = off").update();
+    }
+
+    @Test
+    void shouldNotSeqScanToFindDayEventSlotsByUserInDateRange() {
+        List<String> plan = explain(DayEventSlotRepository.FIND_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 2L, "email", "ericka.ankunding@hotmail.com", "startDate", Date.valueOf(LocalDate.parse("2024-10-01")), "endDate", Date.valueOf(LocalDate.parse("2024-10-31"))));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void shouldNotSeqScanToFindDayEventSlotPageByUserInDateRange() {
+        List<String> plan = explain(DayEventSlotRepository.FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 2L, "email", "ericka.ankunding@hotmail.com", "startDate", Date.valueOf(LocalDate.parse("2024-10-01")), "endDate", Date.valueOf(LocalDate.parse("2024-10-31")), "afterStartDate", Date.valueOf(LocalDate.parse("2024-10-12")), "afterId", UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"), "limit", 51));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    /*
+        The partitions of the years after the range, V12, are not in the plan. A day event can last any number of days,
+        so the partitions of the years before the range are still read.
+     */
+    @Test
+    void shouldNotReadThePartitionsAfterTheRangeToFindDayEventSlotsByUserInDateRange() {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions('day_event_slots', 2023, 2026)").query().listOfRows();
+
+        List<String> plan = explain(DayEventSlotRepository.FIND_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 2L, "email", "ericka.ankunding@hotmail.com", "startDate", Date.valueOf(LocalDate.parse("2024-10-01")), "endDate", Date.valueOf(LocalDate.parse("2024-10-31"))));
+
+        assertThat(partitionYears(plan)).contains(2023, 2024).allMatch(year -> year <= 2024);
+    }
+
+    @Test
+    void shouldNotReadThePartitionsAfterTheRangeToFindDayEventSlotPageByUserInDateRange() {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions('day_event_slots', 2023, 2026)").query().listOfRows();
+
+        List<String> plan = explain(DayEventSlotRepository.FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 2L, "email", "ericka.ankunding@hotmail.com", "startDate", Date.valueOf(LocalDate.parse("2024-10-01")), "endDate", Date.valueOf(LocalDate.parse("2024-10-31")), "afterStartDate", Date.valueOf(LocalDate.parse("2024-10-12")), "afterId", UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"), "limit", 51));
+
+        assertThat(partitionYears(plan)).contains(2023, 2024).allMatch(year -> year <= 2024);
+    }
+
+    @Test
+    void shouldNotSeqScanToEnqueueReminders() {
+        List<String> plan = explain(DayEventSlotRepository.ENQUEUE_REMINDERS_SQL, Map.of("today", Date.valueOf(LocalDate.parse("2024-10-11")), "until", Date.valueOf(LocalDate.parse("2024-10-12"))));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    // The outbox has no index for the claims, its rows are the reminders of the next day, the slots are read by id
+    @Test
+    void shouldNotSeqScanTheSlotsToClaimReminders() {
+        List<String> plan = explain(DayEventSlotRepository.CLAIM_REMINDERS_SQL, Map.of("now", Timestamp.valueOf(LocalDateTime.parse("2024-10-11T00:00:00")), "expiry", Timestamp.valueOf(LocalDateTime.parse("2024-10-10T23:50:00")), "maxAttempts", 5, "until", Date.valueOf(LocalDate.parse("2024-10-12")), "limit", 100));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan on day_event_slots"));
+    }
+
+    private Set<Integer> partitionYears(List<String> plan) {
+        Set<Integer> years = new HashSet<>();
+        for (String line : plan) {
+            Matcher matcher = PARTITION_PATTERN.matcher(line);
+            while (matcher.find()) {
+                years.add(Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return years;
+    }
+
+    private List<String> explain(String sql, Map<String, Object> params) {
+        return this.jdbcClient.sql("EXPLAIN " + sql)
+                .params(params)
+                .query(String.class)
+                .list();
+    }
+}
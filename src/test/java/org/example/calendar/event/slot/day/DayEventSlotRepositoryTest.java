@@ -8,24 +8,30 @@ import org.example.calendar.event.slot.day.projection.DayEventSlotReminderProjec
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 /*
-    Every other method of the repository is tested via the service expect this one. This one is used by the Notification
-    service for scheduled tasks.
+    Every other method of the repository is tested via the service expect these ones. These are used by the
+    Notification service for scheduled tasks.
  */
 @Import(DayEventSlotRepository.class)
 @Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
 class DayEventSlotRepositoryTest extends AbstractRepositoryTest {
     @Autowired
     private DayEventSlotRepository underTest;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int CLAIM_EXPIRY_IN_MINUTES = 10;
 
+    // A claimed reminder has the slot, its guests and its organizer
     @Test
-    void shouldFindEventSlotsByStartDate() {
-        List<DayEventSlotReminderProjection> projections = this.underTest.findByStartDate(LocalDate.parse("2024-10-12"));
+    void shouldClaimReminderWithTheSlotAndItsOrganizer() {
+        LocalDate today = LocalDate.parse("2024-10-11");
+        this.underTest.enqueueReminders(today, today.plusDays(1));
+        List<DayEventSlotReminderProjection> projections = claimReminders(today.atStartOfDay(), today.plusDays(1));
 
         assertThat(projections.get(0).getId()).isEqualTo(UUID.fromString("e2985eda-5c5a-40a0-851e-6dc088081afa"));
         assertThat(projections.get(0).getStartDate().isEqual(LocalDate.parse("2024-10-12"))).isTrue();
@@ -34,4 +40,71 @@ class DayEventSlotRepositoryTest extends AbstractRepositoryTest {
         assertThat(projections.get(0).getOrganizerUsername()).isEqualTo("clement.gulgowski");
         assertThat(projections.get(0).getGuestEmails()).isEmpty();
     }
+
+    // The reminder of a slot is enqueued once and claimed once
+    @Test
+    void shouldClaimReminderOnce() {
+        LocalDate today = LocalDate.parse("2024-10-11");
+        LocalDate tomorrow = today.plusDays(1);
+
+        assertThat(this.underTest.enqueueReminders(today, tomorrow)).isEqualTo(1);
+        assertThat(this.underTest.enqueueReminders(today, tomorrow)).isZero();
+
+        assertThat(claimReminders(today.atStartOfDay(), tomorrow)).extracting(DayEventSlotReminderProjection::getId)
+                .containsExactly(UUID.fromString("e2985eda-5c5a-40a0-851e-6dc088081afa"));
+        assertThat(claimReminders(today.atStartOfDay(), tomorrow)).isEmpty();
+    }
+
+    // A claim that was not marked as sent expires, a sent reminder is not enqueued or claimed again
+    @Test
+    void shouldClaimReminderAgainWhenClaimExpires() {
+        LocalDate today = LocalDate.parse("2024-10-11");
+        LocalDate tomorrow = today.plusDays(1);
+        LocalDateTime now = today.atStartOfDay();
+        this.underTest.enqueueReminders(today, tomorrow);
+
+        assertThat(claimReminders(now, tomorrow)).hasSize(1);
+        assertThat(claimReminders(now.plusMinutes(5), tomorrow)).isEmpty();
+
+        List<DayEventSlotReminderProjection> projections = claimReminders(now.plusMinutes(CLAIM_EXPIRY_IN_MINUTES + 1), tomorrow);
+        assertThat(projections).extracting(DayEventSlotReminderProjection::getId)
+                .containsExactly(UUID.fromString("e2985eda-5c5a-40a0-851e-6dc088081afa"));
+
+        this.underTest.markRemindersSent(now, projections);
+
+        assertThat(claimReminders(now.plusHours(1), tomorrow)).isEmpty();
+        assertThat(this.underTest.enqueueReminders(today, tomorrow)).isZero();
+    }
+
+    // A released reminder is claimed again, up to MAX_ATTEMPTS times
+    @Test
+    void shouldClaimReleasedReminderUpToMaxAttempts() {
+        LocalDate today = LocalDate.parse("2024-10-11");
+        LocalDate tomorrow = today.plusDays(1);
+        this.underTest.enqueueReminders(today, tomorrow);
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            List<DayEventSlotReminderProjection> projections = claimReminders(today.atStartOfDay(), tomorrow);
+            assertThat(projections).hasSize(1);
+            this.underTest.releaseReminders(projections);
+        }
+
+        assertThat(claimReminders(today.atStartOfDay(), tomorrow)).isEmpty();
+    }
+
+    @Test
+    void shouldDeleteRemindersOfStartedSlots() {
+        LocalDate until = LocalDate.parse("2024-10-31");
+        this.underTest.enqueueReminders(LocalDate.parse("2024-09-29"), until);
+
+        assertThat(this.underTest.deleteRemindersOfStartedSlots(LocalDate.parse("2024-10-08"))).isEqualTo(3);
+        assertThat(claimReminders(LocalDateTime.parse("2024-10-08T00:00:00"), until)).extracting(DayEventSlotReminderProjection::getId)
+                .containsExactly(
+                        UUID.fromString("e2985eda-5c5a-40a0-851e-6dc088081afa"),
+                        UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa"));
+    }
+
+    private List<DayEventSlotReminderProjection> claimReminders(LocalDateTime now, LocalDate until) {
+        return this.underTest.claimReminders(now, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, until, 100);
+    }
 }
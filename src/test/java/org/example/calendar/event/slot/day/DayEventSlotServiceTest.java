@@ -12,12 +12,16 @@ import org.example.calendar.event.slot.day.projection.DayEventSlotPublicProjecti
 import org.example.calendar.event.slot.day.dto.DayEventSlotRequest;
 import org.example.calendar.entity.DayEvent;
 import org.example.calendar.entity.User;
+import org.example.calendar.event.ScheduleChangedEvent;
 import org.example.calendar.event.slot.projection.AbstractEventSlotPublicProjection;
 import org.example.calendar.exception.ConflictException;
 import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.context.jdbc.Sql;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +54,7 @@ import net.datafaker.Faker;
  */
 @Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
 @Import({DayEventSlotRepository.class, DayEventRepository.class, UserRepository.class})
+@RecordApplicationEvents
 class DayEventSlotServiceTest extends AbstractRepositoryTest {
     @Autowired
     private DayEventSlotRepository dayEventSlotRepository;
@@ -57,12 +62,16 @@ class DayEventSlotServiceTest extends AbstractRepositoryTest {
     private DayEventRepository dayEventRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ApplicationEvents applicationEvents;
     private DayEventSlotService underTest;
     private static final Faker FAKER = new Faker();
 
     @BeforeEach
     void setup() {
-        underTest = new DayEventSlotService(dayEventSlotRepository, userRepository);
+        underTest = new DayEventSlotService(dayEventSlotRepository, userRepository, eventPublisher);
     }
 
     @Test
@@ -514,7 +523,7 @@ class DayEventSlotServiceTest extends AbstractRepositoryTest {
                         .build())
                 .collect(Collectors.toList());
 
-        this.underTest.updateEventSlotsForEvent(eventRequest, eventSlots);
+        this.underTest.updateEventSlotsForEvent(eventRequest, UUID.fromString("4472d36c-2051-40e3-a2cf-00c6497807b5"), eventSlots);
         List<DayEventSlotPublicProjection> actual = this.underTest.findEventSlotsByEventAndUserId(UUID.fromString("4472d36c-2051-40e3-a2cf-00c6497807b5"), 2L);
 
         assertThat(actual).hasSize(4)
@@ -597,6 +606,18 @@ class DayEventSlotServiceTest extends AbstractRepositoryTest {
                 .ifPresent(eventSlot -> assertThat(eventSlot.getGuestEmails()).containsExactlyInAnyOrder("ericka.ankunding@hotmail.com", guestEmail));
     }
 
+    // Only the schedule of the organizer and of the new guests has changed
+    @Test
+    void shouldPublishScheduleChangedEventForInviteGuests() {
+        UUID slotId = UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa");
+        String guestEmail = FAKER.internet().emailAddress();
+        InviteGuestsRequest inviteGuestsRequest = new InviteGuestsRequest(Set.of(guestEmail));
+
+        this.underTest.inviteGuests(3L, slotId, inviteGuestsRequest);
+
+        assertThat(this.applicationEvents.stream(ScheduleChangedEvent.class)).containsExactly(new ScheduleChangedEvent(3L, Set.of(guestEmail)));
+    }
+
     /*
         In this case, the event slot exists the user that made the request is not the organizer
      */
@@ -684,6 +705,15 @@ class DayEventSlotServiceTest extends AbstractRepositoryTest {
         assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.underTest.deleteEventSlotById(slotId, 2L)).withMessage("Day event slot not found with id: " + slotId);
     }
 
+    // The guests are fetched before the slot is deleted
+    @Test
+    void shouldPublishScheduleChangedEventForDeleteEventSlotById() {
+        UUID slotId = UUID.fromString("9c6f34b8-4128-42ec-beb1-99c35af8d7fa");
+        this.underTest.deleteEventSlotById(slotId, 3L);
+
+        assertThat(this.applicationEvents.stream(ScheduleChangedEvent.class)).containsExactly(new ScheduleChangedEvent(3L, Set.of("ericka.ankunding@hotmail.com")));
+    }
+
     @Test
     void shouldThrowResourceNotFoundExceptionForDeleteEventSlotById() {
         UUID slotId = UUID.randomUUID();
@@ -0,0 +1,107 @@
+package org.example.calendar.event.slot.time;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    The plans of the queries of TimeEventSlotRepository that run the most, or on the largest tables. We EXPLAIN the
+    statements of the repository itself, so a change to a query is tested as it is executed. Our test data are a few
+    rows, so the planner would pick a sequential scan for every table regardless of the indexes. We disable sequential
+    scans for the transaction of each test. If a table still has a Seq Scan in the plan, there is no index the query
+    can use.
+ */
+@Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+class TimeEventSlotQueryPlanTest extends AbstractRepositoryTest {
+    @Autowired
+    private JdbcClient jdbcClient;
+    private static final Pattern PARTITION_PATTERN = Pattern.compile("time_event_slots_(\\d{4})");
+
+    @BeforeEach
+    void setup() {
+        // @JdbcTest runs every test in a transaction that is rolled back, SET LOCAL does not outlive it
+        this.jdbcClient.sql("SET LOCAL enable_seqscan = off").update();
+    }
+
+    @Test
+    void shouldNotSeqScanToFindTimeEventSlotsByUserInDateRange() {
+        List<String> plan = explain(TimeEventSlotRepository.FIND_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 1L, "email", "ericka.ankunding@hotmail.com", "startTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-10T00:00:00")), "endTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-20T00:00:00")), "earliestStartTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-09T00:00:00"))));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void shouldNotSeqScanToFindTimeEventSlotPageByUserInDateRange() {
+        List<String> plan = explain(TimeEventSlotRepository.FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 1L, "email", "ericka.ankunding@hotmail.com", "startTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-10T00:00:00")), "endTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-20T00:00:00")), "earliestStartTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-09T00:00:00")), "afterStartTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-15T09:00:00")), "afterId", UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"), "limit", 51));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    // The partitions of the other years, V12, are not in the plan
+    @Test
+    void shouldOnlyReadThePartitionsOfTheRangeToFindTimeEventSlotsByUserInDateRange() {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions('time_event_slots', 2023, 2023)").query().listOfRows();
+
+        List<String> plan = explain(TimeEventSlotRepository.FIND_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 1L, "email", "ericka.ankunding@hotmail.com", "startTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-10T00:00:00")), "endTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-20T00:00:00")), "earliestStartTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-09T00:00:00"))));
+
+        assertThat(partitionYears(plan)).containsOnly(2024);
+    }
+
+    @Test
+    void shouldOnlyReadThePartitionsOfTheRangeToFindTimeEventSlotPageByUserInDateRange() {
+        this.jdbcClient.sql("SELECT create_event_slot_partitions('time_event_slots', 2023, 2023)").query().listOfRows();
+
+        List<String> plan = explain(TimeEventSlotRepository.FIND_PAGE_BY_USER_IN_DATE_RANGE_SQL, Map.of("userId", 1L, "email", "ericka.ankunding@hotmail.com", "startTime", Timestamp.valueOf(LocalDateTime.parse("2024-01-01T00:00:00")), "endTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-20T00:00:00")), "earliestStartTime", Timestamp.valueOf(LocalDateTime.parse("2023-12-31T00:00:00")), "afterStartTime", Timestamp.valueOf(LocalDateTime.parse("2023-12-31T00:00:00")), "afterId", UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"), "limit", 51));
+
+        // A slot that starts on the last day of 2023 can still overlap the range
+        assertThat(partitionYears(plan)).containsOnly(2023, 2024);
+    }
+
+    @Test
+    void shouldNotSeqScanToEnqueueReminders() {
+        List<String> plan = explain(TimeEventSlotRepository.ENQUEUE_REMINDERS_SQL, Map.of("defaultOffsets", new Integer[]{30}, "now", Timestamp.valueOf(LocalDateTime.parse("2024-10-29T08:30:00")), "lastStartTime", Timestamp.valueOf(LocalDateTime.parse("2024-10-30T08:35:00")), "until", Timestamp.valueOf(LocalDateTime.parse("2024-10-29T08:35:00"))));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void shouldNotSeqScanToClaimReminders() {
+        List<Object[]> keys = List.<Object[]>of(new Object[]{UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"), 30});
+        List<String> plan = explain(TimeEventSlotRepository.CLAIM_REMINDERS_SQL, Map.of("now", Timestamp.valueOf(LocalDateTime.parse("2024-10-29T08:30:00")), "expiry", Timestamp.valueOf(LocalDateTime.parse("2024-10-29T08:20:00")), "maxAttempts", 5, "keys", keys));
+
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    private Set<Integer> partitionYears(List<String> plan) {
+        Set<Integer> years = new HashSet<>();
+        for (String line : plan) {
+            Matcher matcher = PARTITION_PATTERN.matcher(line);
+            while (matcher.find()) {
+                years.add(Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return years;
+    }
+
+    private List<String> explain(String sql, Map<String, Object> params) {
+        return this.jdbcClient.sql("EXPLAIN " + sql)
+                .params(params)
+                .query(String.class)
+                .list();
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.calendar.event.slot.time;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
+import org.example.calendar.event.slot.time.projection.mapper.TimeEventSlotPublicProjectionRowMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Compares the previous query of findByUserInDateRange(), with the OR condition, against the current one with the
+    UNION ALL on a dataset of 1.000.000 slots. Seeding the dataset takes a while, so it only runs when requested:
+
+        mvn test -Dtest=TimeEventSlotRepositoryBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Import(TimeEventSlotRepository.class)
+@Sql(scripts = "/scripts/benchmark/SEED_TIME_EVENT_SLOTS.sql")
+class TimeEventSlotRepositoryBenchmarkTest extends AbstractRepositoryTest {
+    @Autowired
+    private TimeEventSlotRepository underTest;
+    @Autowired
+    private JdbcClient jdbcClient;
+    private static final Logger logger = LoggerFactory.getLogger(TimeEventSlotRepositoryBenchmarkTest.class);
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 30;
+
+    @Test
+    void shouldBenchmarkFindEventSlotsByUserInDateRange() {
+        Long userId = 100L;
+        String email = "user100@example.com";
+        LocalDateTime startTime = LocalDateTime.parse("2024-03-01T00:00:00");
+        LocalDateTime endTime = LocalDateTime.parse("2024-04-01T00:00:00");
+
+        List<TimeEventSlotPublicProjection> expected = findByUserInDateRangeWithOrCondition(userId, email, startTime, endTime);
+        List<TimeEventSlotPublicProjection> actual = this.underTest.findByUserInDateRange(userId, email, startTime, endTime);
+
+        // Slots with the same start time could be returned in any order by the previous query
+        assertThat(actual).isNotEmpty()
+                .isSortedAccordingTo(Comparator.comparing(TimeEventSlotPublicProjection::getStartTime))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(expected);
+
+        List<Long> before = measure(() -> findByUserInDateRangeWithOrCondition(userId, email, startTime, endTime));
+        List<Long> after = measure(() -> this.underTest.findByUserInDateRange(userId, email, startTime, endTime));
+        logger.info("findByUserInDateRange() with OR: p50={}us p95={}us, with UNION ALL: p50={}us p95={}us",
+                percentile(before, 50), percentile(before, 95), percentile(after, 50), percentile(after, 95));
+    }
+
+    private List<Long> measure(Supplier<List<TimeEventSlotPublicProjection>> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+
+        List<Long> durations = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            durations.add((System.nanoTime() - start) / 1_000);
+        }
+        Collections.sort(durations);
+
+        return durations;
+    }
+
+    private long percentile(List<Long> sortedDurations, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedDurations.size()) - 1;
+        return sortedDurations.get(Math.max(index, 0));
+    }
+
+    // The query of findByUserInDateRange() before the UNION ALL, with the guests collected in an array and the same range
+    // condition as the current one
+    private List<TimeEventSlotPublicProjection> findByUserInDateRangeWithOrCondition(Long userId, String email, LocalDateTime startTime, LocalDateTime endTime) {
+        return this.jdbcClient.sql("""
+                        SELECT
+                            tes.id,
+                            tes.event_id,
+                            tes.start_time,
+                            tes.start_time_zone_id,
+                            tes.end_time,
+                            tes.end_time_zone_id,
+                            tes.title,
+                            tes.description,
+                            tes.location,
+                            CASE WHEN te.organizer_id = :userId THEN ARRAY(SELECT ge.email FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge) ELSE ARRAY[CAST(:email AS TEXT)] END AS guest_emails,
+                            u.username
+                        FROM time_event_slots tes
+                        JOIN time_events te ON tes.event_id = te.id
+                        JOIN users u ON te.organizer_id = u.id
+                        WHERE (te.organizer_id = :userId OR EXISTS (
+                            SELECT 1
+                            FROM time_event_slot_guest_emails_of(tes.id, tes.event_id, tes.guests_overridden) ge
+                            WHERE ge.email = :email)) AND tes.during && tsrange(:startTime, :endTime, '[]')
+                        ORDER BY tes.start_time
+                        """)
+                .param("userId", userId)
+                .param("email", email)
+                .param("startTime", Timestamp.valueOf(startTime))
+                .param("endTime", Timestamp.valueOf(endTime))
+                .query(new TimeEventSlotPublicProjectionRowMapper())
+                .list();
+    }
+}
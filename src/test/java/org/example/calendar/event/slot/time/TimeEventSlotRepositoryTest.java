@@ -1,31 +1,39 @@
 package org.example.calendar.event.slot.time;
 
 import org.example.calendar.AbstractRepositoryTest;
+import org.example.calendar.entity.TimeEventSlot;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotReminderProjection;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotScheduledReminder;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 /*
-    Every other method of the repository is tested via the service expect this one. This one is used by the Notification
-    service for scheduled tasks.
+    Every other method of the repository is tested via the service expect these ones. These are used by the
+    Notification service for scheduled tasks.
  */
 @Import(TimeEventSlotRepository.class)
 @Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
 class TimeEventSlotRepositoryTest extends AbstractRepositoryTest {
     @Autowired
     private TimeEventSlotRepository underTest;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int CLAIM_EXPIRY_IN_MINUTES = 10;
 
+    // A claimed reminder has the slot, its guests and its organizer
     @Test
-    void shouldFindEventSlotsByStartTime() {
-        List<TimeEventSlotReminderProjection> projections = this.underTest.findByStartTime(LocalDateTime.parse("2024-10-29T09:00:00"));
+    void shouldClaimReminderWithTheSlotAndItsOrganizer() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:30:00");
+        this.underTest.enqueueReminders(now, now.plusMinutes(5), List.of(30));
+        List<TimeEventSlotReminderProjection> projections = claimReminders(now, findScheduledReminders(now.plusMinutes(5)));
 
         assertThat(projections.get(0).getId()).isEqualTo(UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"));
         assertThat(projections.get(0).getStartTime().isEqual(LocalDateTime.parse("2024-10-29T09:00:00"))).isTrue();
@@ -35,5 +43,149 @@ class TimeEventSlotRepositoryTest extends AbstractRepositoryTest {
         assertThat(projections.get(0).getOrganizerUsername()).isEqualTo("kris.hudson");
         assertThat(projections.get(0).getGuestEmails()).hasSize(1)
                 .contains("ericka.ankunding@hotmail.com");
+        assertThat(projections.get(0).getOffsetMinutes()).isEqualTo(30);
+    }
+
+    // The reminder of a slot is enqueued once and claimed once
+    @Test
+    void shouldClaimReminderOnce() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:30:00");
+        LocalDateTime until = now.plusMinutes(5);
+
+        assertThat(this.underTest.enqueueReminders(now, until, List.of(30))).isEqualTo(1);
+        assertThat(this.underTest.enqueueReminders(now, until, List.of(30))).isZero();
+
+        List<TimeEventSlotScheduledReminder> reminders = findScheduledReminders(until);
+        assertThat(reminders).containsExactly(new TimeEventSlotScheduledReminder(UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"), 30, now));
+
+        List<TimeEventSlotReminderProjection> projections = claimReminders(now, reminders);
+
+        assertThat(projections).extracting(TimeEventSlotReminderProjection::getId)
+                .containsExactly(UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"));
+        assertThat(projections.get(0).getGuestEmails()).containsExactly("ericka.ankunding@hotmail.com");
+        assertThat(claimReminders(now, reminders)).isEmpty();
+        assertThat(findScheduledReminders(until)).isEmpty();
+    }
+
+    // A slot has a reminder per offset, each one is claimed once it fires
+    @Test
+    void shouldClaimReminderPerOffsetWhenItFires() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:00:00");
+        LocalDateTime until = LocalDateTime.parse("2024-10-29T08:55:00");
+        UUID slotId = UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd");
+
+        assertThat(this.underTest.enqueueReminders(now, until, List.of(60, 10))).isEqualTo(2);
+
+        List<TimeEventSlotScheduledReminder> reminders = findScheduledReminders(until);
+        assertThat(reminders).containsExactly(
+                new TimeEventSlotScheduledReminder(slotId, 60, LocalDateTime.parse("2024-10-29T08:00:00")),
+                new TimeEventSlotScheduledReminder(slotId, 10, LocalDateTime.parse("2024-10-29T08:50:00")));
+
+        // The reminder of the 10 minutes offset has not fired yet
+        assertThat(claimReminders(now, reminders)).hasSize(1);
+        assertThat(findScheduledReminders(until)).containsExactly(reminders.get(1));
+        assertThat(claimReminders(LocalDateTime.parse("2024-10-29T08:50:00"), reminders)).extracting(TimeEventSlotReminderProjection::getId)
+                .containsExactly(slotId);
+    }
+
+    // The offsets of the slot override the default ones, changing them drops the reminders that were not claimed
+    @Test
+    void shouldEnqueueRemindersWithTheOffsetsOfTheSlot() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:00:00");
+        LocalDateTime until = LocalDateTime.parse("2024-10-29T08:55:00");
+        UUID slotId = UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd");
+        this.underTest.updateReminderOffsets(slotId, List.of(60, 10));
+
+        assertThat(this.underTest.enqueueReminders(now, until, List.of(30))).isEqualTo(2);
+        assertThat(findScheduledReminders(until)).containsExactly(
+                new TimeEventSlotScheduledReminder(slotId, 60, LocalDateTime.parse("2024-10-29T08:00:00")),
+                new TimeEventSlotScheduledReminder(slotId, 10, LocalDateTime.parse("2024-10-29T08:50:00")));
+
+        // No reminders for the slot
+        this.underTest.updateReminderOffsets(slotId, List.of());
+
+        assertThat(findScheduledReminders(until)).isEmpty();
+        assertThat(this.underTest.enqueueReminders(now, until, List.of(30))).isZero();
+    }
+
+    // A claim that was not marked as sent expires, a sent reminder is not enqueued or claimed again
+    @Test
+    void shouldClaimReminderAgainWhenClaimExpires() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:30:00");
+        LocalDateTime until = now.plusMinutes(5);
+        this.underTest.enqueueReminders(now, until, List.of(30));
+        List<TimeEventSlotScheduledReminder> reminders = findScheduledReminders(until);
+
+        assertThat(claimReminders(now, reminders)).hasSize(1);
+        assertThat(claimReminders(now.plusMinutes(5), reminders)).isEmpty();
+
+        LocalDateTime later = now.plusMinutes(CLAIM_EXPIRY_IN_MINUTES + 1);
+        assertThat(this.underTest.findScheduledReminders(until, later.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS)).isEqualTo(reminders);
+        List<TimeEventSlotReminderProjection> projections = claimReminders(later, reminders);
+        assertThat(projections).extracting(TimeEventSlotReminderProjection::getOffsetMinutes).containsExactly(30);
+
+        this.underTest.markRemindersSent(later, projections);
+
+        LocalDateTime afterExpiry = later.plusMinutes(CLAIM_EXPIRY_IN_MINUTES + 1);
+        assertThat(this.underTest.findScheduledReminders(until, afterExpiry.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS)).isEmpty();
+        assertThat(claimReminders(afterExpiry, reminders)).isEmpty();
+        assertThat(this.underTest.enqueueReminders(now, until, List.of(30))).isZero();
+    }
+
+    // A released reminder is claimed again, up to MAX_ATTEMPTS times
+    @Test
+    void shouldClaimReleasedReminderUpToMaxAttempts() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:30:00");
+        LocalDateTime until = now.plusMinutes(5);
+        this.underTest.enqueueReminders(now, until, List.of(30));
+        List<TimeEventSlotScheduledReminder> reminders = findScheduledReminders(until);
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            List<TimeEventSlotReminderProjection> projections = claimReminders(now, reminders);
+            assertThat(projections).hasSize(1);
+            this.underTest.releaseReminders(projections);
+        }
+
+        assertThat(findScheduledReminders(until)).isEmpty();
+        assertThat(claimReminders(now, reminders)).isEmpty();
+    }
+
+    @Test
+    void shouldRescheduleRemindersOfMovedSlot() {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:00:00");
+        UUID slotId = UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd");
+        this.underTest.enqueueReminders(now, now.plusMinutes(60), List.of(30));
+        TimeEventSlot original = TimeEventSlot.builder()
+                .id(slotId)
+                .startTime(LocalDateTime.parse("2024-10-29T09:00:00"))
+                .startTimeZoneId(ZoneId.of("Europe/London"))
+                .endTime(LocalDateTime.parse("2024-10-29T14:00:00"))
+                .endTimeZoneId(ZoneId.of("Europe/London"))
+                .build();
+        TimeEventSlot modified = new TimeEventSlot(original);
+        modified.setStartTime(LocalDateTime.parse("2024-10-29T10:15:00"));
+
+        this.underTest.update(original, modified);
+
+        assertThat(findScheduledReminders(now.plusMinutes(120))).containsExactly(
+                new TimeEventSlotScheduledReminder(slotId, 30, LocalDateTime.parse("2024-10-29T09:45:00")));
+    }
+
+    @Test
+    void shouldDeleteRemindersOfStartedSlots() {
+        LocalDateTime until = LocalDateTime.parse("2024-10-31T00:00:00");
+        this.underTest.enqueueReminders(LocalDateTime.parse("2024-10-01T00:00:00"), until, List.of(30));
+
+        assertThat(this.underTest.deleteRemindersOfStartedSlots(LocalDateTime.parse("2024-10-28T13:00:00"))).isEqualTo(2);
+        assertThat(findScheduledReminders(until)).extracting(TimeEventSlotScheduledReminder::slotId)
+                .containsExactly(UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"));
+    }
+
+    private List<TimeEventSlotScheduledReminder> findScheduledReminders(LocalDateTime until) {
+        return this.underTest.findScheduledReminders(until, until.minusDays(1), MAX_ATTEMPTS);
+    }
+
+    private List<TimeEventSlotReminderProjection> claimReminders(LocalDateTime now, List<TimeEventSlotScheduledReminder> reminders) {
+        return this.underTest.claimReminders(now, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, reminders);
     }
 }
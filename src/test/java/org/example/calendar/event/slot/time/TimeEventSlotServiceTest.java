@@ -18,6 +18,7 @@ import org.example.calendar.exception.ResourceNotFoundException;
 import org.example.calendar.user.UserRepository;
 import org.example.calendar.utils.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.jdbc.Sql;
 import org.junit.jupiter.api.BeforeEach;
@@ -54,12 +55,14 @@ class TimeEventSlotServiceTest extends AbstractRepositoryTest {
     private TimeEventRepository timeEventRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     private TimeEventSlotService underTest;
     private static final Faker FAKER = new Faker();
 
     @BeforeEach
     void setup() {
-        this.underTest = new TimeEventSlotService(timeEventSlotRepository, userRepository);
+        this.underTest = new TimeEventSlotService(timeEventSlotRepository, userRepository, eventPublisher);
     }
 
     /*
@@ -697,6 +700,37 @@ class TimeEventSlotServiceTest extends AbstractRepositoryTest {
         }
     }
 
+    // The slots and their guests are inserted in batches of 1000 rows. 1096 slots with 3 guests each span multiple batches
+    @Test
+    void shouldCreateTimeEventSlotsInBatchesWhenEventHasManyOccurrences() {
+        TimeEventRequest request = TimeEventRequest.builder()
+                .title("Event name")
+                .startTime(LocalDateTime.parse("2024-01-01T10:00"))
+                .endTime(LocalDateTime.parse("2024-01-01T11:00"))
+                .startTimeZoneId(ZoneId.of("UTC"))
+                .endTimeZoneId(ZoneId.of("UTC"))
+                .location("Location")
+                .description("Description")
+                .guestEmails(Set.of(FAKER.internet().emailAddress(), FAKER.internet().emailAddress(), FAKER.internet().emailAddress()))
+                .recurrenceFrequency(RecurrenceFrequency.DAILY)
+                .recurrenceStep(1)
+                .recurrenceDuration(RecurrenceDuration.UNTIL_DATE)
+                .recurrenceEndDate(LocalDate.parse("2026-12-31"))
+                .build();
+        TimeEvent event = createTimeEvent(request);
+
+        this.underTest.create(request, event);
+        List<TimeEventSlotPublicProjection> projections = this.timeEventSlotRepository.findByEventAndUserId(event.getId(), 1L);
+
+        assertThat(projections).hasSize(1096)
+                .allSatisfy(projection -> TimeEventSlotPublicProjectionAssert.assertThat(projection)
+                        .hasTitle(request.getTitle())
+                        .hasGuests(request.getGuestEmails())
+                        .hasEventId(event.getId()));
+        assertThat(projections.get(0).getStartTime()).isEqualTo(LocalDateTime.parse("2024-01-01T10:00"));
+        assertThat(projections.get(1095).getStartTime()).isEqualTo(LocalDateTime.parse("2026-12-31T10:00"));
+    }
+
     @Test
     void shouldUpdateEventSlotsForEvent() {
         String guestEmail = FAKER.internet().emailAddress();
@@ -717,7 +751,7 @@ class TimeEventSlotServiceTest extends AbstractRepositoryTest {
                         .build())
                 .collect(Collectors.toList());
 
-        this.underTest.updateEventSlotsForEvent(eventRequest, eventSlots);
+        this.underTest.updateEventSlotsForEvent(eventRequest, UUID.fromString("0c9d6398-a6de-47f0-8328-04a2f3c0511c"), eventSlots);
         List<TimeEventSlotPublicProjection> actual = this.underTest.findEventSlotsByEventAndUserId(UUID.fromString("0c9d6398-a6de-47f0-8328-04a2f3c0511c"), 1L);
 
         assertThat(actual).hasSize(3)
@@ -805,6 +839,45 @@ class TimeEventSlotServiceTest extends AbstractRepositoryTest {
                 .ifPresent(projection -> assertThat(projection.getGuestEmails()).containsExactlyInAnyOrder("ericka.ankunding@hotmail.com", guestEmail));
     }
 
+    /*
+        The slots inherit the guests of the event. Inviting guests to 1 slot, keeps the event's guests for that slot and
+        does not change the guests of the rest.
+     */
+    @Test
+    void shouldInviteGuestsToSlotThatInheritsTheEventGuests() {
+        UUID eventId = UUID.fromString("0c9d6398-a6de-47f0-8328-04a2f3c0511c");
+        UUID slotId = UUID.fromString("446d9d18-2a94-4bcf-b70d-b79941e9c31a");
+        String eventGuestEmail = FAKER.internet().emailAddress();
+        String guestEmail = FAKER.internet().emailAddress();
+        TimeEventRequest eventRequest = TimeEventRequest.builder()
+                .title("Event title")
+                .location("Location")
+                .description("Description")
+                .guestEmails(Set.of(eventGuestEmail))
+                .build();
+        List<TimeEventSlot> eventSlots = this.underTest.findEventSlotsByEventAndUserId(eventId, 1L).stream()
+                .map(slotProjection -> TimeEventSlot.builder()
+                        .id(slotProjection.getId())
+                        .title(slotProjection.getTitle())
+                        .location(slotProjection.getLocation())
+                        .description(slotProjection.getDescription())
+                        .guestEmails(slotProjection.getGuestEmails())
+                        .build())
+                .collect(Collectors.toList());
+        this.underTest.updateEventSlotsForEvent(eventRequest, eventId, eventSlots);
+
+        this.underTest.inviteGuests(1L, slotId, new InviteGuestsRequest(Set.of(guestEmail)));
+        List<TimeEventSlotPublicProjection> actual = this.underTest.findEventSlotsByEventAndUserId(eventId, 1L);
+
+        assertThat(actual).hasSize(3)
+                .extracting(AbstractEventSlotPublicProjection::getId, AbstractEventSlotPublicProjection::getGuestEmails)
+                .containsExactlyInAnyOrder(
+                        tuple(UUID.fromString("3075c6eb-8028-4f99-8c6c-27db1bb5cc43"), Set.of(eventGuestEmail)),
+                        tuple(UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd"), Set.of(eventGuestEmail)),
+                        tuple(slotId, Set.of(eventGuestEmail, guestEmail))
+                );
+    }
+
     /*
         In this case, the event slot exists the user that made the request is not the organizer
      */
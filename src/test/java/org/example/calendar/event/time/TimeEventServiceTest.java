@@ -2,11 +2,13 @@ package org.example.calendar.event.time;
 
 import org.example.calendar.AbstractRepositoryTest;
 import org.example.calendar.email.EmailService;
+import org.example.calendar.event.ScheduleChangedEvent;
 import org.example.calendar.entity.User;
 import org.example.calendar.event.recurrence.RecurrenceDuration;
 import org.example.calendar.event.recurrence.RecurrenceFrequency;
 import org.example.calendar.event.slot.time.TimeEventSlotPublicProjectionAssert;
 import org.example.calendar.event.slot.time.TimeEventSlotRepository;
+import org.example.calendar.event.slot.time.dto.TimeEventSlotRequest;
 import org.example.calendar.event.slot.time.projection.TimeEventSlotPublicProjection;
 import org.example.calendar.event.time.dto.TimeEventInvitationRequest;
 import org.example.calendar.event.time.dto.TimeEventRequest;
@@ -19,16 +21,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,10 +47,15 @@ import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 @Import({TimeEventRepository.class, TimeEventSlotRepository.class, UserRepository.class})
+@RecordApplicationEvents
 class TimeEventServiceTest extends AbstractRepositoryTest {
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ApplicationEvents applicationEvents;
+    @Autowired
     private TimeEventRepository timeEventRepository;
     @Autowired
     private TimeEventSlotRepository eventSlotRepository;
@@ -53,8 +66,8 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
 
     @BeforeEach
     void setup() {
-        this.timeEventSlotService = new TimeEventSlotService(eventSlotRepository, userRepository);
-        this.underTest = new TimeEventService(timeEventRepository, userRepository, timeEventSlotService, emailService);
+        this.timeEventSlotService = new TimeEventSlotService(eventSlotRepository, userRepository, eventPublisher);
+        this.underTest = new TimeEventService(timeEventRepository, userRepository, timeEventSlotService, emailService, eventPublisher);
     }
 
     @Test
@@ -105,7 +118,7 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
                 .startTimeZoneId(eventRequest.getStartTimeZoneId())
                 .endTimeZoneId(eventRequest.getEndTimeZoneId())
                 .build();
-        doNothing().when(this.emailService).sendInvitationEmail(emailRequest);
+        doNothing().when(this.emailService).enqueueInvitationEmail(emailRequest);
 
         UUID eventId = this.underTest.createEvent(2L, eventRequest);
 
@@ -123,13 +136,13 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
                 .hasDescription(null)
                 .hasGuests(Collections.emptySet());
 
-        verify(this.emailService, times(1)).sendInvitationEmail(emailRequest);
+        verify(this.emailService, times(1)).enqueueInvitationEmail(emailRequest);
     }
 
     /*
         In this method, the event request we provide has different frequency properties and start/end time from the
-        current state of the resource(event). In this case, we delete all the event slots(3) and compute the new ones
-        based on the event request.
+        current state of the resource(event). In this case, the event slots(3) are matched to the occurrences of the
+        event request. The event no longer recurs, it has 1 slot.
      */
     @Test
     @Sql({"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
@@ -202,6 +215,61 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
         );
     }
 
+    /*
+        The meeting moves by 15 minutes and occurs 1 more time. Its slots move with it and keep their ids, the slot
+        that was moved by the user keeps its time, the slot that was deleted by the user is not created again and only
+        the new occurrence gets a new slot.
+     */
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldMoveTheEventSlotsWhenTheStartTimeOfTheEventChanges() {
+        TimeEventRequest eventRequest = TimeEventRequest.builder()
+                .title("Event title")
+                .startTime(LocalDateTime.parse("2030-01-07T10:00:00"))
+                .startTimeZoneId(ZoneId.of("Europe/London"))
+                .endTime(LocalDateTime.parse("2030-01-07T11:00:00"))
+                .endTimeZoneId(ZoneId.of("Europe/London"))
+                .recurrenceFrequency(RecurrenceFrequency.WEEKLY)
+                .recurrenceStep(1)
+                .weeklyRecurrenceDays(EnumSet.of(DayOfWeek.MONDAY))
+                .recurrenceDuration(RecurrenceDuration.N_OCCURRENCES)
+                .numberOfOccurrences(4)
+                .guestEmails(Collections.emptySet())
+                .build();
+        UUID eventId = this.underTest.createEvent(1L, eventRequest);
+        List<TimeEventSlotPublicProjection> created = this.timeEventSlotService.findEventSlotsByEventAndUserId(eventId, 1L);
+        this.timeEventSlotService.updateEventSlot(1L, created.get(1).getId(), TimeEventSlotRequest.builder()
+                .title("Event title")
+                .startTime(LocalDateTime.parse("2030-01-15T16:00:00"))
+                .startTimeZoneId(ZoneId.of("Europe/London"))
+                .endTime(LocalDateTime.parse("2030-01-15T17:00:00"))
+                .endTimeZoneId(ZoneId.of("Europe/London"))
+                .guestEmails(Collections.emptySet())
+                .build());
+        this.timeEventSlotService.deleteEventSlotById(created.get(3).getId(), 1L);
+
+        eventRequest.setStartTime(LocalDateTime.parse("2030-01-07T10:15:00"));
+        eventRequest.setEndTime(LocalDateTime.parse("2030-01-07T11:15:00"));
+        eventRequest.setNumberOfOccurrences(5);
+        this.underTest.updateEvent(1L, eventId, eventRequest);
+
+        List<TimeEventSlotPublicProjection> projections = this.timeEventSlotService.findEventSlotsByEventAndUserId(eventId, 1L);
+
+        assertThat(projections).hasSize(4);
+        assertThat(projections.subList(0, 3)).extracting(TimeEventSlotPublicProjection::getId).containsExactly(created.get(0).getId(), created.get(1).getId(), created.get(2).getId());
+        assertThat(projections.get(3).getId()).isNotEqualTo(created.get(3).getId());
+        assertThat(projections).extracting(TimeEventSlotPublicProjection::getStartTime).containsExactly(
+                LocalDateTime.parse("2030-01-07T10:15:00"),
+                LocalDateTime.parse("2030-01-15T16:00:00"),
+                LocalDateTime.parse("2030-01-21T10:15:00"),
+                LocalDateTime.parse("2030-02-04T10:15:00"));
+        assertThat(projections).extracting(TimeEventSlotPublicProjection::getEndTime).containsExactly(
+                LocalDateTime.parse("2030-01-07T11:15:00"),
+                LocalDateTime.parse("2030-01-15T17:00:00"),
+                LocalDateTime.parse("2030-01-21T11:15:00"),
+                LocalDateTime.parse("2030-02-04T11:15:00"));
+    }
+
     /*
         There are 2 cases where the findByEventIdAndUserId() could throw ResourceNotFoundException.
             1. Event exists but the authenticated user is not the organizer
@@ -218,6 +286,101 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
         assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.underTest.updateEvent(2L, eventId, eventRequest)).withMessage("Time event not found with id: " + eventId);
     }
 
+    /*
+        For events that are recurring FOREVER, only the slots of the first year are created. When a date range after
+        that is requested, the occurrences of the range are computed from the event and nothing is written. The
+        scheduled task creates their slots later, with the same ids.
+     */
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldComputeOccurrencesAfterTheMaterializedSlotsForEventsRecurringForever() {
+        LocalDateTime startTime = LocalDateTime.now(ZoneId.of("Asia/Tokyo")).plusDays(1).truncatedTo(ChronoUnit.MINUTES);
+        TimeEventRequest eventRequest = foreverEventRequest(startTime);
+
+        UUID eventId = this.underTest.createEvent(1L, eventRequest);
+        int materializedSlots = this.underTest.findEventSlotsByEventId(eventId, 1L).size();
+
+        // The guest requests a week 2 years later
+        LocalDateTime rangeStartTime = startTime.toLocalDate().plusYears(2).atStartOfDay();
+        List<TimeEventSlotPublicProjection> projections = this.underTest.findEventSlotsByUserInDateRange(2L, rangeStartTime, ZoneId.of("Asia/Tokyo"), rangeStartTime.plusDays(7), ZoneId.of("Asia/Tokyo"));
+
+        LocalDateTime expectedStartTime = rangeStartTime.toLocalDate().with(TemporalAdjusters.nextOrSame(startTime.getDayOfWeek())).atTime(startTime.toLocalTime());
+        assertThat(materializedSlots).isBetween(52, 53);
+        assertThat(projections).hasSize(1);
+        TimeEventSlotPublicProjectionAssert.assertThat(projections.get(0))
+                .hasStartTime(expectedStartTime)
+                .hasEndTime(expectedStartTime.plusHours(1))
+                .hasStartTimeZoneId(ZoneId.of("Asia/Tokyo"))
+                .hasEndTimeZoneId(ZoneId.of("Asia/Tokyo"))
+                .hasTitle("Event title")
+                .hasLocation("Location")
+                .hasGuests(Set.of("ericka.ankunding@hotmail.com"));
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).hasSize(materializedSlots);
+
+        this.underTest.materializeForeverEvents(rangeStartTime.plusDays(7).toLocalDate());
+
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).extracting(TimeEventSlotPublicProjection::getId).contains(projections.get(0).getId());
+    }
+
+    // An edit of a single slot does not spread to the slots the scheduled task creates after it
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldCreateTheSlotsOfEventsRecurringForeverFromTheEvent() {
+        LocalDateTime startTime = LocalDateTime.now(ZoneId.of("Asia/Tokyo")).plusDays(1).truncatedTo(ChronoUnit.MINUTES);
+        UUID eventId = this.underTest.createEvent(1L, foreverEventRequest(startTime));
+        List<TimeEventSlotPublicProjection> eventSlots = this.underTest.findEventSlotsByEventId(eventId, 1L);
+        TimeEventSlotRequest eventSlotRequest = TimeEventSlotRequest.builder()
+                .title("Edited title")
+                .build();
+        this.timeEventSlotService.updateEventSlot(1L, eventSlots.get(eventSlots.size() - 1).getId(), eventSlotRequest);
+
+        this.underTest.materializeForeverEvents(startTime.toLocalDate().plusYears(2));
+
+        List<TimeEventSlotPublicProjection> extended = this.underTest.findEventSlotsByEventId(eventId, 1L);
+        assertThat(extended).hasSizeGreaterThan(eventSlots.size());
+        assertThat(extended).filteredOn(eventSlot -> eventSlot.getTitle().equals("Edited title")).hasSize(1);
+    }
+
+    /*
+        The schedule returns the ids of occurrences that have no slot yet. A write to one of them creates the slots of
+        the event up until it first. The guest can't write to the slots, nothing is created for them.
+     */
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldMaterializeTheOccurrenceOfEventsRecurringForeverBeforeItIsWritten() {
+        LocalDateTime startTime = LocalDateTime.now(ZoneId.of("Asia/Tokyo")).plusDays(1).truncatedTo(ChronoUnit.MINUTES);
+        UUID eventId = this.underTest.createEvent(1L, foreverEventRequest(startTime));
+        int materializedSlots = this.underTest.findEventSlotsByEventId(eventId, 1L).size();
+        LocalDateTime rangeStartTime = startTime.toLocalDate().plusYears(2).atStartOfDay();
+        UUID slotId = this.underTest.findEventSlotsByUserInDateRange(1L, rangeStartTime, ZoneId.of("Asia/Tokyo"), rangeStartTime.plusDays(7), ZoneId.of("Asia/Tokyo")).get(0).getId();
+
+        this.underTest.materializeOccurrence(2L, slotId);
+        assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.timeEventSlotService.deleteEventSlotById(slotId, 2L));
+
+        this.underTest.materializeOccurrence(1L, slotId);
+        this.timeEventSlotService.deleteEventSlotById(slotId, 1L);
+
+        assertThat(this.underTest.findEventSlotsByUserInDateRange(1L, rangeStartTime, ZoneId.of("Asia/Tokyo"), rangeStartTime.plusDays(7), ZoneId.of("Asia/Tokyo"))).isEmpty();
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).hasSizeGreaterThan(materializedSlots)
+                .extracting(TimeEventSlotPublicProjection::getId).doesNotContain(slotId);
+    }
+
+    // The slots are not needed to extend the event, the template is the event itself
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldKeepRecurringForeverWhenEverySlotIsDeleted() {
+        LocalDateTime startTime = LocalDateTime.now(ZoneId.of("Asia/Tokyo")).plusDays(1).truncatedTo(ChronoUnit.MINUTES);
+        UUID eventId = this.underTest.createEvent(1L, foreverEventRequest(startTime));
+        for (TimeEventSlotPublicProjection eventSlot : this.underTest.findEventSlotsByEventId(eventId, 1L)) {
+            this.timeEventSlotService.deleteEventSlotById(eventSlot.getId(), 1L);
+        }
+
+        this.underTest.materializeForeverEvents(startTime.toLocalDate().plusYears(2));
+
+        assertThat(this.underTest.findEventSlotsByEventId(eventId, 1L)).isNotEmpty()
+                .allMatch(eventSlot -> eventSlot.getTitle().equals("Event title"));
+    }
+
     // We can also assert that findByEventSlotsByEventId returns an empty list. Event slots are delete for the event with ON DELETE CASCADE
     @Test
     @Sql({"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
@@ -229,6 +392,16 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
         assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.underTest.deleteEventById(eventId, 1L)).withMessage("Time event not found with id: " + eventId);
     }
 
+    // The guests of every slot of the event are fetched before the event is deleted
+    @Test
+    @Sql({"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+    void shouldPublishScheduleChangedEventForDeleteEvent() {
+        UUID eventId = UUID.fromString("0c9d6398-a6de-47f0-8328-04a2f3c0511c");
+        this.underTest.deleteEventById(eventId, 1L);
+
+        assertThat(this.applicationEvents.stream(ScheduleChangedEvent.class)).containsExactly(new ScheduleChangedEvent(1L, Set.of("ericka.ankunding@hotmail.com")));
+    }
+
     /*
         There are 2 cases where the deleteEventById() could throw ResourceNotFoundException.
             1. Event exists but the authenticated user is not the organizer
@@ -240,4 +413,20 @@ class TimeEventServiceTest extends AbstractRepositoryTest {
         UUID eventId = UUID.randomUUID();
         assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> this.underTest.deleteEventById(eventId, 2L)).withMessage("Time event not found with id: " + eventId);
     }
+
+    private TimeEventRequest foreverEventRequest(LocalDateTime startTime) {
+        return TimeEventRequest.builder()
+                .title("Event title")
+                .location("Location")
+                .startTime(startTime)
+                .startTimeZoneId(ZoneId.of("Asia/Tokyo"))
+                .endTime(startTime.plusHours(1))
+                .endTimeZoneId(ZoneId.of("Asia/Tokyo"))
+                .recurrenceFrequency(RecurrenceFrequency.WEEKLY)
+                .recurrenceStep(1)
+                .weeklyRecurrenceDays(EnumSet.of(startTime.getDayOfWeek()))
+                .recurrenceDuration(RecurrenceDuration.FOREVER)
+                .guestEmails(Set.of("ericka.ankunding@hotmail.com"))
+                .build();
+    }
 }
@@ -0,0 +1,73 @@
+package org.example.calendar.notification;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+// A wheel of 8 ticks of 1 second, a turn covers 8 seconds
+class HashedTimerWheelTest {
+    private HashedTimerWheel<String> underTest;
+    private static final long START = 1_000_000;
+
+    @BeforeEach
+    void setup() {
+        this.underTest = new HashedTimerWheel<>(Duration.ofSeconds(1), 8, START);
+    }
+
+    @Test
+    void shouldExpireTaskAtItsDeadlineButNotBefore() {
+        this.underTest.schedule("reminder", START + 2_500);
+
+        assertThat(this.underTest.advance(START + 2_000)).isEmpty();
+        assertThat(this.underTest.advance(START + 2_999)).isEmpty();
+        assertThat(this.underTest.advance(START + 3_000)).containsExactly("reminder");
+        assertThat(this.underTest.size()).isZero();
+    }
+
+    // The task is in the bucket of the current tick after the first turn, it expires after the second one
+    @Test
+    void shouldExpireTaskAfterMoreThanOneTurn() {
+        this.underTest.schedule("reminder", START + 20_000);
+
+        assertThat(this.underTest.advance(START + 12_000)).isEmpty();
+        assertThat(this.underTest.advance(START + 19_999)).isEmpty();
+        assertThat(this.underTest.advance(START + 20_000)).containsExactly("reminder");
+    }
+
+    @Test
+    void shouldExpireTasksOfMissedTicksInOrder() {
+        this.underTest.schedule("second", START + 5_000);
+        this.underTest.schedule("first", START + 1_000);
+        this.underTest.schedule("third", START + 11_000);
+
+        assertThat(this.underTest.advance(START + 30_000)).containsExactly("first", "second", "third");
+    }
+
+    // The ticks until START + 5 seconds were visited, the task is placed in the next one
+    @Test
+    void shouldExpireTaskWithPastDeadlineOnNextTick() {
+        this.underTest.advance(START + 5_000);
+        this.underTest.schedule("reminder", START);
+
+        assertThat(this.underTest.advance(START + 5_999)).isEmpty();
+        assertThat(this.underTest.advance(START + 6_000)).containsExactly("reminder");
+    }
+
+    @Test
+    void shouldNotScheduleTaskTwiceUntilItExpires() {
+        assertThat(this.underTest.schedule("reminder", START + 1_000)).isTrue();
+        assertThat(this.underTest.schedule("reminder", START + 1_000)).isFalse();
+        assertThat(this.underTest.advance(START + 1_000)).containsExactly("reminder");
+        assertThat(this.underTest.schedule("reminder", START + 2_000)).isTrue();
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenWheelSizeIsNotPowerOfTwo() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new HashedTimerWheel<>(Duration.ofSeconds(1), 10, START))
+                .withMessage("wheelSize must be a power of 2");
+    }
+}
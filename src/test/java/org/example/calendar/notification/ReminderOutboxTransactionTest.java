@@ -0,0 +1,94 @@
+package org.example.calendar.notification;
+
+import org.example.calendar.AbstractRepositoryTest;
+import org.example.calendar.event.slot.day.DayEventSlotRepository;
+import org.example.calendar.event.slot.day.projection.DayEventSlotReminderProjection;
+import org.example.calendar.event.slot.time.TimeEventSlotRepository;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotReminderProjection;
+import org.example.calendar.event.slot.time.projection.TimeEventSlotScheduledReminder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    The scheduled tasks of the NotificationService don't run in a transaction, and the connections of the pool don't
+    auto-commit. The test transaction of @JdbcTest is not started, each method of the outbox has to commit on its own,
+    and the rows are read back over a connection of their own. The rows are committed, the users are deleted after each
+    test, the events, the slots and the reminders are deleted with them.
+ */
+@Import({TimeEventSlotRepository.class, DayEventSlotRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {"/scripts/INIT_USERS.sql", "/scripts/INIT_EVENTS.sql"})
+@Sql(statements = "DELETE FROM users", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ReminderOutboxTransactionTest extends AbstractRepositoryTest {
+    @Autowired
+    private TimeEventSlotRepository timeEventSlotRepository;
+    @Autowired
+    private DayEventSlotRepository dayEventSlotRepository;
+    @Autowired
+    private DataSource dataSource;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int CLAIM_EXPIRY_IN_MINUTES = 10;
+
+    @Test
+    void shouldCommitTimeEventSlotReminders() throws SQLException {
+        LocalDateTime now = LocalDateTime.parse("2024-10-29T08:30:00");
+        LocalDateTime until = now.plusMinutes(5);
+        UUID slotId = UUID.fromString("f8020ab5-1bc8-4b45-9d77-1a3859c264dd");
+
+        assertThat(this.timeEventSlotRepository.enqueueReminders(now, until, List.of(30))).isEqualTo(1);
+        assertThat(countReminders("time_event_slot_reminders", slotId, "TRUE")).isEqualTo(1);
+
+        List<TimeEventSlotScheduledReminder> reminders = this.timeEventSlotRepository.findScheduledReminders(until, until.minusDays(1), MAX_ATTEMPTS);
+        List<TimeEventSlotReminderProjection> projections = this.timeEventSlotRepository.claimReminders(now, now.minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, reminders);
+        assertThat(projections).hasSize(1);
+        assertThat(countReminders("time_event_slot_reminders", slotId, "claimed_at IS NOT NULL AND attempts = 1")).isEqualTo(1);
+
+        this.timeEventSlotRepository.markRemindersSent(now, projections);
+        assertThat(countReminders("time_event_slot_reminders", slotId, "sent_at IS NOT NULL")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCommitDayEventSlotReminders() throws SQLException {
+        LocalDate today = LocalDate.parse("2024-10-11");
+        LocalDate tomorrow = today.plusDays(1);
+
+        assertThat(this.dayEventSlotRepository.enqueueReminders(today, tomorrow)).isEqualTo(1);
+
+        List<DayEventSlotReminderProjection> projections = this.dayEventSlotRepository.claimReminders(today.atStartOfDay(),
+                today.atStartOfDay().minusMinutes(CLAIM_EXPIRY_IN_MINUTES), MAX_ATTEMPTS, tomorrow, 100);
+        assertThat(projections).hasSize(1);
+        UUID slotId = projections.get(0).getId();
+        assertThat(countReminders("day_event_slot_reminders", slotId, "claimed_at IS NOT NULL AND attempts = 1")).isEqualTo(1);
+
+        this.dayEventSlotRepository.releaseReminders(projections);
+        assertThat(countReminders("day_event_slot_reminders", slotId, "claimed_at IS NULL AND sent_at IS NULL")).isEqualTo(1);
+    }
+
+    private int countReminders(String table, UUID slotId, String condition) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + table + " WHERE slot_id = ? AND " + condition;
+        try (Connection connection = this.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, slotId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+}
@@ -7,6 +7,10 @@ import org.junit.jupiter.api.Test;
 
 import net.datafaker.Faker;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -77,4 +81,12 @@ class UserRepositoryTest extends AbstractRepositoryTest {
     void shouldReturnEmptyOptionalWhenUserIsNotFoundById() {
         assertThat(this.underTest.findById(5L)).isEmpty();
     }
+
+    @Test
+    @Sql("/scripts/INIT_USERS.sql")
+    void shouldFindUserIdsByEmails() {
+        List<Long> ids = this.underTest.findIdsByEmails(Set.of("Delois.Abshire@hotmail.com", "ericka.ankunding@hotmail.com", "test@example.com"));
+
+        assertThat(ids).containsExactlyInAnyOrder(2L, 4L);
+    }
 }
@@ -0,0 +1,90 @@
+package org.example.calendar.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    The table must return the same times as ZonedDateTime. Every available timezone is checked at random times of the
+    range of the table and around every one of its transitions, where the gaps and overlaps are.
+ */
+class ZoneOffsetTableTest {
+    private static final long FROM = LocalDateTime.parse("1970-01-01T00:00").toEpochSecond(ZoneOffset.UTC);
+    private static final long UNTIL = LocalDateTime.parse("2100-01-01T00:00").toEpochSecond(ZoneOffset.UTC);
+    private static final long[] AROUND_TRANSITION = {-7200, -3601, -3600, -1800, -1, 0, 1, 1800, 3599, 3600, 7200};
+
+    @Test
+    void shouldConvertRandomTimesTheSameAsZonedDateTime() {
+        Random random = new Random(42);
+        for (String id : ZoneId.getAvailableZoneIds()) {
+            ZoneId zoneId = ZoneId.of(id);
+            ZoneOffsetTable table = ZoneOffsetTable.of(zoneId);
+            for (int i = 0; i < 500; i++) {
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(FROM + (long) (random.nextDouble() * (UNTIL - FROM)), random.nextInt(1_000_000_000), ZoneOffset.UTC);
+
+                assertThat(table.toUTC(dateTime)).as("%s %s", zoneId, dateTime).isEqualTo(toUTC(dateTime, zoneId));
+                assertThat(table.fromUTC(dateTime)).as("%s %s", zoneId, dateTime).isEqualTo(fromUTC(dateTime, zoneId));
+            }
+        }
+    }
+
+    @Test
+    void shouldConvertTimesAroundTransitionsTheSameAsZonedDateTime() {
+        for (String id : ZoneId.getAvailableZoneIds()) {
+            ZoneId zoneId = ZoneId.of(id);
+            ZoneRules rules = zoneId.getRules();
+            ZoneOffsetTable table = ZoneOffsetTable.of(zoneId);
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FROM + 86400));
+            while (transition != null && transition.toEpochSecond() < UNTIL - 86400) {
+                for (LocalDateTime boundary : new LocalDateTime[]{transition.getDateTimeBefore(), transition.getDateTimeAfter()}) {
+                    for (long seconds : AROUND_TRANSITION) {
+                        LocalDateTime local = boundary.plusSeconds(seconds);
+                        LocalDateTime utc = LocalDateTime.ofEpochSecond(transition.toEpochSecond() + seconds, 0, ZoneOffset.UTC);
+
+                        assertThat(table.toUTC(local)).as("%s %s", zoneId, local).isEqualTo(toUTC(local, zoneId));
+                        assertThat(table.fromUTC(utc)).as("%s %s", zoneId, utc).isEqualTo(fromUTC(utc, zoneId));
+                    }
+                }
+                transition = rules.nextTransition(transition.getInstant());
+            }
+        }
+    }
+
+    // The examples of EventController
+    @Test
+    void shouldConvertDSTGapAndOverlapToUTC() {
+        ZoneId zoneId = ZoneId.of("America/New_York");
+
+        assertThat(DateUtils.convertToUTC(LocalDateTime.parse("2024-03-10T02:30"), zoneId)).isEqualTo(LocalDateTime.parse("2024-03-10T07:30"));
+        assertThat(DateUtils.convertToUTC(LocalDateTime.parse("2024-11-03T01:30"), zoneId)).isEqualTo(LocalDateTime.parse("2024-11-03T05:30"));
+        assertThat(DateUtils.convertFromUTC(LocalDateTime.parse("2024-11-03T06:30"), zoneId)).isEqualTo(LocalDateTime.parse("2024-11-03T01:30"));
+    }
+
+    @Test
+    void shouldFallBackToZonedDateTimeOutsideOfTheTable() {
+        ZoneId zoneId = ZoneId.of("Europe/Athens");
+        LocalDateTime before = LocalDateTime.parse("1969-07-20T20:17");
+        LocalDateTime after = LocalDateTime.parse("2150-07-01T12:00");
+
+        assertThat(ZoneOffsetTable.of(zoneId).toUTC(before)).isNull();
+        assertThat(ZoneOffsetTable.of(zoneId).fromUTC(after)).isNull();
+        assertThat(DateUtils.convertToUTC(before, zoneId)).isEqualTo(toUTC(before, zoneId));
+        assertThat(DateUtils.convertFromUTC(after, zoneId)).isEqualTo(fromUTC(after, zoneId));
+    }
+
+    private LocalDateTime toUTC(LocalDateTime dateTime, ZoneId zoneId) {
+        return dateTime.atZone(zoneId).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private LocalDateTime fromUTC(LocalDateTime dateTime, ZoneId zoneId) {
+        return dateTime.atZone(ZoneOffset.UTC).withZoneSameInstant(zoneId).toLocalDateTime();
+    }
+}
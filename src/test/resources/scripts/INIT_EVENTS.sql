@@ -1,3 +1,7 @@
+-- The slots are inserted directly, the repositories would create the partitions of their years
+SELECT create_event_slot_partitions('day_event_slots', 2024, 2024);
+SELECT create_event_slot_partitions('time_event_slots', 2024, 2024);
+
 INSERT INTO day_events (id, organizer_id, start_date, end_date, recurrence_frequency, recurrence_step,
                         monthly_recurrence_type, weekly_recurrence_days, recurrence_duration, recurrence_end_date,
                         number_of_occurrences)
@@ -20,6 +24,9 @@ VALUES ('5ff9cedf-ee36-4ec2-aa2e-5b6a16708ab0', '4472d36c-2051-40e3-a2cf-00c6497
 
 INSERT INTO day_event_slot_guest_emails
 VALUES ('9c6f34b8-4128-42ec-beb1-99c35af8d7fa', 'ericka.ankunding@hotmail.com');
+UPDATE day_event_slots
+SET guests_overridden = TRUE
+WHERE id = '9c6f34b8-4128-42ec-beb1-99c35af8d7fa';
 
 -- UTC times
 INSERT INTO time_events (id, organizer_id, start_time, start_time_zone_id, end_time, end_time_zone_id,
@@ -45,4 +52,7 @@ VALUES ('3075c6eb-8028-4f99-8c6c-27db1bb5cc43', '0c9d6398-a6de-47f0-8328-04a2f3c
 INSERT INTO time_event_slot_guest_emails
 VALUES ('3075c6eb-8028-4f99-8c6c-27db1bb5cc43', 'ericka.ankunding@hotmail.com');
 INSERT INTO time_event_slot_guest_emails
-VALUES ('f8020ab5-1bc8-4b45-9d77-1a3859c264dd', 'ericka.ankunding@hotmail.com');
\ No newline at end of file
+VALUES ('f8020ab5-1bc8-4b45-9d77-1a3859c264dd', 'ericka.ankunding@hotmail.com');
+UPDATE time_event_slots
+SET guests_overridden = TRUE
+WHERE id IN ('3075c6eb-8028-4f99-8c6c-27db1bb5cc43', 'f8020ab5-1bc8-4b45-9d77-1a3859c264dd');
@@ -0,0 +1,48 @@
+-- 10.000 users, 100.000 weekly time events with 10 slots each (1.000.000 slots) and 3 guests per event. The first
+-- slot of every event has its own guest list (guests_overridden = TRUE) with 2 guests. Ids are derived from the row
+-- numbers, so the dataset is the same on every run.
+INSERT INTO users (id, email, username, password)
+SELECT i, 'user' || i || '@example.com', 'user' || i, 'password'
+FROM generate_series(100, 10099) i;
+
+INSERT INTO time_events (id, organizer_id, start_time, start_time_zone_id, end_time, end_time_zone_id,
+                         recurrence_frequency, recurrence_step, monthly_recurrence_type, weekly_recurrence_days,
+                         recurrence_duration, recurrence_end_date, number_of_occurrences)
+SELECT md5('event' || i)::uuid,
+       100 + i % 10000,
+       TIMESTAMP '2024-01-01 09:00:00' + (i % 365) * INTERVAL '1 day',
+       'UTC',
+       TIMESTAMP '2024-01-01 10:00:00' + (i % 365) * INTERVAL '1 day',
+       'UTC',
+       'WEEKLY', 1, NULL, NULL, 'N_OCCURRENCES', NULL, 10
+FROM generate_series(0, 99999) i;
+
+SELECT create_event_slot_partitions('time_event_slots', 2024, 2025);
+
+INSERT INTO time_event_slots (id, event_id, title, location, description, start_time, start_time_zone_id, end_time,
+                              end_time_zone_id, guests_overridden)
+SELECT md5('slot' || i || '-' || j)::uuid,
+       md5('event' || i)::uuid,
+       'Event title',
+       'Location',
+       'Description',
+       TIMESTAMP '2024-01-01 09:00:00' + (i % 365) * INTERVAL '1 day' + j * INTERVAL '1 week',
+       'UTC',
+       TIMESTAMP '2024-01-01 10:00:00' + (i % 365) * INTERVAL '1 day' + j * INTERVAL '1 week',
+       'UTC',
+       j = 0
+FROM generate_series(0, 99999) i, generate_series(0, 9) j;
+
+INSERT INTO time_event_guest_emails (event_id, email)
+SELECT md5('event' || i)::uuid, 'user' || (100 + (i * 7 + g * 13 + 1) % 10000) || '@example.com'
+FROM generate_series(0, 99999) i, generate_series(0, 2) g;
+
+INSERT INTO time_event_slot_guest_emails (event_slot_id, email)
+SELECT md5('slot' || i || '-0')::uuid, 'user' || (100 + (i * 11 + g * 17 + 1) % 10000) || '@example.com'
+FROM generate_series(0, 99999) i, generate_series(0, 1) g;
+
+ANALYZE users;
+ANALYZE time_events;
+ANALYZE time_event_slots;
+ANALYZE time_event_guest_emails;
+ANALYZE time_event_slot_guest_emails;